@@ -0,0 +1,33 @@
+package com.andreas.webapp.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Benchmarks of the AuthorService hot paths against a seeded database
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class AuthorServiceBenchmark {
+
+	/**
+	 * substring search on both names, e.g. "First12" also matches "First120", "First1234", ...
+	 */
+	@Benchmark
+	public ResponseEntity<Object> getByNames(SeededDatabase db) throws Exception {
+		int authorID = 1 + ThreadLocalRandom.current().nextInt(db.authorCount);
+		return db.inRequest(() -> db.authService.getByNamesService("First" + authorID, "Last" + authorID));
+	}
+}
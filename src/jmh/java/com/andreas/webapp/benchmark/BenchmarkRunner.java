@@ -0,0 +1,59 @@
+package com.andreas.webapp.benchmark;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark profile (mvn -Pbenchmark test-compile exec:exec)
+ * Accepts the usual JMH command line options, always adds the GC profiler, and prints a summary
+ * 	with throughput (ops/s), p99 latency and allocation rate of every benchmark after the JMH report
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		Collection<RunResult> results = new Runner(options).run();
+
+		System.out.println();
+		System.out.println(String.format(Locale.ROOT, "%-60s %14s %14s %14s %14s",
+				"Benchmark", "ops/s", "p99 [us]", "alloc [MB/s]", "alloc [B/op]"));
+		for(RunResult result:results) {
+			Result<?> primary = result.getPrimaryResult();
+			double meanMicros = primary.getScore();
+			double p99Micros = primary.getStatistics().getPercentile(99);
+			StringBuilder name = new StringBuilder(result.getParams().getBenchmark()
+					.replaceFirst("^.*\\.benchmark\\.", ""));
+			for(String param:result.getParams().getParamsKeys()) {
+				name.append(' ').append(param).append('=').append(result.getParams().getParam(param));
+			}
+			System.out.println(String.format(Locale.ROOT, "%-60s %14.1f %14.1f %14.1f %14.0f", name,
+					meanMicros > 0 ? 1_000_000 / meanMicros : 0, p99Micros,
+					secondary(result.getSecondaryResults(), "gc.alloc.rate"),
+					secondary(result.getSecondaryResults(), "gc.alloc.rate.norm")));
+		}
+	}
+
+	/**
+	 * the score of a secondary result, the GC profiler prefixes its labels differently between versions
+	 */
+	private static double secondary(Map<String,Result> results, String label) {
+		for(Map.Entry<String,Result> entry:results.entrySet()) {
+			if(entry.getKey().endsWith(label)) {
+				return entry.getValue().getScore();
+			}
+		}
+		return Double.NaN;
+	}
+}
@@ -0,0 +1,74 @@
+package com.andreas.webapp.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.andreas.webapp.dao.BodyCodec;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compression and decompression of a document body with the codecs of the BodyCodec
+ * The body is 'size' bytes of text built from a fixed vocabulary with a fixed seed, 
+ * 	the compression ratio of every codec is printed once at setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class BodyCodecBenchmark {
+
+	private static final String[] WORDS = ("the of and to in a is that for it as was with be by on not he this are or "
+			+ "his from at which but have an they you were their one all we can her has there been if more when will "
+			+ "would who so no citation document author reference analysis method result model data study table "
+			+ "figure section however therefore between within significant approach system network graph").split(" ");
+
+	@Param({"lz4", "zstd"})
+	public String codec;
+	@Param({"16384"})
+	public int size;
+
+	private BodyCodec bodyCodec;
+	private String body;
+	private BodyCodec.Encoded encoded;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		StringBuilder text = new StringBuilder(size + 16);
+		Random random = new Random(42);
+		while(text.length() < size) {
+			text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+		}
+		body = text.substring(0, size);
+		bodyCodec = new BodyCodec(codec, 0, 9, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+		encoded = bodyCodec.encode(body);
+		System.out.printf("%n%s: %d -> %d bytes (ratio %.3f)%n", codec, encoded.rawLength(), encoded.bytes().length,
+				(double) encoded.bytes().length / encoded.rawLength());
+	}
+
+	@Benchmark
+	public BodyCodec.Encoded encode() {
+		return bodyCodec.encode(body);
+	}
+
+	@Benchmark
+	public String decode() {
+		return bodyCodec.decodeToString(encoded.encoding(), encoded.bytes(), encoded.rawLength());
+	}
+}
@@ -0,0 +1,81 @@
+package com.andreas.webapp.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Benchmarks of the DocumentService hot paths against a seeded database
+ * Every call goes through the service, i.e. validation, repositories, caches and indexes,
+ * 	and runs with its own EntityManager like a web request
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class DocumentServiceBenchmark {
+
+	/**
+	 * creates a new document with two authors and one reference, the table grows during the run
+	 */
+	@Benchmark
+	public ResponseEntity<Object> createDocument(SeededDatabase db) throws Exception {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String payload = "{\"documentID\":0,\"documentTitle\":\"Benchmark title\",\"documentBody\":\""
+				+ SeededDatabase.BODY + "\",\"authors\":[" + (1 + random.nextInt(db.authorCount)) + ","
+				+ (1 + random.nextInt(db.authorCount)) + "],\"references\":[" + (1 + random.nextInt(db.rows)) + "]}";
+		return db.inRequest(() -> db.docService.createDocumentService(
+				new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> getDocumentById(SeededDatabase db) throws Exception {
+		int documentID = 1 + ThreadLocalRandom.current().nextInt(db.rows);
+		return db.inRequest(() -> db.docService.getDocumentByIdService(documentID));
+	}
+
+	/**
+	 * the whole table per call, expect seconds per operation at 1M rows
+	 */
+	@Benchmark
+	public ResponseEntity<Object> getAllDocuments(SeededDatabase db) throws Exception {
+		return db.inRequest(() -> db.docService.getAllDocumentsService());
+	}
+
+	/**
+	 * adds a reference that isn't seeded and removes it again, so the table stays the same size
+	 */
+	@Benchmark
+	public ResponseEntity<Object> addAndRemoveReference(SeededDatabase db) throws Exception {
+		int referencingID = 4 + ThreadLocalRandom.current().nextInt(db.rows - 3);
+		db.inRequest(() -> db.docService.addReferenceToDocumentService(referencingID, 1));
+		return db.inRequest(() -> db.docService.removeReferenceFromDocumentService(referencingID, 1));
+	}
+
+	/**
+	 * adds an author that isn't seeded for the document and removes it again
+	 * 	(document i is seeded with the authors 1 + i % authorCount and 1 + (i / 2) % authorCount)
+	 */
+	@Benchmark
+	public ResponseEntity<Object> addAndRemoveAuthor(SeededDatabase db) throws Exception {
+		int documentID = 1 + ThreadLocalRandom.current().nextInt(db.rows);
+		int authorID = 1 + (documentID + 1) % db.authorCount;
+		if(authorID == 1 + (documentID / 2) % db.authorCount) {
+			authorID = 1 + (documentID + 2) % db.authorCount;
+		}
+		final int addedID = authorID;
+		db.inRequest(() -> db.docService.addAuthorToDocumentService(documentID, addedID));
+		return db.inRequest(() -> db.docService.removeAuthorFromDocumentService(documentID, addedID));
+	}
+}
@@ -0,0 +1,220 @@
+package com.andreas.webapp.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.andreas.webapp.WebappApplication;
+
+/**
+ * HTTP load test of the platform thread mode against the virtual thread mode (spring profile 'virtual')
+ *
+ * For each mode the application is started on a random port with its own seeded in-memory database,
+ * 	then 'concurrency' clients send requests for 'seconds' seconds: 'createShare' percent POST /createDoc,
+ * 	the rest GET /getAllDocs. Throughput and latency percentiles of both runs are printed at the end
+ *
+ * An in-memory H2 never blocks, so every JDBC statement is delayed by 'dbLatencyMs' (a sleep in a
+ * 	DataSource wrapper) to stand in for the network round trip to a real database server
+ *
+ * Arguments (key=value, all optional): concurrency=400 seconds=20 rows=200 dbLatencyMs=2 createShare=10
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws Exception {
+		Map<String,Integer> options = new HashMap<>(Map.of("concurrency", 400, "seconds", 20, "rows", 200,
+				"dbLatencyMs", 2, "createShare", 10));
+		for(String arg:args) {
+			String[] keyValue = arg.split("=", 2);
+			if(keyValue.length != 2 || !options.containsKey(keyValue[0])) {
+				throw new IllegalArgumentException("Unknown argument '" + arg + "', expected one of " + options.keySet());
+			}
+			options.put(keyValue[0], Integer.parseInt(keyValue[1]));
+		}
+
+		List<String> report = new ArrayList<>();
+		report.add(run("platform", options));
+		if(Runtime.version().feature() >= 21) {
+			report.add(run("virtual", options));
+		}else {
+			report.add("virtual: skipped, virtual threads need a Java 21 runtime (running on "
+					+ Runtime.version() + ")");
+		}
+
+		System.out.println();
+		System.out.println("Load test " + options);
+		System.out.println(String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s %8s",
+				"mode", "requests", "req/s", "p50 [ms]", "p99 [ms]", "max [ms]", "errors"));
+		report.forEach(System.out::println);
+	}
+
+	private static String run(String mode, Map<String,Integer> options) throws Exception {
+		SpringApplicationBuilder builder = new SpringApplicationBuilder(WebappApplication.class)
+				.logStartupInfo(false)
+				.properties("server.port=0",
+						"spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+						"spring.h2.console.enabled=false",
+						"logging.level.root=WARN")
+				.initializers(context -> context.getBeanFactory().addBeanPostProcessor(
+						delayStatements(options.get("dbLatencyMs"))));
+		if(mode.equals("virtual")) {
+			builder.profiles("virtual");
+		}
+
+		try(ConfigurableApplicationContext context = builder.run()){
+			int authorCount = SeededDatabase.seed(context, options.get("rows"));
+			String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			return mode + runClients(baseUrl, authorCount, options);
+		}
+	}
+
+	/**
+	 * sends requests from 'concurrency' threads for 'seconds' seconds
+	 * @return - the result columns of the report
+	 */
+	private static String runClients(String baseUrl, int authorCount, Map<String,Integer> options)
+			throws InterruptedException {
+		int concurrency = options.get("concurrency");
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.get("seconds"));
+		long[][] latencies = new long[concurrency][];
+		int[] counts = new int[concurrency];
+		AtomicInteger errors = new AtomicInteger();
+
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+		for(int c = 0; c < concurrency; c++) {
+			final int slot = c;
+			clients.execute(() -> {
+				long[] own = new long[1024];
+				int count = 0;
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while(System.nanoTime() < end) {
+					HttpRequest request = random.nextInt(100) < options.get("createShare") ?
+							createRequest(baseUrl, 1 + random.nextInt(authorCount)) :
+							HttpRequest.newBuilder(URI.create(baseUrl + "/getAllDocs")).build();
+					long start = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						if(response.statusCode() != 200) {
+							errors.incrementAndGet();
+						}
+					}catch(Exception e) {
+						errors.incrementAndGet();
+					}
+					if(count == own.length) {
+						own = Arrays.copyOf(own, count * 2);
+					}
+					own[count++] = System.nanoTime() - start;
+				}
+				latencies[slot] = own;
+				counts[slot] = count;
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(options.get("seconds") + 120L, TimeUnit.SECONDS);
+
+		int total = Arrays.stream(counts).sum();
+		long[] all = new long[total];
+		int position = 0;
+		for(int c = 0; c < concurrency; c++) {
+			if(latencies[c] != null) {
+				System.arraycopy(latencies[c], 0, all, position, counts[c]);
+				position += counts[c];
+			}
+		}
+		Arrays.sort(all);
+		return String.format(Locale.ROOT, "%10d %10.1f %10.1f %10.1f %10.1f %8d", total,
+				(double) total / options.get("seconds"), percentileMillis(all, 0.50),
+				percentileMillis(all, 0.99), percentileMillis(all, 1.0), errors.get());
+	}
+
+	private static HttpRequest createRequest(String baseUrl, int authorID) {
+		String payload = "{\"documentID\":0,\"documentTitle\":\"Load test\",\"documentBody\":\""
+				+ SeededDatabase.BODY + "\",\"authors\":[" + authorID + "]}";
+		return HttpRequest.newBuilder(URI.create(baseUrl + "/createDoc"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(payload))
+				.build();
+	}
+
+	private static double percentileMillis(long[] sortedNanos, double percentile) {
+		if(sortedNanos.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+		return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	/**
+	 * wraps the DataSource, so that every statement execution sleeps 'latencyMs' before it runs
+	 */
+	private static BeanPostProcessor delayStatements(int latencyMs) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if(latencyMs <= 0 || !(bean instanceof DataSource dataSource)) {
+					return bean;
+				}
+				return wrap(DataSource.class, dataSource, (target, method, args) -> {
+					Object result = method.invoke(target, args);
+					return result instanceof Connection connection ?
+							wrap(Connection.class, connection, (con, conMethod, conArgs) -> {
+								Object created = conMethod.invoke(con, conArgs);
+								return created instanceof Statement statement ?
+										wrapStatement(conMethod.getReturnType(), statement, latencyMs) : created;
+							}) : result;
+				});
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T wrapStatement(Class<?> type, Statement statement, int latencyMs) {
+		return (T) wrap((Class<Object>) type, statement, (target, method, args) -> {
+			if(method.getName().startsWith("execute")) {
+				Thread.sleep(latencyMs);
+			}
+			return method.invoke(target, args);
+		});
+	}
+
+	interface Delegating {
+		Object invoke(Object target, Method method, Object[] args) throws Throwable;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T wrap(Class<T> type, Object target, Delegating handler) {
+		InvocationHandler invocationHandler = (proxy, method, args) -> {
+			try {
+				return handler.invoke(target, method, args);
+			}catch(InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		return (T) Proxy.newProxyInstance(LoadTest.class.getClassLoader(), new Class<?>[] {type}, invocationHandler);
+	}
+}
@@ -0,0 +1,83 @@
+package com.andreas.webapp.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.StreamUtils;
+
+import com.andreas.webapp.model.DocumentPayload;
+import com.andreas.webapp.services.DocumentService;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Parsing of the create payload for a document with a multi-MB body
+ * Compares the former path (request body read into a String, parsed into a Gson tree, fields 
+ * 	pulled out by name) with the typed path of DocumentService.readPayload, the bytes allocated 
+ * 	per request are the alloc [B/op] column of the GC profiler
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PayloadParsingBenchmark {
+
+	@Param({"4194304"})
+	public int size;
+
+	private final Gson gson = new Gson();
+	private byte[] request;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		StringBuilder body = new StringBuilder(size);
+		for(int i = 0; i < size; i++) {
+			body.append((char) ('a' + i % 26));
+		}
+		request = ("{\"documentID\":3,\"documentTitle\":\"Generic title\",\"documentBody\":\"" + body 
+				+ "\",\"authors\":[1,2],\"references\":[1]}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public int gsonTree() throws Exception {
+		String payload = StreamUtils.copyToString(new ByteArrayInputStream(request), StandardCharsets.UTF_8);
+		JsonObject jsonObj = gson.fromJson(payload, JsonObject.class);
+		int checksum = jsonObj.get("documentID").getAsInt();
+		for(JsonElement jsonEl:jsonObj.get("authors").getAsJsonArray()) {
+			checksum += jsonEl.getAsInt();
+		}
+		for(JsonElement jsonEl:jsonObj.get("references").getAsJsonArray()) {
+			checksum += jsonEl.getAsInt();
+		}
+		return checksum + jsonObj.get("documentBody").getAsString().length();
+	}
+
+	@Benchmark
+	public int typedStream() throws Exception {
+		DocumentPayload item = DocumentService.readPayload(new ByteArrayInputStream(request));
+		int checksum = item.getDocumentID();
+		for(int authorID:item.getAuthors()) {
+			checksum += authorID;
+		}
+		for(int referenceID:item.getReferences()) {
+			checksum += referenceID;
+		}
+		return checksum + item.getDocumentBody().length();
+	}
+}
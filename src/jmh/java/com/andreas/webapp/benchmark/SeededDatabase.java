@@ -0,0 +1,139 @@
+package com.andreas.webapp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.andreas.webapp.WebappApplication;
+import com.andreas.webapp.services.AuthorNameIndex;
+import com.andreas.webapp.services.AuthorService;
+import com.andreas.webapp.services.CitationGraph;
+import com.andreas.webapp.services.DocumentSearchIndex;
+import com.andreas.webapp.services.DocumentService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The application context (without the web layer) on top of an in-memory H2 database
+ * 	that is seeded with 'rows' documents before the benchmarks of a trial run
+ *
+ * - one author per AUTHORS_PER_DOCUMENT documents, named "First<i>" "Last<i>"
+ * - every document has two authors and references the previous document and the one at half its ID
+ * - documents and authors get the IDs 1..n, so random IDs can be drawn without a query
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+	final static int AUTHORS_PER_DOCUMENT = 10;
+	final static int SEED_BATCH_SIZE = 10000;
+	final static String BODY = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod "
+			+ "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud "
+			+ "exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat.";
+
+	@Param({"1000", "100000", "1000000"})
+	public int rows;
+
+	public int authorCount;
+	public DocumentService docService;
+	public AuthorService authService;
+	private ConfigurableApplicationContext context;
+	private EntityManagerFactory entityManagerFactory;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(WebappApplication.class)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+						"spring.h2.console.enabled=false",
+						"logging.level.root=WARN")
+				.run();
+		docService = context.getBean(DocumentService.class);
+		authService = context.getBean(AuthorService.class);
+		entityManagerFactory = context.getBean(EntityManagerFactory.class);
+		authorCount = seed(context, rows);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/**
+	 * Runs the call like a web request does: the application relies on spring.jpa.open-in-view, 
+	 * 	so one EntityManager is bound to the thread for the whole call
+	 * @param call - the service call
+	 * @return - the result of the call
+	 */
+	public <T> T inRequest(Callable<T> call) throws Exception {
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+		try {
+			return call.call();
+		}finally {
+			TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+			entityManager.close();
+		}
+	}
+
+	/**
+	 * Seeds the (empty) database of a started application as described above, 
+	 * 	and rebuilds the in-memory indexes, which were built on the empty database at startup
+	 * @param context - the started application
+	 * @param rows - number of documents
+	 * @return - number of authors
+	 */
+	static int seed(ConfigurableApplicationContext context, int rows) {
+		int authorCount = Math.max(2, rows / AUTHORS_PER_DOCUMENT);
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+
+		for(int i = 1; i <= authorCount; i++) {
+			batch.add(new Object[] {"First" + i, "Last" + i});
+			flushIfFull(jdbc, "INSERT INTO AUTHOR(FIRST_NAME,LAST_NAME) VALUES (?,?)", batch, i == authorCount);
+		}
+		for(int i = 1; i <= rows; i++) {
+			batch.add(new Object[] {"Title " + i, BODY});
+			flushIfFull(jdbc, "INSERT INTO DOCUMENT(DOCUMENT_TITLE,DOCUMENT_BODY) VALUES (?,?)", batch, i == rows);
+		}
+		for(int i = 1; i <= rows; i++) {
+			batch.add(new Object[] {i, 1 + i % authorCount});
+			batch.add(new Object[] {i, 1 + (i / 2) % authorCount});
+			flushIfFull(jdbc, "MERGE INTO AUTHORED_BY(DOCUMENTID,AUTHORID) VALUES (?,?)", batch, i == rows);
+		}
+		for(int i = 2; i <= rows; i++) {
+			batch.add(new Object[] {i, i - 1});
+			if(i / 2 != i - 1) {
+				batch.add(new Object[] {i, i / 2});
+			}
+			flushIfFull(jdbc, "INSERT INTO REFERENCED_BY(REFERENCING_DOCUMENT,DOCUMENT_REFERENCED) VALUES (?,?)",
+					batch, i == rows);
+		}
+
+		context.getBean(DocumentSearchIndex.class).rebuild();
+		context.getBean(AuthorNameIndex.class).rebuild();
+		context.getBean(CitationGraph.class).rebuild();
+		return authorCount;
+	}
+
+	private static void flushIfFull(JdbcTemplate jdbc, String sql, List<Object[]> batch, boolean last) {
+		if(batch.size() >= SEED_BATCH_SIZE || (last && !batch.isEmpty())) {
+			jdbc.batchUpdate(sql, batch);
+			batch.clear();
+		}
+	}
+}
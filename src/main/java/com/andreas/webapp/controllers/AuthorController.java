@@ -1,8 +1,11 @@
 package com.andreas.webapp.controllers;
 
+import java.io.IOException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,6 +18,8 @@ import org.springframework.web.bind.annotation.RestController;
 import com.andreas.webapp.model.Author;
 import com.andreas.webapp.services.AuthorService;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController("author")
 public class AuthorController {
 	
@@ -101,6 +106,56 @@ public class AuthorController {
 		}
 	}
 	
+	/**
+	 * An API endpoint used to retrieve one page of authors, ordered by their ID
+	 * Pagination is keyset based: pass the 'nextAfterID' of a page as 'afterID' to get the next one
+	 * RequestMethod: GET
+	 * @param afterID - ID of the last author of the previous page (0 or omitted for the first page)
+	 * @param pageSize - maximum number of authors in the page
+	 * @return
+	 * - If nothing unforseen happens, a ResponseEntity with the page and the 'afterID' of the next 
+	 *    page is returned
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getAuthPage")
+	@ResponseBody
+	public ResponseEntity<Object> getAuthorsPage(@RequestParam(value="afterID", defaultValue="0") int afterID,
+			@RequestParam(value="pageSize", defaultValue="100") int pageSize) {
+		
+		try {
+			ResponseEntity<Object> authorPage = authService.getAuthorsPageService(afterID, pageSize);
+			return authorPage;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/getAuthPage' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/getAuthPage': "+e.toString());
+		}
+	}
+	
+	/**
+	 * An API endpoint that streams ALL existing authors as NDJSON (one JSON author per line)
+	 * RequestMethod: GET
+	 * @param response - the response the authors are streamed to
+	 * - In case there is an error before anything was streamed, the response contains the 
+	 *    ErrorMessage instead
+	 */
+	@GetMapping(path="/streamAllAuth", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void streamAllAuthors(HttpServletResponse response) throws IOException {
+		
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		try {
+			authService.streamAllAuthorsService(response.getOutputStream());
+		}catch(DataAccessException e) {
+			DocumentController.writeStreamError(response,
+					"There was an error in 'author/streamAllAuth' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			DocumentController.writeStreamError(response,"Unknown Error in 'author/streamAllAuth': "+e.toString());
+		}
+	}
+	
 	/**
 	 * API endpoint that can find an author based on first and last name, 
 	 * first and last name don't need to be completed, it's sufficient if a part corresponds
@@ -130,6 +185,144 @@ public class AuthorController {
 		}
 	}
 	
+	/**
+	 * API endpoint for an autocomplete of author names, returns the authors whose first name, 
+	 * last name or full name start with the provided prefix (case insensitive)
+	 * RequestMethod: GET
+	 * 
+	 * @param prefix - the beginning of the name
+	 * @param limit - maximum number of suggestions
+	 * @return
+	 * - A ResponseEntity with a List of at most 'limit' matching authors is returned
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/autocompleteAuth")
+	@ResponseBody
+	public ResponseEntity<Object> autocomplete(@RequestParam("prefix") String prefix, 
+			@RequestParam(value="limit", defaultValue="10") int limit) {
+		
+		try {
+			ResponseEntity<Object> suggestions = authService.autocompleteService(prefix, limit);
+			return suggestions;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/autocompleteAuth' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/autocompleteAuth': "+e.toString());
+		}
+	}
+	
+	/**
+	 * API endpoint that returns the citation metrics of an author (h-index, citations and number 
+	 * of documents), they are computed in the background by the citation analytics
+	 * RequestMethod: GET
+	 * 
+	 * @param authorID - ID of the author
+	 * @return
+	 * - A ResponseEntity with the metrics and the time they were computed is returned
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getAuthMetrics")
+	@ResponseBody
+	public ResponseEntity<Object> getAuthorMetrics(@RequestParam("authorID") int authorID) {
+		
+		try {
+			ResponseEntity<Object> metrics = authService.getAuthorMetricsService(authorID);
+			return metrics;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/getAuthMetrics' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/getAuthMetrics': "+e.toString());
+		}
+	}
+	
+	/**
+	 * API endpoint that returns the authors with the highest h-index
+	 * RequestMethod: GET
+	 * 
+	 * @param limit - maximum number of authors
+	 * @return
+	 * - A ResponseEntity with the metrics of the top authors is returned, highest first
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getTopAuths")
+	@ResponseBody
+	public ResponseEntity<Object> getTopAuthors(@RequestParam(value="limit", defaultValue="10") int limit) {
+		
+		try {
+			ResponseEntity<Object> topAuthors = authService.getTopAuthorsService(limit);
+			return topAuthors;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/getTopAuths' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/getTopAuths': "+e.toString());
+		}
+	}
+	
+	/**
+	 * API endpoint that returns the coauthors of an author, the most frequent collaborators first
+	 * RequestMethod: GET
+	 * 
+	 * @param authorID - ID of the author
+	 * @param limit - maximum number of coauthors
+	 * @return
+	 * - A ResponseEntity with the coauthors and their number of collaborations is returned
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCoauthors")
+	@ResponseBody
+	public ResponseEntity<Object> getCoauthors(@RequestParam("authorID") int authorID,
+			@RequestParam(value="limit", defaultValue="100") int limit) {
+		
+		try {
+			ResponseEntity<Object> coauthors = authService.getCoauthorsService(authorID, limit);
+			return coauthors;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/getCoauthors' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/getCoauthors': "+e.toString());
+		}
+	}
+	
+	/**
+	 * API endpoint that returns the shortest chain of collaborations between two authors
+	 * RequestMethod: GET
+	 * 
+	 * @param fromID - ID of the author the chain starts at
+	 * @param toID - ID of the author the chain ends at
+	 * @return
+	 * - A ResponseEntity with the Author-IDs on the chain is returned, including both ends
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCollaborationPath")
+	@ResponseBody
+	public ResponseEntity<Object> getCollaborationPath(@RequestParam("fromID") int fromID,
+			@RequestParam("toID") int toID) {
+		
+		try {
+			ResponseEntity<Object> collaborationPath = authService.getCollaborationPathService(fromID, toID);
+			return collaborationPath;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'author/getCollaborationPath' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'author/getCollaborationPath': "+e.toString());
+		}
+	}
+	
 	/**
 	 * An API endpoint to delete the author corresponding to the provided ID
 	 * RequestMethod: DELETE
@@ -1,22 +1,36 @@
 package com.andreas.webapp.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.andreas.webapp.dao.AuthorRepo;
 import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.services.ContentVersions;
+import com.andreas.webapp.services.DocumentIngestQueue;
 import com.andreas.webapp.services.DocumentService;
 import com.google.gson.Gson;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController("document")
 public class DocumentController {
 	final static Gson globGson = new Gson();
@@ -26,20 +40,30 @@ public class DocumentController {
 	AuthorRepo authRepo;
 	@Autowired
 	DocumentService docService;
+	@Autowired
+	ContentVersions versions;
+	@Autowired
+	DocumentIngestQueue ingestQueue;
 	
 	/**
 	 * An API endpoint used for creating a new document
 	 * RequestPArameter: POST
-	 * @param payload - a JSON String (won't accept any other String)
+	 * @param payload - the request body, a JSON object (won't accept anything else), it is read 
+	 * 				as a stream
 	 * @returns:
 	 * - In case the document is successfully created and stored in the database, the created Document
 	 *    is returned as ResponseEntity
+	 * - In the asynchronous mode (krieger.ingest.async), the document is validated and queued, 
+	 *    status 202 with a ticket for 'getCreateStatus' is returned (503 if the queue is full)
 	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
 	 *    ErrorMessage or another remark is returned
 	 */
 	@PostMapping(path="/createDoc", consumes = "application/json")
-	public ResponseEntity<Object> createDocument(@RequestBody String payload) {
+	public ResponseEntity<Object> createDocument(InputStream payload) {
 		try {
+			if(ingestQueue.isEnabled()) {
+				return ingestQueue.submitService(payload);
+			}
 			ResponseEntity<Object> createdDocument = docService.createDocumentService(payload);
 			return createdDocument;
 		}catch(DataAccessException e) {
@@ -52,20 +76,75 @@ public class DocumentController {
 	}
 	
 	
+	/**
+	 * An API endpoint that reports the state of a document submitted to the asynchronous 'createDoc'
+	 * RequestPArameter: GET
+	 * @param ticket - the ticket returned by 'createDoc'
+	 * @return - the ticket with its status (QUEUED, CREATED, REJECTED, FAILED), and the 
+	 * 				document-ID once created
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCreateStatus")
+	public ResponseEntity<Object> getCreateStatus(@RequestParam("ticket") String ticket) {
+		try {
+			return ingestQueue.getTicketService(ticket);
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getCreateStatus': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint used for creating many documents at once
+	 * RequestPArameter: POST
+	 * @param payload - a JSON array or NDJSON (one JSON document per line), every document has 
+	 * 				the same format as for 'createDoc'
+	 * @returns:
+	 * - A ResponseEntity with a report containing the result of every document in the payload
+	 * - In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    ErrorMessage or another remark is returned
+	 */
+	@PostMapping(path="/createDocs", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	public ResponseEntity<Object> createDocuments(InputStream payload) {
+		try {
+			ResponseEntity<Object> report = docService.createDocumentsService(payload);
+			return report;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/createDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/createDocs': "+e.toString());
+		}
+	}
+	
+	
 	/**
 	 * An API endpoint that can find and return a document corresponding the the provided Document_ID
 	 * RequestPArameter: GET
+	 * The response carries an ETag and Last-Modified, a request with a matching If-None-Match 
+	 * 	(or If-Modified-Since) is answered with 304 without reading the database
 	 * @param documentID
+	 * @param requestHeaders - the headers of the request, for the conditional GET
 	 * @return - if a Document corresponding to the ID is found, it is returned via ReponseEntity
+	 * 			- if the client's copy is still current, an empty ResponseEntity with status 304
 	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
 	 *    		ErrorMessage or another remark is returned
 	 */
 	@GetMapping("/getDocById")
-	public ResponseEntity<Object> getDocumentById(@RequestParam("documentID") int documentID) {
+	public ResponseEntity<Object> getDocumentById(@RequestParam("documentID") int documentID, 
+			@RequestHeader HttpHeaders requestHeaders) {
 		
+		//the version is taken before the document is read, see ContentVersions
+		ContentVersions.Stamp version = versions.document(documentID);
+		if(isNotModified(requestHeaders, version)) {
+			return notModified(version);
+		}
 		try {
 			ResponseEntity<Object> foundDocument = docService.getDocumentByIdService(documentID);
-			return foundDocument;
+			return withValidators(foundDocument, version);
 		}catch(DataAccessException e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
 					"There was an error in 'document/getDocById' with the JPA Data Access:\n "+e.toString());
@@ -76,19 +155,59 @@ public class DocumentController {
 	}
 	
 	
+	/**
+	 * An API endpoint that returns only the body of a document, as UTF-8 text
+	 * Supports HTTP range requests (a single byte range, e.g. 'Range: bytes=0-1023')
+	 * RequestPArameter: GET
+	 * @param documentID
+	 * @param range - optional Range header
+	 * @return - If successful, the body or the requested range of it (206)
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getDocBody")
+	public ResponseEntity<Object> getDocumentBody(@RequestParam("documentID") int documentID, 
+			@RequestHeader(name=HttpHeaders.RANGE, required=false) String range) {
+		
+		try {
+			ResponseEntity<Object> body = docService.getDocumentBodyService(documentID, range);
+			return body;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getDocBody' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getDocBody': "+e.toString());
+		}
+	}
+	
+	
 	/**
 	 * An API endpoint that will return ALL Documents present in the database
 	 * RequestPArameter: GET
+	 * Supports conditional GETs like /getDocById, with one version for the whole collection
+	 * With 'fields' only the listed fields are returned (e.g. fields=id,title,authorIds for a listing 
+	 * 	screen), and only those are read from the database
+	 * @param fields - optional, comma separated: id, title, body, authorIds, referenceIds
+	 * @param requestHeaders - the headers of the request, for the conditional GET
 	 * @return - If successful, a List with all Documents present in the databse will be returned
+	 * 			- if the client's copy is still current, an empty ResponseEntity with status 304
 	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
 	 *    		ErrorMessage or another remark is returned
 	 */
 	@GetMapping("/getAllDocs")
-	public ResponseEntity<Object> getAllDocuments() {
+	public ResponseEntity<Object> getAllDocuments(@RequestParam(name="fields", required=false) String fields, 
+			@RequestHeader HttpHeaders requestHeaders) {
 		
+		ContentVersions.Stamp version = versions.documentCollection();
+		if(isNotModified(requestHeaders, version)) {
+			return notModified(version);
+		}
 		try {
-			ResponseEntity<Object> allDocument = docService.getAllDocumentsService();
-			return allDocument;
+			ResponseEntity<Object> allDocument = fields == null ? docService.getAllDocumentsService() : 
+				docService.getDocumentListingService(Arrays.stream(fields.split(","))
+						.map(String::trim).filter(field -> !field.isEmpty()).collect(Collectors.toSet()));
+			return withValidators(allDocument, version);
 		}catch(DataAccessException e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
 					"There was an error in 'document/getAllDocs' with the JPA Data Access:\n "+e.toString());
@@ -99,6 +218,296 @@ public class DocumentController {
 	}
 	
 	
+	/**
+	 * An API endpoint that returns one page of Documents, ordered by their ID
+	 * Pagination is keyset based: pass the 'nextAfterID' of a page as 'afterID' to get the next one
+	 * RequestPArameter: GET
+	 * @param afterID - ID of the last document of the previous page (0 or omitted for the first page)
+	 * @param pageSize - maximum number of documents in the page
+	 * @return - If successful, the page and the 'afterID' of the next page will be returned
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getDocsPage")
+	public ResponseEntity<Object> getDocumentsPage(@RequestParam(value="afterID", defaultValue="0") int afterID,
+			@RequestParam(value="pageSize", defaultValue="100") int pageSize) {
+		
+		try {
+			ResponseEntity<Object> documentPage = docService.getDocumentsPageService(afterID,pageSize);
+			return documentPage;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getDocsPage' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getDocsPage': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that streams ALL Documents present in the database as NDJSON 
+	 * (one JSON Document per line), memory stays flat no matter how big the table is
+	 * RequestPArameter: GET
+	 * @param response - the response the Documents are streamed to
+	 * 			- In case there is an error before anything was streamed, the response contains the 
+	 *    		ErrorMessage instead
+	 */
+	@GetMapping(path="/streamAllDocs", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void streamAllDocuments(HttpServletResponse response) throws IOException {
+		
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		try {
+			docService.streamAllDocumentsService(response.getOutputStream());
+		}catch(DataAccessException e) {
+			writeStreamError(response,
+					"There was an error in 'document/streamAllDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			writeStreamError(response,"Unknown Error in 'document/streamAllDocs': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that searches the titles and bodies of all Documents
+	 * RequestPArameter: GET
+	 * @param query - the search terms
+	 * @param limit - maximum number of results
+	 * @return - If successful, the matching Documents (ID, title and score) are returned, best match first
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/searchDocs")
+	public ResponseEntity<Object> searchDocuments(@RequestParam("query") String query,
+			@RequestParam(value="limit", defaultValue="10") int limit) {
+		
+		try {
+			ResponseEntity<Object> foundDocuments = docService.searchDocumentsService(query,limit);
+			return foundDocuments;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/searchDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/searchDocs': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the citation metrics of a Document (number of citations and 
+	 * 	PageRank), they are computed in the background by the citation analytics
+	 * RequestPArameter: GET
+	 * @param documentID
+	 * @return - If successful, the metrics and the time they were computed are returned
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getDocMetrics")
+	public ResponseEntity<Object> getDocumentMetrics(@RequestParam("documentID") int documentID) {
+		
+		try {
+			ResponseEntity<Object> metrics = docService.getDocumentMetricsService(documentID);
+			return metrics;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getDocMetrics' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getDocMetrics': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the most cited Documents, by PageRank or by number of citations
+	 * RequestPArameter: GET
+	 * @param orderBy - 'pageRank' (default) or 'citations'
+	 * @param limit - maximum number of Documents
+	 * @return - If successful, the metrics of the top Documents are returned, highest first
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getTopDocs")
+	public ResponseEntity<Object> getTopDocuments(@RequestParam(value="orderBy", defaultValue="pageRank") String orderBy,
+			@RequestParam(value="limit", defaultValue="10") int limit) {
+		
+		try {
+			ResponseEntity<Object> topDocuments = docService.getTopDocumentsService(orderBy, limit);
+			return topDocuments;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getTopDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getTopDocs': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns one page of the Documents an Author is credited for, ordered by their ID
+	 * RequestPArameter: GET
+	 * @param authorID - ID of the author
+	 * @param afterID - the 'nextAfterID' of the previous page, 0 for the first page
+	 * @param pageSize - maximum number of Documents in the page
+	 * @param includeBody - true to return the bodies as well, by default only ID and title are returned
+	 * @return - If successful, the page of Documents and the 'afterID' of the next page are returned
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getDocsByAuthor")
+	public ResponseEntity<Object> getDocumentsOfAuthor(@RequestParam("authorID") int authorID,
+			@RequestParam(value="afterID", defaultValue="0") int afterID,
+			@RequestParam(value="pageSize", defaultValue="100") int pageSize,
+			@RequestParam(value="includeBody", defaultValue="false") boolean includeBody) {
+		
+		try {
+			ResponseEntity<Object> authorDocuments = docService.getDocumentsOfAuthorService(authorID,afterID,
+					pageSize,includeBody);
+			return authorDocuments;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getDocsByAuthor' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getDocsByAuthor': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns one page of the Documents referencing a Document, ordered by their ID
+	 * RequestPArameter: GET
+	 * @param documentID - ID of the referenced document
+	 * @param afterID - the 'nextAfterID' of the previous page, 0 for the first page
+	 * @param pageSize - maximum number of Documents in the page
+	 * @return - If successful, the page of referencing Documents and the 'afterID' of the next page are returned
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCitingDocs")
+	public ResponseEntity<Object> getCitingDocuments(@RequestParam("documentID") int documentID,
+			@RequestParam(value="afterID", defaultValue="0") int afterID,
+			@RequestParam(value="pageSize", defaultValue="100") int pageSize) {
+		
+		try {
+			ResponseEntity<Object> citingDocuments = docService.getCitingDocumentsService(documentID,afterID,pageSize);
+			return citingDocuments;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getCitingDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getCitingDocs': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the Documents referenced by a Document, directly or through 
+	 * 	other Documents, up to the provided depth
+	 * RequestPArameter: GET
+	 * @param documentID - ID of the document the traversal starts at
+	 * @param depth - maximum number of hops
+	 * @param limit - maximum number of results
+	 * @return - If successful, the reached Document-IDs with their distance are returned, nearest first
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getReferenceTree")
+	public ResponseEntity<Object> getReferenceTree(@RequestParam("documentID") int documentID,
+			@RequestParam(value="depth", defaultValue="3") int depth,
+			@RequestParam(value="limit", defaultValue="100") int limit) {
+		
+		try {
+			ResponseEntity<Object> referenceTree = docService.getReferenceTreeService(documentID,depth,limit);
+			return referenceTree;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getReferenceTree' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getReferenceTree': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the Documents referencing a Document, directly or through 
+	 * 	other Documents, up to the provided depth
+	 * RequestPArameter: GET
+	 * @param documentID - ID of the document the traversal starts at
+	 * @param depth - maximum number of hops
+	 * @param limit - maximum number of results
+	 * @return - If successful, the reached Document-IDs with their distance are returned, nearest first
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCitationTree")
+	public ResponseEntity<Object> getCitationTree(@RequestParam("documentID") int documentID,
+			@RequestParam(value="depth", defaultValue="3") int depth,
+			@RequestParam(value="limit", defaultValue="100") int limit) {
+		
+		try {
+			ResponseEntity<Object> citationTree = docService.getCitationTreeService(documentID,depth,limit);
+			return citationTree;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getCitationTree' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getCitationTree': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the shortest chain of references leading from one Document to another
+	 * RequestPArameter: GET
+	 * @param fromID - ID of the document the chain starts at
+	 * @param toID - ID of the document the chain ends at
+	 * @return - If successful, the Document-IDs on the chain are returned, including both ends
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCitationPath")
+	public ResponseEntity<Object> getCitationPath(@RequestParam("fromID") int fromID,
+			@RequestParam("toID") int toID) {
+		
+		try {
+			ResponseEntity<Object> citationPath = docService.getCitationPathService(fromID,toID);
+			return citationPath;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/getCitationPath' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getCitationPath': "+e.toString());
+		}
+	}
+	
+	
+	/**
+	 * An API endpoint that returns the counters of the author and document cache
+	 * RequestPArameter: GET
+	 * @return - size, hits, misses, evictions and hit rate of both caches
+	 * 			- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@GetMapping("/getCacheStats")
+	public ResponseEntity<Object> getCacheStats() {
+		
+		try {
+			ResponseEntity<Object> cacheStats = docService.getCacheStatsService();
+			return cacheStats;
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/getCacheStats': "+e.toString());
+		}
+	}
+	
+	
 	/**
 	 * An API endpoint, that will delete a Document corresponding to the provided Document-ID
 	 * RequestPArameter: DELETE
@@ -146,6 +555,36 @@ public class DocumentController {
 	}
 	
 	
+	/**
+	 * An API-endpoint used to delete many documents at once, either by a range of IDs or by a list of IDs
+	 * The documents are deleted in chunks, each in its own short transaction
+	 * RequestMethod: DELETE
+	 * @param fromID - first ID of the range (inclusive), together with toID
+	 * @param toID - last ID of the range (inclusive), together with fromID
+	 * @param documentIDs - instead of a range: IDs of the documents, comma-separated or repeated (at most 5000)
+	 * @return - If successful, a ResponseEntity with a message containing the number of deleted 
+	 * 			documents is returned
+	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@DeleteMapping("/deleteDocs")
+	public ResponseEntity<Object> deleteDocuments(@RequestParam(value = "fromID", required = false) Integer fromID,
+			@RequestParam(value = "toID", required = false) Integer toID,
+			@RequestParam(value = "documentIDs", required = false) List<Integer> documentIDs){
+		
+		try {
+			ResponseEntity<Object> deletedDocuments = docService.deleteDocumentsService(fromID,toID,documentIDs);
+			return deletedDocuments;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/deleteDocs' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/deleteDocs': "+e.toString());
+		}
+	}
+	
+	
 	/**
 	 * An API-endpoint to update the title of a document corresponding to the provided ID
 	 * RequestMethod: PUT
@@ -174,13 +613,14 @@ public class DocumentController {
 	/**
 	 * An API endpoint used to update an existing Document's Body
 	 * RequestMethod: PUT
-	 * @param payload  - a JSON String (won't accept any other String)
+	 * @param payload  - the request body, a JSON object (won't accept anything else), it is read 
+	 * 				as a stream
 	 * @return - If successful, a ResponseMethod with the newly updated Document is returned
 	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
 	 *    		ErrorMessage or another remark is returned
 	 */
 	@PutMapping(path="/updateDocumentBody", consumes = "application/json")
-	public ResponseEntity<Object> updateDocumentBody(@RequestBody String payload){
+	public ResponseEntity<Object> updateDocumentBody(InputStream payload){
 
 		try {
 			ResponseEntity<Object> updatedDocument = docService.updateDocumentBodyService(payload);
@@ -295,4 +735,159 @@ public class DocumentController {
 					"Unknown Error in 'document/removeReferenceFromDocument': "+e.toString());
 		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * An API endpoint that can add several authors to a document at once
+	 * RequestMethod: PUT 
+	 * @param documentID - ID of the document you want to add the authors to
+	 * @param authorIDs - IDs of the authors you want to add, comma-separated or repeated (at most 5000)
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned
+	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@PutMapping(path="/addAuthorsToDocument")
+	public ResponseEntity<Object> addAuthorsToDocument(@RequestParam("documentID") int documentID,
+			@RequestParam("authorIDs") List<Integer> authorIDs) {
+		
+		try {
+			ResponseEntity<Object> updatedDocument = docService.addAuthorsToDocumentService(documentID,authorIDs);
+			return updatedDocument;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/addAuthorsToDocument' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/addAuthorsToDocument': "+e.toString());
+		}
+	}
+	
+	/**
+	 * An API endpoint that can remove several authors from a document at once
+	 * RequestMethod: PUT 
+	 * @param documentID - ID of the document you want to remove the authors from
+	 * @param authorIDs - IDs of the authors you want to remove, comma-separated or repeated (at most 5000)
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned
+	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@PutMapping(path="/removeAuthorsFromDocument")
+	public ResponseEntity<Object> removeAuthorsFromDocument(@RequestParam("documentID") int documentID,
+			@RequestParam("authorIDs") List<Integer> authorIDs) {
+		
+		try {
+			ResponseEntity<Object> updatedDocument = docService.removeAuthorsFromDocumentService(documentID,authorIDs);
+			return updatedDocument;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/removeAuthorsFromDocument' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/removeAuthorsFromDocument': "+e.toString());
+		}
+	}
+	
+	/**
+	 * An API endpoint that can add several documents as references to a document at once
+	 * RequestMethod: PUT 
+	 * @param referencingID - ID of the document you want to add the references to
+	 * @param referencedIDs - IDs of the documents you want to add as references, comma-separated or repeated (at most 5000)
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned
+	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@PutMapping(path="/addReferencesToDocument")
+	public ResponseEntity<Object> addReferencesToDocument(@RequestParam("referencingID") int referencingID,
+			@RequestParam("referencedIDs") List<Integer> referencedIDs) {
+		
+		try {
+			ResponseEntity<Object> updatedDocument = docService.addReferencesToDocumentService(referencingID,referencedIDs);
+			return updatedDocument;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/addReferencesToDocument' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/addReferencesToDocument': "+e.toString());
+		}
+	}
+	
+	/**
+	 * An API endpoint that can remove several documents as references from a document at once
+	 * RequestMethod: PUT 
+	 * @param referencingID - ID of the document you want to remove the references from
+	 * @param referencedIDs - IDs of the documents you want to remove as references, comma-separated or repeated (at most 5000)
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned
+	 * 	  		- In case there is an error, or another undesired output, a ResponseEntity with the 
+	 *    		ErrorMessage or another remark is returned
+	 */
+	@PutMapping(path="/removeReferencesFromDocument")
+	public ResponseEntity<Object> removeReferencesFromDocument(@RequestParam("referencingID") int referencingID,
+			@RequestParam("referencedIDs") List<Integer> referencedIDs) {
+		
+		try {
+			ResponseEntity<Object> updatedDocument = docService.removeReferencesFromDocumentService(referencingID,referencedIDs);
+			return updatedDocument;
+		}catch(DataAccessException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"There was an error in 'document/removeReferencesFromDocument' with the JPA Data Access:\n "+e.toString());
+		}catch(Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+					"Unknown Error in 'document/removeReferencesFromDocument': "+e.toString());
+		}
+	}
+	
+	/**
+	 * Checks the conditional headers of a GET against the current version
+	 * If-None-Match takes precedence, If-Modified-Since is only evaluated without it
+	 * @return - true if the client's copy is still current
+	 */
+	private boolean isNotModified(HttpHeaders requestHeaders, ContentVersions.Stamp version) {
+		List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+		if(!ifNoneMatch.isEmpty()) {
+			String etag = opaqueTag(versions.etag(version));
+			//GET uses the weak comparison, a W/ prefix is ignored
+			return ifNoneMatch.stream().anyMatch(tag -> opaqueTag(tag).equals(etag));
+		}
+		long ifModifiedSince = requestHeaders.getIfModifiedSince();
+		return ifModifiedSince >= 0 && version.lastModified() / 1000 <= ifModifiedSince / 1000;
+	}
+	
+	private static String opaqueTag(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+	
+	private ResponseEntity<Object> notModified(ContentVersions.Stamp version) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(versions.etag(version))
+				.lastModified(version.lastModified()).cacheControl(CacheControl.noCache()).build();
+	}
+	
+	/**
+	 * adds ETag and Last-Modified of the version to a successful response, clients must revalidate
+	 * 	before reusing it (no-cache)
+	 */
+	private ResponseEntity<Object> withValidators(ResponseEntity<Object> response, ContentVersions.Stamp version) {
+		if(!response.getStatusCode().is2xxSuccessful()) {
+			return response;
+		}
+		return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+				.eTag(versions.etag(version)).lastModified(version.lastModified())
+				.cacheControl(CacheControl.noCache()).body(response.getBody());
+	}
+	
+	/**
+	 * Reports an error of a streaming endpoint. If parts of the stream were already sent, the 
+	 * status can't be changed anymore, so the exception is passed on and the connection aborted
+	 * @param response - the response of the streaming endpoint
+	 * @param message - the error message
+	 * @throws IOException
+	 */
+	static void writeStreamError(HttpServletResponse response, String message) throws IOException {
+		if(response.isCommitted()) {
+			throw new IOException(message);
+		}
+		response.reset();
+		response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+		response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+		response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -1,13 +1,21 @@
 package com.andreas.webapp.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.andreas.webapp.model.Author;
 
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+
 public interface AuthorRepo extends JpaRepository<Author,Integer>{
 
 	
@@ -24,4 +32,49 @@ public interface AuthorRepo extends JpaRepository<Author,Integer>{
 			+ "FIRST_NAME LIKE %:firstName% OR LAST_NAME LIKE %:lastName%", 
 			nativeQuery = true)
 	List<Author> findByNames(@Param("firstName") String firstName,@Param("lastName")String lastName);
+	
+	/**
+	 * returns one page of authors, ordered by their ID (keyset pagination)
+	 * the page starts right after the provided ID, so it is read straight from the primary key
+	 * @param afterID - ID of the last author of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of authors in the page
+	 * @return - List of at most 'pageSize' authors with an ID greater than 'afterID'
+	 */
+	@Query(value = "SELECT * FROM AUTHOR WHERE AUTHORID > :afterID "
+			+ "ORDER BY AUTHORID LIMIT :pageSize", nativeQuery = true)
+	List<Author> findPageAfter(@Param("afterID") int afterID, @Param("pageSize") int pageSize);
+	
+	/**
+	 * streams all authors ordered by their ID, instead of building the whole table as a List
+	 * must be consumed inside a (read-only) transaction and closed afterwards
+	 * @return - a Stream over all authors
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	@Query("SELECT a FROM Author a ORDER BY a.authorID")
+	Stream<Author> streamAllOrdered();
+	
+	/**
+	 * returns which of the provided author-IDs exist, using a single set-based query
+	 * @param authorIds - IDs that are to be checked
+	 * @return - the subset of the provided IDs that belong to an existing author
+	 */
+	@Query(value = "SELECT AUTHORID FROM AUTHOR WHERE AUTHORID IN (:authorIds)", nativeQuery = true)
+	Set<Integer> findExistingAuthorIds(@Param("authorIds") Collection<Integer> authorIds);
+	
+	/**
+	 * @return - true if any author is credited for a document ('AUTHORED_BY' isn't empty)
+	 */
+	@Query(value = "SELECT EXISTS(SELECT 1 FROM AUTHORED_BY)", nativeQuery = true)
+	boolean existsAnyAuthored();
+	
+	/**
+	 * deletes all authors with one set-based DELETE instead of loading and deleting them one by one, 
+	 * 	their metrics go with them (ON DELETE CASCADE)
+	 * fails (and deletes nothing) if an author is still credited for a document
+	 * @return - the number of deleted authors
+	 */
+	@Modifying
+	@Query(value = "DELETE FROM AUTHOR", nativeQuery = true)
+	@Transactional
+	int deleteAllBulk();
 }
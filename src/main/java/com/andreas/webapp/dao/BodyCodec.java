@@ -0,0 +1,157 @@
+package com.andreas.webapp.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.luben.zstd.Zstd;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Compression of the document bodies in 'DOCUMENT_BODY', used by DocumentRepoCustomImpl
+ * New bodies are compressed with the configured codec (krieger.storage.body-compression):
+ * - lz4: fast to compress and very fast to decompress, the default
+ * - zstd: smaller, but slower to compress (level krieger.storage.zstd-level), for archives
+ * - none: stored as they are
+ * Every row records its own encoding and raw length, so rows of different codecs can coexist and
+ * 	the codec can be changed at any time. Bodies below krieger.storage.body-compression-min-size
+ * 	bytes, or that don't get smaller, are stored uncompressed
+ *
+ * Metrics (tag 'codec'):
+ * - krieger.body.encode / krieger.body.decode: time to compress / decompress a body
+ * - krieger.body.compression.ratio: stored size / raw size of every written body
+ * - krieger.body.bytes.raw / krieger.body.bytes.stored: bytes written before and after compression
+ */
+@Component
+public class BodyCodec {
+
+	/**
+	 * values of the column 'DOCUMENT_BODY.ENCODING'
+	 */
+	public static final int NONE = 0;
+	public static final int LZ4 = 1;
+	public static final int ZSTD = 2;
+	private static final String[] NAMES = {"none", "lz4", "zstd"};
+
+	/**
+	 * a body as it is stored
+	 * @param encoding - NONE, LZ4 or ZSTD
+	 * @param bytes - the stored bytes
+	 * @param rawLength - length of the UTF-8 encoded body before compression
+	 */
+	public record Encoded(int encoding, byte[] bytes, int rawLength) {
+	}
+
+	private final int encoding;
+	private final int minSize;
+	private final int zstdLevel;
+	private final LZ4Compressor lz4Compressor = LZ4Factory.fastestInstance().fastCompressor();
+	private final LZ4FastDecompressor lz4Decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+	private final Timer[] encodeTimers = new Timer[NAMES.length];
+	private final Timer[] decodeTimers = new Timer[NAMES.length];
+	private final DistributionSummary[] ratios = new DistributionSummary[NAMES.length];
+	private final Counter[] rawBytes = new Counter[NAMES.length];
+	private final Counter[] storedBytes = new Counter[NAMES.length];
+
+	public BodyCodec(@Value("${krieger.storage.body-compression:lz4}") String codec,
+			@Value("${krieger.storage.body-compression-min-size:256}") int minSize,
+			@Value("${krieger.storage.zstd-level:9}") int zstdLevel,
+			ObjectProvider<MeterRegistry> registryProvider) {
+		this.encoding = encodingOf(codec);
+		this.minSize = minSize;
+		this.zstdLevel = zstdLevel;
+
+		MeterRegistry registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+		for(int i = 0; i < NAMES.length; i++) {
+			encodeTimers[i] = Timer.builder("krieger.body.encode").description("Compression of a document body")
+					.tag("codec", NAMES[i]).register(registry);
+			decodeTimers[i] = Timer.builder("krieger.body.decode").description("Decompression of a document body")
+					.tag("codec", NAMES[i]).register(registry);
+			ratios[i] = DistributionSummary.builder("krieger.body.compression.ratio")
+					.description("Stored size / raw size of a written document body")
+					.tag("codec", NAMES[i]).register(registry);
+			rawBytes[i] = Counter.builder("krieger.body.bytes.raw").description("Bytes of document bodies written, "
+					+ "before compression").baseUnit("bytes").tag("codec", NAMES[i]).register(registry);
+			storedBytes[i] = Counter.builder("krieger.body.bytes.stored").description("Bytes of document bodies "
+					+ "written, after compression").baseUnit("bytes").tag("codec", NAMES[i]).register(registry);
+		}
+	}
+
+	/**
+	 * UTF-8 encodes the body and compresses it with the configured codec
+	 * @param body - the body that is to be stored
+	 * @return - what is to be written to 'DOCUMENT_BODY'
+	 */
+	public Encoded encode(String body) {
+		byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+		Encoded encoded = raw.length < minSize || encoding == NONE ?
+				new Encoded(NONE, raw, raw.length) : compress(raw);
+
+		ratios[encoded.encoding()].record(raw.length == 0 ? 1 : (double) encoded.bytes().length / raw.length);
+		rawBytes[encoded.encoding()].increment(raw.length);
+		storedBytes[encoded.encoding()].increment(encoded.bytes().length);
+		return encoded;
+	}
+
+	/**
+	 * decompresses a stored body
+	 * @param encoding - the encoding it was stored with
+	 * @param stored - the stored bytes
+	 * @param rawLength - the length before compression
+	 * @return - the UTF-8 encoded body
+	 */
+	public byte[] decode(int encoding, byte[] stored, int rawLength) {
+		if(encoding == NONE) {
+			return stored;
+		}
+		long start = System.nanoTime();
+		byte[] raw;
+		if(encoding == LZ4) {
+			raw = lz4Decompressor.decompress(stored, rawLength);
+		}else if(encoding == ZSTD) {
+			raw = Zstd.decompress(stored, rawLength);
+		}else {
+			throw new IllegalStateException("Unknown body encoding " + encoding);
+		}
+		decodeTimers[encoding].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return raw;
+	}
+
+	/**
+	 * decompresses a stored body and decodes it as text
+	 */
+	public String decodeToString(int encoding, byte[] stored, int rawLength) {
+		return new String(decode(encoding, stored, rawLength), StandardCharsets.UTF_8);
+	}
+
+	private Encoded compress(byte[] raw) {
+		long start = System.nanoTime();
+		byte[] compressed = encoding == LZ4 ? lz4Compressor.compress(raw) : Zstd.compress(raw, zstdLevel);
+		encodeTimers[encoding].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		//incompressible bodies are kept as they are, decoding them then costs nothing
+		return compressed.length < raw.length ?
+				new Encoded(encoding, compressed, raw.length) : new Encoded(NONE, raw, raw.length);
+	}
+
+	private static int encodingOf(String codec) {
+		for(int i = 0; i < NAMES.length; i++) {
+			if(NAMES[i].equals(codec.trim().toLowerCase(Locale.ROOT))) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown krieger.storage.body-compression '" + codec
+				+ "', expected one of none, lz4, zstd");
+	}
+}
@@ -0,0 +1,192 @@
+package com.andreas.webapp.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.model.AuthorMetrics;
+import com.andreas.webapp.model.DocumentMetrics;
+
+/**
+ * Reads the graph for the citation analytics and stores its results in the side tables
+ * 	'DOCUMENT_METRICS' and 'AUTHOR_METRICS', all with the JdbcTemplate and plain int arrays
+ * The results are replaced as a whole inside one transaction, so a reader sees either the previous
+ * 	or the new run, never a mix of both
+ *
+ * The rows are written WRITE_BATCH_SIZE at a time as one set-based INSERT over H2 arrays
+ * 	(TABLE(...)), which is several times faster than a JDBC batch of single-row INSERTs. The tables
+ * 	have no secondary indexes, maintaining them for a million rows in random order cost minutes per
+ * 	run. The top-N reads use 'METRICS_RANKING' instead: the IDs of the highest ranked documents and
+ * 	authors in order, as computed by the job
+ */
+@Repository
+public class CitationMetricsRepo {
+
+	final static int WRITE_BATCH_SIZE = 10_000;
+
+	private final static String PAGE_RANK = "PAGE_RANK";
+	private final static String CITATIONS = "CITATIONS";
+	private final static String H_INDEX = "H_INDEX";
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	/**
+	 * receives one row of a join table
+	 */
+	@FunctionalInterface
+	public interface PairHandler {
+		void handle(int first, int second);
+	}
+
+	/**
+	 * @return - the IDs of all documents, ascending
+	 */
+	public int[] findAllDocumentIds() {
+		return findIds("SELECT DOCUMENTID FROM DOCUMENT ORDER BY DOCUMENTID");
+	}
+
+	/**
+	 * @return - the IDs of all authors, ascending
+	 */
+	public int[] findAllAuthorIds() {
+		return findIds("SELECT AUTHORID FROM AUTHOR ORDER BY AUTHORID");
+	}
+
+	/**
+	 * hands every row of 'REFERENCED_BY' to the handler as (referencing, referenced)
+	 */
+	public void forEachReference(PairHandler handler) {
+		jdbcTemplate.query("SELECT REFERENCING_DOCUMENT, DOCUMENT_REFERENCED FROM REFERENCED_BY",
+				(ResultSet rs) -> handler.handle(rs.getInt(1), rs.getInt(2)));
+	}
+
+	/**
+	 * hands every row of 'AUTHORED_BY' to the handler as (author, document)
+	 */
+	public void forEachAuthored(PairHandler handler) {
+		jdbcTemplate.query("SELECT AUTHORID, DOCUMENTID FROM AUTHORED_BY",
+				(ResultSet rs) -> handler.handle(rs.getInt(1), rs.getInt(2)));
+	}
+
+	/**
+	 * Replaces all document metrics, entry i belongs to documentIds[i]
+	 * Documents that were deleted in the meantime are skipped
+	 * @param topByPageRank - IDs of the documents with the highest PageRank, in order
+	 * @param topByCitations - IDs of the documents with the most citations, in order
+	 */
+	@Transactional
+	public void replaceDocumentMetrics(int[] documentIds, int[] citationCounts, double[] pageRanks,
+			Instant computedAt, int[] topByPageRank, int[] topByCitations) {
+		jdbcTemplate.update("DELETE FROM DOCUMENT_METRICS");
+		Timestamp timestamp = Timestamp.from(computedAt);
+		for(int from = 0; from < documentIds.length; from += WRITE_BATCH_SIZE) {
+			int to = Math.min(from + WRITE_BATCH_SIZE, documentIds.length);
+			jdbcTemplate.update("INSERT INTO DOCUMENT_METRICS(DOCUMENTID,CITATION_COUNT,PAGE_RANK,COMPUTED_AT) "
+					+ "SELECT V.ID, V.CITATION_COUNT, V.PAGE_RANK, ? "
+					+ "FROM TABLE(ID INTEGER = ?, CITATION_COUNT INTEGER = ?, PAGE_RANK DOUBLE PRECISION = ?) V "
+					+ "WHERE EXISTS (SELECT 1 FROM DOCUMENT D WHERE D.DOCUMENTID = V.ID)",
+					timestamp, boxed(documentIds, from, to), boxed(citationCounts, from, to),
+					Arrays.stream(pageRanks, from, to).boxed().toArray(Double[]::new));
+		}
+		replaceRanking(PAGE_RANK, topByPageRank);
+		replaceRanking(CITATIONS, topByCitations);
+	}
+
+	/**
+	 * Replaces all author metrics, entry i belongs to authorIds[i]
+	 * Authors that were deleted in the meantime are skipped
+	 * @param topByHIndex - IDs of the authors with the highest h-index, in order
+	 */
+	@Transactional
+	public void replaceAuthorMetrics(int[] authorIds, int[] hIndexes, long[] citationCounts,
+			int[] documentCounts, Instant computedAt, int[] topByHIndex) {
+		jdbcTemplate.update("DELETE FROM AUTHOR_METRICS");
+		Timestamp timestamp = Timestamp.from(computedAt);
+		for(int from = 0; from < authorIds.length; from += WRITE_BATCH_SIZE) {
+			int to = Math.min(from + WRITE_BATCH_SIZE, authorIds.length);
+			jdbcTemplate.update("INSERT INTO AUTHOR_METRICS(AUTHORID,H_INDEX,CITATION_COUNT,DOCUMENT_COUNT,COMPUTED_AT) "
+					+ "SELECT V.ID, V.H_INDEX, V.CITATION_COUNT, V.DOCUMENT_COUNT, ? "
+					+ "FROM TABLE(ID INTEGER = ?, H_INDEX INTEGER = ?, CITATION_COUNT BIGINT = ?, DOCUMENT_COUNT INTEGER = ?) V "
+					+ "WHERE EXISTS (SELECT 1 FROM AUTHOR A WHERE A.AUTHORID = V.ID)",
+					timestamp, boxed(authorIds, from, to), boxed(hIndexes, from, to),
+					Arrays.stream(citationCounts, from, to).boxed().toArray(Long[]::new),
+					boxed(documentCounts, from, to));
+		}
+		replaceRanking(H_INDEX, topByHIndex);
+	}
+
+	public Optional<DocumentMetrics> findDocumentMetrics(int documentId) {
+		return jdbcTemplate.query("SELECT DOCUMENTID, CITATION_COUNT, PAGE_RANK, COMPUTED_AT FROM DOCUMENT_METRICS "
+				+ "WHERE DOCUMENTID = ?", CitationMetricsRepo::documentMetrics, documentId).stream().findFirst();
+	}
+
+	/**
+	 * @param byPageRank - true to order by PageRank, false to order by the number of citations
+	 * @return - the 'limit' highest ranked documents of the last run, ties in ascending ID order
+	 */
+	public List<DocumentMetrics> findTopDocuments(boolean byPageRank, int limit) {
+		return jdbcTemplate.query("SELECT M.DOCUMENTID, M.CITATION_COUNT, M.PAGE_RANK, M.COMPUTED_AT "
+				+ "FROM METRICS_RANKING R JOIN DOCUMENT_METRICS M ON M.DOCUMENTID = R.ID "
+				+ "WHERE R.RANKING = ? AND R.POSITION < ? ORDER BY R.POSITION",
+				CitationMetricsRepo::documentMetrics, byPageRank ? PAGE_RANK : CITATIONS, limit);
+	}
+
+	public Optional<AuthorMetrics> findAuthorMetrics(int authorId) {
+		return jdbcTemplate.query("SELECT AUTHORID, H_INDEX, CITATION_COUNT, DOCUMENT_COUNT, COMPUTED_AT "
+				+ "FROM AUTHOR_METRICS WHERE AUTHORID = ?", CitationMetricsRepo::authorMetrics, authorId)
+				.stream().findFirst();
+	}
+
+	/**
+	 * @return - the 'limit' authors with the highest h-index, ties by their citations, then ascending ID
+	 */
+	public List<AuthorMetrics> findTopAuthors(int limit) {
+		return jdbcTemplate.query("SELECT M.AUTHORID, M.H_INDEX, M.CITATION_COUNT, M.DOCUMENT_COUNT, M.COMPUTED_AT "
+				+ "FROM METRICS_RANKING R JOIN AUTHOR_METRICS M ON M.AUTHORID = R.ID "
+				+ "WHERE R.RANKING = ? AND R.POSITION < ? ORDER BY R.POSITION",
+				CitationMetricsRepo::authorMetrics, H_INDEX, limit);
+	}
+
+	private void replaceRanking(String ranking, int[] ids) {
+		jdbcTemplate.update("DELETE FROM METRICS_RANKING WHERE RANKING = ?", ranking);
+		Integer[] positions = new Integer[ids.length];
+		Arrays.setAll(positions, i -> i);
+		jdbcTemplate.update("INSERT INTO METRICS_RANKING(RANKING,POSITION,ID) SELECT ?, V.POSITION, V.ID "
+				+ "FROM TABLE(POSITION INTEGER = ?, ID INTEGER = ?) V", ranking, positions, boxed(ids, 0, ids.length));
+	}
+
+	private static Integer[] boxed(int[] values, int from, int to) {
+		return Arrays.stream(values, from, to).boxed().toArray(Integer[]::new);
+	}
+
+	private int[] findIds(String sql) {
+		int[][] ids = {new int[1024]};
+		int[] count = {0};
+		jdbcTemplate.query(sql, (ResultSet rs) -> {
+			if(count[0] == ids[0].length) {
+				ids[0] = Arrays.copyOf(ids[0], count[0] * 2);
+			}
+			ids[0][count[0]++] = rs.getInt(1);
+		});
+		return Arrays.copyOf(ids[0], count[0]);
+	}
+
+	private static DocumentMetrics documentMetrics(ResultSet rs, int rowNum) throws SQLException {
+		return new DocumentMetrics(rs.getInt(1), rs.getInt(2), rs.getDouble(3), rs.getTimestamp(4).toInstant());
+	}
+
+	private static AuthorMetrics authorMetrics(ResultSet rs, int rowNum) throws SQLException {
+		return new AuthorMetrics(rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getInt(4),
+				rs.getTimestamp(5).toInstant());
+	}
+}
@@ -1,17 +1,23 @@
 package com.andreas.webapp.dao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.andreas.webapp.model.Document;
+import com.andreas.webapp.model.DocumentTitleView;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
-public interface DocumentRepo extends JpaRepository<Document,Integer>{
+public interface DocumentRepo extends JpaRepository<Document,Integer>, DocumentRepoCustom{
 
 	@Modifying
     @Query(value = "INSERT INTO AUTHORED_BY(AUTHORID,DOCUMENTID) "
@@ -26,6 +32,33 @@ public interface DocumentRepo extends JpaRepository<Document,Integer>{
     @Transactional
     void insertIntoReferenced(@Param("referencing") int referencing,@Param("referenced") int referenced) throws Exception;
 	
+	/**
+	 * credits the author for the document, unless the pair already exists
+	 * the duplicate check and the insert are one MERGE statement, guarded by the primary key of 'AUTHORED_BY'
+	 * @return - 1 if the pair was inserted, 0 if it already existed
+	 */
+	@Modifying
+	@Query(value = "MERGE INTO AUTHORED_BY t USING (VALUES (CAST(:newAuthor AS INTEGER),CAST(:newDocument AS INTEGER))) "
+			+ "s(AUTHORID,DOCUMENTID) ON t.AUTHORID = s.AUTHORID AND t.DOCUMENTID = s.DOCUMENTID "
+			+ "WHEN NOT MATCHED THEN INSERT (AUTHORID,DOCUMENTID) VALUES (s.AUTHORID,s.DOCUMENTID)", nativeQuery = true)
+	@Transactional
+	int insertIntoAuthoredIfAbsent(@Param("newAuthor") int insertAuth, @Param("newDocument") int insertDoc) throws Exception;
+	
+	/**
+	 * adds the reference, unless it already exists
+	 * the duplicate check and the insert are one MERGE statement, guarded by the primary key of 'REFERENCED_BY'
+	 * @return - 1 if the reference was inserted, 0 if it already existed
+	 */
+	@Modifying
+	@Query(value = "MERGE INTO REFERENCED_BY t USING (VALUES (CAST(:referenced AS INTEGER),CAST(:referencing AS INTEGER))) "
+			+ "s(DOCUMENT_REFERENCED,REFERENCING_DOCUMENT) ON t.DOCUMENT_REFERENCED = s.DOCUMENT_REFERENCED "
+			+ "AND t.REFERENCING_DOCUMENT = s.REFERENCING_DOCUMENT WHEN NOT MATCHED THEN "
+			+ "INSERT (DOCUMENT_REFERENCED,REFERENCING_DOCUMENT) VALUES (s.DOCUMENT_REFERENCED,s.REFERENCING_DOCUMENT)", 
+			nativeQuery = true)
+	@Transactional
+	int insertIntoReferencedIfAbsent(@Param("referencing") int referencing, @Param("referenced") int referenced) 
+			throws Exception;
+	
 
 	@Query(value="SELECT AUTHORID FROM AUTHORED_BY "
 			+ "WHERE DOCUMENTID = ?1", nativeQuery = true)
@@ -35,13 +68,176 @@ public interface DocumentRepo extends JpaRepository<Document,Integer>{
 			+ "FROM REFERENCED_BY WHERE REFERENCING_DOCUMENT = ?1", nativeQuery = true)
 	Set<Integer> findReferencesOfDocument(int documentId);
 	
+	/**
+	 * returns which of the provided authors are credited for the document, with one query
+	 * @param documentId - ID of the document
+	 * @param authorIds - IDs of the authors that are to be checked
+	 * @return - the subset of the provided IDs that are credited
+	 */
+	@Query(value="SELECT AUTHORID FROM AUTHORED_BY WHERE DOCUMENTID = :documentId "
+			+ "AND AUTHORID IN (:authorIds)", nativeQuery = true)
+	Set<Integer> findAuthorsOfDocumentAmong(@Param("documentId") int documentId, 
+			@Param("authorIds") Collection<Integer> authorIds);
+	
+	/**
+	 * returns which of the provided documents are referenced by the document, with one query
+	 * @param referencing - ID of the referencing document
+	 * @param referencedIds - IDs of the documents that are to be checked
+	 * @return - the subset of the provided IDs that are referenced
+	 */
+	@Query(value="SELECT DOCUMENT_REFERENCED FROM REFERENCED_BY WHERE REFERENCING_DOCUMENT = :referencing "
+			+ "AND DOCUMENT_REFERENCED IN (:referencedIds)", nativeQuery = true)
+	Set<Integer> findReferencesOfDocumentAmong(@Param("referencing") int referencing, 
+			@Param("referencedIds") Collection<Integer> referencedIds);
+	
+	/**
+	 * returns every row of the 'AUTHORED_BY' table in one go
+	 * each entry is an array of the form [DOCUMENTID, AUTHORID]
+	 * @return - List of all document-author pairs
+	 */
+	@Query(value="SELECT DOCUMENTID, AUTHORID FROM AUTHORED_BY", nativeQuery = true)
+	List<Object[]> findAllAuthoredEntries();
+	
+	/**
+	 * returns every row of the 'REFERENCED_BY' table in one go
+	 * each entry is an array of the form [REFERENCING_DOCUMENT, DOCUMENT_REFERENCED]
+	 * @return - List of all referencing-referenced pairs
+	 */
+	@Query(value="SELECT REFERENCING_DOCUMENT, DOCUMENT_REFERENCED FROM REFERENCED_BY", nativeQuery = true)
+	List<Object[]> findAllReferencedEntries();
+	
+	/**
+	 * returns one page of the IDs of the documents referencing the provided document, ascending
+	 * served by the primary key (DOCUMENT_REFERENCED, REFERENCING_DOCUMENT), so it is a range seek 
+	 * 	instead of a scan of the whole table
+	 * @param documentID - ID of the referenced document
+	 * @param afterID - only documents with a higher ID are returned
+	 * @param pageSize - maximum number of IDs
+	 * @return - the IDs of the referencing documents
+	 */
+	@Query(value="SELECT REFERENCING_DOCUMENT FROM REFERENCED_BY WHERE DOCUMENT_REFERENCED = :documentID "
+			+ "AND REFERENCING_DOCUMENT > :afterID ORDER BY REFERENCING_DOCUMENT LIMIT :pageSize", nativeQuery = true)
+	List<Integer> findCitingDocumentIds(@Param("documentID") int documentID, @Param("afterID") int afterID, 
+			@Param("pageSize") int pageSize);
+	
+	/**
+	 * streams every row of the 'REFERENCED_BY' table, for loading it without building a List
+	 * each entry is an array of the form [REFERENCING_DOCUMENT, DOCUMENT_REFERENCED]
+	 * must be consumed inside a (read-only) transaction and closed afterwards
+	 * @return - a Stream over all referencing-referenced pairs
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	@Query(value="SELECT REFERENCING_DOCUMENT, DOCUMENT_REFERENCED FROM REFERENCED_BY", nativeQuery = true)
+	Stream<Object[]> streamAllReferencedEntries();
+	
+	/**
+	 * streams every row of the 'AUTHORED_BY' table, for loading it without building a List
+	 * each entry is an array of the form [DOCUMENTID, AUTHORID]
+	 * must be consumed inside a (read-only) transaction and closed afterwards
+	 * @return - a Stream over all document-author pairs
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	@Query(value="SELECT DOCUMENTID, AUTHORID FROM AUTHORED_BY", nativeQuery = true)
+	Stream<Object[]> streamAllAuthoredEntries();
+	
+	/**
+	 * returns the 'AUTHORED_BY' rows of the provided documents with a single IN-query
+	 * each entry is an array of the form [DOCUMENTID, AUTHORID]
+	 * @param documentIds - IDs of the documents whose authors we want
+	 * @return - List of the matching document-author pairs
+	 */
+	@Query(value="SELECT DOCUMENTID, AUTHORID FROM AUTHORED_BY "
+			+ "WHERE DOCUMENTID IN (:documentIds)", nativeQuery = true)
+	List<Object[]> findAuthoredEntriesOfDocuments(@Param("documentIds") Collection<Integer> documentIds);
+	
+	/**
+	 * returns the 'REFERENCED_BY' rows of the provided (referencing) documents with a single IN-query
+	 * each entry is an array of the form [REFERENCING_DOCUMENT, DOCUMENT_REFERENCED]
+	 * @param documentIds - IDs of the documents whose references we want
+	 * @return - List of the matching referencing-referenced pairs
+	 */
+	@Query(value="SELECT REFERENCING_DOCUMENT, DOCUMENT_REFERENCED FROM REFERENCED_BY "
+			+ "WHERE REFERENCING_DOCUMENT IN (:documentIds)", nativeQuery = true)
+	List<Object[]> findReferencedEntriesOfDocuments(@Param("documentIds") Collection<Integer> documentIds);
+	
+	/**
+	 * checks whether the author is credited for the document, a single primary key lookup
+	 * @return - true if the pair exists in 'AUTHORED_BY'
+	 */
+	@Query(value="SELECT EXISTS(SELECT 1 FROM AUTHORED_BY WHERE DOCUMENTID = :documentId AND AUTHORID = :authorId)", 
+			nativeQuery = true)
+	boolean existsAuthored(@Param("documentId") int documentId, @Param("authorId") int authorId);
+	
+	/**
+	 * checks whether the one document references the other, a single primary key lookup
+	 * @return - true if the pair exists in 'REFERENCED_BY'
+	 */
+	@Query(value="SELECT EXISTS(SELECT 1 FROM REFERENCED_BY WHERE REFERENCING_DOCUMENT = :referencing "
+			+ "AND DOCUMENT_REFERENCED = :referenced)", nativeQuery = true)
+	boolean existsReference(@Param("referencing") int referencing, @Param("referenced") int referenced);
+	
+	/**
+	 * removes the author from the document, if credited
+	 * @return - 1 if the pair was deleted, 0 if it didn't exist
+	 */
 	@Modifying
 	@Query(value="DELETE FROM AUTHORED_BY a WHERE a.DOCUMENTID = :documentId AND a.AUTHORID = :authorId", nativeQuery = true)
 	@Transactional
-	void deleteAuthoredEntries(@Param("documentId") int documentId, @Param("authorId") int authorId) throws Exception;
+	int deleteAuthoredEntries(@Param("documentId") int documentId, @Param("authorId") int authorId) throws Exception;
 	
+	/**
+	 * removes the reference, if listed
+	 * @return - 1 if the reference was deleted, 0 if it didn't exist
+	 */
 	@Modifying
 	@Query(value="DELETE FROM REFERENCED_BY WHERE REFERENCING_DOCUMENT= :referencing AND DOCUMENT_REFERENCED= :referenced", nativeQuery = true)
 	@Transactional
-	void deleteReferencesEntries(@Param("referencing") int referencing, @Param("referenced") int referenced) throws Exception;
+	int deleteReferencesEntries(@Param("referencing") int referencing, @Param("referenced") int referenced) throws Exception;
+	
+	/**
+	 * returns one page of documents, ordered by their ID (keyset pagination)
+	 * the page starts right after the provided ID, so it is read straight from the primary key
+	 * @param afterID - ID of the last document of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of documents in the page
+	 * @return - List of at most 'pageSize' documents with an ID greater than 'afterID'
+	 */
+	@Query(value="SELECT * FROM DOCUMENT WHERE DOCUMENTID > :afterID "
+			+ "ORDER BY DOCUMENTID LIMIT :pageSize", nativeQuery = true)
+	List<Document> findPageAfter(@Param("afterID") int afterID, @Param("pageSize") int pageSize);
+	
+	/**
+	 * returns the IDs of the documents in a range, ordered, one page at a time (keyset pagination)
+	 * @param fromID - smallest ID of the page (inclusive)
+	 * @param toID - end of the range (inclusive)
+	 * @param pageSize - maximum number of IDs in the page
+	 * @return - at most 'pageSize' IDs between fromID and toID
+	 */
+	@Query(value="SELECT DOCUMENTID FROM DOCUMENT WHERE DOCUMENTID BETWEEN :fromID AND :toID "
+			+ "ORDER BY DOCUMENTID LIMIT :pageSize", nativeQuery = true)
+	List<Integer> findIdsInRange(@Param("fromID") int fromID, @Param("toID") int toID, @Param("pageSize") int pageSize);
+	
+	/**
+	 * streams all documents ordered by their ID, instead of building the whole table as a List
+	 * must be consumed inside a (read-only) transaction and closed afterwards
+	 * @return - a Stream over all documents
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	@Query("SELECT d FROM Document d ORDER BY d.documentID")
+	Stream<Document> streamAllOrdered();
+	
+	/**
+	 * returns ID and title of every document, ordered by the ID
+	 * only these two columns are selected
+	 * @return - a projection per document
+	 */
+	@Query("SELECT d.documentID AS documentID, d.document_Title AS documentTitle FROM Document d ORDER BY d.documentID")
+	List<DocumentTitleView> findAllTitles();
+	
+	/**
+	 * returns which of the provided document-IDs exist, using a single set-based query
+	 * @param documentIds - IDs that are to be checked
+	 * @return - the subset of the provided IDs that belong to an existing document
+	 */
+	@Query(value="SELECT DOCUMENTID FROM DOCUMENT WHERE DOCUMENTID IN (:documentIds)", nativeQuery = true)
+	Set<Integer> findExistingDocumentIds(@Param("documentIds") Collection<Integer> documentIds);
 }
@@ -0,0 +1,147 @@
+package com.andreas.webapp.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentPayload;
+
+/**
+ * Operations of the DocumentRepo that are implemented with plain JDBC instead of JPA,
+ * see DocumentRepoCustomImpl
+ */
+public interface DocumentRepoCustom {
+
+	/**
+	 * writes the provided documents together with their 'AUTHORED_BY' and 'REFERENCED_BY' rows 
+	 * using JDBC batches inside one transaction
+	 * the payloads must have been validated beforehand
+	 * @param payloads - the documents that are to be created
+	 * @return - the generated document-IDs, in the order of the payloads
+	 */
+	List<Integer> insertDocumentsBatch(List<DocumentPayload> payloads);
+
+	/**
+	 * credits the authors for the document as one JDBC batch of conditional inserts (MERGE)
+	 * @param documentId - ID of the document
+	 * @param authorIds - IDs of the authors, must exist
+	 * @return - the IDs that were inserted, IDs that were already credited are left out
+	 */
+	List<Integer> insertAuthoredBatch(int documentId, Collection<Integer> authorIds);
+
+	/**
+	 * removes the authors from the document as one JDBC batch of deletes
+	 * @return - the IDs that were deleted, IDs that weren't credited are left out
+	 */
+	List<Integer> deleteAuthoredBatch(int documentId, Collection<Integer> authorIds);
+
+	/**
+	 * adds the references to the document as one JDBC batch of conditional inserts (MERGE)
+	 * @param referencingId - ID of the document that gets the references
+	 * @param referencedIds - IDs of the referenced documents, must exist
+	 * @return - the IDs that were inserted, IDs that were already referenced are left out
+	 */
+	List<Integer> insertReferencedBatch(int referencingId, Collection<Integer> referencedIds);
+
+	/**
+	 * removes the references from the document as one JDBC batch of deletes
+	 * @return - the IDs that were deleted, IDs that weren't referenced are left out
+	 */
+	List<Integer> deleteReferencedBatch(int referencingId, Collection<Integer> referencedIds);
+
+	/**
+	 * empties the tables that depend on 'DOCUMENT' and are not referenced themselves: 'AUTHORED_BY', 
+	 * 	'REFERENCED_BY', 'DOCUMENT_BODY' and 'DOCUMENT_METRICS', with TRUNCATE instead of deleting row by row
+	 * TRUNCATE commits on its own and can't be rolled back, 'DOCUMENT' itself can't be truncated 
+	 * 	as it is referenced by foreign keys (deleteDocumentsChunk deletes it afterwards)
+	 */
+	void truncateDocumentChildren();
+
+	/**
+	 * deletes the provided documents with set-based DELETEs inside one transaction, the dependent rows 
+	 * 	first: their 'AUTHORED_BY' rows, their 'REFERENCED_BY' rows in both directions (documents citing 
+	 * 	them lose the reference), their body and metrics, then the documents
+	 * The body and metrics are deleted explicitly, H2 applies ON DELETE CASCADE row by row, 
+	 * 	which takes several times longer
+	 * @param documentIds - IDs of the documents, one chunk (IDs that don't exist are ignored)
+	 * @return - the number of deleted documents
+	 */
+	int deleteDocumentsChunk(Collection<Integer> documentIds);
+
+	/**
+	 * deletes all documents with an ID in the range, like deleteDocumentsChunk, with range conditions 
+	 * 	instead of a list of IDs
+	 * @param fromID - first ID of the range (inclusive)
+	 * @param toID - last ID of the range (inclusive)
+	 * @return - the number of deleted documents
+	 */
+	int deleteDocumentRange(int fromID, int toID);
+
+	/**
+	 * stores the body of the document in 'DOCUMENT_BODY' (as UTF-8, compressed by the BodyCodec), 
+	 * 	an existing body is replaced
+	 * @param documentId - ID of the document, must exist
+	 * @param body - the new body
+	 */
+	void saveBody(int documentId, String body);
+
+	/**
+	 * @return - the body of the document, null if the document has none (or doesn't exist)
+	 */
+	String findBody(int documentId);
+
+	/**
+	 * returns the bodies of the provided documents with a single IN-query
+	 * @param documentIds - IDs of the documents whose bodies we want
+	 * @return - document-ID -> body, documents without a body are left out
+	 */
+	Map<Integer,String> findBodies(Collection<Integer> documentIds);
+
+	/**
+	 * returns the bodies of all documents in one go
+	 * @return - document-ID -> body
+	 */
+	Map<Integer,String> findAllBodies();
+
+	/**
+	 * @return - the length of the body of the document in bytes (UTF-8), 
+	 * 				-1 if the document has no body (or doesn't exist)
+	 */
+	long findBodyLength(int documentId);
+
+	/**
+	 * reads a range of the body, the range of an uncompressed body is cut out by the database, so only 
+	 * 	its bytes are read, a compressed body is read and decompressed as a whole
+	 * @param documentId - ID of the document
+	 * @param offset - position of the first byte (0-based)
+	 * @param length - number of bytes, fewer are returned if the body ends before
+	 * @return - the bytes of the range (UTF-8, the range may split a character), 
+	 * 				null if the document has no body
+	 */
+	byte[] findBodyRange(int documentId, long offset, int length);
+
+	/**
+	 * returns one page of the documents credited to the author, ordered by their ID (keyset pagination)
+	 * one statement: the page is a range seek on the primary key of 'AUTHORED_BY' (authorid, documentid), 
+	 * 	joined to 'DOCUMENT' and, only if requested, to 'DOCUMENT_BODY'
+	 * @param authorId - ID of the author
+	 * @param afterID - ID of the last document of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of documents in the page
+	 * @param withBody - true to read the bodies as well
+	 * @return - a DocumentListing per document with ID, title and (if requested) body
+	 */
+	List<DocumentListing> findPageOfAuthor(int authorId, int afterID, int pageSize, boolean withBody);
+
+	/**
+	 * reads ID, title and body of every document ordered by the ID, and hands them to the handler 
+	 * 	one by one, without building a List (e.g. for rebuilding the search index)
+	 * @param handler - called once per document, the body is null if the document has none
+	 */
+	void forEachText(TextHandler handler);
+
+	@FunctionalInterface
+	interface TextHandler {
+		void handle(int documentId, String title, String body);
+	}
+}
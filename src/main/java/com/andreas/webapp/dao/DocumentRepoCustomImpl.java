@@ -0,0 +1,332 @@
+package com.andreas.webapp.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentPayload;
+
+/**
+ * JDBC implementation of DocumentRepoCustom
+ * JPA can't batch inserts of entities with IDENTITY-generated IDs, so the bulk inserts are 
+ * written directly with the JdbcTemplate (which takes part in the JPA transaction)
+ * The document bodies are written and read here as well, compressed by the BodyCodec
+ */
+public class DocumentRepoCustomImpl implements DocumentRepoCustom {
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	@Autowired
+	BodyCodec bodyCodec;
+
+	@Override
+	@Transactional
+	public List<Integer> insertDocumentsBatch(List<DocumentPayload> payloads) {
+
+		List<Integer> documentIds = new ArrayList<>(payloads.size());
+		if(payloads.isEmpty()) {
+			return documentIds;
+		}
+
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(con -> con.prepareStatement(
+				"INSERT INTO DOCUMENT(DOCUMENT_TITLE) VALUES (?)", new String[] {"DOCUMENTID"}),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ps.setString(1, payloads.get(i).getDocumentTitle());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return payloads.size();
+					}
+				}, keyHolder);
+
+		for(Map<String,Object> key:keyHolder.getKeyList()) {
+			documentIds.add(((Number) key.values().iterator().next()).intValue());
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO DOCUMENT_BODY(DOCUMENTID,BODY,ENCODING,RAW_LENGTH) VALUES (?,?,?,?)", 
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						BodyCodec.Encoded body = bodyCodec.encode(payloads.get(i).getDocumentBody());
+						ps.setInt(1, documentIds.get(i));
+						ps.setBytes(2, body.bytes());
+						ps.setInt(3, body.encoding());
+						ps.setLong(4, body.rawLength());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return payloads.size();
+					}
+				});
+
+		List<int[]> authoredRows = new ArrayList<>();
+		List<int[]> referencedRows = new ArrayList<>();
+		for(int i = 0; i < payloads.size(); i++) {
+			int documentId = documentIds.get(i);
+			for(int authorId:new LinkedHashSet<>(payloads.get(i).getAuthors())) {
+				authoredRows.add(new int[] {authorId, documentId});
+			}
+			if(payloads.get(i).getReferences() != null) {
+				for(int referencedId:new LinkedHashSet<>(payloads.get(i).getReferences())) {
+					referencedRows.add(new int[] {referencedId, documentId});
+				}
+			}
+		}
+
+		batchInsertPairs("INSERT INTO AUTHORED_BY(AUTHORID,DOCUMENTID) VALUES (?,?)", authoredRows);
+		batchInsertPairs("INSERT INTO REFERENCED_BY(DOCUMENT_REFERENCED,REFERENCING_DOCUMENT) VALUES (?,?)", 
+				referencedRows);
+
+		return documentIds;
+	}
+
+	@Override
+	@Transactional
+	public List<Integer> insertAuthoredBatch(int documentId, Collection<Integer> authorIds) {
+		return batchLinks("MERGE INTO AUTHORED_BY t USING (VALUES (CAST(? AS INTEGER),CAST(? AS INTEGER))) "
+				+ "s(AUTHORID,DOCUMENTID) ON t.AUTHORID = s.AUTHORID AND t.DOCUMENTID = s.DOCUMENTID "
+				+ "WHEN NOT MATCHED THEN INSERT (AUTHORID,DOCUMENTID) VALUES (s.AUTHORID,s.DOCUMENTID)", 
+				documentId, authorIds);
+	}
+
+	@Override
+	@Transactional
+	public List<Integer> deleteAuthoredBatch(int documentId, Collection<Integer> authorIds) {
+		return batchLinks("DELETE FROM AUTHORED_BY WHERE AUTHORID = ? AND DOCUMENTID = ?", documentId, authorIds);
+	}
+
+	@Override
+	@Transactional
+	public List<Integer> insertReferencedBatch(int referencingId, Collection<Integer> referencedIds) {
+		return batchLinks("MERGE INTO REFERENCED_BY t USING (VALUES (CAST(? AS INTEGER),CAST(? AS INTEGER))) "
+				+ "s(DOCUMENT_REFERENCED,REFERENCING_DOCUMENT) ON t.DOCUMENT_REFERENCED = s.DOCUMENT_REFERENCED "
+				+ "AND t.REFERENCING_DOCUMENT = s.REFERENCING_DOCUMENT WHEN NOT MATCHED THEN "
+				+ "INSERT (DOCUMENT_REFERENCED,REFERENCING_DOCUMENT) VALUES (s.DOCUMENT_REFERENCED,s.REFERENCING_DOCUMENT)", 
+				referencingId, referencedIds);
+	}
+
+	@Override
+	@Transactional
+	public List<Integer> deleteReferencedBatch(int referencingId, Collection<Integer> referencedIds) {
+		return batchLinks("DELETE FROM REFERENCED_BY WHERE DOCUMENT_REFERENCED = ? AND REFERENCING_DOCUMENT = ?", 
+				referencingId, referencedIds);
+	}
+
+	@Override
+	public void truncateDocumentChildren() {
+		for(String table:new String[] {"AUTHORED_BY", "REFERENCED_BY", "DOCUMENT_BODY", "DOCUMENT_METRICS"}) {
+			jdbcTemplate.execute("TRUNCATE TABLE " + table);
+		}
+	}
+
+	@Override
+	@Transactional
+	public int deleteDocumentsChunk(Collection<Integer> documentIds) {
+		if(documentIds.isEmpty()) {
+			return 0;
+		}
+		NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(jdbcTemplate);
+		Map<String,Object> params = Map.of("documentIds", documentIds);
+		int deleted = 0;
+		for(String statement:deleteStatements("IN (:documentIds)")) {
+			deleted = template.update(statement, params);
+		}
+		return deleted;
+	}
+
+	@Override
+	@Transactional
+	public int deleteDocumentRange(int fromID, int toID) {
+		int deleted = 0;
+		for(String statement:deleteStatements("BETWEEN ? AND ?")) {
+			deleted = jdbcTemplate.update(statement, fromID, toID);
+		}
+		return deleted;
+	}
+
+	/**
+	 * the statements deleting a set of documents, children before parents, the last one deletes the documents
+	 * one statement per index, an OR of both directions of 'REFERENCED_BY' would scan the table
+	 */
+	private static List<String> deleteStatements(String condition) {
+		return List.of("DELETE FROM AUTHORED_BY WHERE DOCUMENTID " + condition,
+				"DELETE FROM REFERENCED_BY WHERE REFERENCING_DOCUMENT " + condition,
+				"DELETE FROM REFERENCED_BY WHERE DOCUMENT_REFERENCED " + condition,
+				"DELETE FROM DOCUMENT_BODY WHERE DOCUMENTID " + condition,
+				"DELETE FROM DOCUMENT_METRICS WHERE DOCUMENTID " + condition,
+				"DELETE FROM DOCUMENT WHERE DOCUMENTID " + condition);
+	}
+
+	@Override
+	@Transactional
+	public void saveBody(int documentId, String body) {
+		BodyCodec.Encoded encoded = bodyCodec.encode(body);
+		jdbcTemplate.update("MERGE INTO DOCUMENT_BODY t USING (VALUES (CAST(? AS INTEGER),CAST(? AS BLOB),"
+				+ "CAST(? AS SMALLINT),CAST(? AS BIGINT))) s(DOCUMENTID,BODY,ENCODING,RAW_LENGTH) "
+				+ "ON t.DOCUMENTID = s.DOCUMENTID WHEN MATCHED THEN UPDATE SET t.BODY = s.BODY, "
+				+ "t.ENCODING = s.ENCODING, t.RAW_LENGTH = s.RAW_LENGTH WHEN NOT MATCHED THEN "
+				+ "INSERT (DOCUMENTID,BODY,ENCODING,RAW_LENGTH) VALUES (s.DOCUMENTID,s.BODY,s.ENCODING,s.RAW_LENGTH)", 
+				ps -> {
+					ps.setInt(1, documentId);
+					ps.setBytes(2, encoded.bytes());
+					ps.setInt(3, encoded.encoding());
+					ps.setLong(4, encoded.rawLength());
+				});
+	}
+
+	@Override
+	public String findBody(int documentId) {
+		List<String> bodies = jdbcTemplate.query("SELECT BODY, ENCODING, RAW_LENGTH FROM DOCUMENT_BODY "
+				+ "WHERE DOCUMENTID = ?", (rs, row) -> body(rs, 1), documentId);
+		return bodies.isEmpty() ? null : bodies.get(0);
+	}
+
+	@Override
+	public Map<Integer,String> findBodies(Collection<Integer> documentIds) {
+		Map<Integer,String> bodies = new HashMap<>();
+		if(documentIds.isEmpty()) {
+			return bodies;
+		}
+		new NamedParameterJdbcTemplate(jdbcTemplate).query(
+				"SELECT DOCUMENTID, BODY, ENCODING, RAW_LENGTH FROM DOCUMENT_BODY WHERE DOCUMENTID IN (:documentIds)", 
+				Map.of("documentIds", documentIds), (ResultSet rs) -> {
+					bodies.put(rs.getInt(1), body(rs, 2));
+				});
+		return bodies;
+	}
+
+	@Override
+	public Map<Integer,String> findAllBodies() {
+		Map<Integer,String> bodies = new HashMap<>();
+		jdbcTemplate.query("SELECT DOCUMENTID, BODY, ENCODING, RAW_LENGTH FROM DOCUMENT_BODY", (ResultSet rs) -> {
+			bodies.put(rs.getInt(1), body(rs, 2));
+		});
+		return bodies;
+	}
+
+	@Override
+	public long findBodyLength(int documentId) {
+		List<Long> lengths = jdbcTemplate.queryForList(
+				"SELECT RAW_LENGTH FROM DOCUMENT_BODY WHERE DOCUMENTID = ?", Long.class, documentId);
+		return lengths.isEmpty() ? -1 : lengths.get(0);
+	}
+
+	@Override
+	public byte[] findBodyRange(int documentId, long offset, int length) {
+		//an uncompressed body is cut by the database (SUBSTRING counts from 1), 
+		//a compressed one can only be cut after it was decompressed
+		List<byte[]> ranges = jdbcTemplate.query("SELECT CASE WHEN ENCODING = 0 THEN SUBSTRING(BODY FROM ? FOR ?) "
+				+ "ELSE BODY END, ENCODING, RAW_LENGTH FROM DOCUMENT_BODY WHERE DOCUMENTID = ?", (rs, row) -> {
+					if(rs.getInt(2) == BodyCodec.NONE) {
+						return rs.getBytes(1);
+					}
+					byte[] raw = bodyCodec.decode(rs.getInt(2), rs.getBytes(1), rs.getInt(3));
+					int from = (int) Math.min(offset, raw.length);
+					return Arrays.copyOfRange(raw, from, (int) Math.min((long) from + length, raw.length));
+				}, offset + 1, length, documentId);
+		return ranges.isEmpty() ? null : ranges.get(0);
+	}
+
+	@Override
+	public List<DocumentListing> findPageOfAuthor(int authorId, int afterID, int pageSize, boolean withBody) {
+		//the page is cut from 'AUTHORED_BY' in a derived table, written as a plain join H2 may start 
+		//with a scan of 'DOCUMENT' instead
+		return jdbcTemplate.query("SELECT d.DOCUMENTID, d.DOCUMENT_TITLE"
+				+ (withBody ? ", b.BODY, b.ENCODING, b.RAW_LENGTH" : "")
+				+ " FROM (SELECT DOCUMENTID FROM AUTHORED_BY WHERE AUTHORID = ? AND DOCUMENTID > ?"
+				+ " ORDER BY DOCUMENTID LIMIT ?) a JOIN DOCUMENT d ON d.DOCUMENTID = a.DOCUMENTID"
+				+ (withBody ? " LEFT JOIN DOCUMENT_BODY b ON b.DOCUMENTID = d.DOCUMENTID" : "")
+				+ " ORDER BY a.DOCUMENTID", 
+				(rs, row) -> new DocumentListing(rs.getInt(1), rs.getString(2), withBody ? body(rs, 3) : null, 
+						null, null), 
+				authorId, afterID, pageSize);
+	}
+
+	@Override
+	public void forEachText(TextHandler handler) {
+		jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement("SELECT d.DOCUMENTID, d.DOCUMENT_TITLE, b.BODY, b.ENCODING, "
+					+ "b.RAW_LENGTH FROM DOCUMENT d LEFT JOIN DOCUMENT_BODY b ON b.DOCUMENTID = d.DOCUMENTID "
+					+ "ORDER BY d.DOCUMENTID");
+			ps.setFetchSize(500);
+			return ps;
+		}, (ResultSet rs) -> {
+			handler.handle(rs.getInt(1), rs.getString(2), body(rs, 3));
+		});
+	}
+
+	/**
+	 * decompresses and decodes the body in the provided column, followed by the columns ENCODING 
+	 * 	and RAW_LENGTH, null stays null
+	 */
+	private String body(ResultSet rs, int column) throws SQLException {
+		byte[] bytes = rs.getBytes(column);
+		return bytes == null ? null : bodyCodec.decodeToString(rs.getInt(column + 1), bytes, rs.getInt(column + 2));
+	}
+
+	/**
+	 * executes the provided statement once per linked ID as one JDBC batch, the first parameter 
+	 * 	is the linked ID and the second the document-ID
+	 * the statements are conditional, so the update counts tell which rows were actually changed
+	 * @return - the linked IDs whose statement changed a row
+	 */
+	private List<Integer> batchLinks(String sql, int documentId, Collection<Integer> linkedIds) {
+		List<Integer> ids = new ArrayList<>(linkedIds);
+		List<Integer> changed = new ArrayList<>();
+		if(ids.isEmpty()) {
+			return changed;
+		}
+		int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setInt(1, ids.get(i));
+				ps.setInt(2, documentId);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return ids.size();
+			}
+		});
+		for(int i = 0; i < counts.length; i++) {
+			//SUCCESS_NO_INFO (-2) if the driver doesn't report counts, the statement was executed
+			if(counts[i] != 0) {
+				changed.add(ids.get(i));
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * executes the provided INSERT statement (with two int parameters) as one JDBC batch
+	 */
+	private void batchInsertPairs(String sql, List<int[]> rows) {
+		if(rows.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+			ps.setInt(1, row[0]);
+			ps.setInt(2, row[1]);
+		});
+	}
+}
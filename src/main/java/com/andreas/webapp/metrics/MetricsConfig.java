@@ -0,0 +1,62 @@
+package com.andreas.webapp.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics on top of what the actuator records on its own (http.server.requests per endpoint,
+ * 	spring.data.repository.invocations per repository method):
+ * - krieger.service: timer of every public method of the classes annotated with @Timed
+ * - krieger.db.statements: all SQL statements, of Hibernate and of the JdbcTemplates
+ * - krieger.request.statements: SQL statements per request and endpoint
+ * Everything is exported at /actuator/prometheus
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry registry) {
+		return new TimedAspect(registry);
+	}
+
+	@Bean
+	public QueryCounter queryCounter(MeterRegistry registry) {
+		return new QueryCounter(registry);
+	}
+
+	/**
+	 * wraps the DataSource, so the statements of every connection are counted
+	 * static, as a BeanPostProcessor has to exist before the beans it processes
+	 */
+	@Bean
+	public static BeanPostProcessor statementCountingDataSource(ObjectProvider<QueryCounter> queryCounter) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if(bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+					return new StatementCountingDataSource(dataSource, queryCounter);
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public WebMvcConfigurer queryCountWebMvcConfigurer(QueryCounter queryCounter, MeterRegistry registry) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry interceptors) {
+				interceptors.addInterceptor(new QueryCountInterceptor(queryCounter, registry));
+			}
+		};
+	}
+}
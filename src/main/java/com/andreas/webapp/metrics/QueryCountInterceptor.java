@@ -0,0 +1,44 @@
+package com.andreas.webapp.metrics;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements every request issued, per endpoint
+ * A request is handled by one thread, so the per-thread count of the QueryCounter is reset 
+ * 	before the handler runs and read once it is done. A count that grows with the size of the 
+ * 	result is an N+1 pattern
+ */
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+	private final QueryCounter queryCounter;
+	private final MeterRegistry registry;
+
+	public QueryCountInterceptor(QueryCounter queryCounter, MeterRegistry registry) {
+		this.queryCounter = queryCounter;
+		this.registry = registry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		queryCounter.reset();
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		DistributionSummary.builder("krieger.request.statements")
+				.description("SQL statements per request")
+				.tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+				.publishPercentileHistogram()
+				.register(registry)
+				.record(queryCounter.count());
+	}
+}
@@ -0,0 +1,43 @@
+package com.andreas.webapp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the SQL statements created on connections of the DataSource, in total and per thread
+ * The StatementCountingDataSource reports every statement, so those of Hibernate and of a plain 
+ * 	JdbcTemplate (e.g. the body reads and the bulk inserts) are both counted
+ */
+public class QueryCounter {
+
+	private final ThreadLocal<int[]> current = ThreadLocal.withInitial(() -> new int[1]);
+	private final Counter total;
+
+	public QueryCounter(MeterRegistry registry) {
+		this.total = Counter.builder("krieger.db.statements")
+				.description("SQL statements created on connections of the DataSource")
+				.register(registry);
+	}
+
+	/**
+	 * counts one statement of the current thread
+	 */
+	public void statementCreated() {
+		current.get()[0]++;
+		total.increment();
+	}
+
+	/**
+	 * starts a new count for the current thread
+	 */
+	public void reset() {
+		current.get()[0] = 0;
+	}
+
+	/**
+	 * @return - number of statements of the current thread since the last reset
+	 */
+	public int count() {
+		return current.get()[0];
+	}
+}
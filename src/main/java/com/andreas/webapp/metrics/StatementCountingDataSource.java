@@ -0,0 +1,78 @@
+package com.andreas.webapp.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps the DataSource of the application, so every statement created on one of its connections
+ * 	is counted by the QueryCounter, whether it comes from Hibernate or from a JdbcTemplate
+ * A JDBC batch is prepared once and therefore counted once
+ *
+ * The QueryCounter is looked up on the first connection, the DataSource is created before the
+ * 	meter registry it needs
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "prepareCall", 
+			"createStatement");
+
+	private final ObjectProvider<QueryCounter> queryCounterProvider;
+	private volatile QueryCounter queryCounter;
+
+	public StatementCountingDataSource(DataSource targetDataSource, ObjectProvider<QueryCounter> queryCounterProvider) {
+		super(targetDataSource);
+		this.queryCounterProvider = queryCounterProvider;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * closes the wrapped DataSource (e.g. the connection pool) on shutdown, Spring infers this
+	 * 	method as the destroy method of the bean it replaced
+	 */
+	@Override
+	public void close() throws Exception {
+		if(obtainTargetDataSource() instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	private Connection counting(Connection connection) {
+		QueryCounter counter = queryCounter;
+		if(counter == null) {
+			counter = queryCounterProvider.getIfAvailable();
+			if(counter == null) {
+				return connection;
+			}
+			queryCounter = counter;
+		}
+		QueryCounter statementCounter = counter;
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), 
+				new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					if(STATEMENT_FACTORIES.contains(method.getName())) {
+						statementCounter.statementCreated();
+					}
+					try {
+						return method.invoke(connection, args);
+					}catch(InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+}
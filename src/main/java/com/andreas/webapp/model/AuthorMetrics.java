@@ -0,0 +1,78 @@
+package com.andreas.webapp.model;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Citation metrics of an author, as computed by the last run of the citation analytics
+ * 'hIndex' is the largest h such that h of the author's documents are cited at least h times each,
+ * 'citationCount' the citations of all of the author's documents together
+ */
+public class AuthorMetrics {
+
+	private int authorID;
+	private int hIndex;
+	private long citationCount;
+	private int documentCount;
+	private Instant computedAt;
+
+	public AuthorMetrics() {
+
+	}
+
+	public AuthorMetrics(int authorID, int hIndex, long citationCount, int documentCount, Instant computedAt) {
+		this.authorID = authorID;
+		this.hIndex = hIndex;
+		this.citationCount = citationCount;
+		this.documentCount = documentCount;
+		this.computedAt = computedAt;
+	}
+
+	public int getAuthorID() {
+		return authorID;
+	}
+
+	public void setAuthorID(int authorID) {
+		this.authorID = authorID;
+	}
+
+	@JsonProperty("hIndex")
+	public int getHIndex() {
+		return hIndex;
+	}
+
+	public void setHIndex(int hIndex) {
+		this.hIndex = hIndex;
+	}
+
+	public long getCitationCount() {
+		return citationCount;
+	}
+
+	public void setCitationCount(long citationCount) {
+		this.citationCount = citationCount;
+	}
+
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	public void setDocumentCount(int documentCount) {
+		this.documentCount = documentCount;
+	}
+
+	public Instant getComputedAt() {
+		return computedAt;
+	}
+
+	public void setComputedAt(Instant computedAt) {
+		this.computedAt = computedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "AuthorMetrics [authorID=" + authorID + ", hIndex=" + hIndex + ", citationCount=" + citationCount
+				+ ", documentCount=" + documentCount + ", computedAt=" + computedAt + "]";
+	}
+}
@@ -0,0 +1,79 @@
+package com.andreas.webapp.model;
+
+/**
+ * Result of a single item of a bulk request
+ * 'index' is the position of the item in the payload (starting at 0), 'documentID' is only set 
+ * if the item was created
+ */
+public class BulkItemResult {
+
+	public enum Status {
+		CREATED, REJECTED, FAILED
+	}
+
+	private int index;
+	private Integer documentID;
+	private Status status;
+	private String message;
+
+	public BulkItemResult() {
+
+	}
+
+	public BulkItemResult(int index, Integer documentID, Status status, String message) {
+		this.index = index;
+		this.documentID = documentID;
+		this.status = status;
+		this.message = message;
+	}
+
+	public static BulkItemResult created(int index, int documentID) {
+		return new BulkItemResult(index, documentID, Status.CREATED, "Document successfully created!");
+	}
+
+	public static BulkItemResult rejected(int index, String message) {
+		return new BulkItemResult(index, null, Status.REJECTED, message);
+	}
+
+	public static BulkItemResult failed(int index, String message) {
+		return new BulkItemResult(index, null, Status.FAILED, message);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Integer getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(Integer documentID) {
+		this.documentID = documentID;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkItemResult [index=" + index + ", documentID=" + documentID + ", status=" + status
+				+ ", message=" + message + "]";
+	}
+}
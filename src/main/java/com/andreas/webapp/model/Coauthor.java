@@ -0,0 +1,41 @@
+package com.andreas.webapp.model;
+
+/**
+ * An author who has co-authored with another one, together with the number of documents
+ * they are both credited for
+ */
+public class Coauthor {
+
+	private int authorID;
+	private int collaborations;
+
+	public Coauthor() {
+
+	}
+
+	public Coauthor(int authorID, int collaborations) {
+		this.authorID = authorID;
+		this.collaborations = collaborations;
+	}
+
+	public int getAuthorID() {
+		return authorID;
+	}
+
+	public void setAuthorID(int authorID) {
+		this.authorID = authorID;
+	}
+
+	public int getCollaborations() {
+		return collaborations;
+	}
+
+	public void setCollaborations(int collaborations) {
+		this.collaborations = collaborations;
+	}
+
+	@Override
+	public String toString() {
+		return "Coauthor [authorID=" + authorID + ", collaborations=" + collaborations + "]";
+	}
+}
@@ -7,9 +7,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.Transient;
 
 @Entity
 public class Document {
@@ -18,18 +20,25 @@ public class Document {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private int documentID;
 	private String document_Title;
+	/**
+	 * kept in its own table 'DOCUMENT_BODY' and never loaded with the entity, 
+	 * 	it is read and written explicitly through the DocumentRepo (see DocumentRepoCustom)
+	 */
+	@Transient
 	private String document_Body;
 	@ManyToMany
 	@JoinTable(
 	name = "authored_by", 
 	joinColumns = @JoinColumn(name = "documentID"), 
-	inverseJoinColumns = @JoinColumn(name = "authorID"))
+	inverseJoinColumns = @JoinColumn(name = "authorID"),
+	indexes = @Index(name = "idx_authored_by_document", columnList = "documentID, authorID"))
 	private Set<Author> authors;
 	@ManyToMany
 	@JoinTable(
 	name = "referenced_by", 
 	joinColumns = @JoinColumn(name = "referencing_document",referencedColumnName = "documentID"), 
-	inverseJoinColumns = @JoinColumn(name = "document_referenced",referencedColumnName = "documentID"))
+	inverseJoinColumns = @JoinColumn(name = "document_referenced",referencedColumnName = "documentID"),
+	indexes = @Index(name = "idx_referenced_by_referencing", columnList = "referencing_document, document_referenced"))
 	private Set<Document> references;
 	@ManyToMany(mappedBy = "references")
 	private Set<Document> referencedBy;  
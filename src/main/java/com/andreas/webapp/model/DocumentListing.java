@@ -0,0 +1,78 @@
+package com.andreas.webapp.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * An entry of a projected document listing (/getAllDocs?fields=...)
+ * Only the requested fields are set, the others are null and left out of the JSON
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DocumentListing {
+
+	private Integer documentID;
+	private String documentTitle;
+	private String documentBody;
+	private List<Integer> authorIds;
+	private List<Integer> referenceIds;
+
+	public DocumentListing() {
+
+	}
+
+	public DocumentListing(Integer documentID, String documentTitle, String documentBody, List<Integer> authorIds,
+			List<Integer> referenceIds) {
+		this.documentID = documentID;
+		this.documentTitle = documentTitle;
+		this.documentBody = documentBody;
+		this.authorIds = authorIds;
+		this.referenceIds = referenceIds;
+	}
+
+	public Integer getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(Integer documentID) {
+		this.documentID = documentID;
+	}
+
+	public String getDocumentTitle() {
+		return documentTitle;
+	}
+
+	public void setDocumentTitle(String documentTitle) {
+		this.documentTitle = documentTitle;
+	}
+
+	public String getDocumentBody() {
+		return documentBody;
+	}
+
+	public void setDocumentBody(String documentBody) {
+		this.documentBody = documentBody;
+	}
+
+	public List<Integer> getAuthorIds() {
+		return authorIds;
+	}
+
+	public void setAuthorIds(List<Integer> authorIds) {
+		this.authorIds = authorIds;
+	}
+
+	public List<Integer> getReferenceIds() {
+		return referenceIds;
+	}
+
+	public void setReferenceIds(List<Integer> referenceIds) {
+		this.referenceIds = referenceIds;
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentListing [documentID=" + documentID + ", documentTitle=" + documentTitle + ", authorIds="
+				+ authorIds + ", referenceIds=" + referenceIds + "]";
+	}
+}
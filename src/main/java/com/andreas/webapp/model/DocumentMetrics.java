@@ -0,0 +1,65 @@
+package com.andreas.webapp.model;
+
+import java.time.Instant;
+
+/**
+ * Citation metrics of a document, as computed by the last run of the citation analytics
+ * 'citationCount' is the number of documents referencing it, 'pageRank' its share of the 
+ * PageRank of all documents (they add up to 1)
+ */
+public class DocumentMetrics {
+
+	private int documentID;
+	private int citationCount;
+	private double pageRank;
+	private Instant computedAt;
+
+	public DocumentMetrics() {
+
+	}
+
+	public DocumentMetrics(int documentID, int citationCount, double pageRank, Instant computedAt) {
+		this.documentID = documentID;
+		this.citationCount = citationCount;
+		this.pageRank = pageRank;
+		this.computedAt = computedAt;
+	}
+
+	public int getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(int documentID) {
+		this.documentID = documentID;
+	}
+
+	public int getCitationCount() {
+		return citationCount;
+	}
+
+	public void setCitationCount(int citationCount) {
+		this.citationCount = citationCount;
+	}
+
+	public double getPageRank() {
+		return pageRank;
+	}
+
+	public void setPageRank(double pageRank) {
+		this.pageRank = pageRank;
+	}
+
+	public Instant getComputedAt() {
+		return computedAt;
+	}
+
+	public void setComputedAt(Instant computedAt) {
+		this.computedAt = computedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentMetrics [documentID=" + documentID + ", citationCount=" + citationCount + ", pageRank="
+				+ pageRank + ", computedAt=" + computedAt + "]";
+	}
+}
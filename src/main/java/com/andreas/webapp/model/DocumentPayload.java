@@ -0,0 +1,84 @@
+package com.andreas.webapp.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Typed form of the JSON payload used to create a document
+ * The attributes correspond to the fields of the JSON String:
+ * - documentID
+ * - documentTitle
+ * - documentBody
+ * - authors: a List of Integers representing the author-IDs
+ * - references (optional): a List of Integers representing the referenced document-IDs
+ * Unknown fields are ignored, missing ones stay null
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DocumentPayload {
+
+	private Integer documentID;
+	private String documentTitle;
+	private String documentBody;
+	private List<Integer> authors;
+	private List<Integer> references;
+
+	public DocumentPayload() {
+
+	}
+
+	public DocumentPayload(Integer documentID, String documentTitle, String documentBody, List<Integer> authors,
+			List<Integer> references) {
+		this.documentID = documentID;
+		this.documentTitle = documentTitle;
+		this.documentBody = documentBody;
+		this.authors = authors;
+		this.references = references;
+	}
+
+	public Integer getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(Integer documentID) {
+		this.documentID = documentID;
+	}
+
+	public String getDocumentTitle() {
+		return documentTitle;
+	}
+
+	public void setDocumentTitle(String documentTitle) {
+		this.documentTitle = documentTitle;
+	}
+
+	public String getDocumentBody() {
+		return documentBody;
+	}
+
+	public void setDocumentBody(String documentBody) {
+		this.documentBody = documentBody;
+	}
+
+	public List<Integer> getAuthors() {
+		return authors;
+	}
+
+	public void setAuthors(List<Integer> authors) {
+		this.authors = authors;
+	}
+
+	public List<Integer> getReferences() {
+		return references;
+	}
+
+	public void setReferences(List<Integer> references) {
+		this.references = references;
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentPayload [documentID=" + documentID + ", documentTitle=" + documentTitle + ", authors="
+				+ authors + ", references=" + references + "]";
+	}
+}
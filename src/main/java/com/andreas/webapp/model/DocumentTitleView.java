@@ -0,0 +1,11 @@
+package com.andreas.webapp.model;
+
+/**
+ * Projection of a document to its ID and title, read without any join
+ */
+public interface DocumentTitleView {
+
+	int getDocumentID();
+
+	String getDocumentTitle();
+}
@@ -0,0 +1,83 @@
+package com.andreas.webapp.model;
+
+/**
+ * State of a document that was accepted by the asynchronous /createDoc (see DocumentIngestQueue)
+ * 'ticket' identifies the submission at /getCreateStatus, 'documentID' is only set once the
+ * document was created
+ */
+public class IngestTicket {
+
+	public enum Status {
+		QUEUED, CREATED, REJECTED, FAILED
+	}
+
+	private String ticket;
+	private Integer documentID;
+	private Status status;
+	private String message;
+
+	public IngestTicket() {
+
+	}
+
+	public IngestTicket(String ticket, Integer documentID, Status status, String message) {
+		this.ticket = ticket;
+		this.documentID = documentID;
+		this.status = status;
+		this.message = message;
+	}
+
+	public static IngestTicket queued(String ticket) {
+		return new IngestTicket(ticket, null, Status.QUEUED, "Document accepted, waiting to be written!");
+	}
+
+	/**
+	 * the ticket of a processed submission, from the result of its item in the written batch
+	 */
+	public static IngestTicket of(String ticket, BulkItemResult result) {
+		return new IngestTicket(ticket, result.getDocumentID(), Status.valueOf(result.getStatus().name()),
+				result.getMessage());
+	}
+
+	public static IngestTicket failed(String ticket, String message) {
+		return new IngestTicket(ticket, null, Status.FAILED, message);
+	}
+
+	public String getTicket() {
+		return ticket;
+	}
+
+	public void setTicket(String ticket) {
+		this.ticket = ticket;
+	}
+
+	public Integer getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(Integer documentID) {
+		this.documentID = documentID;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "IngestTicket [ticket=" + ticket + ", documentID=" + documentID + ", status=" + status
+				+ ", message=" + message + "]";
+	}
+}
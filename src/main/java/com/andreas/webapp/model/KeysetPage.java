@@ -0,0 +1,48 @@
+package com.andreas.webapp.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing
+ * Instead of an offset, the caller passes the last ID of the previous page ('afterID'),
+ * so every page is read straight from the primary key index
+ * @param <T> - type of the listed entries (Author or Document)
+ */
+public class KeysetPage<T> {
+
+	private List<T> items;
+	/**
+	 * ID to pass as 'afterID' to get the next page, null if this is the last page
+	 */
+	private Integer nextAfterID;
+
+	public KeysetPage() {
+
+	}
+
+	public KeysetPage(List<T> items, Integer nextAfterID) {
+		this.items = items;
+		this.nextAfterID = nextAfterID;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public Integer getNextAfterID() {
+		return nextAfterID;
+	}
+
+	public void setNextAfterID(Integer nextAfterID) {
+		this.nextAfterID = nextAfterID;
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPage [items=" + items + ", nextAfterID=" + nextAfterID + "]";
+	}
+}
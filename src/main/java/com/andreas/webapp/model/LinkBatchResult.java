@@ -0,0 +1,73 @@
+package com.andreas.webapp.model;
+
+import java.util.List;
+
+/**
+ * Result of adding or removing a list of authors or references of one document at once
+ * Every distinct requested ID ends up in exactly one of the lists
+ */
+public class LinkBatchResult {
+
+	private int documentID;
+	/**
+	 * IDs that were added or removed by the request
+	 */
+	private List<Integer> changed;
+	/**
+	 * IDs that were already linked (add), or weren't linked (remove)
+	 */
+	private List<Integer> unchanged;
+	/**
+	 * IDs of authors or documents that don't exist, only set when adding
+	 */
+	private List<Integer> notFound;
+
+	public LinkBatchResult() {
+
+	}
+
+	public LinkBatchResult(int documentID, List<Integer> changed, List<Integer> unchanged, List<Integer> notFound) {
+		this.documentID = documentID;
+		this.changed = changed;
+		this.unchanged = unchanged;
+		this.notFound = notFound;
+	}
+
+	public int getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(int documentID) {
+		this.documentID = documentID;
+	}
+
+	public List<Integer> getChanged() {
+		return changed;
+	}
+
+	public void setChanged(List<Integer> changed) {
+		this.changed = changed;
+	}
+
+	public List<Integer> getUnchanged() {
+		return unchanged;
+	}
+
+	public void setUnchanged(List<Integer> unchanged) {
+		this.unchanged = unchanged;
+	}
+
+	public List<Integer> getNotFound() {
+		return notFound;
+	}
+
+	public void setNotFound(List<Integer> notFound) {
+		this.notFound = notFound;
+	}
+
+	@Override
+	public String toString() {
+		return "LinkBatchResult [documentID=" + documentID + ", changed=" + changed + ", unchanged=" + unchanged
+				+ ", notFound=" + notFound + "]";
+	}
+}
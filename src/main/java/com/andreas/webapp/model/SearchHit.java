@@ -0,0 +1,50 @@
+package com.andreas.webapp.model;
+
+/**
+ * A single ranked result of a document search
+ */
+public class SearchHit {
+
+	private int documentID;
+	private String documentTitle;
+	private double score;
+
+	public SearchHit() {
+
+	}
+
+	public SearchHit(int documentID, String documentTitle, double score) {
+		this.documentID = documentID;
+		this.documentTitle = documentTitle;
+		this.score = score;
+	}
+
+	public int getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(int documentID) {
+		this.documentID = documentID;
+	}
+
+	public String getDocumentTitle() {
+		return documentTitle;
+	}
+
+	public void setDocumentTitle(String documentTitle) {
+		this.documentTitle = documentTitle;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public void setScore(double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchHit [documentID=" + documentID + ", documentTitle=" + documentTitle + ", score=" + score + "]";
+	}
+}
@@ -0,0 +1,41 @@
+package com.andreas.webapp.model;
+
+/**
+ * A document reached by a citation graph traversal, together with the number of hops
+ * it is away from the starting document
+ */
+public class TraversalHit {
+
+	private int documentID;
+	private int depth;
+
+	public TraversalHit() {
+
+	}
+
+	public TraversalHit(int documentID, int depth) {
+		this.documentID = documentID;
+		this.depth = depth;
+	}
+
+	public int getDocumentID() {
+		return documentID;
+	}
+
+	public void setDocumentID(int documentID) {
+		this.documentID = documentID;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	@Override
+	public String toString() {
+		return "TraversalHit [documentID=" + documentID + ", depth=" + depth + "]";
+	}
+}
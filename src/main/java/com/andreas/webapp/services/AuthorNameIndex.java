@@ -0,0 +1,330 @@
+package com.andreas.webapp.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.model.Author;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * In-memory index over the first and last names of all authors
+ * It is built once at startup and then kept up to date by the AuthorService
+ *
+ * - a trigram index answers the same substring search as AuthorRepo.findByNames
+ *   (first name OR last name contains the input, case sensitive) without a table scan
+ * - a sorted prefix map answers autocomplete requests (case insensitive)
+ *
+ * A rebuild fills new contents while the old ones are still searched, the changes made in the
+ * 	meantime are recorded in a RebuildLog and replayed on top of the new contents before they replace
+ * 	the old ones
+ */
+@Component
+public class AuthorNameIndex {
+
+	@Autowired
+	AuthorRepo authRepo;
+	@PersistenceContext
+	EntityManager entityManager;
+
+	private Contents contents = new Contents();
+	private final RebuildLog rebuildLog = new RebuildLog();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready = false;
+
+	/**
+	 * (Re)builds the index from all authors in the database, runs once the application is ready
+	 * (started by StartupRebuilds, which retries it if it fails)
+	 */
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.start();
+		}finally {
+			lock.writeLock().unlock();
+		}
+		Contents rebuilt = new Contents();
+		boolean loaded = false;
+		try(Stream<Author> authorStream = authRepo.streamAllOrdered()){
+			authorStream.forEach(athr -> {
+				rebuilt.add(new Author(athr.getAuthorID(), athr.getFirstName(), athr.getLastName()));
+				entityManager.detach(athr);
+			});
+			lock.writeLock().lock();
+			try {
+				contents = rebuilt;
+				rebuildLog.replay();
+				ready = true;
+			}finally {
+				lock.writeLock().unlock();
+			}
+			loaded = true;
+		}finally {
+			if(!loaded) {
+				lock.writeLock().lock();
+				rebuildLog.discard();
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return - true once the index has been built, until then searches should go to the database
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Adds an author to the index, if it is already indexed the old entry is replaced
+	 * @param athr - the author, a copy of it is kept in the index
+	 */
+	public void indexAuthor(Author athr) {
+		Author copy = new Author(athr.getAuthorID(), athr.getFirstName(), athr.getLastName());
+
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> indexAuthor(copy));
+			contents.add(copy);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes an author from the index, does nothing if it isn't indexed
+	 * @param authorID - ID of the author that is to be removed
+	 */
+	public void removeAuthor(int authorID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeAuthor(authorID));
+			contents.remove(authorID);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every author from the index
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(this::clear);
+			contents = new Contents();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Same result as AuthorRepo.findByNames: all authors whose first name contains 'firstName'
+	 * 	OR whose last name contains 'lastName' (case sensitive), ordered by their ID
+	 * @param firstName - (partial) first name
+	 * @param lastName - (partial) last name
+	 * @return - List of the matching authors
+	 */
+	public List<Author> findByNames(String firstName, String lastName) {
+		lock.readLock().lock();
+		try {
+			Set<Integer> matches = new HashSet<>();
+			for(int authorID:candidates(firstName)) {
+				String name = contents.authors.get(authorID).getFirstName();
+				if(name != null && name.contains(firstName)) {
+					matches.add(authorID);
+				}
+			}
+			for(int authorID:candidates(lastName)) {
+				String name = contents.authors.get(authorID).getLastName();
+				if(name != null && name.contains(lastName)) {
+					matches.add(authorID);
+				}
+			}
+			return matches.stream().sorted().map(contents.authors::get).toList();
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns up to 'limit' authors whose first name, last name or full name ("first last")
+	 * 	starts with the provided prefix (case insensitive), in alphabetical order of the matching name
+	 * @param prefix - the beginning of the name
+	 * @param limit - maximum number of results
+	 * @return - List of the matching authors
+	 */
+	public List<Author> autocomplete(String prefix, int limit) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+
+		lock.readLock().lock();
+		try {
+			List<Author> result = new ArrayList<>();
+			Set<Integer> seen = new HashSet<>();
+			// the keys are sorted, so all keys with the prefix follow each other
+			for(Map.Entry<String,Set<Integer>> entry:contents.prefixes.tailMap(key, true).entrySet()) {
+				if(!entry.getKey().startsWith(key) || result.size() >= limit) {
+					break;
+				}
+				for(int authorID:entry.getValue().stream().sorted().toList()) {
+					if(result.size() < limit && seen.add(authorID)) {
+						result.add(contents.authors.get(authorID));
+					}
+				}
+			}
+			return result;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return - number of authors currently in the index
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return contents.authors.size();
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * IDs of the authors that might contain the provided substring in their first or last name
+	 * for inputs of at least three characters the trigram lists are intersected, shorter inputs
+	 * have no trigram, so every author is a candidate
+	 */
+	private Set<Integer> candidates(String part) {
+		if(part == null) {
+			return new HashSet<>();
+		}
+		List<String> partTrigrams = trigramsOf(part);
+		if(partTrigrams.isEmpty()) {
+			return contents.authors.keySet();
+		}
+
+		Set<Integer> result = null;
+		for(String trigram:partTrigrams) {
+			Set<Integer> ids = contents.trigrams.get(trigram);
+			if(ids == null) {
+				return new HashSet<>();
+			}
+			if(result == null) {
+				result = new HashSet<>(ids);
+			}else {
+				result.retainAll(ids);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * lower case trigrams of a name, an empty list if the name is shorter than three characters
+	 */
+	static List<String> trigramsOf(String name) {
+		List<String> result = new ArrayList<>();
+		if(name == null) {
+			return result;
+		}
+		String lower = name.toLowerCase(Locale.ROOT);
+		for(int i = 0; i + 3 <= lower.length(); i++) {
+			result.add(lower.substring(i, i + 3));
+		}
+		return result;
+	}
+
+	/**
+	 * the keys an author can be found by in the autocomplete
+	 */
+	private static Set<String> prefixKeysOf(Author athr) {
+		Set<String> keys = new HashSet<>();
+		String first = athr.getFirstName() == null ? "" : athr.getFirstName().toLowerCase(Locale.ROOT);
+		String last = athr.getLastName() == null ? "" : athr.getLastName().toLowerCase(Locale.ROOT);
+		keys.add(first);
+		keys.add(last);
+		keys.add((first + " " + last).trim());
+		keys.remove("");
+		return keys;
+	}
+
+	/**
+	 * the indexed authors and the lookups over their names, guarded by the lock of the index
+	 */
+	private static final class Contents {
+
+		final Map<Integer,Author> authors = new HashMap<>();
+		/**
+		 * lower case trigram -> IDs of the authors with a first or last name containing it
+		 */
+		final Map<String,Set<Integer>> trigrams = new HashMap<>();
+		/**
+		 * lower case first name, last name, and "first last" -> IDs of the authors with that name
+		 */
+		final NavigableMap<String,Set<Integer>> prefixes = new TreeMap<>();
+
+		/**
+		 * adds an author, if it is already indexed the old entry is replaced
+		 */
+		void add(Author athr) {
+			remove(athr.getAuthorID());
+			authors.put(athr.getAuthorID(), athr);
+			for(String trigram:trigramsOf(athr.getFirstName())) {
+				trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(athr.getAuthorID());
+			}
+			for(String trigram:trigramsOf(athr.getLastName())) {
+				trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(athr.getAuthorID());
+			}
+			for(String key:prefixKeysOf(athr)) {
+				prefixes.computeIfAbsent(key, k -> new HashSet<>()).add(athr.getAuthorID());
+			}
+		}
+
+		/**
+		 * removes an author, does nothing if it isn't indexed
+		 */
+		void remove(int authorID) {
+			Author old = authors.remove(authorID);
+			if(old == null) {
+				return;
+			}
+			List<String> oldTrigrams = new ArrayList<>(trigramsOf(old.getFirstName()));
+			oldTrigrams.addAll(trigramsOf(old.getLastName()));
+			for(String trigram:oldTrigrams) {
+				Set<Integer> ids = trigrams.get(trigram);
+				if(ids != null) {
+					ids.remove(authorID);
+					if(ids.isEmpty()) {
+						trigrams.remove(trigram);
+					}
+				}
+			}
+			for(String key:prefixKeysOf(old)) {
+				Set<Integer> ids = prefixes.get(key);
+				if(ids != null) {
+					ids.remove(authorID);
+					if(ids.isEmpty()) {
+						prefixes.remove(key);
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,23 +1,53 @@
 package com.andreas.webapp.services;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.CitationMetricsRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.AuthorMetrics;
+import com.andreas.webapp.model.Coauthor;
+import com.andreas.webapp.model.KeysetPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Component
+@Timed(value = "krieger.service", histogram = true)
 public class AuthorService {
 
+	final static ObjectMapper globMapper = new ObjectMapper();
+	final static int MAX_PAGE_SIZE = 1000;
+	final static int STREAM_CHUNK_SIZE = 500;
+	final static int MAX_TRAVERSAL_DEPTH = 20;
 	@Autowired
 	AuthorRepo authRepo;
+	@PersistenceContext
+	EntityManager entityManager;
+	@Autowired
+	AuthorNameIndex nameIndex;
+	@Autowired
+	EntityCache entityCache;
+	@Autowired
+	ContentVersions versions;
+	@Autowired
+	CitationMetricsRepo metricsRepo;
+	@Autowired
+	CoauthorGraph coauthorGraph;
 	
 	
 	/**
@@ -35,6 +65,8 @@ public class AuthorService {
 					"First Name AND Last Name must be provided to create a new author!");
 		}
 		athr = authRepo.save(athr);
+		nameIndex.indexAuthor(athr);
+		//a new author isn't part of any document yet, the document versions stay as they are
 		
 		return new ResponseEntity<>(athr,HttpStatus.OK);
 	}
@@ -42,6 +74,7 @@ public class AuthorService {
 	
 	/**
 	 * A function used to return an Author corresponding to a particular ID
+	 * the author is read through the entity cache
 	 * the functions checks whether the function ID is legit
 	 * it also checks whether an Author corresponding to the ID was found or not 
 	 * @param authorID - ID of the author we are searching for
@@ -57,7 +90,7 @@ public class AuthorService {
 					"Invalid Author-ID provided!");
 		}
 		
-		Optional<Author> optionalAuth = authRepo.findById(authorID);
+		Optional<Author> optionalAuth = entityCache.findAuthor(authorID, authRepo::findById);
 		
 		if(optionalAuth.isPresent()) {
 			return new ResponseEntity<>(optionalAuth.get(),HttpStatus.OK);
@@ -79,9 +112,61 @@ public class AuthorService {
 	}
 
 	
+	/**
+	 * Returns one page of authors, ordered by their ID (keyset pagination)
+	 * It is checked that the cursor is not negative and the page size is within the limits
+	 * @param afterID - ID of the last author of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of authors in the page
+	 * @return - the ResponseEntity contains the page and the 'afterID' of the next page 
+	 * 				(null if there is no next page)
+	 * 		   - if the cursor or page size are not valid, the ResponseEntity contains a message 
+	 * 			 informing the caller of this
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> getAuthorsPageService(int afterID, int pageSize) throws Exception {
+		
+		if(afterID < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid afterID or page size provided! The page size must be between 1 and "
+					+ MAX_PAGE_SIZE+"!");
+		}
+		
+		List<Author> authorPage = authRepo.findPageAfter(afterID, pageSize);
+		Integer nextAfterID = authorPage.size() == pageSize ? 
+				authorPage.get(authorPage.size()-1).getAuthorID() : null;
+		return new ResponseEntity<>(new KeysetPage<>(authorPage,nextAfterID),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * Writes ALL authors present in the database to the provided stream as NDJSON 
+	 * 	(one JSON author per line)
+	 * The authors are read from a database stream and detached in chunks, so memory stays flat
+	 * @param out - the stream the authors are written to
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllAuthorsService(OutputStream out) throws Exception {
+		
+		int written = 0;
+		try(Stream<Author> authorStream = authRepo.streamAllOrdered()){
+			for(Author athr:(Iterable<Author>) authorStream::iterator) {
+				out.write(globMapper.writeValueAsBytes(athr));
+				out.write('\n');
+				if(++written % STREAM_CHUNK_SIZE == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+		out.flush();
+	}
+
+	
 	/**
 	 * returns a list of all authors whose first or last names match the input
 	 * the input must not be complete, it's sufficient if the input is contained
+	 * the search runs on the in-memory name index, only while the index is still being built 
+	 * the database is queried instead
 	 * 
 	 * first, it is checked that the provided names are not empty
 	 * @param firstName - first name of the author we are searching for
@@ -98,12 +183,154 @@ public class AuthorService {
 					"A value fpr First Name AND Last Name must be provided for the author search!");
 		}
 		
-		List<Author> resultSet = authRepo.findByNames(firstName,lastName);
+		List<Author> resultSet = nameIndex.isReady() ? nameIndex.findByNames(firstName,lastName) 
+				: authRepo.findByNames(firstName,lastName);
 	
 		return new ResponseEntity<>(resultSet,HttpStatus.OK);
 	}
 
 	
+	/**
+	 * returns up to 'limit' authors whose first name, last name or full name starts with the 
+	 * provided prefix (case insensitive), answered from the in-memory name index
+	 * 
+	 * first, it is checked that the prefix is not empty and the limit is valid
+	 * @param prefix - the beginning of the name the user typed so far
+	 * @param limit - maximum number of suggestions
+	 * @return - the ResponseEntity contains a list of the matching authors
+	 * 			- if the prefix or limit were not valid, a ResponseEntity is returned
+	 * 			  informing the caller of this
+	 * 			- status 503 with Retry-After while the index is still being built
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> autocompleteService(String prefix, int limit) throws Exception {
+		
+		if(prefix==null || prefix.isBlank()) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"A prefix must be provided for the author autocomplete!");
+		}else if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}else if(!nameIndex.isReady()) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+					.body("The author name index is still being built, please try again later!");
+		}
+		
+		return new ResponseEntity<>(nameIndex.autocomplete(prefix, limit),HttpStatus.OK);
+	}
+
+	
+	/**
+	 * returns the citation metrics of an author (h-index, citations, number of documents), as 
+	 * computed by the last run of the citation analytics, nothing is computed here
+	 * @param authorID - ID of the author
+	 * @return - the ResponseEntity contains the metrics of the author
+	 * 			- if the ID is not valid, or there are no metrics (yet) for the author, a 
+	 * 			  ResponseEntity is returned informing the caller of this
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> getAuthorMetricsService(int authorID) throws Exception {
+		
+		if(authorID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Author-ID provided!");
+		}
+		
+		Optional<AuthorMetrics> metrics = metricsRepo.findAuthorMetrics(authorID);
+		if(metrics.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No metrics found for the provided Author-ID! They are computed in the "
+					+ "background, a new author gets them with the next run");
+		}
+		return new ResponseEntity<>(metrics.get(),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * returns the authors with the highest h-index of the last run of the citation analytics
+	 * @param limit - maximum number of authors
+	 * @return - the ResponseEntity contains the metrics of the top authors, highest first
+	 * 			- if the limit is not valid, a ResponseEntity is returned informing the caller of this
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> getTopAuthorsService(int limit) throws Exception {
+		
+		if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}
+		
+		return new ResponseEntity<>(metricsRepo.findTopAuthors(limit),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * returns the authors that have co-authored at least one document with the provided author
+	 * the answer comes from the in-memory coauthor graph, the database is only asked whether the 
+	 * 	author exists if there are no coauthors
+	 * @param authorID - ID of the author
+	 * @param limit - maximum number of coauthors
+	 * @return - the ResponseEntity contains the coauthors with their number of collaborations, 
+	 * 				most collaborations first
+	 * 			- if the ID or the limit is not valid, or the author doesn't exist, a ResponseEntity 
+	 * 			  is returned informing the caller of this
+	 * 			- status 503 with Retry-After while the graph is still being built
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> getCoauthorsService(int authorID, int limit) throws Exception {
+		
+		if(authorID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Author-ID provided!");
+		}else if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}else if(!coauthorGraph.isReady()) {
+			return graphNotReady();
+		}
+		
+		List<Coauthor> coauthors = coauthorGraph.coauthors(authorID, limit);
+		if(coauthors.isEmpty() && !authRepo.existsById(authorID)) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No Author found for the provided Author-ID!");
+		}
+		return new ResponseEntity<>(coauthors,HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * finds the shortest chain of collaborations between two authors, on the in-memory coauthor graph
+	 * @param fromID - ID of the author the chain starts at
+	 * @param toID - ID of the author the chain is supposed to reach
+	 * @return - the ResponseEntity contains the Author-IDs on the chain, including both ends
+	 * 			- if the IDs are not valid, or there is no chain within MAX_TRAVERSAL_DEPTH 
+	 * 			  collaborations, a ResponseEntity is returned informing the caller of this
+	 * 			- status 503 with Retry-After while the graph is still being built
+	 * @throws Exception - passes any exception on to the API-class that called it
+	 */
+	public ResponseEntity<Object> getCollaborationPathService(int fromID, int toID) throws Exception {
+		
+		if(fromID <= 0 || toID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Author-IDs provided!");
+		}else if(!coauthorGraph.isReady()) {
+			return graphNotReady();
+		}
+		
+		List<Integer> path = coauthorGraph.shortestPath(fromID, toID, MAX_TRAVERSAL_DEPTH);
+		if(path.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No chain of collaborations found between the provided Authors!");
+		}
+		return new ResponseEntity<>(path,HttpStatus.OK);
+	}
+	
+	private static ResponseEntity<Object> graphNotReady() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+				.body("The coauthor graph is still being built, please try again later!");
+	}
+
+	
 	/**
 	 * A function that can delete an author with the corresponding ID from the database
 	 * checks first if an author with that ID even exists
@@ -118,6 +345,9 @@ public class AuthorService {
 		
 		if(authRepo.existsById(authorID)) {
 			authRepo.deleteById(authorID);
+			entityCache.invalidateAuthor(authorID);
+			nameIndex.removeAuthor(authorID);
+			versions.authorsChanged();
 			return ResponseEntity.status(HttpStatus.OK).body(
 					"Author successfully deleted!");
 		}else {
@@ -129,13 +359,23 @@ public class AuthorService {
 	
 	
 	/**
-	 * A function that can delete ALL authors in the database
+	 * A function that can delete ALL authors in the database, with one set-based DELETE
+	 * Authors that are credited for documents can't be deleted, the documents have to be deleted first
 	 * @return - A ResponseEntity with a message confirming the deletion of all authors is returned
+	 * 		   - if an author is still credited for a document, nothing is deleted and the 
+	 * 		     ResponseEntity informs the caller of this
 	 * @throws Exception - passes any exception on to the API-class that called it
 	 */
 	public ResponseEntity<Object> deleteAllService() throws Exception {
 		
-		authRepo.deleteAll();
+		if(authRepo.existsAnyAuthored()) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(
+					"Authors that are credited for documents can't be deleted, please delete the documents first!");
+		}
+		authRepo.deleteAllBulk();
+		entityCache.invalidateAllAuthors();
+		nameIndex.clear();
+		versions.authorsChanged();
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"All Authors successfully deleted!");
 	}
@@ -157,6 +397,9 @@ public class AuthorService {
 			Author result = newAuth.get();
 			result.setFirstName(firstName);
 			result = authRepo.save(result);
+			entityCache.invalidateAuthor(authorID);
+			nameIndex.indexAuthor(result);
+			versions.authorsChanged();
 		
 			return new ResponseEntity<>(result,HttpStatus.OK);
 		}else {
@@ -182,6 +425,9 @@ public class AuthorService {
 			Author result = newAuth.get();
 			result.setLastName(lastName);
 			result = authRepo.save(result);
+			entityCache.invalidateAuthor(authorID);
+			nameIndex.indexAuthor(result);
+			versions.authorsChanged();
 		
 			return new ResponseEntity<>(result,HttpStatus.OK);
 		}else {
@@ -0,0 +1,366 @@
+package com.andreas.webapp.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.andreas.webapp.dao.CitationMetricsRepo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background job that computes citation metrics over the whole author/document/reference graph
+ * 	and stores them in 'DOCUMENT_METRICS' and 'AUTHOR_METRICS' (see CitationMetricsRepo)
+ * - per document: the number of citations (in-degree) and its PageRank
+ * - per author: h-index, citations and number of documents
+ * The metrics endpoints only read these tables, nothing is computed on the request path. The job
+ * 	runs krieger.analytics.initial-delay after startup and then every krieger.analytics.interval,
+ * 	so the metrics lag behind the data by at most one interval
+ *
+ * The graph is loaded into int arrays indexed by the position of a document in the sorted array of
+ * 	all document IDs: the citing documents of every document as a dense CSR, and the out-degrees.
+ * 	PageRank is iterated on these arrays in a ForkJoinPool (krieger.analytics.parallelism), every
+ * 	task pulls the new rank of a range of documents from their citing documents, so no two tasks
+ * 	write the same entry. The rank of documents without references is spread over all documents
+ *
+ * Metrics:
+ * - krieger.analytics.run: duration of a run, including loading and storing
+ * - krieger.analytics.failures: runs that failed, the previous results stay in place
+ */
+@Component
+public class CitationAnalytics {
+
+	final static int TASK_THRESHOLD = 8192;
+	//every top-N request is answered from the stored rankings
+	final static int RANKING_SIZE = DocumentService.MAX_PAGE_SIZE;
+
+	@Autowired
+	CitationMetricsRepo metricsRepo;
+
+	/**
+	 * results of one run, entry i of every document array belongs to documentIds[i], entry i of
+	 * 	every author array to authorIds[i]
+	 */
+	record Results(int[] documentIds, int[] citationCounts, double[] pageRanks, int iterations,
+			int[] authorIds, int[] hIndexes, long[] authorCitations, int[] documentCounts) {
+	}
+
+	private final boolean enabled;
+	private final Duration initialDelay;
+	private final Duration interval;
+	private final double damping;
+	private final int maxIterations;
+	private final double tolerance;
+	private final ForkJoinPool pool;
+	private final Timer runTimer;
+	private final Counter failures;
+	private ScheduledExecutorService scheduler;
+
+	public CitationAnalytics(@Value("${krieger.analytics.enabled:true}") boolean enabled,
+			@Value("${krieger.analytics.initial-delay:1m}") Duration initialDelay,
+			@Value("${krieger.analytics.interval:1h}") Duration interval,
+			@Value("${krieger.analytics.damping:0.85}") double damping,
+			@Value("${krieger.analytics.max-iterations:100}") int maxIterations,
+			@Value("${krieger.analytics.tolerance:1e-9}") double tolerance,
+			@Value("${krieger.analytics.parallelism:0}") int parallelism,
+			ObjectProvider<MeterRegistry> registryProvider) {
+		this.enabled = enabled;
+		this.initialDelay = initialDelay;
+		this.interval = interval;
+		this.damping = damping;
+		this.maxIterations = maxIterations;
+		this.tolerance = tolerance;
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+		MeterRegistry registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+		this.runTimer = Timer.builder("krieger.analytics.run")
+				.description("Computing and storing the citation metrics").register(registry);
+		this.failures = Counter.builder("krieger.analytics.failures")
+				.description("Runs of the citation analytics that failed").register(registry);
+	}
+
+	/**
+	 * Schedules the runs once the application is ready, if the analytics are enabled
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() {
+		if(!enabled || scheduler != null) {
+			return;
+		}
+		AtomicInteger threadNumber = new AtomicInteger();
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "krieger-analytics-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::runQuietly, initialDelay.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if(scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Loads the graph, computes all metrics and replaces the stored ones
+	 * @return - the computed results
+	 */
+	public Results run() {
+		return runTimer.record(() -> {
+			Instant computedAt = Instant.now();
+			int[] documentIds = metricsRepo.findAllDocumentIds();
+			CitationGraph.IntPairs references = new CitationGraph.IntPairs();
+			metricsRepo.forEachReference(references::add);
+			int[] authorIds = metricsRepo.findAllAuthorIds();
+			CitationGraph.IntPairs authored = new CitationGraph.IntPairs();
+			metricsRepo.forEachAuthored(authored::add);
+
+			Results results = compute(documentIds, references, authorIds, authored);
+			double[] ranks = results.pageRanks();
+			int[] citations = results.citationCounts();
+			metricsRepo.replaceDocumentMetrics(results.documentIds(), citations, ranks, computedAt,
+					top(results.documentIds(), RANKING_SIZE, (a, b) -> Double.compare(ranks[b], ranks[a])),
+					top(results.documentIds(), RANKING_SIZE, (a, b) -> Integer.compare(citations[b], citations[a])));
+			int[] hIndexes = results.hIndexes();
+			long[] authorCitations = results.authorCitations();
+			metricsRepo.replaceAuthorMetrics(results.authorIds(), hIndexes, authorCitations,
+					results.documentCounts(), computedAt,
+					top(results.authorIds(), RANKING_SIZE, Comparator.<Integer>comparingInt(a -> -hIndexes[a])
+							.thenComparing((a, b) -> Long.compare(authorCitations[b], authorCitations[a]))));
+			return results;
+		});
+	}
+
+	/**
+	 * a failed run must not end the schedule, the previous results stay in place until the next one
+	 */
+	private void runQuietly() {
+		try {
+			run();
+		}catch(RuntimeException e) {
+			failures.increment();
+		}
+	}
+
+	/**
+	 * Computes all metrics of the provided graph
+	 * @param documentIds - IDs of all documents, ascending
+	 * @param references - the citations as (referencing, referenced), rows with an unknown document
+	 * 						and duplicates are ignored
+	 * @param authorIds - IDs of all authors, ascending
+	 * @param authored - the authorships as (author, document)
+	 */
+	Results compute(int[] documentIds, CitationGraph.IntPairs references, int[] authorIds,
+			CitationGraph.IntPairs authored) {
+		int documentCount = documentIds.length;
+
+		//citing documents of every document as a dense CSR over the document positions
+		int[][] citing = denseCsr(documentIds, references.seconds(), documentIds, references.firsts());
+		int[] citingOffsets = citing[0];
+		int[] citingDocuments = citing[1];
+		int[] citationCounts = new int[documentCount];
+		int[] outDegrees = new int[documentCount];
+		for(int d = 0; d < documentCount; d++) {
+			citationCounts[d] = citingOffsets[d + 1] - citingOffsets[d];
+		}
+		for(int source:citingDocuments) {
+			outDegrees[source]++;
+		}
+
+		double[] ranks = new double[documentCount];
+		int iterations = 0;
+		if(documentCount > 0) {
+			double[] next = new double[documentCount];
+			Arrays.fill(ranks, 1.0 / documentCount);
+			double[] weights = new double[documentCount];
+			while(iterations < maxIterations) {
+				double dangling = 0;
+				for(int d = 0; d < documentCount; d++) {
+					if(outDegrees[d] == 0) {
+						dangling += ranks[d];
+					}else {
+						weights[d] = ranks[d] / outDegrees[d];
+					}
+				}
+				double base = (1 - damping + damping * dangling) / documentCount;
+				double delta = pool.invoke(new RankStep(citingOffsets, citingDocuments, weights, ranks, next,
+						base, damping, 0, documentCount));
+				double[] swap = ranks;
+				ranks = next;
+				next = swap;
+				iterations++;
+				if(delta < tolerance) {
+					break;
+				}
+			}
+		}
+
+		//documents of every author as a dense CSR over the author positions
+		int[][] documentsOf = denseCsr(authorIds, authored.firsts(), documentIds, authored.seconds());
+		int[] documentOffsets = documentsOf[0];
+		int[] authorDocuments = documentsOf[1];
+		int authorCount = authorIds.length;
+		int[] hIndexes = new int[authorCount];
+		long[] authorCitations = new long[authorCount];
+		int[] documentCounts = new int[authorCount];
+		pool.submit(() -> IntStream.range(0, authorCount).parallel().forEach(a -> {
+			int[] counts = new int[documentOffsets[a + 1] - documentOffsets[a]];
+			long citations = 0;
+			for(int i = 0; i < counts.length; i++) {
+				counts[i] = citationCounts[authorDocuments[documentOffsets[a] + i]];
+				citations += counts[i];
+			}
+			hIndexes[a] = hIndex(counts);
+			authorCitations[a] = citations;
+			documentCounts[a] = counts.length;
+		})).join();
+
+		return new Results(documentIds, citationCounts, ranks, iterations, authorIds, hIndexes,
+				authorCitations, documentCounts);
+	}
+
+	/**
+	 * Selects the 'size' first positions in the provided order with a bounded heap, ties in ascending position
+	 * @param ids - IDs of all entries, ascending
+	 * @param order - compares two positions in 'ids'
+	 * @return - the IDs of the selected entries, in order
+	 */
+	static int[] top(int[] ids, int size, Comparator<Integer> order) {
+		Comparator<Integer> total = order.thenComparingInt(position -> position);
+		PriorityQueue<Integer> heap = new PriorityQueue<>(size + 1, total.reversed());
+		for(int position = 0; position < ids.length; position++) {
+			heap.add(position);
+			if(heap.size() > size) {
+				heap.poll();
+			}
+		}
+		int[] top = new int[heap.size()];
+		for(int i = top.length - 1; i >= 0; i--) {
+			top[i] = ids[heap.poll()];
+		}
+		return top;
+	}
+
+	/**
+	 * the largest h such that h of the counts are at least h, the counts are sorted in place
+	 */
+	static int hIndex(int[] counts) {
+		Arrays.sort(counts);
+		int h = 0;
+		for(int i = counts.length - 1; i >= 0 && counts[i] > h; i--) {
+			h++;
+		}
+		return h;
+	}
+
+	/**
+	 * Builds a dense CSR of the pairs rowIds[i] -> columnIds[i], over the positions in the sorted
+	 * 	arrays of all row and column IDs. Pairs with an unknown ID and duplicates are dropped
+	 * @return - {offsets, columns}: the columns of row r are columns[offsets[r]] ... columns[offsets[r+1]-1]
+	 */
+	static int[][] denseCsr(int[] allRowIds, int[] rowIds, int[] allColumnIds, int[] columnIds) {
+		long[] keys = new long[rowIds.length];
+		int count = 0;
+		for(int i = 0; i < rowIds.length; i++) {
+			int row = Arrays.binarySearch(allRowIds, rowIds[i]);
+			int column = Arrays.binarySearch(allColumnIds, columnIds[i]);
+			if(row >= 0 && column >= 0) {
+				keys[count++] = ((long) row << 32) | column;
+			}
+		}
+		Arrays.sort(keys, 0, count);
+
+		int[] offsets = new int[allRowIds.length + 1];
+		int[] columns = new int[count];
+		int size = 0;
+		for(int i = 0; i < count; i++) {
+			if(i > 0 && keys[i] == keys[i - 1]) {
+				continue;
+			}
+			offsets[(int) (keys[i] >>> 32) + 1]++;
+			columns[size++] = (int) keys[i];
+		}
+		for(int r = 0; r < allRowIds.length; r++) {
+			offsets[r + 1] += offsets[r];
+		}
+		return new int[][] {offsets, Arrays.copyOf(columns, size)};
+	}
+
+	/**
+	 * one PageRank iteration over the documents [from, to): reads 'ranks' and 'weights' (rank / out-degree
+	 * 	of every document), writes 'next', returns the L1 change of the ranks
+	 */
+	static final class RankStep extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] offsets;
+		private final int[] sources;
+		private final double[] weights;
+		private final double[] ranks;
+		private final double[] next;
+		private final double base;
+		private final double damping;
+		private final int from;
+		private final int to;
+
+		RankStep(int[] offsets, int[] sources, double[] weights, double[] ranks, double[] next, double base,
+				double damping, int from, int to) {
+			this.offsets = offsets;
+			this.sources = sources;
+			this.weights = weights;
+			this.ranks = ranks;
+			this.next = next;
+			this.base = base;
+			this.damping = damping;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Double compute() {
+			if(to - from > TASK_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				RankStep left = new RankStep(offsets, sources, weights, ranks, next, base, damping, from, middle);
+				left.fork();
+				double right = new RankStep(offsets, sources, weights, ranks, next, base, damping, middle, to)
+						.compute();
+				return left.join() + right;
+			}
+			double delta = 0;
+			for(int d = from; d < to; d++) {
+				double sum = 0;
+				for(int e = offsets[d]; e < offsets[d + 1]; e++) {
+					sum += weights[sources[e]];
+				}
+				next[d] = base + damping * sum;
+				delta += Math.abs(next[d] - ranks[d]);
+			}
+			return delta;
+		}
+	}
+}
@@ -0,0 +1,520 @@
+package com.andreas.webapp.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.TraversalHit;
+
+/**
+ * In-memory copy of the 'REFERENCED_BY' table as a directed graph of document IDs
+ * An edge A -> B means document A references (cites) document B
+ * It is built once at startup and then kept up to date by the DocumentService
+ *
+ * The bulk of the edges lives in two compressed sparse row (CSR) snapshots of plain int arrays,
+ * one per direction, so a traversal never touches an entity or a boxed collection.
+ * Changes after the last snapshot are kept in a small overlay (added edges and removed edges)
+ * and folded into new snapshots once the overlay grows beyond COMPACTION_THRESHOLD
+ *
+ * Changes made while the graph is rebuilt are recorded in a RebuildLog and replayed on top of the
+ * rebuilt snapshots, so none of them is lost or undone by the rebuild
+ */
+@Component
+public class CitationGraph {
+
+	final static int COMPACTION_THRESHOLD = 4096;
+
+	@Autowired
+	DocumentRepo docRepo;
+
+	/**
+	 * referencing document -> referenced documents
+	 */
+	private Csr outgoing = Csr.EMPTY;
+	/**
+	 * referenced document -> referencing documents
+	 */
+	private Csr incoming = Csr.EMPTY;
+	private final Map<Integer,NavigableSet<Integer>> addedOutgoing = new HashMap<>();
+	private final Map<Integer,NavigableSet<Integer>> addedIncoming = new HashMap<>();
+	/**
+	 * edges of the snapshots that have been removed since, see edgeKey
+	 */
+	private final Set<Long> removedEdges = new HashSet<>();
+	private int addedCount = 0;
+	private final RebuildLog rebuildLog = new RebuildLog();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready = false;
+
+	/**
+	 * (Re)builds the graph from all rows of 'REFERENCED_BY', runs once the application is ready
+	 * (started by StartupRebuilds, which retries it if it fails)
+	 */
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.start();
+		}finally {
+			lock.writeLock().unlock();
+		}
+		IntPairs edges = new IntPairs();
+		boolean loaded = false;
+		try(Stream<Object[]> rows = docRepo.streamAllReferencedEntries()){
+			rows.forEach(row -> edges.add(((Number) row[0]).intValue(), ((Number) row[1]).intValue()));
+			load(edges, true);
+			loaded = true;
+		}finally {
+			if(!loaded) {
+				lock.writeLock().lock();
+				rebuildLog.discard();
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return - true once the graph has been built, until then lookups should go to the database
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Adds the edge referencingID -> referencedID, does nothing if it already exists
+	 * @param referencingID - ID of the document that references the other one
+	 * @param referencedID - ID of the referenced document
+	 */
+	public void addReference(int referencingID, int referencedID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> addReference(referencingID, referencedID));
+			addUnlocked(referencingID, referencedID);
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the edge referencingID -> referencedID, does nothing if it doesn't exist
+	 * @param referencingID - ID of the document that references the other one
+	 * @param referencedID - ID of the referenced document
+	 */
+	public void removeReference(int referencingID, int referencedID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeReference(referencingID, referencedID));
+			removeUnlocked(referencingID, referencedID);
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document with all its edges, in both directions
+	 * @param documentID - ID of the deleted document
+	 */
+	public void removeDocument(int documentID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeDocument(documentID));
+			List<Integer> referenced = new ArrayList<>();
+			List<Integer> referencing = new ArrayList<>();
+			forEachNeighbor(documentID, true, referenced::add);
+			forEachNeighbor(documentID, false, referencing::add);
+			for(int target:referenced) {
+				removeUnlocked(documentID, target);
+			}
+			for(int source:referencing) {
+				removeUnlocked(source, documentID);
+			}
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every edge from the graph
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(this::clear);
+			load(new IntPairs(), false);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Breadth-first traversal starting at a document, the start itself is not part of the result
+	 * @param documentID - ID of the document the traversal starts at
+	 * @param maxDepth - maximum number of hops from the start
+	 * @param followReferences - true to follow the references of each document (what it cites),
+	 * 	false to follow the documents referencing it (what cites it)
+	 * @param limit - maximum number of results
+	 * @return - the reached documents in BFS order, each with its distance to the start
+	 */
+	public List<TraversalHit> traverse(int documentID, int maxDepth, boolean followReferences, int limit) {
+		lock.readLock().lock();
+		try {
+			List<TraversalHit> result = new ArrayList<>();
+			Set<Integer> visited = new HashSet<>();
+			visited.add(documentID);
+			int[] frontier = {documentID};
+
+			for(int depth = 1; depth <= maxDepth && frontier.length > 0 && result.size() < limit; depth++) {
+				final int currentDepth = depth;
+				IntPairs next = new IntPairs();
+				for(int node:frontier) {
+					forEachNeighbor(node, followReferences, neighbor -> {
+						if(result.size() < limit && visited.add(neighbor)) {
+							result.add(new TraversalHit(neighbor, currentDepth));
+							next.add(neighbor, 0);
+						}
+					});
+				}
+				frontier = next.firsts();
+			}
+			return result;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Shortest chain of references leading from one document to another,
+	 * 	i.e. fromID references x1, x1 references x2, ..., xn references toID
+	 * @param fromID - ID of the first document of the path
+	 * @param toID - ID of the last document of the path
+	 * @param maxDepth - maximum number of edges of the path
+	 * @return - the IDs of the documents on the path including both ends,
+	 * 	an empty List if there is no such path within maxDepth edges
+	 */
+	public List<Integer> shortestPath(int fromID, int toID, int maxDepth) {
+		if(fromID == toID) {
+			return List.of(fromID);
+		}
+
+		lock.readLock().lock();
+		try {
+			Map<Integer,Integer> parents = new HashMap<>();
+			parents.put(fromID, fromID);
+			int[] frontier = {fromID};
+
+			for(int depth = 1; depth <= maxDepth && frontier.length > 0; depth++) {
+				IntPairs next = new IntPairs();
+				for(int node:frontier) {
+					forEachNeighbor(node, true, neighbor -> {
+						if(!parents.containsKey(neighbor)) {
+							parents.put(neighbor, node);
+							next.add(neighbor, 0);
+						}
+					});
+					if(parents.containsKey(toID)) {
+						return pathTo(parents, fromID, toID);
+					}
+				}
+				frontier = next.firsts();
+			}
+			return new ArrayList<>();
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * One page of the documents referencing a document, ordered by their ID
+	 * The referencing documents are a sorted slice of the reverse snapshot, so the start of the page
+	 * 	is found with a binary search, and merged with the (sorted) edges added since
+	 * @param documentID - ID of the referenced document
+	 * @param afterID - only documents with a higher ID are returned
+	 * @param limit - maximum number of results
+	 * @return - the IDs of the referencing documents, ascending
+	 */
+	public List<Integer> citingDocuments(int documentID, int afterID, int limit) {
+		lock.readLock().lock();
+		try {
+			List<Integer> result = new ArrayList<>();
+			int i = 0;
+			int end = 0;
+			int index = Arrays.binarySearch(incoming.nodeIDs, documentID);
+			if(index >= 0) {
+				end = incoming.offsets[index + 1];
+				int position = Arrays.binarySearch(incoming.targets, incoming.offsets[index], end, afterID);
+				i = position >= 0 ? position + 1 : -position - 1;
+			}
+			NavigableSet<Integer> added = addedIncoming.get(documentID);
+			Iterator<Integer> addedIt = added == null ? 
+					Collections.emptyIterator() : added.tailSet(afterID, false).iterator();
+			Integer nextAdded = addedIt.hasNext() ? addedIt.next() : null;
+
+			while(result.size() < limit && (i < end || nextAdded != null)) {
+				if(nextAdded == null || (i < end && incoming.targets[i] < nextAdded)) {
+					int source = incoming.targets[i++];
+					if(removedEdges.isEmpty() || !removedEdges.contains(edgeKey(source, documentID))) {
+						result.add(source);
+					}
+				}else {
+					result.add(nextAdded);
+					nextAdded = addedIt.hasNext() ? addedIt.next() : null;
+				}
+			}
+			return result;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return - number of edges currently in the graph
+	 */
+	public int edgeCount() {
+		lock.readLock().lock();
+		try {
+			return outgoing.targets.length - removedEdges.size() + addedCount;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * replaces the whole graph with new snapshots of the provided edges
+	 * @param finishRebuild - true at the end of a rebuild: the changes recorded meanwhile are 
+	 * 	replayed on top of the snapshots, then the graph is ready
+	 */
+	private void load(IntPairs edges, boolean finishRebuild) {
+		Csr newOutgoing = Csr.build(edges.firsts(), edges.seconds());
+		Csr newIncoming = Csr.build(edges.seconds(), edges.firsts());
+
+		lock.writeLock().lock();
+		try {
+			outgoing = newOutgoing;
+			incoming = newIncoming;
+			addedOutgoing.clear();
+			addedIncoming.clear();
+			removedEdges.clear();
+			addedCount = 0;
+			if(finishRebuild) {
+				rebuildLog.replay();
+				ready = true;
+			}
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * calls the consumer with every neighbor of a document in the current graph (snapshot + overlay)
+	 * the caller must hold the read or write lock
+	 */
+	private void forEachNeighbor(int documentID, boolean followReferences, IntConsumer consumer) {
+		Csr csr = followReferences ? outgoing : incoming;
+		int index = Arrays.binarySearch(csr.nodeIDs, documentID);
+		if(index >= 0) {
+			for(int i = csr.offsets[index]; i < csr.offsets[index + 1]; i++) {
+				int neighbor = csr.targets[i];
+				long key = followReferences ? edgeKey(documentID, neighbor) : edgeKey(neighbor, documentID);
+				if(removedEdges.isEmpty() || !removedEdges.contains(key)) {
+					consumer.accept(neighbor);
+				}
+			}
+		}
+		Set<Integer> added = (followReferences ? addedOutgoing : addedIncoming).get(documentID);
+		if(added != null) {
+			for(int neighbor:added) {
+				consumer.accept(neighbor);
+			}
+		}
+	}
+
+	/**
+	 * the caller must hold the write lock
+	 */
+	private void addUnlocked(int referencingID, int referencedID) {
+		if(outgoing.contains(referencingID, referencedID)) {
+			removedEdges.remove(edgeKey(referencingID, referencedID));
+		}else if(addedOutgoing.computeIfAbsent(referencingID, k -> new TreeSet<>()).add(referencedID)) {
+			addedIncoming.computeIfAbsent(referencedID, k -> new TreeSet<>()).add(referencingID);
+			addedCount++;
+		}
+	}
+
+	/**
+	 * the caller must hold the write lock
+	 */
+	private void removeUnlocked(int referencingID, int referencedID) {
+		NavigableSet<Integer> added = addedOutgoing.get(referencingID);
+		if(added != null && added.remove(referencedID)) {
+			if(added.isEmpty()) {
+				addedOutgoing.remove(referencingID);
+			}
+			NavigableSet<Integer> addedReverse = addedIncoming.get(referencedID);
+			addedReverse.remove(referencingID);
+			if(addedReverse.isEmpty()) {
+				addedIncoming.remove(referencedID);
+			}
+			addedCount--;
+		}else if(outgoing.contains(referencingID, referencedID)) {
+			removedEdges.add(edgeKey(referencingID, referencedID));
+		}
+	}
+
+	/**
+	 * folds the overlay into new snapshots once it has grown too large,
+	 * the caller must hold the write lock
+	 */
+	private void compactIfNeeded() {
+		int overlay = addedCount + removedEdges.size();
+		if(overlay <= Math.max(COMPACTION_THRESHOLD, outgoing.targets.length / 8)) {
+			return;
+		}
+		IntPairs edges = new IntPairs();
+		for(int documentID:outgoing.nodeIDs) {
+			forEachNeighbor(documentID, true, target -> edges.add(documentID, target));
+		}
+		for(Map.Entry<Integer,NavigableSet<Integer>> entry:addedOutgoing.entrySet()) {
+			if(Arrays.binarySearch(outgoing.nodeIDs, entry.getKey()) < 0) {
+				for(int target:entry.getValue()) {
+					edges.add(entry.getKey(), target);
+				}
+			}
+		}
+		// the write lock is reentrant, so load can take it again
+		load(edges, false);
+	}
+
+	/**
+	 * walks the BFS parent pointers back from the target to the start
+	 */
+	private static List<Integer> pathTo(Map<Integer,Integer> parents, int fromID, int toID) {
+		List<Integer> path = new ArrayList<>();
+		for(int node = toID; node != fromID; node = parents.get(node)) {
+			path.add(0, node);
+		}
+		path.add(0, fromID);
+		return path;
+	}
+
+	/**
+	 * both document IDs of an edge packed into one long
+	 */
+	static long edgeKey(int referencingID, int referencedID) {
+		return ((long) referencingID << 32) | (referencedID & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Immutable compressed sparse row adjacency:
+	 * the neighbors of nodeIDs[i] are targets[offsets[i]] ... targets[offsets[i+1]-1], sorted ascending
+	 */
+	static final class Csr {
+
+		static final Csr EMPTY = new Csr(new int[0], new int[] {0}, new int[0]);
+
+		final int[] nodeIDs;
+		final int[] offsets;
+		final int[] targets;
+
+		private Csr(int[] nodeIDs, int[] offsets, int[] targets) {
+			this.nodeIDs = nodeIDs;
+			this.offsets = offsets;
+			this.targets = targets;
+		}
+
+		/**
+		 * builds the adjacency of the edges sources[i] -> targets[i], duplicate edges are dropped
+		 */
+		static Csr build(int[] sources, int[] targets) {
+			long[] keys = new long[sources.length];
+			for(int i = 0; i < sources.length; i++) {
+				keys[i] = edgeKey(sources[i], targets[i]);
+			}
+			Arrays.sort(keys);
+
+			int edges = 0;
+			int nodes = 0;
+			for(int i = 0; i < keys.length; i++) {
+				if(i == 0 || keys[i] != keys[i - 1]) {
+					edges++;
+					if(i == 0 || (int) (keys[i] >> 32) != (int) (keys[i - 1] >> 32)) {
+						nodes++;
+					}
+				}
+			}
+
+			int[] nodeIDs = new int[nodes];
+			int[] offsets = new int[nodes + 1];
+			int[] adjacent = new int[edges];
+			int node = -1;
+			int edge = 0;
+			for(int i = 0; i < keys.length; i++) {
+				if(i > 0 && keys[i] == keys[i - 1]) {
+					continue;
+				}
+				int source = (int) (keys[i] >> 32);
+				if(node < 0 || nodeIDs[node] != source) {
+					node++;
+					nodeIDs[node] = source;
+					offsets[node] = edge;
+				}
+				adjacent[edge++] = (int) keys[i];
+			}
+			offsets[nodes] = edge;
+			return new Csr(nodeIDs, offsets, adjacent);
+		}
+
+		boolean contains(int source, int target) {
+			int index = Arrays.binarySearch(nodeIDs, source);
+			return index >= 0 && Arrays.binarySearch(targets, offsets[index], offsets[index + 1], target) >= 0;
+		}
+	}
+
+	/**
+	 * growable list of int pairs, backed by two int arrays
+	 */
+	static final class IntPairs {
+
+		private int[] firsts = new int[16];
+		private int[] seconds = new int[16];
+		private int size = 0;
+
+		void add(int first, int second) {
+			if(size == firsts.length) {
+				firsts = Arrays.copyOf(firsts, size * 2);
+				seconds = Arrays.copyOf(seconds, size * 2);
+			}
+			firsts[size] = first;
+			seconds[size] = second;
+			size++;
+		}
+
+		int[] firsts() {
+			return Arrays.copyOf(firsts, size);
+		}
+
+		int[] seconds() {
+			return Arrays.copyOf(seconds, size);
+		}
+	}
+}
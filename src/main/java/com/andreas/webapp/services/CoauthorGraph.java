@@ -0,0 +1,484 @@
+package com.andreas.webapp.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.Coauthor;
+
+/**
+ * In-memory coauthor network built from the 'AUTHORED_BY' table
+ * Two authors are adjacent if they are credited for at least one common document, the weight of
+ * 	the edge is the number of such documents (their collaborations)
+ * It is built once at startup and then kept up to date by the DocumentService
+ *
+ * Like the CitationGraph, the bulk lives in immutable snapshots of plain int arrays: the authors
+ * 	of every document (CSR), and the weighted adjacency of the authors (CSR with a parallel array
+ * 	of weights). Changes after the last snapshot are kept in a small overlay, the new author lists
+ * 	of the changed documents and the weight changes they caused, and folded into new snapshots
+ * 	once more than COMPACTION_THRESHOLD documents have changed
+ *
+ * Changes made while the graph is rebuilt are recorded in a RebuildLog and replayed on top of the
+ * 	rebuilt snapshots, as in the CitationGraph
+ */
+@Component
+public class CoauthorGraph {
+
+	final static int COMPACTION_THRESHOLD = 4096;
+	private final static int[] NO_AUTHORS = new int[0];
+
+	@Autowired
+	DocumentRepo docRepo;
+
+	/**
+	 * document -> credited authors
+	 */
+	private CitationGraph.Csr documentAuthors = CitationGraph.Csr.EMPTY;
+	/**
+	 * author -> coauthors, with the number of collaborations
+	 */
+	private WeightedCsr coauthors = WeightedCsr.EMPTY;
+	/**
+	 * current authors of the documents changed since the snapshots, ascending
+	 */
+	private final Map<Integer,int[]> changedDocuments = new HashMap<>();
+	/**
+	 * author -> coauthor -> change of their collaborations since the snapshots
+	 */
+	private final Map<Integer,Map<Integer,Integer>> weightChanges = new HashMap<>();
+	private final RebuildLog rebuildLog = new RebuildLog();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready = false;
+
+	/**
+	 * receives a coauthor and the number of collaborations
+	 */
+	@FunctionalInterface
+	private interface CoauthorConsumer {
+		void accept(int coauthorID, int collaborations);
+	}
+
+	/**
+	 * (Re)builds the graph from all rows of 'AUTHORED_BY', runs once the application is ready
+	 * (started by StartupRebuilds, which retries it if it fails)
+	 */
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.start();
+		}finally {
+			lock.writeLock().unlock();
+		}
+		CitationGraph.IntPairs authored = new CitationGraph.IntPairs();
+		boolean loaded = false;
+		try(Stream<Object[]> rows = docRepo.streamAllAuthoredEntries()){
+			rows.forEach(row -> authored.add(((Number) row[0]).intValue(), ((Number) row[1]).intValue()));
+			load(CitationGraph.Csr.build(authored.firsts(), authored.seconds()), true);
+			loaded = true;
+		}finally {
+			if(!loaded) {
+				lock.writeLock().lock();
+				rebuildLog.discard();
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return - true once the graph has been built
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Credits the author for the document, does nothing if already credited
+	 * @param documentID - ID of the document
+	 * @param authorID - ID of the author
+	 */
+	public void addAuthor(int documentID, int authorID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> addAuthor(documentID, authorID));
+			addUnlocked(documentID, authorID);
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the author from the document, does nothing if not credited
+	 * @param documentID - ID of the document
+	 * @param authorID - ID of the author
+	 */
+	public void removeAuthor(int documentID, int authorID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeAuthor(documentID, authorID));
+			removeUnlocked(documentID, authorID);
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a new document with its authors
+	 * @param documentID - ID of the created document
+	 * @param authorIDs - IDs of its authors, duplicates are ignored
+	 */
+	public void addDocument(int documentID, Collection<Integer> authorIDs) {
+		lock.writeLock().lock();
+		try {
+			List<Integer> added = new ArrayList<>(authorIDs);
+			rebuildLog.record(() -> addDocument(documentID, added));
+			for(int authorID:authorIDs) {
+				addUnlocked(documentID, authorID);
+			}
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document, its authors lose one collaboration with each other
+	 * @param documentID - ID of the deleted document
+	 */
+	public void removeDocument(int documentID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeDocument(documentID));
+			for(int authorID:authorsOf(documentID)) {
+				removeUnlocked(documentID, authorID);
+			}
+			compactIfNeeded();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every document and author from the graph
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(this::clear);
+			load(CitationGraph.Csr.EMPTY, false);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The coauthors of an author, the most frequent collaborators first
+	 * @param authorID - ID of the author
+	 * @param limit - maximum number of results
+	 * @return - the coauthors with their number of collaborations, ties in ascending ID order
+	 */
+	public List<Coauthor> coauthors(int authorID, int limit) {
+		lock.readLock().lock();
+		try {
+			List<Coauthor> result = new ArrayList<>();
+			forEachCoauthor(authorID, (coauthorID, collaborations) ->
+				result.add(new Coauthor(coauthorID, collaborations)));
+			result.sort(Comparator.comparingInt(Coauthor::getCollaborations).reversed()
+					.thenComparingInt(Coauthor::getAuthorID));
+			return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Shortest chain of collaborations between two authors, i.e. fromID co-authored with x1,
+	 * 	x1 with x2, ..., xn with toID
+	 * @param fromID - ID of the first author of the path
+	 * @param toID - ID of the last author of the path
+	 * @param maxDepth - maximum number of edges of the path
+	 * @return - the IDs of the authors on the path including both ends,
+	 * 	an empty List if there is no such path within maxDepth edges
+	 */
+	public List<Integer> shortestPath(int fromID, int toID, int maxDepth) {
+		if(fromID == toID) {
+			return List.of(fromID);
+		}
+
+		lock.readLock().lock();
+		try {
+			Map<Integer,Integer> parents = new HashMap<>();
+			parents.put(fromID, fromID);
+			int[] frontier = {fromID};
+
+			for(int depth = 1; depth <= maxDepth && frontier.length > 0; depth++) {
+				CitationGraph.IntPairs next = new CitationGraph.IntPairs();
+				for(int node:frontier) {
+					forEachCoauthor(node, (coauthorID, collaborations) -> {
+						if(!parents.containsKey(coauthorID)) {
+							parents.put(coauthorID, node);
+							next.add(coauthorID, 0);
+						}
+					});
+					if(parents.containsKey(toID)) {
+						return pathTo(parents, fromID, toID);
+					}
+				}
+				frontier = next.firsts();
+			}
+			return new ArrayList<>();
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * replaces the whole graph with new snapshots of the provided document authors
+	 * @param finishRebuild - true at the end of a rebuild: the changes recorded meanwhile are 
+	 * 	replayed on top of the snapshots, then the graph is ready
+	 */
+	private void load(CitationGraph.Csr newDocumentAuthors, boolean finishRebuild) {
+		WeightedCsr newCoauthors = WeightedCsr.build(newDocumentAuthors);
+
+		lock.writeLock().lock();
+		try {
+			documentAuthors = newDocumentAuthors;
+			coauthors = newCoauthors;
+			changedDocuments.clear();
+			weightChanges.clear();
+			if(finishRebuild) {
+				rebuildLog.replay();
+				ready = true;
+			}
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * the current authors of a document (snapshot or overlay), ascending
+	 * the caller must hold the read or write lock
+	 */
+	private int[] authorsOf(int documentID) {
+		int[] changed = changedDocuments.get(documentID);
+		if(changed != null) {
+			return changed;
+		}
+		int index = Arrays.binarySearch(documentAuthors.nodeIDs, documentID);
+		return index < 0 ? NO_AUTHORS : Arrays.copyOfRange(documentAuthors.targets,
+				documentAuthors.offsets[index], documentAuthors.offsets[index + 1]);
+	}
+
+	/**
+	 * calls the consumer with every coauthor of an author in the current graph (snapshot + overlay)
+	 * the caller must hold the read or write lock
+	 */
+	private void forEachCoauthor(int authorID, CoauthorConsumer consumer) {
+		Map<Integer,Integer> changes = weightChanges.getOrDefault(authorID, Map.of());
+		int index = Arrays.binarySearch(coauthors.nodeIDs, authorID);
+		if(index >= 0) {
+			for(int i = coauthors.offsets[index]; i < coauthors.offsets[index + 1]; i++) {
+				int collaborations = coauthors.weights[i] + changes.getOrDefault(coauthors.targets[i], 0);
+				if(collaborations > 0) {
+					consumer.accept(coauthors.targets[i], collaborations);
+				}
+			}
+		}
+		for(Map.Entry<Integer,Integer> change:changes.entrySet()) {
+			if(change.getValue() > 0 && !coauthors.contains(authorID, change.getKey())) {
+				consumer.accept(change.getKey(), change.getValue());
+			}
+		}
+	}
+
+	/**
+	 * the caller must hold the write lock
+	 */
+	private void addUnlocked(int documentID, int authorID) {
+		int[] authors = authorsOf(documentID);
+		int position = Arrays.binarySearch(authors, authorID);
+		if(position >= 0) {
+			return;
+		}
+		for(int other:authors) {
+			changeCollaborations(authorID, other, 1);
+		}
+		int insertAt = -position - 1;
+		int[] updated = new int[authors.length + 1];
+		System.arraycopy(authors, 0, updated, 0, insertAt);
+		updated[insertAt] = authorID;
+		System.arraycopy(authors, insertAt, updated, insertAt + 1, authors.length - insertAt);
+		changedDocuments.put(documentID, updated);
+	}
+
+	/**
+	 * the caller must hold the write lock
+	 */
+	private void removeUnlocked(int documentID, int authorID) {
+		int[] authors = authorsOf(documentID);
+		int position = Arrays.binarySearch(authors, authorID);
+		if(position < 0) {
+			return;
+		}
+		int[] updated = new int[authors.length - 1];
+		System.arraycopy(authors, 0, updated, 0, position);
+		System.arraycopy(authors, position + 1, updated, position, updated.length - position);
+		for(int other:updated) {
+			changeCollaborations(authorID, other, -1);
+		}
+		changedDocuments.put(documentID, updated);
+	}
+
+	/**
+	 * changes the weight of the edge in both directions, the caller must hold the write lock
+	 */
+	private void changeCollaborations(int authorID, int coauthorID, int delta) {
+		changeWeight(authorID, coauthorID, delta);
+		changeWeight(coauthorID, authorID, delta);
+	}
+
+	private void changeWeight(int authorID, int coauthorID, int delta) {
+		Map<Integer,Integer> changes = weightChanges.computeIfAbsent(authorID, k -> new HashMap<>());
+		changes.merge(coauthorID, delta, (current, added) -> current + added == 0 ? null : current + added);
+		if(changes.isEmpty()) {
+			weightChanges.remove(authorID);
+		}
+	}
+
+	/**
+	 * folds the overlay into new snapshots once it has grown too large,
+	 * the caller must hold the write lock
+	 */
+	private void compactIfNeeded() {
+		if(changedDocuments.size() <= Math.max(COMPACTION_THRESHOLD, documentAuthors.nodeIDs.length / 8)) {
+			return;
+		}
+		CitationGraph.IntPairs authored = new CitationGraph.IntPairs();
+		for(int documentID:documentAuthors.nodeIDs) {
+			if(!changedDocuments.containsKey(documentID)) {
+				for(int authorID:authorsOf(documentID)) {
+					authored.add(documentID, authorID);
+				}
+			}
+		}
+		for(Map.Entry<Integer,int[]> entry:changedDocuments.entrySet()) {
+			for(int authorID:entry.getValue()) {
+				authored.add(entry.getKey(), authorID);
+			}
+		}
+		// the write lock is reentrant, so load can take it again
+		load(CitationGraph.Csr.build(authored.firsts(), authored.seconds()), false);
+	}
+
+	/**
+	 * walks the BFS parent pointers back from the target to the start
+	 */
+	private static List<Integer> pathTo(Map<Integer,Integer> parents, int fromID, int toID) {
+		List<Integer> path = new ArrayList<>();
+		for(int node = toID; node != fromID; node = parents.get(node)) {
+			path.add(0, node);
+		}
+		path.add(0, fromID);
+		return path;
+	}
+
+	/**
+	 * Immutable compressed sparse row adjacency with weights:
+	 * the neighbors of nodeIDs[i] are targets[offsets[i]] ... targets[offsets[i+1]-1], sorted ascending,
+	 * 	and weights[j] is the weight of the edge to targets[j]
+	 */
+	static final class WeightedCsr {
+
+		static final WeightedCsr EMPTY = new WeightedCsr(new int[0], new int[] {0}, new int[0], new int[0]);
+
+		final int[] nodeIDs;
+		final int[] offsets;
+		final int[] targets;
+		final int[] weights;
+
+		private WeightedCsr(int[] nodeIDs, int[] offsets, int[] targets, int[] weights) {
+			this.nodeIDs = nodeIDs;
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+		}
+
+		/**
+		 * builds the coauthor adjacency of the provided document authors: every document adds one
+		 * 	to the weight of each pair of its authors, in both directions
+		 */
+		static WeightedCsr build(CitationGraph.Csr documentAuthors) {
+			long pairs = 0;
+			for(int d = 0; d < documentAuthors.nodeIDs.length; d++) {
+				long authors = documentAuthors.offsets[d + 1] - documentAuthors.offsets[d];
+				pairs += authors * (authors - 1);
+			}
+			long[] keys = new long[Math.toIntExact(pairs)];
+			int size = 0;
+			for(int d = 0; d < documentAuthors.nodeIDs.length; d++) {
+				for(int i = documentAuthors.offsets[d]; i < documentAuthors.offsets[d + 1]; i++) {
+					for(int j = documentAuthors.offsets[d]; j < documentAuthors.offsets[d + 1]; j++) {
+						if(i != j) {
+							keys[size++] = CitationGraph.edgeKey(documentAuthors.targets[i], documentAuthors.targets[j]);
+						}
+					}
+				}
+			}
+			Arrays.sort(keys);
+
+			int edges = 0;
+			int nodes = 0;
+			for(int i = 0; i < keys.length; i++) {
+				if(i == 0 || keys[i] != keys[i - 1]) {
+					edges++;
+					if(i == 0 || (int) (keys[i] >> 32) != (int) (keys[i - 1] >> 32)) {
+						nodes++;
+					}
+				}
+			}
+
+			int[] nodeIDs = new int[nodes];
+			int[] offsets = new int[nodes + 1];
+			int[] adjacent = new int[edges];
+			int[] weights = new int[edges];
+			int node = -1;
+			int edge = -1;
+			for(int i = 0; i < keys.length; i++) {
+				if(i > 0 && keys[i] == keys[i - 1]) {
+					weights[edge]++;
+					continue;
+				}
+				int source = (int) (keys[i] >> 32);
+				edge++;
+				if(node < 0 || nodeIDs[node] != source) {
+					node++;
+					nodeIDs[node] = source;
+					offsets[node] = edge;
+				}
+				adjacent[edge] = (int) keys[i];
+				weights[edge] = 1;
+			}
+			offsets[nodes] = edges;
+			return new WeightedCsr(nodeIDs, offsets, adjacent, weights);
+		}
+
+		boolean contains(int source, int target) {
+			int index = Arrays.binarySearch(nodeIDs, source);
+			return index >= 0 && Arrays.binarySearch(targets, offsets[index], offsets[index + 1], target) >= 0;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.andreas.webapp.services;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-memory version tracking of the document reads, the source of the ETags and Last-Modified
+ * headers of /getDocById and /getAllDocs
+ * Every mutating method of the DocumentService and AuthorService bumps the versions it affects,
+ * so a conditional GET can be answered (304) without touching the database
+ *
+ * All versions are drawn from one counter, so "newer" is simply "greater". The representation
+ * of a document also contains its authors and the IDs and titles of its references, which is
+ * why its version is the latest of:
+ * - the document itself (changed, deleted, authors or references added/removed, or a document
+ * 		it references was renamed or deleted)
+ * - all authors (an author was renamed or deleted)
+ * - all documents (everything was deleted, or the citing documents couldn't be determined)
+ *
+ * Inside a transaction the versions are bumped once it has committed. A reader that sees the new
+ * 	version is then guaranteed to read the new content, which is why the controller takes the version
+ * 	before it reads the content: at worst a client gets new content with an old tag and downloads it again
+ *
+ * Only the versions of the most recently changed documents are kept (krieger.versions.max-documents).
+ * 	The version of an evicted document is no longer known, so every document without an entry gets
+ * 	the latest evicted version: its tag may change without a change of the document, but never stays
+ * 	the same after one
+ *
+ * The tags are weak (W/"..."), not strong: server.compression is enabled, and Tomcat doesn't compress
+ * 	a response with a strong ETag, as the compressed and the plain bytes differ. If-None-Match of a
+ * 	GET uses the weak comparison anyway; only If-Match and If-Range need strong tags, and neither
+ * 	is supported by these endpoints
+ *
+ * Every tag contains the startup time, so tags of an earlier run never match
+ */
+@Component
+public class ContentVersions {
+
+	/**
+	 * a version together with the time it was set
+	 * @param version - the value of the version counter when it was set
+	 * @param lastModified - epoch milliseconds
+	 */
+	public record Stamp(long version, long lastModified) {
+	}
+
+	private final long startup = System.currentTimeMillis();
+	private final String tagPrefix = "\"" + Long.toString(startup, 36) + "-";
+	private final AtomicLong counter = new AtomicLong();
+	private final Cache<Integer,Stamp> documents;
+	private final AtomicReference<Stamp> evicted = new AtomicReference<>(new Stamp(0, startup));
+	private volatile Stamp allDocuments = new Stamp(0, startup);
+	private volatile Stamp allAuthors = new Stamp(0, startup);
+	private volatile Stamp documentCollection = new Stamp(0, startup);
+
+	public ContentVersions(@Value("${krieger.versions.max-documents:100000}") long maxDocuments) {
+		//evictions run on the calling thread, the listener raises the fallback before the entry is gone
+		this.documents = Caffeine.newBuilder().maximumSize(maxDocuments).executor(Runnable::run)
+				.<Integer,Stamp>evictionListener((documentID, stamp, cause) -> 
+						evicted.accumulateAndGet(stamp, ContentVersions::latest))
+				.build();
+	}
+
+	/**
+	 * @return - the current version of the document with the provided ID
+	 */
+	public Stamp document(int documentID) {
+		Stamp stamp = documents.getIfPresent(documentID);
+		return latest(latest(latest(stamp, evicted.get()), allDocuments), allAuthors);
+	}
+
+	/**
+	 * @return - the current version of the collection of all documents (/getAllDocs)
+	 */
+	public Stamp documentCollection() {
+		return documentCollection;
+	}
+
+	/**
+	 * the weak ETag of the provided version, e.g. W/"mvdr6kyp-2"
+	 * weak, because the same version is sent gzip compressed or not (and Tomcat doesn't compress
+	 * 	responses with a strong ETag)
+	 */
+	public String etag(Stamp stamp) {
+		return "W/" + tagPrefix + stamp.version() + "\"";
+	}
+
+	/**
+	 * Marks the provided documents as changed, and with them the collection
+	 * @param documentIDs - IDs of the changed documents, e.g. a changed document and the
+	 * 						documents citing it
+	 */
+	public void documentsChanged(Collection<Integer> documentIDs) {
+		afterCommit(() -> {
+			Stamp stamp = next();
+			for(int documentID:documentIDs) {
+				documents.put(documentID, stamp);
+			}
+			documentCollection = stamp;
+		});
+	}
+
+	/**
+	 * Marks the collection as changed because documents were created
+	 * A new document gets no version of its own: no client can hold a tag of it, and an ID that
+	 * 	was deleted before already got a newer version than its last tag with the delete. Bulk
+	 * 	imports therefore don't evict the versions of documents that actually changed
+	 */
+	public void documentsCreated() {
+		afterCommit(() -> documentCollection = next());
+	}
+
+	/**
+	 * Marks every document as changed, e.g. after all documents were deleted
+	 */
+	public void allDocumentsChanged() {
+		afterCommit(() -> {
+			Stamp stamp = next();
+			documents.invalidateAll();
+			allDocuments = stamp;
+			documentCollection = stamp;
+		});
+	}
+
+	/**
+	 * Marks every document as changed because an author they might contain changed
+	 */
+	public void authorsChanged() {
+		afterCommit(() -> {
+			Stamp stamp = next();
+			allAuthors = stamp;
+			documentCollection = stamp;
+		});
+	}
+
+	/**
+	 * runs the bump right away, or after the commit if a transaction is active
+	 * bumps are serialized, so the versions only ever grow
+	 */
+	private void afterCommit(Runnable bump) {
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					synchronized(ContentVersions.this) {
+						bump.run();
+					}
+				}
+			});
+		}else {
+			synchronized(this) {
+				bump.run();
+			}
+		}
+	}
+
+	private Stamp next() {
+		return new Stamp(counter.incrementAndGet(), System.currentTimeMillis());
+	}
+
+	private static Stamp latest(Stamp first, Stamp second) {
+		if(first == null) {
+			return second;
+		}
+		return first.version() >= second.version() ? first : second;
+	}
+}
@@ -0,0 +1,283 @@
+package com.andreas.webapp.services;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.BulkItemResult;
+import com.andreas.webapp.model.DocumentPayload;
+import com.andreas.webapp.model.IngestTicket;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind pipeline of /createDoc, enabled with krieger.ingest.async=true
+ * A submitted document is parsed and validated in the request (with one query for its authors and
+ * 	one for its references), appended to a bounded in-process queue and answered with 202 and a
+ * 	ticket. krieger.ingest.workers threads drain the queue and write up to krieger.ingest.batch-size
+ * 	documents per transaction through DocumentService.createDocumentBatch, which validates them
+ * 	again (a reference might have been deleted in the meantime) and keeps the indexes and versions
+ * 	up to date. The outcome of every submission is kept as its ticket for krieger.ingest.ticket-ttl
+ *
+ * Backpressure: a submission that finds the queue full is refused with 503 and Retry-After,
+ * 	nothing is queued for it
+ *
+ * The queue lives in memory: on shutdown the workers get krieger.ingest.shutdown-timeout to write
+ * 	what is queued, documents still queued after that are lost (their tickets with them)
+ *
+ * Metrics:
+ * - krieger.ingest.queue.size: documents waiting to be written
+ * - krieger.ingest.refused: submissions refused because the queue was full
+ * - krieger.ingest.batch: time to write one batch
+ */
+@Component
+public class DocumentIngestQueue {
+
+	final static long POLL_INTERVAL_MS = 200;
+
+	@Autowired
+	DocumentService docService;
+	@Autowired
+	DocumentRepo docRepo;
+	@Autowired
+	AuthorRepo authRepo;
+
+	/**
+	 * an accepted submission
+	 */
+	record Submission(String ticket, DocumentPayload item) {
+	}
+
+	private final boolean enabled;
+	private final int workerCount;
+	private final int batchSize;
+	private final Duration shutdownTimeout;
+	private final BlockingQueue<Submission> queue;
+	private final Cache<String,IngestTicket> tickets;
+	private final Counter refused;
+	private final Timer batchTimer;
+	private ExecutorService workers;
+	private volatile boolean running = false;
+
+	public DocumentIngestQueue(@Value("${krieger.ingest.async:false}") boolean enabled,
+			@Value("${krieger.ingest.queue-capacity:10000}") int queueCapacity,
+			@Value("${krieger.ingest.workers:2}") int workerCount,
+			@Value("${krieger.ingest.batch-size:500}") int batchSize,
+			@Value("${krieger.ingest.ticket-ttl:1h}") Duration ticketTtl,
+			@Value("${krieger.ingest.shutdown-timeout:30s}") Duration shutdownTimeout,
+			ObjectProvider<MeterRegistry> registryProvider) {
+		this.enabled = enabled;
+		this.workerCount = workerCount;
+		this.batchSize = Math.min(batchSize, DocumentService.BULK_CHUNK_SIZE);
+		this.shutdownTimeout = shutdownTimeout;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		//room for every queued ticket and the finished ones of a few full queues
+		this.tickets = Caffeine.newBuilder().maximumSize(Math.max(100_000L, 4L * queueCapacity))
+				.expireAfterWrite(ticketTtl).build();
+
+		MeterRegistry registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+		Gauge.builder("krieger.ingest.queue.size", queue, BlockingQueue::size)
+				.description("Documents waiting to be written").register(registry);
+		this.refused = Counter.builder("krieger.ingest.refused")
+				.description("Submissions refused because the queue was full").register(registry);
+		this.batchTimer = Timer.builder("krieger.ingest.batch")
+				.description("Writing one batch of queued documents").register(registry);
+	}
+
+	/**
+	 * @return - true if /createDoc is to be handled asynchronously
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts the workers once the application is ready, if the asynchronous mode is enabled
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() {
+		if(!enabled || running) {
+			return;
+		}
+		AtomicInteger threadNumber = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(workerCount, task -> {
+			Thread thread = new Thread(task, "krieger-ingest-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		running = true;
+		for(int i = 0; i < workerCount; i++) {
+			workers.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Stops accepting submissions and waits for the workers to write what is queued
+	 */
+	@PreDestroy
+	public synchronized void stop() throws InterruptedException {
+		if(!running) {
+			return;
+		}
+		running = false;
+		workers.shutdown();
+		if(!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Validates a document payload (same format and rules as DocumentService.createDocumentService)
+	 * 	and queues it to be written
+	 * @param payload - a stream containing one JSON object
+	 * @return - status 202 with the queued ticket, and its status URL as Location
+	 *         - status 503 with Retry-After if the queue is full
+	 *         - a ResponseEntity with a message informing the caller of an invalid JSON payload,
+	 *          and missing or previously non-registered attributes
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> submitService(InputStream payload) throws Exception {
+
+		DocumentPayload item;
+		try {
+			item = DocumentService.readPayload(payload);
+		}catch(JsonProcessingException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The payload is not valid JSON: "+e.getOriginalMessage());
+		}
+		if(item == null) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The payload cannot be empty to create a new document!");
+		}
+
+		String problem = DocumentService.validatePayload(item, existingAuthors(item), existingReferences(item));
+		if(problem != null) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problem);
+		}
+
+		if(!running) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+					.body("Documents are currently not accepted, please try again later!");
+		}
+		IngestTicket ticket = IngestTicket.queued(UUID.randomUUID().toString());
+		tickets.put(ticket.getTicket(), ticket);
+		if(!queue.offer(new Submission(ticket.getTicket(), item))) {
+			tickets.invalidate(ticket.getTicket());
+			refused.increment();
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+					.body("Too many documents are waiting to be written, please try again later!");
+		}
+		return ResponseEntity.accepted().location(URI.create("/getCreateStatus?ticket=" + ticket.getTicket()))
+				.body(ticket);
+	}
+
+	/**
+	 * Returns the state of a submission
+	 * @param ticket - the ticket returned by submitService
+	 * @return - a ResponseEntity with the ticket
+	 *         - a ResponseEntity with a message informing the caller of an unknown or expired ticket
+	 */
+	public ResponseEntity<Object> getTicketService(String ticket) {
+		IngestTicket found = ticket == null ? null : tickets.getIfPresent(ticket);
+		if(found == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No submission found for the provided ticket, it may have expired!");
+		}
+		return new ResponseEntity<>(found,HttpStatus.OK);
+	}
+
+	/**
+	 * loop of a worker: waits for a submission and writes it together with whatever else is
+	 * 	queued, up to batchSize, until the queue is stopped and empty
+	 */
+	void drain() {
+		List<Submission> batch = new ArrayList<>(batchSize);
+		while(running || !queue.isEmpty()) {
+			try {
+				Submission first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				if(first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				batchTimer.record(() -> write(batch));
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * writes one batch and records the outcome of every submission in its ticket
+	 */
+	void write(List<Submission> batch) {
+		List<DocumentPayload> items = new ArrayList<>(batch.size());
+		for(Submission submission:batch) {
+			items.add(submission.item());
+		}
+		try {
+			List<BulkItemResult> results = docService.createDocumentBatch(items);
+			for(int i = 0; i < batch.size(); i++) {
+				tickets.put(batch.get(i).ticket(), IngestTicket.of(batch.get(i).ticket(), results.get(i)));
+			}
+		}catch(RuntimeException e) {
+			for(Submission submission:batch) {
+				tickets.put(submission.ticket(), IngestTicket.failed(submission.ticket(),
+						"The batch containing this document could not be written: "+e));
+			}
+		}
+	}
+
+	private Set<Integer> existingAuthors(DocumentPayload item) {
+		Set<Integer> authorIds = idsOf(item.getAuthors());
+		return authorIds.isEmpty() ? authorIds : authRepo.findExistingAuthorIds(authorIds);
+	}
+
+	private Set<Integer> existingReferences(DocumentPayload item) {
+		Set<Integer> referenceIds = idsOf(item.getReferences());
+		return referenceIds.isEmpty() ? referenceIds : docRepo.findExistingDocumentIds(referenceIds);
+	}
+
+	private static Set<Integer> idsOf(List<Integer> ids) {
+		Set<Integer> result = new HashSet<>();
+		if(ids != null) {
+			ids.stream().filter(Objects::nonNull).forEach(result::add);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,411 @@
+package com.andreas.webapp.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.SearchHit;
+
+/**
+ * In-memory inverted index over the titles and bodies of all documents
+ * It is built once at startup and then kept up to date by the DocumentService,
+ * every time a document is created, changed or deleted
+ *
+ * Results are ranked with BM25, a term in the title counts TITLE_WEIGHT times as much
+ * as a term in the body
+ *
+ * The postings of a term are two parallel int arrays (document-IDs and term frequencies) sorted by
+ * the document-ID, so a posting costs 8 bytes instead of a boxed map entry, and a query merges the
+ * lists of its terms in one pass instead of collecting the scores in a map
+ *
+ * A rebuild reads into new contents, which replace the old ones when it is done. Changes made
+ * meanwhile are recorded in a RebuildLog and replayed on top of them
+ */
+@Component
+public class DocumentSearchIndex {
+
+	final static double K1 = 1.2;
+	final static double B = 0.75;
+	final static int TITLE_WEIGHT = 2;
+
+	/**
+	 * the worst hit first: lowest score, on ties the highest ID
+	 */
+	private final static Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+			.thenComparing(Comparator.comparingInt(Scored::documentID).reversed());
+
+	@Autowired
+	DocumentRepo docRepo;
+
+	private Contents contents = new Contents();
+	private final RebuildLog rebuildLog = new RebuildLog();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready = false;
+
+	/**
+	 * a document and its score during a search
+	 */
+	private record Scored(int documentID, double score) {
+	}
+
+	/**
+	 * (Re)builds the index from all documents in the database, runs once the application is ready
+	 * (started by StartupRebuilds, which retries it if it fails)
+	 * The documents are read row by row with their bodies, no entity is loaded
+	 */
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.start();
+		}finally {
+			lock.writeLock().unlock();
+		}
+		Contents rebuilt = new Contents();
+		boolean loaded = false;
+		try {
+			docRepo.forEachText((documentID, title, body) -> rebuilt.add(documentID, title, frequencies(title, body)));
+			lock.writeLock().lock();
+			try {
+				contents = rebuilt;
+				rebuildLog.replay();
+				ready = true;
+			}finally {
+				lock.writeLock().unlock();
+			}
+			loaded = true;
+		}finally {
+			if(!loaded) {
+				lock.writeLock().lock();
+				rebuildLog.discard();
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return - true once the index has been built, until then searches would miss documents
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Adds a document to the index, if it is already indexed the old entry is replaced
+	 * @param documentID - ID of the document
+	 * @param title - title of the document
+	 * @param body - body of the document
+	 */
+	public void indexDocument(int documentID, String title, String body) {
+		Map<String,Integer> frequencies = frequencies(title, body);
+
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> indexDocument(documentID, title, body));
+			contents.add(documentID, title, frequencies);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a document from the index, does nothing if it isn't indexed
+	 * @param documentID - ID of the document that is to be removed
+	 */
+	public void removeDocument(int documentID) {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(() -> removeDocument(documentID));
+			contents.remove(documentID);
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every document from the index
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog.record(this::clear);
+			contents = new Contents();
+		}finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches the index and returns the best matching documents, ranked by their BM25 score
+	 * A document matches if it contains at least one of the terms of the query
+	 * @param query - the search query, it is split into terms the same way as the documents
+	 * @param limit - maximum number of results
+	 * @return - the matching documents, best match first (ties in ascending ID order)
+	 */
+	public List<SearchHit> search(String query, int limit) {
+		List<String> queryTerms = tokenize(query).stream().distinct().toList();
+
+		lock.readLock().lock();
+		try {
+			int documentCount = contents.documentTerms.size();
+			if(documentCount == 0 || queryTerms.isEmpty()) {
+				return new ArrayList<>();
+			}
+			double averageLength = Math.max(1.0, (double) contents.totalLength / documentCount);
+
+			List<Postings> matched = new ArrayList<>();
+			for(String term:queryTerms) {
+				Postings termPostings = contents.postings.get(term);
+				if(termPostings != null) {
+					matched.add(termPostings);
+				}
+			}
+			double[] idfs = new double[matched.size()];
+			for(int t = 0; t < idfs.length; t++) {
+				int df = matched.get(t).count();
+				idfs[t] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+			}
+
+			//the lists are sorted by document-ID, so they are merged and every document is scored once,
+			//only the best 'limit' hits are kept in a min-heap
+			PriorityQueue<Scored> best = new PriorityQueue<>(WORST_FIRST);
+			int[] cursors = new int[matched.size()];
+			while(true) {
+				int documentID = -1;
+				for(int t = 0; t < cursors.length; t++) {
+					Postings termPostings = matched.get(t);
+					while(cursors[t] < termPostings.size && termPostings.frequencies[cursors[t]] == 0) {
+						cursors[t]++;
+					}
+					if(cursors[t] < termPostings.size 
+							&& (documentID < 0 || termPostings.documentIDs[cursors[t]] < documentID)) {
+						documentID = termPostings.documentIDs[cursors[t]];
+					}
+				}
+				if(documentID < 0) {
+					break;
+				}
+
+				double norm = K1 * (1 - B + B * contents.documentLengths[documentID] / averageLength);
+				double score = 0;
+				for(int t = 0; t < cursors.length; t++) {
+					Postings termPostings = matched.get(t);
+					if(cursors[t] < termPostings.size && termPostings.documentIDs[cursors[t]] == documentID) {
+						double tf = termPostings.frequencies[cursors[t]++];
+						score += idfs[t] * tf * (K1 + 1) / (tf + norm);
+					}
+				}
+				if(best.size() < limit) {
+					best.offer(new Scored(documentID, score));
+				}else if(score > best.peek().score()) {
+					best.poll();
+					best.offer(new Scored(documentID, score));
+				}
+			}
+
+			List<SearchHit> hits = new ArrayList<>(best.size());
+			while(!best.isEmpty()) {
+				Scored hit = best.poll();
+				hits.add(0, new SearchHit(hit.documentID(), contents.documentTitles.get(hit.documentID()), hit.score()));
+			}
+			return hits;
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return - number of documents currently in the index
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return contents.documentTerms.size();
+		}finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * the weighted frequency of every distinct term of a document, their sum is its length
+	 */
+	private static Map<String,Integer> frequencies(String title, String body) {
+		Map<String,Integer> frequencies = new HashMap<>();
+		for(String term:tokenize(title)) {
+			frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+		}
+		for(String term:tokenize(body)) {
+			frequencies.merge(term, 1, Integer::sum);
+		}
+		return frequencies;
+	}
+
+	/**
+	 * splits a text into lower case terms, everything that is not a letter or digit separates terms
+	 * @param text - the text that is to be split, may be null
+	 * @return - the terms of the text in their original order
+	 */
+	static List<String> tokenize(String text) {
+		List<String> terms = new ArrayList<>();
+		if(text == null) {
+			return terms;
+		}
+		int start = -1;
+		for(int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if(wordChar && start < 0) {
+				start = i;
+			}else if(!wordChar && start >= 0) {
+				terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * The indexed documents, replaced as a whole by a rebuild
+	 * Not thread-safe, the caller must hold the lock of the index
+	 */
+	private static final class Contents {
+
+		/**
+		 * term -> the documents containing it
+		 */
+		final Map<String,Postings> postings = new HashMap<>();
+		/**
+		 * document-ID -> postings of its distinct terms, needed to remove it again
+		 */
+		final Map<Integer,Postings[]> documentTerms = new HashMap<>();
+		final Map<Integer,String> documentTitles = new HashMap<>();
+		/**
+		 * weighted length of every document, indexed by the document-ID
+		 */
+		int[] documentLengths = new int[1024];
+		long totalLength = 0;
+
+		/**
+		 * adds a document, if it is already indexed the old entry is replaced
+		 */
+		void add(int documentID, String title, Map<String,Integer> frequencies) {
+			remove(documentID);
+			Postings[] terms = new Postings[frequencies.size()];
+			int length = 0;
+			int i = 0;
+			for(Map.Entry<String,Integer> entry:frequencies.entrySet()) {
+				Postings termPostings = postings.computeIfAbsent(entry.getKey(), Postings::new);
+				termPostings.put(documentID, entry.getValue());
+				terms[i++] = termPostings;
+				length += entry.getValue();
+			}
+			documentTerms.put(documentID, terms);
+			documentTitles.put(documentID, title);
+			if(documentID >= documentLengths.length) {
+				documentLengths = Arrays.copyOf(documentLengths, Math.max(documentID + 1, documentLengths.length * 2));
+			}
+			documentLengths[documentID] = length;
+			totalLength += length;
+		}
+
+		/**
+		 * removes a document, does nothing if it isn't indexed
+		 */
+		void remove(int documentID) {
+			Postings[] terms = documentTerms.remove(documentID);
+			if(terms == null) {
+				return;
+			}
+			for(Postings termPostings:terms) {
+				termPostings.remove(documentID);
+				if(termPostings.count() == 0) {
+					postings.remove(termPostings.term);
+				}
+			}
+			totalLength -= documentLengths[documentID];
+			documentLengths[documentID] = 0;
+			documentTitles.remove(documentID);
+		}
+	}
+
+	/**
+	 * The documents containing one term with their weighted term frequencies, as two parallel int 
+	 * 	arrays sorted by the document-ID
+	 * A removed document is only marked (frequency 0) and the arrays are compacted once half of the 
+	 * 	entries are marked, so removing a document never shifts a long list
+	 */
+	static final class Postings {
+
+		final String term;
+		int[] documentIDs = new int[4];
+		int[] frequencies = new int[4];
+		int size = 0;
+		private int removed = 0;
+
+		Postings(String term) {
+			this.term = term;
+		}
+
+		/**
+		 * @return - number of documents containing the term
+		 */
+		int count() {
+			return size - removed;
+		}
+
+		void put(int documentID, int frequency) {
+			//new documents have the highest IDs, so they are appended
+			int position = size == 0 || documentIDs[size - 1] < documentID ? 
+					-size - 1 : Arrays.binarySearch(documentIDs, 0, size, documentID);
+			if(position >= 0) {
+				if(frequencies[position] == 0) {
+					removed--;
+				}
+				frequencies[position] = frequency;
+				return;
+			}
+			if(size == documentIDs.length) {
+				documentIDs = Arrays.copyOf(documentIDs, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			int insertAt = -position - 1;
+			System.arraycopy(documentIDs, insertAt, documentIDs, insertAt + 1, size - insertAt);
+			System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+			documentIDs[insertAt] = documentID;
+			frequencies[insertAt] = frequency;
+			size++;
+		}
+
+		void remove(int documentID) {
+			int position = Arrays.binarySearch(documentIDs, 0, size, documentID);
+			if(position < 0 || frequencies[position] == 0) {
+				return;
+			}
+			frequencies[position] = 0;
+			removed++;
+			if(removed > size / 2) {
+				int kept = 0;
+				for(int i = 0; i < size; i++) {
+					if(frequencies[i] > 0) {
+						documentIDs[kept] = documentIDs[i];
+						frequencies[kept] = frequencies[i];
+						kept++;
+					}
+				}
+				size = kept;
+				removed = 0;
+			}
+		}
+	}
+}
@@ -1,90 +1,159 @@
 package com.andreas.webapp.services;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.CitationMetricsRepo;
 import com.andreas.webapp.dao.DocumentRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.BulkItemResult;
 import com.andreas.webapp.model.Document;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentMetrics;
+import com.andreas.webapp.model.DocumentPayload;
+import com.andreas.webapp.model.DocumentTitleView;
+import com.andreas.webapp.model.KeysetPage;
+import com.andreas.webapp.model.LinkBatchResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Component
+@Timed(value = "krieger.service", histogram = true)
 public class DocumentService {
 	
-	final static Gson globGson = new Gson();
+	final static ObjectMapper globMapper = new ObjectMapper();
+	final static int MAX_PAGE_SIZE = 1000;
+	final static int STREAM_CHUNK_SIZE = 500;
+	final static int BULK_CHUNK_SIZE = 1000;
+	final static int DELETE_ALL_CHUNK_SIZE = 10_000;
+	final static int MAX_TRAVERSAL_DEPTH = 20;
+	final static int MAX_LINK_BATCH_SIZE = 5000;
+	final static MediaType BODY_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+	final static Set<String> LISTING_FIELDS = Set.of("id","title","body","authorIds","referenceIds");
 	@Autowired
 	DocumentRepo docRepo;
 	@Autowired
 	AuthorRepo authRepo;
+	@PersistenceContext
+	EntityManager entityManager;
+	@Autowired
+	DocumentSearchIndex searchIndex;
+	@Autowired
+	EntityCache entityCache;
+	@Autowired
+	CitationGraph citationGraph;
+	@Autowired
+	CoauthorGraph coauthorGraph;
+	@Autowired
+	ContentVersions versions;
+	@Autowired
+	CitationMetricsRepo metricsRepo;
 	
 	/**
-	 * Function used to create a new Document from a JSON string. Said JSON String is checked 
-	 * 		to not be null or empty
+	 * Function used to create a new Document from a JSON payload. Said payload is checked 
+	 * 		to not be empty
 	 * 
-	 * The JSON String must include (the function checks whether they're there):
+	 * The payload is bound straight from the stream to a DocumentPayload, there is no 
+	 * 	intermediate String or JSON tree, so a large document body is only copied once
+	 * 
+	 * The JSON must include (the function checks whether they're there):
 	 * - documentID
 	 * - documentTitle
 	 * - documentBody
 	 * - a List of Integers representing the author-IDs (must be present and must not be empty)
 	 * 
-	 * The JSON String CAN include (function checks whether present, but document creation 
+	 * The JSON CAN include (function checks whether present, but document creation 
 	 * 	is possible without)
 	 * - a List of Integers representing document-IDs representing the references
 	 * 
 	 * For the lists of authors and (if existing) references, the function confirms that they 
 	 * 	have ALL been previously registered
-	 * @param payload - a JSON String
+	 * @param payload - a stream containing one JSON object
 	 * @return - A responseEntity with the created Document (If successfully created)
-	 *         - a ReponseEntity with a message informing the caller of an invalid JSON String,
+	 *         - a ReponseEntity with a message informing the caller of an invalid JSON payload,
 	 *          and missing or previously non-registered attributes 
 	 * @throws Exception
 	 */
-	public ResponseEntity<Object> createDocumentService(String payload) throws Exception{
+	public ResponseEntity<Object> createDocumentService(InputStream payload) throws Exception{
+		
+		DocumentPayload item;
+		try {
+			item = readPayload(payload);
+		}catch(JsonProcessingException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The payload is not valid JSON: "+e.getOriginalMessage());
+		}
 		
 		//checking if data is legit
-		if(payload == null || payload.equals("")) {
+		if(item == null) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The payload cannot be empty to create a new document!");
 		}
+		return createDocumentService(item);
+	}
+	
+	/**
+	 * Creates a new Document from an already bound payload, see createDocumentService(InputStream)
+	 * @param item - the payload
+	 * @return - A responseEntity with the created Document (If successfully created)
+	 *         - a ReponseEntity with a message informing the caller of missing or previously 
+	 *          non-registered attributes 
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> createDocumentService(DocumentPayload item) throws Exception{
 		
-		JsonObject jsonObj = globGson.fromJson(payload, JsonObject.class);
-		
-		if(jsonObj.get("documentID")==null || jsonObj.get("documentTitle")==null 
-				||jsonObj.get("documentBody")==null) {
+		if(item.getDocumentID()==null || item.getDocumentTitle()==null 
+				||item.getDocumentBody()==null) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"DocumentID, Document title, and document body must be "
 					+ "included in the payload!");
-		}else if(jsonObj.get("authors") == null) {
+		}else if(item.getAuthors() == null) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"A list with at least one author-ID must be "
 					+ "included in the payload!");
-		}
-		
-		JsonArray jsonArrAuthors = jsonObj.get("authors").getAsJsonArray();
-		
-		if(jsonArrAuthors.isEmpty()) {
+		}else if(item.getAuthors().isEmpty()) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The author list must not be empty! Please make sure at "
 					+ "least one valid author-ID included in the payload!");
 		}
 		
-		for(JsonElement jsonEl: jsonArrAuthors) {
-			if(!authRepo.existsById(jsonEl.getAsInt())) {
+		for(int authorID: item.getAuthors()) {
+			if(!authRepo.existsById(authorID)) {
 				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 						"At least one author listed is not in the system! Please "
 						+ "make sure all listed authored have been registered in "
@@ -92,56 +161,303 @@ public class DocumentService {
 			}
 		}
 		
-		if(!(jsonObj.get("references")==null)) {
-			JsonArray jsonArrReferences = jsonObj.get("references").getAsJsonArray();
-			  
-			for(JsonElement jsonEl: jsonArrReferences) {
-				if(!docRepo.existsById(jsonEl.getAsInt())) {
-					return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
-							"At least one document listed as reference is not in the system! "
-							+ "Please make sure all listed documents have been registered in "
-							+ "the system!");
-				}
+		List<Integer> references = item.getReferences() == null ? List.of() : item.getReferences();
+		for(int referenceID: references) {
+			if(!docRepo.existsById(referenceID)) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+						"At least one document listed as reference is not in the system! "
+						+ "Please make sure all listed documents have been registered in "
+						+ "the system!");
 			}
 		}
 		
 		//once we're sure EVERYTHING is legit, we create the entries
-		int documentID = jsonObj.get("documentID").getAsInt();
-		String documentTitle = jsonObj.get("documentTitle").getAsString();
-		String documentBody = jsonObj.get("documentBody").getAsString();
-		
-		Document newDoc = new Document(documentID,documentTitle,documentBody);
-		  
+		Document newDoc = new Document(item.getDocumentID(),item.getDocumentTitle(),item.getDocumentBody());
 		
 		newDoc = docRepo.save(newDoc);
+		docRepo.saveBody(newDoc.getDocumentID(), item.getDocumentBody());
+		newDoc.setDocumentBody(item.getDocumentBody());
+		searchIndex.indexDocument(newDoc.getDocumentID(), newDoc.getDocumentTitle(), newDoc.getDocumentBody());
+		
+		for(int referenceID: references) {
+			docRepo.insertIntoReferenced(newDoc.getDocumentID(),referenceID);
+			citationGraph.addReference(newDoc.getDocumentID(), referenceID);
+		}
+		for(int authorID: item.getAuthors()) {
+			docRepo.insertIntoAuthored(authorID,newDoc.getDocumentID());
+		}
+		coauthorGraph.addDocument(newDoc.getDocumentID(), item.getAuthors());
+		versions.documentsCreated();
+		
+		//flat copies from the cache, a managed reference would pull in its whole reference chain
+		newDoc.setAuthors(new HashSet<>(entityCache.findAuthors(item.getAuthors(), authRepo::findAllById).values()));
+		newDoc.setReferences(references.isEmpty() ? new HashSet<>() : 
+			new HashSet<>(entityCache.findDocuments(references, docRepo::findAllById).values()));
+		return new ResponseEntity<>(newDoc,HttpStatus.OK);
+		
+	}
+
+	/**
+	 * Function used to create many Documents at once, from a JSON array or an NDJSON stream 
+	 * 	(one JSON Document per line). Every item has the same format as the payload of 
+	 * 	createDocumentService
+	 * 
+	 * The payload is read as a stream and processed in chunks. For every chunk, all author and 
+	 * 	reference IDs are validated with one set-based query each, and the valid items are 
+	 * 	written with JDBC batches inside one transaction. Invalid items are skipped, they don't 
+	 * 	stop the rest of the import
+	 * @param payload - a stream with a JSON array or NDJSON
+	 * @return - A ResponseEntity with a report containing a result (created, rejected, failed) 
+	 * 				for every item of the payload
+	 *         - a ResponseEntity with a message informing the caller of an empty payload
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> createDocumentsService(InputStream payload) throws Exception {
+		
+		if(payload == null) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The payload cannot be empty to create new documents!");
+		}
 		
-		Set<Document> referenceSet = new HashSet<>();
-		if(!(jsonObj.get("references")==null)) {
-			JsonArray jsonArrReferences = jsonObj.get("references").getAsJsonArray();
-			  
-			for(JsonElement jsonEl: jsonArrReferences) {
-				int newId = jsonEl.getAsInt();
-				docRepo.insertIntoReferenced(newDoc.getDocumentID(),jsonEl.getAsInt());
-				referenceSet.add(docRepo.findById(newId).get());
+		List<BulkItemResult> report = new ArrayList<>();
+		List<DocumentPayload> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+		String parseError = null;
+		
+		//readValues handles both a JSON array and a sequence of root-level values (NDJSON)
+		try(MappingIterator<DocumentPayload> it = globMapper.readerFor(DocumentPayload.class)
+				.readValues(payload)){
+			while(it.hasNextValue()) {
+				chunk.add(it.nextValue());
+				if(chunk.size() == BULK_CHUNK_SIZE) {
+					createDocumentChunk(chunk, report);
+				}
 			}
+		}catch(JsonProcessingException e) {
+			parseError = e.getOriginalMessage();
 		}
+		createDocumentChunk(chunk, report);
 		
-		Set<Author> authorSet = new HashSet<>();
-		for(JsonElement jsonEl: jsonArrAuthors) {
-			int newId = jsonEl.getAsInt();
-			docRepo.insertIntoAuthored(newId,newDoc.getDocumentID());
-			authorSet.add(authRepo.findById(newId).get());
+		if(parseError != null) {
+			report.add(BulkItemResult.rejected(report.size(), 
+					"Malformed JSON, this and all following items were not processed: "+parseError));
+		}
+		return new ResponseEntity<>(report,HttpStatus.OK);
+	}
+	
+	/**
+	 * Creates already bound Documents as one batch, used by the DocumentIngestQueue
+	 * They are validated and written like one chunk of createDocumentsService: with set-based 
+	 * 	existence checks and JDBC batches inside one transaction
+	 * @param items - the payloads, at most BULK_CHUNK_SIZE
+	 * @return - a result (created, rejected, failed) for every item, in the order of the items
+	 */
+	public List<BulkItemResult> createDocumentBatch(List<DocumentPayload> items) {
+		List<BulkItemResult> report = new ArrayList<>(items.size());
+		createDocumentChunk(new ArrayList<>(items), report);
+		return report;
+	}
+	
+	/**
+	 * Validates and writes one chunk of a bulk creation, and adds a result for every item to 
+	 * 	the report
+	 * @param chunk - the items that are to be created, is empty afterwards
+	 * @param report - the report the results are added to
+	 */
+	void createDocumentChunk(List<DocumentPayload> chunk, List<BulkItemResult> report) {
+		if(chunk.isEmpty()) {
+			return;
 		}
-		newDoc.setAuthors(authorSet);
 		
-		newDoc.setReferences(referenceSet);
-		return new ResponseEntity<>(newDoc,HttpStatus.OK);
+		Set<Integer> authorIds = new HashSet<>();
+		Set<Integer> referenceIds = new HashSet<>();
+		for(DocumentPayload item:chunk) {
+			if(item.getAuthors() != null) {
+				authorIds.addAll(item.getAuthors());
+			}
+			if(item.getReferences() != null) {
+				referenceIds.addAll(item.getReferences());
+			}
+		}
+		authorIds.remove(null);
+		referenceIds.remove(null);
+		
+		Set<Integer> existingAuthors = authorIds.isEmpty() ? 
+				new HashSet<>() : authRepo.findExistingAuthorIds(authorIds);
+		Set<Integer> existingReferences = referenceIds.isEmpty() ? 
+				new HashSet<>() : docRepo.findExistingDocumentIds(referenceIds);
+		
+		int firstIndex = report.size();
+		BulkItemResult[] results = new BulkItemResult[chunk.size()];
+		List<DocumentPayload> accepted = new ArrayList<>();
+		List<Integer> acceptedPositions = new ArrayList<>();
+		for(int i = 0; i < chunk.size(); i++) {
+			String problem = validatePayload(chunk.get(i), existingAuthors, existingReferences);
+			if(problem == null) {
+				accepted.add(chunk.get(i));
+				acceptedPositions.add(i);
+			}else {
+				results[i] = BulkItemResult.rejected(firstIndex+i, problem);
+			}
+		}
+		
+		if(!accepted.isEmpty()) {
+			try {
+				List<Integer> documentIds = docRepo.insertDocumentsBatch(accepted);
+				for(int j = 0; j < acceptedPositions.size(); j++) {
+					int position = acceptedPositions.get(j);
+					results[position] = BulkItemResult.created(firstIndex+position, documentIds.get(j));
+					searchIndex.indexDocument(documentIds.get(j), accepted.get(j).getDocumentTitle(), 
+							accepted.get(j).getDocumentBody());
+					if(accepted.get(j).getReferences() != null) {
+						for(int referencedID:accepted.get(j).getReferences()) {
+							citationGraph.addReference(documentIds.get(j), referencedID);
+						}
+					}
+					coauthorGraph.addDocument(documentIds.get(j), accepted.get(j).getAuthors());
+				}
+				versions.documentsCreated();
+			}catch(DataAccessException e) {
+				for(int position:acceptedPositions) {
+					results[position] = BulkItemResult.failed(firstIndex+position, 
+							"The chunk containing this document could not be written: "
+							+e.getMostSpecificCause().toString());
+				}
+			}
+		}
 		
+		report.addAll(Arrays.asList(results));
+		chunk.clear();
+	}
+	
+	/**
+	 * Returns the citation metrics of a Document, as computed by the last run of the citation 
+	 * 	analytics (see CitationAnalytics). Nothing is computed here
+	 * @param documentID - ID of the document
+	 * @return - A ResponseEntity with the metrics (citations, PageRank, time of the computation)
+	 *         - a ResponseEntity with a message informing the caller of an invalid ID, or that 
+	 *         		there are no metrics (yet) for the document
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getDocumentMetricsService(int documentID) throws Exception {
+		
+		if(documentID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Document-ID provided!");
+		}
+		
+		Optional<DocumentMetrics> metrics = metricsRepo.findDocumentMetrics(documentID);
+		if(metrics.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No metrics found for the provided Document-ID! They are computed in the "
+					+ "background, a new document gets them with the next run");
+		}
+		return new ResponseEntity<>(metrics.get(),HttpStatus.OK);
+	}
+	
+	/**
+	 * Returns the highest ranked Documents of the last run of the citation analytics
+	 * @param orderBy - 'pageRank' or 'citations'
+	 * @param limit - maximum number of Documents
+	 * @return - A ResponseEntity with the metrics of the top Documents, highest first
+	 *         - a ResponseEntity with a message informing the caller of an invalid order or limit
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getTopDocumentsService(String orderBy, int limit) throws Exception {
+		
+		if(!"pageRank".equals(orderBy) && !"citations".equals(orderBy)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid order provided! The documents can be ordered by 'pageRank' or 'citations'!");
+		}else if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}
+		
+		return new ResponseEntity<>(metricsRepo.findTopDocuments("pageRank".equals(orderBy), limit),
+				HttpStatus.OK);
+	}
+	
+	/**
+	 * shared validation of the reference and citation tree traversals
+	 */
+	private ResponseEntity<Object> traverseCitations(int documentID, int depth, int limit, 
+			boolean followReferences) {
+		
+		if(documentID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Document-ID provided!");
+		}else if(depth <= 0 || depth > MAX_TRAVERSAL_DEPTH) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid depth provided! The depth must be between 1 and "+MAX_TRAVERSAL_DEPTH+"!");
+		}else if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}else if(!citationGraph.isReady()) {
+			return citationGraphNotReady();
+		}
+		
+		return new ResponseEntity<>(citationGraph.traverse(documentID, depth, followReferences, limit),
+				HttpStatus.OK);
+	}
+	
+	private static ResponseEntity<Object> citationGraphNotReady() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+				.body("The citation graph is still being built, please try again later!");
+	}
+	
+	/**
+	 * Binds a single JSON object from the stream to a DocumentPayload, token by token
+	 * @param payload - the stream, may be null
+	 * @return - the bound payload, null if the stream is null or contains no JSON at all
+	 * @throws IOException - a JsonProcessingException if the payload is not a valid document object
+	 */
+	public static DocumentPayload readPayload(InputStream payload) throws IOException {
+		if(payload == null) {
+			return null;
+		}
+		try(JsonParser parser = globMapper.createParser(payload)){
+			if(parser.nextToken() == null) {
+				return null;
+			}
+			return globMapper.readValue(parser, DocumentPayload.class);
+		}
+	}
+	
+	/**
+	 * Checks a document payload against the same rules as createDocumentService
+	 * @param item - the payload that is to be checked
+	 * @param existingAuthors - the author-IDs known to exist
+	 * @param existingReferences - the document-IDs known to exist
+	 * @return - null if the payload is valid, otherwise a message describing the problem
+	 */
+	static String validatePayload(DocumentPayload item, Set<Integer> existingAuthors, 
+			Set<Integer> existingReferences) {
+		
+		if(item == null || item.getDocumentID() == null || item.getDocumentTitle() == null 
+				|| item.getDocumentBody() == null) {
+			return "DocumentID, Document title, and document body must be "
+					+ "included in the payload!";
+		}else if(item.getAuthors() == null) {
+			return "A list with at least one author-ID must be "
+					+ "included in the payload!";
+		}else if(item.getAuthors().isEmpty()) {
+			return "The author list must not be empty! Please make sure at "
+					+ "least one valid author-ID included in the payload!";
+		}else if(!existingAuthors.containsAll(item.getAuthors())) {
+			return "At least one author listed is not in the system! Please "
+					+ "make sure all listed authored have been registered in "
+					+ "the system!";
+		}else if(item.getReferences() != null && !existingReferences.containsAll(item.getReferences())) {
+			return "At least one document listed as reference is not in the system! "
+					+ "Please make sure all listed documents have been registered in "
+					+ "the system!";
+		}
+		return null;
 	}
 
 	/**
 	 * Deletes the Document corresponding to the specified documentID
 	 * It's checked whether the ID is legit and a Document with the ID exists
+	 * The Document, its Authors and its references are read through the entity cache
 	 * Authors and references are added manually
 	 * @param documentID - ID of the document you want to retrieve
 	 * @return - a ReponseEntity with the retrieved Document
@@ -158,7 +474,7 @@ public class DocumentService {
 		
 		Document resultDoc = new Document();
 		
-		Optional<Document> optionalDoc = docRepo.findById(documentID);
+		Optional<Document> optionalDoc = entityCache.findDocument(documentID, docRepo::findById);
 		
 		if(optionalDoc.isPresent()) {
 			resultDoc = optionalDoc.get();
@@ -168,6 +484,7 @@ public class DocumentService {
 		}
 		
 		
+		resultDoc.setDocumentBody(docRepo.findBody(documentID));
 		resultDoc.setAuthors(getAuthors(resultDoc.getDocumentID()));
 		resultDoc.setReferences(getReferences(resultDoc.getDocumentID()));
 		
@@ -175,9 +492,67 @@ public class DocumentService {
 	}
 	
 	
+	/**
+	 * A Function to return the body of a Document on its own, as UTF-8 text
+	 * A single byte range (HTTP Range header) is supported, it is cut out by the database, so a long 
+	 * 	body can be read piece by piece. Several ranges, or a malformed header, get the whole body
+	 * @param documentID - ID of the document whose body we want
+	 * @param range - value of the Range header, null for the whole body
+	 * @return - A ResponseEntity with the whole body (200), or the requested range of it 
+	 * 				(206 with Content-Range)
+	 *         - status 416 if the range lies outside of the body
+	 *         - a ResponseEntity with a message informing the caller of an invalid ID or a 
+	 *         		missing document
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getDocumentBodyService(int documentID, String range) throws Exception {
+		
+		if(documentID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Document-ID provided!");
+		}
+		
+		long length = docRepo.findBodyLength(documentID);
+		if(length < 0) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No Document found for the provided Document-ID!");
+		}
+		
+		List<HttpRange> ranges;
+		try {
+			ranges = range == null ? List.of() : HttpRange.parseRanges(range);
+		}catch(IllegalArgumentException e) {
+			ranges = List.of();
+		}
+		if(ranges.size() != 1) {
+			return ResponseEntity.ok().contentType(BODY_TYPE).header(HttpHeaders.ACCEPT_RANGES, "bytes")
+					.body(docRepo.findBodyRange(documentID, 0, (int) length));
+		}
+		
+		long start;
+		long end;
+		try {
+			start = ranges.get(0).getRangeStart(length);
+			end = ranges.get(0).getRangeEnd(length);
+		}catch(IllegalArgumentException e) {
+			start = 0;
+			end = -1;
+		}
+		if(start > end) {
+			return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+					.header(HttpHeaders.CONTENT_RANGE, "bytes */" + length).build();
+		}
+		return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).contentType(BODY_TYPE)
+				.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+				.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length)
+				.body(docRepo.findBodyRange(documentID, start, (int) (end - start + 1)));
+	}
+	
+	
 	/**
 	 * A Function to return ALL Documents in the database
-	 * Authors and references are added manually
+	 * Authors and references are added in one hydration stage, so the number of queries 
+	 * 	stays the same no matter how many documents there are
 	 * @return - A ResponseEntity with a List of all retrieved Documents
 	 * @throws Exception
 	 */
@@ -186,15 +561,298 @@ public class DocumentService {
 		List<Document> documentResultList = new ArrayList<>();
 		documentResultList = this.docRepo.findAll();
 		
-		for(Document dcmnt:documentResultList) {
-			dcmnt.setAuthors(getAuthors(dcmnt.getDocumentID()));
-			dcmnt.setReferences(getReferences(dcmnt.getDocumentID()));
-		}
+		attachBodies(documentResultList, docRepo.findAllBodies());
+		hydrateDocuments(documentResultList, docRepo.findAllAuthoredEntries(), 
+				docRepo.findAllReferencedEntries());
 		
 		return new ResponseEntity<>(documentResultList,HttpStatus.OK);
 	}
 	
 	
+	/**
+	 * A Function to return ALL Documents, reduced to the requested fields
+	 * Only what is requested is read: the bodies are only read for 'body', and the join 
+	 * 	tables only for 'authorIds' and 'referenceIds' (IDs only, no entities)
+	 * @param fields - any of id, title, body, authorIds, referenceIds
+	 * @return - A ResponseEntity with a DocumentListing per Document, ordered by the ID
+	 *         - a ResponseEntity with a message informing the caller of an unknown or missing field
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getDocumentListingService(Set<String> fields) throws Exception {
+		
+		if(fields.isEmpty() || !LISTING_FIELDS.containsAll(fields)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid fields "+fields+" provided! Allowed are "+LISTING_FIELDS+"!");
+		}
+		
+		List<DocumentTitleView> rows = docRepo.findAllTitles();
+		Map<Integer,String> bodies = fields.contains("body") ? docRepo.findAllBodies() : null;
+		Map<Integer,List<Integer>> authorIds = fields.contains("authorIds") ? 
+				groupByDocument(docRepo.findAllAuthoredEntries()) : null;
+		Map<Integer,List<Integer>> referenceIds = fields.contains("referenceIds") ? 
+				groupByDocument(docRepo.findAllReferencedEntries()) : null;
+		
+		List<DocumentListing> listing = new ArrayList<>(rows.size());
+		for(DocumentTitleView row:rows) {
+			int documentID = row.getDocumentID();
+			listing.add(new DocumentListing(
+					fields.contains("id") ? documentID : null,
+					fields.contains("title") ? row.getDocumentTitle() : null,
+					bodies == null ? null : bodies.get(documentID),
+					authorIds == null ? null : authorIds.getOrDefault(documentID, Collections.emptyList()),
+					referenceIds == null ? null : referenceIds.getOrDefault(documentID, Collections.emptyList())));
+		}
+		return new ResponseEntity<>(listing,HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function to return one page of Documents, ordered by their ID (keyset pagination)
+	 * It is checked that the cursor is not negative and the page size is within the limits
+	 * Authors and references are added in one hydration stage per page
+	 * @param afterID - ID of the last document of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of Documents in the page
+	 * @return - A ResponseEntity with the page and the 'afterID' of the next page 
+	 * 				(null if there is no next page)
+	 *         - a ResponseEntity with a message informing the caller of an invalid cursor or page size
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getDocumentsPageService(int afterID, int pageSize) throws Exception {
+		
+		if(afterID < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid afterID or page size provided! The page size must be between 1 and "
+					+ MAX_PAGE_SIZE+"!");
+		}
+		
+		List<Document> documentPage = docRepo.findPageAfter(afterID, pageSize);
+		hydratePage(documentPage);
+		
+		Integer nextAfterID = documentPage.size() == pageSize ? 
+				documentPage.get(documentPage.size()-1).getDocumentID() : null;
+		return new ResponseEntity<>(new KeysetPage<>(documentPage,nextAfterID),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function to return one page of the Documents an Author is credited for, ordered by their ID 
+	 * 	(keyset pagination)
+	 * The page is read with a single statement (AUTHORED_BY joined to DOCUMENT), the bodies are 
+	 * 	only read and returned if requested
+	 * @param authorID - ID of the author
+	 * @param afterID - ID of the last document of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of Documents in the page
+	 * @param includeBody - true to return the bodies as well
+	 * @return - A ResponseEntity with the page (ID, title and body if requested) and the 'afterID' of 
+	 * 				the next page (null if there is no next page)
+	 *         - a ResponseEntity with a message informing the caller of invalid arguments, or that 
+	 *         	the author does not exist
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getDocumentsOfAuthorService(int authorID, int afterID, int pageSize, 
+			boolean includeBody) throws Exception {
+		
+		if(authorID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Author-ID provided!");
+		}else if(afterID < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid afterID or page size provided! The page size must be between 1 and "
+					+ MAX_PAGE_SIZE+"!");
+		}
+		
+		List<DocumentListing> documentPage = docRepo.findPageOfAuthor(authorID, afterID, pageSize, includeBody);
+		
+		if(documentPage.isEmpty() && afterID == 0 && !authRepo.existsById(authorID)) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No Author found for the provided Author-ID!");
+		}
+		
+		Integer nextAfterID = documentPage.size() == pageSize ? 
+				documentPage.get(documentPage.size()-1).getDocumentID() : null;
+		return new ResponseEntity<>(new KeysetPage<>(documentPage,nextAfterID),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function that writes ALL Documents in the database to the provided stream as NDJSON 
+	 * 	(one JSON Document per line)
+	 * The Documents are read from a database stream and written in chunks, each chunk is 
+	 * 	hydrated at once and detached afterwards, so memory stays flat regardless of the table size
+	 * @param out - the stream the Documents are written to
+	 * @throws Exception
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllDocumentsService(OutputStream out) throws Exception {
+		
+		List<Document> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+		try(Stream<Document> documentStream = docRepo.streamAllOrdered()){
+			Iterator<Document> it = documentStream.iterator();
+			while(it.hasNext()) {
+				chunk.add(it.next());
+				if(chunk.size() == STREAM_CHUNK_SIZE) {
+					writeChunk(chunk, out);
+				}
+			}
+			writeChunk(chunk, out);
+		}
+		out.flush();
+	}
+	
+	
+	/**
+	 * A Function to search the titles and bodies of all Documents
+	 * The search runs on the in-memory index, so the database is not touched. Results are 
+	 * 	ranked by relevance (BM25), a match in the title counts more than one in the body
+	 * @param query - the search terms, a Document matches if it contains at least one of them
+	 * @param limit - maximum number of results
+	 * @return - A ResponseEntity with the ranked list of matching Documents (ID, title and score)
+	 *         - a ResponseEntity with a message informing the caller of an empty query or an 
+	 *         	invalid limit
+	 *         - status 503 with Retry-After while the index is still being built
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> searchDocumentsService(String query, int limit) throws Exception {
+		
+		if(query == null || query.isBlank()) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The search query cannot be empty!");
+		}else if(limit <= 0 || limit > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid limit provided! The limit must be between 1 and "+MAX_PAGE_SIZE+"!");
+		}else if(!searchIndex.isReady()) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+					.body("The search index is still being built, please try again later!");
+		}
+		
+		return new ResponseEntity<>(searchIndex.search(query, limit),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function to return one page of the Documents referencing ("citing") a Document, ordered by 
+	 * 	their ID (keyset pagination)
+	 * The IDs are read from the reverse index of the in-memory citation graph (a binary search), 
+	 * 	or from the index on 'REFERENCED_BY' while the graph is still being built. The Documents 
+	 * 	themselves are returned flat (ID and title), read through the entity cache, the body of a 
+	 * 	document is served by /getDocBody
+	 * @param documentID - ID of the referenced document
+	 * @param afterID - ID of the last document of the previous page (0 for the first page)
+	 * @param pageSize - maximum number of Documents in the page
+	 * @return - A ResponseEntity with the page and the 'afterID' of the next page 
+	 * 				(null if there is no next page)
+	 *         - a ResponseEntity with a message informing the caller of invalid arguments, or that 
+	 *         	the document does not exist
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getCitingDocumentsService(int documentID, int afterID, int pageSize) 
+			throws Exception {
+		
+		if(documentID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Document-ID provided!");
+		}else if(afterID < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid afterID or page size provided! The page size must be between 1 and "
+					+ MAX_PAGE_SIZE+"!");
+		}
+		
+		List<Integer> citingIds = citationGraph.isReady() ? 
+				citationGraph.citingDocuments(documentID, afterID, pageSize) : 
+				docRepo.findCitingDocumentIds(documentID, afterID, pageSize);
+		
+		if(citingIds.isEmpty() && afterID == 0 && !docRepo.existsById(documentID)) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No Document found for the provided Document-ID!");
+		}
+		
+		Map<Integer,Document> documentMap = citingIds.isEmpty() ? 
+				new HashMap<>() : entityCache.findDocuments(citingIds, docRepo::findAllById);
+		List<Document> documentPage = new ArrayList<>(citingIds.size());
+		for(int citingId:citingIds) {
+			if(documentMap.containsKey(citingId)) {
+				documentPage.add(documentMap.get(citingId));
+			}
+		}
+		
+		Integer nextAfterID = citingIds.size() == pageSize ? citingIds.get(citingIds.size()-1) : null;
+		return new ResponseEntity<>(new KeysetPage<>(documentPage,nextAfterID),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function that follows the references of a Document, and the references of those, 
+	 * 	up to the provided depth
+	 * The traversal runs on the in-memory citation graph, so the database is not touched
+	 * @param documentID - ID of the document the traversal starts at
+	 * @param depth - maximum number of hops, between 1 and MAX_TRAVERSAL_DEPTH
+	 * @param limit - maximum number of results
+	 * @return - A ResponseEntity with the reached Documents (ID and distance), nearest first
+	 *         - a ResponseEntity with a message informing the caller of invalid arguments
+	 *         - status 503 with Retry-After while the graph is still being built
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getReferenceTreeService(int documentID, int depth, int limit) throws Exception {
+		return traverseCitations(documentID, depth, limit, true);
+	}
+	
+	
+	/**
+	 * A Function that collects the Documents referencing a Document, and the Documents 
+	 * 	referencing those, up to the provided depth
+	 * The traversal runs on the in-memory citation graph, so the database is not touched
+	 * @param documentID - ID of the document the traversal starts at
+	 * @param depth - maximum number of hops, between 1 and MAX_TRAVERSAL_DEPTH
+	 * @param limit - maximum number of results
+	 * @return - A ResponseEntity with the reached Documents (ID and distance), nearest first
+	 *         - a ResponseEntity with a message informing the caller of invalid arguments
+	 *         - status 503 with Retry-After while the graph is still being built
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getCitationTreeService(int documentID, int depth, int limit) throws Exception {
+		return traverseCitations(documentID, depth, limit, false);
+	}
+	
+	
+	/**
+	 * A Function that finds the shortest chain of references from one Document to another
+	 * @param fromID - ID of the document the chain starts at
+	 * @param toID - ID of the document the chain is supposed to reach
+	 * @return - A ResponseEntity with the Document-IDs on the chain, including both ends
+	 *         - a ResponseEntity with a message informing the caller of invalid IDs, or that 
+	 *         	there is no chain within MAX_TRAVERSAL_DEPTH references
+	 *         - status 503 with Retry-After while the graph is still being built
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getCitationPathService(int fromID, int toID) throws Exception {
+		
+		if(fromID <= 0 || toID <= 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid Document-IDs provided!");
+		}else if(!citationGraph.isReady()) {
+			return citationGraphNotReady();
+		}
+		
+		List<Integer> path = citationGraph.shortestPath(fromID, toID, MAX_TRAVERSAL_DEPTH);
+		if(path.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No chain of references found between the provided Documents!");
+		}
+		return new ResponseEntity<>(path,HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A Function that returns the counters of the entity cache, to be able to size it
+	 * @return - A ResponseEntity with size, hits, misses, evictions and hit rate of the author 
+	 * 				and document cache
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> getCacheStatsService() throws Exception {
+		return new ResponseEntity<>(entityCache.stats(),HttpStatus.OK);
+	}
+	
+	
 	/**
 	 * A function that deletes the document corresponding to the provided document-ID
 	 * It is checked whether the Document-ID is valid and has an entry corresponding to it in the database
@@ -216,6 +874,11 @@ public class DocumentService {
 		}
 		
 		docRepo.deleteById(documentID);
+		entityCache.invalidateDocument(documentID);
+		searchIndex.removeDocument(documentID);
+		documentContentChanged(documentID);
+		citationGraph.removeDocument(documentID);
+		coauthorGraph.removeDocument(documentID);
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"Document successfully deleted!");
 		
@@ -224,15 +887,118 @@ public class DocumentService {
 	
 	/**
 	 * A function to delete ALL documents in the database
+	 * The documents aren't loaded and deleted one by one: the tables depending on them are truncated, 
+	 * 	then the documents are deleted with set-based DELETEs, DELETE_ALL_CHUNK_SIZE at a time by 
+	 * 	ID range, each chunk in its own short transaction. A chunk deletes the dependent rows of its 
+	 * 	documents first, so documents created in the meantime don't make it fail
 	 * @return - If successful, a ResponseEntity with a message confirming the deletion is returned
 	 * @throws Exception
 	 */
 	public ResponseEntity<Object> deleteAllDocumentsService() throws Exception {
-		docRepo.deleteAll();
+		docRepo.truncateDocumentChildren();
+		List<Integer> chunk;
+		while(!(chunk = docRepo.findIdsInRange(1, Integer.MAX_VALUE, DELETE_ALL_CHUNK_SIZE)).isEmpty()) {
+			docRepo.deleteDocumentRange(chunk.get(0), chunk.get(chunk.size()-1));
+		}
+		entityCache.invalidateAllDocuments();
+		searchIndex.clear();
+		citationGraph.clear();
+		coauthorGraph.clear();
+		versions.allDocumentsChanged();
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"All Documents successfully deleted!");
 	}
 	
+	/**
+	 * A function that deletes many documents at once: either all documents with an ID in a range, 
+	 * 	or the documents of a list of IDs (IDs without a document are ignored)
+	 * The documents are deleted in chunks of BULK_CHUNK_SIZE with set-based DELETEs, every chunk in 
+	 * 	its own short transaction, so readers and writers never wait for the whole deletion
+	 * Together with a document, its authorships and references are deleted, and the references of 
+	 * 	other documents to it, which are marked as changed
+	 * 
+	 * @param fromID - first ID of the range (inclusive), null if a list is provided
+	 * @param toID - last ID of the range (inclusive), null if a list is provided
+	 * @param documentIDs - IDs of the documents (at most MAX_LINK_BATCH_SIZE), null if a range is provided
+	 * @return - If successful, a ResponseEntity with a message containing the number of deleted 
+	 * 				documents is returned
+	 *         - If neither a valid range nor a valid list is provided, a ResponseEntity with a 
+	 *            message informing the caller thereof is returned
+	 * @throws Exception
+	 */
+	public ResponseEntity<Object> deleteDocumentsService(Integer fromID, Integer toID, List<Integer> documentIDs) 
+			throws Exception {
+		
+		boolean byRange = fromID != null || toID != null;
+		if(byRange == (documentIDs != null)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Either a range of Document-IDs (fromID and toID) or a list of Document-IDs must be provided!");
+		}else if(byRange && (fromID == null || toID == null || fromID <= 0 || toID < fromID)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid range provided! fromID must be positive and not greater than toID!");
+		}else if(!byRange && (documentIDs.isEmpty() || documentIDs.stream().anyMatch(id -> id == null || id <= 0))) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid IDs provided, a non-empty list of positive Document-IDs is required!");
+		}else if(!byRange && documentIDs.size() > MAX_LINK_BATCH_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"At most "+MAX_LINK_BATCH_SIZE+" Documents can be deleted by ID at once!");
+		}
+		
+		int deleted = 0;
+		if(byRange) {
+			List<Integer> chunk;
+			int nextID = fromID;
+			while(nextID <= toID && !(chunk = docRepo.findIdsInRange(nextID, toID, BULK_CHUNK_SIZE)).isEmpty()) {
+				deleted += deleteDocumentChunk(chunk);
+				if(chunk.get(chunk.size()-1) == Integer.MAX_VALUE) {
+					break;
+				}
+				nextID = chunk.get(chunk.size()-1) + 1;
+			}
+		}else {
+			List<Integer> sorted = documentIDs.stream().distinct().sorted().toList();
+			for(int from = 0; from < sorted.size(); from += BULK_CHUNK_SIZE) {
+				List<Integer> ids = sorted.subList(from, Math.min(from + BULK_CHUNK_SIZE, sorted.size()));
+				deleted += deleteDocumentChunk(new ArrayList<>(docRepo.findExistingDocumentIds(ids)));
+			}
+		}
+		return ResponseEntity.status(HttpStatus.OK).body(
+				"Documents successfully deleted: "+deleted);
+	}
+	
+	/**
+	 * deletes one chunk of existing documents and updates the indexes, graphs, cache and versions
+	 * @return - the number of deleted documents
+	 */
+	private int deleteDocumentChunk(List<Integer> documentIDs) {
+		if(documentIDs.isEmpty()) {
+			return 0;
+		}
+		//the citing documents lose a reference, they must be known before the graph forgets the deleted ones
+		boolean citingKnown = citationGraph.isReady();
+		Set<Integer> changed = new HashSet<>(documentIDs);
+		if(citingKnown) {
+			for(int documentID:documentIDs) {
+				changed.addAll(citationGraph.citingDocuments(documentID, 0, Integer.MAX_VALUE));
+			}
+		}
+		
+		int deleted = docRepo.deleteDocumentsChunk(documentIDs);
+		for(int documentID:documentIDs) {
+			searchIndex.removeDocument(documentID);
+			citationGraph.removeDocument(documentID);
+			coauthorGraph.removeDocument(documentID);
+		}
+		if(citingKnown) {
+			changed.forEach(entityCache::invalidateDocument);
+			versions.documentsChanged(changed);
+		}else {
+			entityCache.invalidateAllDocuments();
+			versions.allDocumentsChanged();
+		}
+		return deleted;
+	}
+	
 	/**
 	 * A function that can alter the title of an existing Document
 	 * It checks that the new title is valid, and that the document-ID provided is both valid and 
@@ -261,7 +1027,13 @@ public class DocumentService {
 			Document currDocument = result.get();
 			currDocument.setDocumentTitle(title);
 			currDocument = docRepo.save(currDocument);
-			return new ResponseEntity<>(currDocument,HttpStatus.OK);
+			//the search index is rebuilt from title and body
+			currDocument.setDocumentBody(docRepo.findBody(documentID));
+			entityCache.invalidateDocument(currDocument.getDocumentID());
+			searchIndex.indexDocument(currDocument.getDocumentID(), currDocument.getDocumentTitle(), 
+					currDocument.getDocumentBody());
+			documentContentChanged(currDocument.getDocumentID());
+			return new ResponseEntity<>(asResponse(currDocument),HttpStatus.OK);
 		}else {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
 					"No Document found for the provided Document-ID!");
@@ -271,38 +1043,51 @@ public class DocumentService {
 	
 	/**
 	 * A function that can be used to update an existing document's body
-	 * Therefore, the JSON String must not be null and must contain (the function checks therefore):
+	 * Therefore, the JSON payload must not be empty and must contain (the function checks therefore):
 	 * - documentID 
 	 * - documentBody
 	 * 
+	 * The payload is bound straight from the stream, like in createDocumentService
 	 * The function also checks whether a document corresponding to the ID exists
-	 * @param payload - a JSON String
+	 * @param payload - a stream containing one JSON object
 	 * @return - if successful, a ResponseEntity with the newly updated Document is returned
-	 *         - If the document-body or ID are not present, the JSON String is empty, or there 
-	 *         is no entry corresponding to the ID, a ResponseEntity with a message informing 
+	 *         - If the document-body or ID are not present, the payload is empty or invalid, or 
+	 *         there is no entry corresponding to the ID, a ResponseEntity with a message informing 
 	 *         the caller thereof is returned
 	 * @throws Exception
 	 */
-	public ResponseEntity<Object> updateDocumentBodyService(@RequestBody String payload) throws Exception {
-		JsonObject jsonObj = globGson.fromJson(payload, JsonObject.class);
+	public ResponseEntity<Object> updateDocumentBodyService(InputStream payload) throws Exception {
 		
-		if(payload == null || payload.equals("")) {
+		DocumentPayload item;
+		try {
+			item = readPayload(payload);
+		}catch(JsonProcessingException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"The payload is not valid JSON: "+e.getOriginalMessage());
+		}
+		
+		if(item == null) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The payload cannot be empty to update a document!");
-		}else if(jsonObj.get("documentID")==null ||jsonObj.get("documentBody")==null) {
+		}else if(item.getDocumentID()==null ||item.getDocumentBody()==null) {
 				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 						"DocumentID and Document-Body must be "
 						+ "included in the payload!");
 		}
 		
 		
-		Optional<Document> result = docRepo.findById(jsonObj.get("documentID").getAsInt());
+		Optional<Document> result = docRepo.findById(item.getDocumentID());
 		  
 		if(result.isPresent()) {
 			  Document currDocument = result.get();
-			  currDocument.setDocumentBody(jsonObj.get("documentBody").getAsString());
-			  currDocument = docRepo.save(currDocument);
-			  return new ResponseEntity<>(currDocument,HttpStatus.OK);
+			  docRepo.saveBody(currDocument.getDocumentID(), item.getDocumentBody());
+			  currDocument.setDocumentBody(item.getDocumentBody());
+			  entityCache.invalidateDocument(currDocument.getDocumentID());
+			  searchIndex.indexDocument(currDocument.getDocumentID(), currDocument.getDocumentTitle(), 
+					  currDocument.getDocumentBody());
+			  //citing documents only contain the ID and title of their references
+			  versions.documentsChanged(List.of(currDocument.getDocumentID()));
+			  return new ResponseEntity<>(asResponse(currDocument),HttpStatus.OK);
 		}else {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
 					"No Document found for the provided Document-ID!");
@@ -312,7 +1097,8 @@ public class DocumentService {
 	/**
 	 * A function that can add an author as author to a document
 	 * Beforehand it checks that the provided Author and Document-IDs are valid
-	 * It also checks that the entry that is to be added doesn't already exist
+	 * It also checks that the entry that is to be added doesn't already exist, the check and the insert
+	 * 	are a single statement
 	 * @param documentID - ID of the dcument for which you want to add an author
 	 * @param authorID - ID of the author which you want to add as author to the document
 	 * @return - if successful, a ResponseEntity with a message informing the caller of the 
@@ -326,12 +1112,13 @@ public class DocumentService {
 		if(documentID <= 0 || authorID <=0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"Invalid Author-ID or Document-ID provided!");
-		}else if(docRepo.findAuthorsOfDocument(documentID).contains(authorID)) {
+		}else if(docRepo.insertIntoAuthoredIfAbsent(authorID,documentID) == 0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The author will not be added. He already is credited as an author!");
 		}
 		
-		docRepo.insertIntoAuthored(authorID,documentID);
+		coauthorGraph.addAuthor(documentID, authorID);
+		versions.documentsChanged(List.of(documentID));
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"Author successfully added as author to document!");
 	}
@@ -340,7 +1127,8 @@ public class DocumentService {
 	/**
 	 * A function that can remove an author as author from a document
 	 * Beforehand it checks that the provided Author and Document-IDs are valid
-	 * It also checks that the entry that is to be removed actually exists
+	 * It also checks that the entry that is to be removed actually exists, the check and the delete
+	 * 	are a single statement
 	 * @param documentID - ID of the document for which you want to remove an author
 	 * @param authorID - ID of the author which you want to remove as author from the document
 	 * @return - if successful, a ResponseEntity with a message informing the caller of the 
@@ -353,12 +1141,13 @@ public class DocumentService {
 		if(documentID <= 0 || authorID <=0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"Invalid Author-ID or Document-ID provided!");
-		}else if(!docRepo.findAuthorsOfDocument(documentID).contains(authorID)) {
+		}else if(docRepo.deleteAuthoredEntries(documentID, authorID) == 0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The author is not credited, and can therefore not be removed!");
 		}
 		
-		docRepo.deleteAuthoredEntries(documentID, authorID);
+		coauthorGraph.removeAuthor(documentID, authorID);
+		versions.documentsChanged(List.of(documentID));
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"Author successfully removed as author from Document!");
 	}
@@ -367,7 +1156,8 @@ public class DocumentService {
 	/**
 	 * A function that can add a document as reference from a document
 	 * Beforehand it checks that the provided Document-IDs are valid
-	 * It also checks that the entry that is to be added doesn't exist yet
+	 * It also checks that the entry that is to be added doesn't exist yet, the check and the insert
+	 * 	are a single statement
 	 * @param referencingID - ID of the document that HAS references and for which we are 
 	 * 							trying to add a new one
 	 * @param referencedID - ID of the document that IS to be added as reference
@@ -381,12 +1171,13 @@ public class DocumentService {
 		if(referencingID <= 0 || referencedID <=0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"Invalid Reference-IDs provided!");
-		}else if(docRepo.findReferencesOfDocument(referencingID).contains(referencedID)) {
+		}else if(docRepo.insertIntoReferencedIfAbsent(referencingID, referencedID) == 0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The reference is already listed, and can therefore not be added!");
 		}
 		
-		docRepo.insertIntoReferenced(referencingID, referencedID);
+		citationGraph.addReference(referencingID, referencedID);
+		versions.documentsChanged(List.of(referencingID));
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"Document successfully added as reference!");
 	}
@@ -395,7 +1186,8 @@ public class DocumentService {
 	/**
 	 * A function that can remove a document as reference from another document
 	 * Beforehand it checks that the provided Document-IDs are valid
-	 * It also checks that the entry that is to be added actually exists
+	 * It also checks that the entry that is to be removed actually exists, the check and the delete
+	 * 	are a single statement
 	 * @param referencingID - ID of the document that HAS references and for which we are 
 	 * 							trying to remove one
 	 * @param referencedID - ID of the document that IS to be removed as reference
@@ -409,46 +1201,434 @@ public class DocumentService {
 		if(referencingID <= 0 || referencedID <=0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"Invalid Reference-IDs provided!");
-		}else if(!docRepo.findReferencesOfDocument(referencingID).contains(referencedID)) {
+		}else if(docRepo.deleteReferencesEntries(referencingID, referencedID) == 0) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
 					"The reference is not listed, and can therefore not be removed!");
 		}
 		
-		docRepo.deleteReferencesEntries(referencingID, referencedID);
+		citationGraph.removeReference(referencingID, referencedID);
+		versions.documentsChanged(List.of(referencingID));
 		return ResponseEntity.status(HttpStatus.OK).body(
 				"Document successfully removed as reference!");
 	}
 	
+	
+	/**
+	 * A function that can add several authors to a document at once
+	 * The requested IDs are checked for existence and diffed against the authors that are already 
+	 * 	credited with one query each, the missing rows are then inserted as one JDBC batch, all in 
+	 * 	one transaction
+	 * @param documentID - ID of the document for which you want to add authors
+	 * @param authorIDs - IDs of the authors which you want to add, duplicates are ignored
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned, listing the 
+	 * 				added, the already credited and the unknown author-IDs
+	 *         - If the document-ID or an author-ID is invalid, or the document doesn't exist, a 
+	 *         		ResponseEntity with a message informing the caller thereof is returned
+	 * @throws Exception
+	 */
+	@Transactional
+	public ResponseEntity<Object> addAuthorsToDocumentService(int documentID, List<Integer> authorIDs) 
+			throws Exception {
+		
+		ResponseEntity<Object> problem = validateLinkBatch(documentID, authorIDs);
+		if(problem != null) {
+			return problem;
+		}
+		
+		Set<Integer> requested = new LinkedHashSet<>(authorIDs);
+		Set<Integer> existing = authRepo.findExistingAuthorIds(requested);
+		Set<Integer> credited = docRepo.findAuthorsOfDocumentAmong(documentID, requested);
+		List<Integer> missing = new ArrayList<>();
+		for(int authorID:requested) {
+			if(existing.contains(authorID) && !credited.contains(authorID)) {
+				missing.add(authorID);
+			}
+		}
+		
+		List<Integer> added = docRepo.insertAuthoredBatch(documentID, missing);
+		if(!added.isEmpty()) {
+			afterCommit(() -> coauthorGraph.addDocument(documentID, added));
+			versions.documentsChanged(List.of(documentID));
+		}
+		return new ResponseEntity<>(linkBatchResult(documentID, requested, added, existing),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A function that can remove several authors from a document at once
+	 * The requested IDs are diffed against the credited authors with one query, the matching rows 
+	 * 	are then deleted as one JDBC batch, all in one transaction
+	 * @param documentID - ID of the document for which you want to remove authors
+	 * @param authorIDs - IDs of the authors which you want to remove, duplicates are ignored
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned, listing the 
+	 * 				removed and the not credited author-IDs
+	 *         - If the document-ID or an author-ID is invalid, or the document doesn't exist, a 
+	 *         		ResponseEntity with a message informing the caller thereof is returned
+	 * @throws Exception
+	 */
+	@Transactional
+	public ResponseEntity<Object> removeAuthorsFromDocumentService(int documentID, List<Integer> authorIDs) 
+			throws Exception {
+		
+		ResponseEntity<Object> problem = validateLinkBatch(documentID, authorIDs);
+		if(problem != null) {
+			return problem;
+		}
+		
+		Set<Integer> requested = new LinkedHashSet<>(authorIDs);
+		Set<Integer> credited = docRepo.findAuthorsOfDocumentAmong(documentID, requested);
+		List<Integer> removed = credited.isEmpty() ? new ArrayList<>() : 
+			docRepo.deleteAuthoredBatch(documentID, credited);
+		if(!removed.isEmpty()) {
+			afterCommit(() -> {
+				for(int authorID:removed) {
+					coauthorGraph.removeAuthor(documentID, authorID);
+				}
+			});
+			versions.documentsChanged(List.of(documentID));
+		}
+		return new ResponseEntity<>(linkBatchResult(documentID, requested, removed, null),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A function that can add several documents as references to a document at once
+	 * The requested IDs are checked for existence and diffed against the existing references with 
+	 * 	one query each, the missing rows are then inserted as one JDBC batch, all in one transaction
+	 * @param referencingID - ID of the document that HAS references and for which we are 
+	 * 							trying to add new ones
+	 * @param referencedIDs - IDs of the documents that are to be added as references, duplicates 
+	 * 							are ignored
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned, listing the 
+	 * 				added, the already listed and the unknown document-IDs
+	 *         - If a document-ID is invalid, or the referencing document doesn't exist, a 
+	 *         		ResponseEntity with a message informing the caller thereof is returned
+	 * @throws Exception
+	 */
+	@Transactional
+	public ResponseEntity<Object> addReferencesToDocumentService(int referencingID, List<Integer> referencedIDs) 
+			throws Exception {
+		
+		ResponseEntity<Object> problem = validateLinkBatch(referencingID, referencedIDs);
+		if(problem != null) {
+			return problem;
+		}
+		
+		Set<Integer> requested = new LinkedHashSet<>(referencedIDs);
+		Set<Integer> existing = docRepo.findExistingDocumentIds(requested);
+		Set<Integer> listed = docRepo.findReferencesOfDocumentAmong(referencingID, requested);
+		List<Integer> missing = new ArrayList<>();
+		for(int referencedID:requested) {
+			if(existing.contains(referencedID) && !listed.contains(referencedID)) {
+				missing.add(referencedID);
+			}
+		}
+		
+		List<Integer> added = docRepo.insertReferencedBatch(referencingID, missing);
+		if(!added.isEmpty()) {
+			afterCommit(() -> {
+				for(int referencedID:added) {
+					citationGraph.addReference(referencingID, referencedID);
+				}
+			});
+			versions.documentsChanged(List.of(referencingID));
+		}
+		return new ResponseEntity<>(linkBatchResult(referencingID, requested, added, existing),HttpStatus.OK);
+	}
+	
+	
+	/**
+	 * A function that can remove several documents as references from a document at once
+	 * The requested IDs are diffed against the existing references with one query, the matching 
+	 * 	rows are then deleted as one JDBC batch, all in one transaction
+	 * @param referencingID - ID of the document that HAS references and for which we are 
+	 * 							trying to remove some
+	 * @param referencedIDs - IDs of the documents that are to be removed as references, duplicates 
+	 * 							are ignored
+	 * @return - if successful, a ResponseEntity with a LinkBatchResult is returned, listing the 
+	 * 				removed and the not listed document-IDs
+	 *         - If a document-ID is invalid, or the referencing document doesn't exist, a 
+	 *         		ResponseEntity with a message informing the caller thereof is returned
+	 * @throws Exception
+	 */
+	@Transactional
+	public ResponseEntity<Object> removeReferencesFromDocumentService(int referencingID, 
+			List<Integer> referencedIDs) throws Exception {
+		
+		ResponseEntity<Object> problem = validateLinkBatch(referencingID, referencedIDs);
+		if(problem != null) {
+			return problem;
+		}
+		
+		Set<Integer> requested = new LinkedHashSet<>(referencedIDs);
+		Set<Integer> listed = docRepo.findReferencesOfDocumentAmong(referencingID, requested);
+		List<Integer> removed = listed.isEmpty() ? new ArrayList<>() : 
+			docRepo.deleteReferencedBatch(referencingID, listed);
+		if(!removed.isEmpty()) {
+			afterCommit(() -> {
+				for(int referencedID:removed) {
+					citationGraph.removeReference(referencingID, referencedID);
+				}
+			});
+			versions.documentsChanged(List.of(referencingID));
+		}
+		return new ResponseEntity<>(linkBatchResult(referencingID, requested, removed, null),HttpStatus.OK);
+	}
+	
+	/**
+	 * Marks a document whose title changed (or that was deleted) as changed, together with the 
+	 * 	documents citing it, as their references contain its ID and title
+	 * A changed body only changes the document itself, the references don't contain it
+	 * If the citation graph isn't loaded yet, the citing documents are unknown and all are marked
+	 */
+	private void documentContentChanged(int documentID) {
+		if(citationGraph.isReady()) {
+			List<Integer> changed = new ArrayList<>(citationGraph.citingDocuments(documentID, 0, Integer.MAX_VALUE));
+			changed.add(documentID);
+			versions.documentsChanged(changed);
+		}else {
+			versions.allDocumentsChanged();
+		}
+	}
+	
+	/**
+	 * Applies a change of the in-memory graphs only once the surrounding transaction committed, 
+	 * 	so a rollback can't leave links in the graphs that the database doesn't have
+	 * Without a transaction the change is applied right away
+	 */
+	private void afterCommit(Runnable graphChange) {
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					graphChange.run();
+				}
+			});
+		}else {
+			graphChange.run();
+		}
+	}
+	
+	/**
+	 * shared validation of the batch add/remove functions for authors and references
+	 * @return - a ResponseEntity with the problem, or null if the request is valid
+	 */
+	private ResponseEntity<Object> validateLinkBatch(int documentID, List<Integer> linkedIDs) {
+		if(documentID <= 0 || linkedIDs == null || linkedIDs.isEmpty() 
+				|| linkedIDs.stream().anyMatch(id -> id == null || id <= 0)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"Invalid IDs provided, a Document-ID and a non-empty list of positive IDs are required!");
+		}else if(linkedIDs.size() > MAX_LINK_BATCH_SIZE) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+					"At most "+MAX_LINK_BATCH_SIZE+" IDs can be added or removed at once!");
+		}else if(!docRepo.existsById(documentID)) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+					"No Document found for the provided Document-ID!");
+		}
+		return null;
+	}
+	
+	/**
+	 * sorts every requested ID into the list it belongs to
+	 * @param existing - the requested IDs that exist, null if they weren't checked (remove)
+	 */
+	private static LinkBatchResult linkBatchResult(int documentID, Set<Integer> requested, List<Integer> changed, 
+			Set<Integer> existing) {
+		Set<Integer> changedSet = new HashSet<>(changed);
+		List<Integer> unchanged = new ArrayList<>();
+		List<Integer> notFound = new ArrayList<>();
+		for(int id:requested) {
+			if(existing != null && !existing.contains(id)) {
+				notFound.add(id);
+			}else if(!changedSet.contains(id)) {
+				unchanged.add(id);
+			}
+		}
+		return new LinkBatchResult(documentID, changed, unchanged, notFound);
+	}
+	
 	/**
 	 * A function that returns all the Authors credited as authors in the document of the provided ID
+	 * The authors are read through the entity cache, all misses are fetched with a single bulk lookup
 	 * @param documentID - The ID of the document for which you want the Authors
 	 * @return - a set of Authors corresponding to the authors who authored the specified document
 	 */
 	Set<Author> getAuthors(int documentID){
 		Set<Integer> authorInt = docRepo.findAuthorsOfDocument(documentID);
-
-		Set<Author> authorSet = new HashSet<>();
-		for(int i:authorInt) {
-			Author currAuthor = authRepo.findById(i).get();
-			authorSet.add(currAuthor);
+		if(authorInt.isEmpty()) {
+			return new HashSet<>();
 		}
 		
-		return authorSet; 
+		return new HashSet<>(entityCache.findAuthors(authorInt, authRepo::findAllById).values()); 
 	}
 	
 	/**
 	 * A function that returns all the Documents given as references in the document of the provided ID
+	 * The documents are read through the entity cache, all misses are fetched with a single bulk lookup
 	 * @param documentID - The ID of the document for which you want the References/referencing documents
 	 * @return - a set of Documents corresponding to the references of the specified document
 	 */
 	Set<Document> getReferences(int documentID){
 		Set<Integer> referenceInt = docRepo.findReferencesOfDocument(documentID);
-		Set<Document> referenceSet = new HashSet<>();
-		for(int i:referenceInt) {
-			Document currDocument = docRepo.findById(i).get();
-			currDocument.setReferences(null);
-			referenceSet.add(currDocument);
+		if(referenceInt.isEmpty()) {
+			return new HashSet<>();
+		}
+		
+		//the cache hands out flat copies, without authors and references
+		return new HashSet<>(entityCache.findDocuments(referenceInt, docRepo::findAllById).values());
+	}
+	
+	/**
+	 * Hydration stage for returning several documents at once
+	 * The rows of the join tables are handed in (ideally fetched with one query each), the 
+	 * 	Authors and referenced Documents are then fetched with one bulk IN-lookup each, and the 
+	 * 	object graph is built in memory. Referenced Documents that are part of the provided list 
+	 * 	are not fetched again, all other lookups go through the entity cache
+	 * @param documents - the Documents that should get their authors and references set
+	 * @param authoredRows - rows of 'AUTHORED_BY' in the form [DOCUMENTID, AUTHORID]
+	 * @param referencedRows - rows of 'REFERENCED_BY' in the form [REFERENCING_DOCUMENT, DOCUMENT_REFERENCED]
+	 * @return - the provided list, with authors and references set for every Document
+	 */
+	List<Document> hydrateDocuments(List<Document> documents, List<Object[]> authoredRows, 
+			List<Object[]> referencedRows){
+		
+		Map<Integer,Document> documentMap = new HashMap<>();
+		for(Document dcmnt:documents) {
+			dcmnt.setAuthors(new HashSet<>());
+			dcmnt.setReferences(new HashSet<>());
+			documentMap.put(dcmnt.getDocumentID(), dcmnt);
+		}
+		
+		//authors: collect the IDs, fetch them all at once, then link them
+		Set<Integer> authorIds = new HashSet<>();
+		for(Object[] row:authoredRows) {
+			if(documentMap.containsKey(toInt(row[0]))) {
+				authorIds.add(toInt(row[1]));
+			}
+		}
+		
+		Map<Integer,Author> authorMap = authorIds.isEmpty() ? 
+				new HashMap<>() : entityCache.findAuthors(authorIds, authRepo::findAllById);
+		
+		for(Object[] row:authoredRows) {
+			Document dcmnt = documentMap.get(toInt(row[0]));
+			Author athr = authorMap.get(toInt(row[1]));
+			if(dcmnt != null && athr != null) {
+				dcmnt.getAuthors().add(athr);
+			}
+		}
+		
+		//references: only the documents we don't already have are fetched
+		Set<Integer> missingIds = new HashSet<>();
+		for(Object[] row:referencedRows) {
+			int referencedId = toInt(row[1]);
+			if(documentMap.containsKey(toInt(row[0])) && !documentMap.containsKey(referencedId)) {
+				missingIds.add(referencedId);
+			}
+		}
+		
+		Map<Integer,Document> referenceMap = new HashMap<>();
+		for(Document dcmnt:documents) {
+			referenceMap.put(dcmnt.getDocumentID(), asReference(dcmnt));
+		}
+		if(!missingIds.isEmpty()) {
+			referenceMap.putAll(entityCache.findDocuments(missingIds, docRepo::findAllById));
 		}
-		return referenceSet;
+		
+		for(Object[] row:referencedRows) {
+			Document dcmnt = documentMap.get(toInt(row[0]));
+			Document reference = referenceMap.get(toInt(row[1]));
+			if(dcmnt != null && reference != null) {
+				dcmnt.getReferences().add(reference);
+			}
+		}
+		
+		return documents;
+	}
+	
+	/**
+	 * Hydrates a page (or chunk) of Documents, the bodies and the join rows are fetched with 
+	 * 	one IN-query each
+	 * @param documents - the Documents that should get their bodies, authors and references set
+	 * @return - the provided list, with bodies, authors and references set for every Document
+	 */
+	List<Document> hydratePage(List<Document> documents){
+		if(documents.isEmpty()) {
+			return documents;
+		}
+		
+		List<Integer> documentIds = documents.stream().map(Document::getDocumentID).toList();
+		attachBodies(documents, docRepo.findBodies(documentIds));
+		return hydrateDocuments(documents, docRepo.findAuthoredEntriesOfDocuments(documentIds), 
+				docRepo.findReferencedEntriesOfDocuments(documentIds));
+	}
+	
+	/**
+	 * Hydrates the chunk, writes it as NDJSON, and then detaches everything that was loaded 
+	 * 	so the persistence context doesn't grow with the table
+	 * @param chunk - the Documents that are to be written, is empty afterwards
+	 * @param out - the stream the Documents are written to
+	 * @throws IOException
+	 */
+	private void writeChunk(List<Document> chunk, OutputStream out) throws IOException {
+		if(chunk.isEmpty()) {
+			return;
+		}
+		
+		hydratePage(chunk);
+		for(Document dcmnt:chunk) {
+			out.write(globMapper.writeValueAsBytes(dcmnt));
+			out.write('\n');
+		}
+		chunk.clear();
+		entityManager.clear();
+	}
+	
+	/**
+	 * Creates the flat copy of a Document that is shown when it is listed as a reference,
+	 * 	e.g. without its own authors and references
+	 * @param dcmnt - the referenced Document
+	 * @return - a copy containing ID and title only, the body of a reference is never shown
+	 */
+	static Document asReference(Document dcmnt) {
+		return new Document(dcmnt.getDocumentID(), dcmnt.getDocumentTitle(), null);
+	}
+	
+	/**
+	 * a detached copy of a managed Document for an update response, with ID, title and body
+	 * 	its lazy collections are left out: loading them hashes the referenced Documents, whose 
+	 * 	references are loaded in turn, through the whole citation chain (StackOverflowError)
+	 */
+	static Document asResponse(Document dcmnt) {
+		return new Document(dcmnt.getDocumentID(), dcmnt.getDocumentTitle(), dcmnt.getDocumentBody());
+	}
+	
+	/**
+	 * sets the bodies of the Documents, Documents without an entry get none
+	 * @param bodies - document-ID -> body
+	 */
+	static void attachBodies(List<Document> documents, Map<Integer,String> bodies) {
+		for(Document dcmnt:documents) {
+			dcmnt.setDocumentBody(bodies.get(dcmnt.getDocumentID()));
+		}
+	}
+	
+	/**
+	 * groups join table rows of the form [DOCUMENT, OTHER] by the document, the IDs of a document ascending
+	 */
+	static Map<Integer,List<Integer>> groupByDocument(List<Object[]> rows){
+		Map<Integer,List<Integer>> grouped = new HashMap<>();
+		for(Object[] row:rows) {
+			grouped.computeIfAbsent(toInt(row[0]), id -> new ArrayList<>()).add(toInt(row[1]));
+		}
+		grouped.values().forEach(Collections::sort);
+		return grouped;
+	}
+	
+	/**
+	 * native queries return their numeric columns as Number, this converts them to int
+	 */
+	static int toInt(Object column) {
+		return ((Number) column).intValue();
 	}
 }
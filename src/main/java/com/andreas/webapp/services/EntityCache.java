@@ -0,0 +1,157 @@
+package com.andreas.webapp.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.Document;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Read-through cache in front of the AuthorRepo and DocumentRepo
+ * Both caches are bounded in size (W-TinyLFU eviction) and entries expire after the 
+ * configured time to live. Only the plain entities are cached (no authors or references of 
+ * a document), so adding or removing relationships never makes an entry stale; every other 
+ * mutation in the AuthorService and DocumentService invalidates the affected entries
+ *
+ * The cache stores copies and hands out copies, so callers may change what they get
+ */
+@Component
+public class EntityCache {
+
+	private final Cache<Integer,Author> authorCache;
+	private final Cache<Integer,Document> documentCache;
+
+	public EntityCache(@Value("${krieger.cache.max-size:10000}") long maxSize,
+			@Value("${krieger.cache.ttl:10m}") Duration ttl) {
+		this.authorCache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl)
+				.recordStats().build();
+		this.documentCache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl)
+				.recordStats().build();
+	}
+
+	/**
+	 * Returns the author with the provided ID, on a miss it is loaded with the loader and cached
+	 * @param authorID - ID of the author
+	 * @param loader - loads the author from the database, e.g. authRepo::findById
+	 * @return - a copy of the author, empty if it doesn't exist
+	 */
+	public Optional<Author> findAuthor(int authorID, IntFunction<Optional<Author>> loader) {
+		Author cached = authorCache.get(authorID, id -> loader.apply(id).map(EntityCache::copyOf).orElse(null));
+		return Optional.ofNullable(cached).map(EntityCache::copyOf);
+	}
+
+	/**
+	 * Returns the authors with the provided IDs, all misses are loaded with one bulk call
+	 * @param authorIDs - IDs of the authors
+	 * @param bulkLoader - loads several authors from the database at once, e.g. authRepo::findAllById
+	 * @return - copies of the found authors by their ID, IDs that don't exist are left out
+	 */
+	public Map<Integer,Author> findAuthors(Collection<Integer> authorIDs, 
+			Function<Set<Integer>,? extends Iterable<Author>> bulkLoader) {
+		Map<Integer,Author> cached = authorCache.getAll(authorIDs, missing -> {
+			Map<Integer,Author> loaded = new HashMap<>();
+			for(Author athr:bulkLoader.apply(Set.copyOf(missing))) {
+				loaded.put(athr.getAuthorID(), copyOf(athr));
+			}
+			return loaded;
+		});
+		Map<Integer,Author> result = new LinkedHashMap<>();
+		cached.forEach((id, athr) -> result.put(id, copyOf(athr)));
+		return result;
+	}
+
+	/**
+	 * Returns the document with the provided ID (without authors and references), on a miss it 
+	 * is loaded with the loader and cached
+	 * @param documentID - ID of the document
+	 * @param loader - loads the document from the database, e.g. docRepo::findById
+	 * @return - a copy of the document, empty if it doesn't exist
+	 */
+	public Optional<Document> findDocument(int documentID, IntFunction<Optional<Document>> loader) {
+		Document cached = documentCache.get(documentID, 
+				id -> loader.apply(id).map(EntityCache::copyOf).orElse(null));
+		return Optional.ofNullable(cached).map(EntityCache::copyOf);
+	}
+
+	/**
+	 * Returns the documents with the provided IDs (without authors and references), all misses 
+	 * are loaded with one bulk call
+	 * @param documentIDs - IDs of the documents
+	 * @param bulkLoader - loads several documents from the database at once, e.g. docRepo::findAllById
+	 * @return - copies of the found documents by their ID, IDs that don't exist are left out
+	 */
+	public Map<Integer,Document> findDocuments(Collection<Integer> documentIDs, 
+			Function<Set<Integer>,? extends Iterable<Document>> bulkLoader) {
+		Map<Integer,Document> cached = documentCache.getAll(documentIDs, missing -> {
+			Map<Integer,Document> loaded = new HashMap<>();
+			for(Document dcmnt:bulkLoader.apply(Set.copyOf(missing))) {
+				loaded.put(dcmnt.getDocumentID(), copyOf(dcmnt));
+			}
+			return loaded;
+		});
+		Map<Integer,Document> result = new LinkedHashMap<>();
+		cached.forEach((id, dcmnt) -> result.put(id, copyOf(dcmnt)));
+		return result;
+	}
+
+	public void invalidateAuthor(int authorID) {
+		authorCache.invalidate(authorID);
+	}
+
+	public void invalidateAllAuthors() {
+		authorCache.invalidateAll();
+	}
+
+	public void invalidateDocument(int documentID) {
+		documentCache.invalidate(documentID);
+	}
+
+	public void invalidateAllDocuments() {
+		documentCache.invalidateAll();
+	}
+
+	/**
+	 * @return - hit, miss and eviction counters, the hit rate and the current size of both caches
+	 */
+	public Map<String,Object> stats() {
+		Map<String,Object> stats = new LinkedHashMap<>();
+		stats.put("authors", statsOf(authorCache));
+		stats.put("documents", statsOf(documentCache));
+		return stats;
+	}
+
+	private static Map<String,Object> statsOf(Cache<Integer,?> cache) {
+		//evictions run asynchronously, finish the pending ones so the numbers are accurate
+		cache.cleanUp();
+		CacheStats cacheStats = cache.stats();
+		Map<String,Object> result = new LinkedHashMap<>();
+		result.put("size", cache.estimatedSize());
+		result.put("hits", cacheStats.hitCount());
+		result.put("misses", cacheStats.missCount());
+		result.put("evictions", cacheStats.evictionCount());
+		result.put("hitRate", cacheStats.hitRate());
+		result.put("averageLoadMillis", cacheStats.averageLoadPenalty() / 1_000_000.0);
+		return result;
+	}
+
+	private static Author copyOf(Author athr) {
+		return new Author(athr.getAuthorID(), athr.getFirstName(), athr.getLastName());
+	}
+
+	private static Document copyOf(Document dcmnt) {
+		return new Document(dcmnt.getDocumentID(), dcmnt.getDocumentTitle(), dcmnt.getDocumentBody());
+	}
+}
@@ -0,0 +1,59 @@
+package com.andreas.webapp.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The changes an in-memory index or graph receives while it is rebuilt from the database
+ *
+ * A rebuild streams a table while requests are already served, so a change made in the meantime
+ * 	may or may not be part of the stream: an added row can be missed, a deleted one can come back.
+ * 	Every change is therefore applied as usual and, while a rebuild is in progress, recorded here as
+ * 	well. Before the rebuilt contents are marked ready, the recorded changes are replayed on top of
+ * 	them in their original order. The changes must be idempotent (add, remove, replace), so that
+ * 	replaying one the stream already contained does no harm
+ *
+ * Recording starts before the stream is opened, and the owners are only told about changes once
+ * 	they are committed, so a change that isn't recorded is already part of the stream
+ *
+ * Not thread-safe, the owner calls it while holding its write lock
+ */
+final class RebuildLog {
+
+	private List<Runnable> changes = null;
+
+	/**
+	 * starts recording, before the stream of the rebuild is opened
+	 */
+	void start() {
+		changes = new ArrayList<>();
+	}
+
+	/**
+	 * records the change if a rebuild is in progress, otherwise does nothing
+	 * @param change - applies the change again, must be idempotent
+	 */
+	void record(Runnable change) {
+		if(changes != null) {
+			changes.add(change);
+		}
+	}
+
+	/**
+	 * stops recording and applies the recorded changes in their original order
+	 */
+	void replay() {
+		List<Runnable> recorded = changes;
+		changes = null;
+		if(recorded != null) {
+			recorded.forEach(Runnable::run);
+		}
+	}
+
+	/**
+	 * stops recording without applying anything, after a failed rebuild
+	 */
+	void discard() {
+		changes = null;
+	}
+}
@@ -0,0 +1,134 @@
+package com.andreas.webapp.services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds the in-memory indexes and graphs once the application is ready, one after the other
+ * Requests are already served meanwhile, the endpoints that need a structure answer 503 until it is
+ * 	ready. A rebuild that fails (e.g. the database is unreachable, or an OutOfMemoryError because
+ * 	the heap is too small for the data) is logged and retried every krieger.rebuild.retry-delay,
+ * 	instead of leaving the structure not ready for good
+ *
+ * The state of every structure (building, ready, or the last failure) is reported by the health
+ * 	endpoint, which is DOWN while a rebuild has failed and not yet succeeded on a retry
+ *
+ * Metrics:
+ * - krieger.rebuild.failures: failed rebuilds, every retry that fails counts again
+ */
+@Component
+public class StartupRebuilds implements HealthIndicator {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupRebuilds.class);
+
+	static final String BUILDING = "building";
+	static final String READY = "ready";
+
+	private final Map<String,Runnable> rebuilds = new LinkedHashMap<>();
+	private final Map<String,String> states = new ConcurrentHashMap<>();
+	private final Duration retryDelay;
+	private final Counter failures;
+	private ScheduledExecutorService scheduler;
+
+	public StartupRebuilds(AuthorNameIndex nameIndex, CitationGraph citationGraph, CoauthorGraph coauthorGraph,
+			DocumentSearchIndex searchIndex,
+			@Value("${krieger.rebuild.retry-delay:1m}") Duration retryDelay,
+			ObjectProvider<MeterRegistry> registryProvider) {
+		//the proxies, so every rebuild runs in its own read-only transaction
+		rebuilds.put("authorNameIndex", nameIndex::rebuild);
+		rebuilds.put("citationGraph", citationGraph::rebuild);
+		rebuilds.put("coauthorGraph", coauthorGraph::rebuild);
+		rebuilds.put("documentSearchIndex", searchIndex::rebuild);
+		this.retryDelay = retryDelay;
+
+		MeterRegistry registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+		this.failures = Counter.builder("krieger.rebuild.failures")
+				.description("Rebuilds of an in-memory index or graph that failed").register(registry);
+	}
+
+	/**
+	 * Runs every rebuild once the application is ready, failed ones are scheduled for a retry
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		synchronized(this) {
+			if(scheduler != null) {
+				return;
+			}
+			scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "krieger-rebuild");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		for(String name:rebuilds.keySet()) {
+			states.put(name, BUILDING);
+		}
+		for(String name:rebuilds.keySet()) {
+			rebuild(name);
+		}
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if(scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return - UP once every structure is ready or still building, DOWN while a rebuild has failed,
+	 * 				with the state of every structure as details
+	 */
+	@Override
+	public Health health() {
+		Health.Builder health = states.values().stream().anyMatch(state -> !state.equals(BUILDING)
+				&& !state.equals(READY)) ? Health.down() : Health.up();
+		return health.withDetails(Map.copyOf(states)).build();
+	}
+
+	/**
+	 * @return - the state of the structure with the provided name, null before the first rebuild
+	 */
+	String state(String name) {
+		return states.get(name);
+	}
+
+	private void rebuild(String name) {
+		try {
+			rebuilds.get(name).run();
+			states.put(name, READY);
+		}catch(RuntimeException | OutOfMemoryError e) {
+			failures.increment();
+			states.put(name, "failed, retrying: " + e);
+			log.error("Rebuild of the {} failed, it is retried in {}{}", name, retryDelay,
+					NestedExceptionUtils.getMostSpecificCause(e) instanceof OutOfMemoryError ? " (the heap is too small for the data, see -Xmx)" : "", e);
+			synchronized(this) {
+				if(!scheduler.isShutdown()) {
+					scheduler.schedule(() -> rebuild(name), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+-- Initial schema, mirrors the JPA mappings of Author and Document as Hibernate used to generate them.
+-- The statements are idempotent, so database files that were created before the schema was managed
+-- by Flyway (profile 'file') can be baselined at this version.
+
+CREATE TABLE IF NOT EXISTS author (
+	authorid INTEGER GENERATED BY DEFAULT AS IDENTITY,
+	first_name VARCHAR(255),
+	last_name VARCHAR(255),
+	PRIMARY KEY (authorid)
+);
+
+CREATE TABLE IF NOT EXISTS document (
+	documentid INTEGER GENERATED BY DEFAULT AS IDENTITY,
+	document_body VARCHAR(255),
+	document_title VARCHAR(255),
+	PRIMARY KEY (documentid)
+);
+
+CREATE TABLE IF NOT EXISTS authored_by (
+	authorid INTEGER NOT NULL,
+	documentid INTEGER NOT NULL,
+	PRIMARY KEY (authorid, documentid),
+	CONSTRAINT fk_authored_by_author FOREIGN KEY (authorid) REFERENCES author,
+	CONSTRAINT fk_authored_by_document FOREIGN KEY (documentid) REFERENCES document
+);
+
+CREATE TABLE IF NOT EXISTS referenced_by (
+	document_referenced INTEGER NOT NULL,
+	referencing_document INTEGER NOT NULL,
+	PRIMARY KEY (document_referenced, referencing_document),
+	CONSTRAINT fk_referenced_by_referenced FOREIGN KEY (document_referenced) REFERENCES document,
+	CONSTRAINT fk_referenced_by_referencing FOREIGN KEY (referencing_document) REFERENCES document
+);
+
+CREATE INDEX IF NOT EXISTS idx_referenced_by_referenced ON referenced_by (document_referenced, referencing_document);
@@ -0,0 +1,15 @@
+-- Indexes of the join tables, one per lookup direction, each covering both columns so that
+-- the lookups are answered from the index alone without touching the table rows.
+--
+-- The primary keys are the unique constraints of the pairs: a document credits an author once,
+-- and references another document once. Duplicate checks rely on them (MERGE ... WHEN NOT MATCHED).
+
+-- AUTHORED_BY: the primary key (authorid, documentid) serves "documents of an author",
+-- "authors of a document" (findAuthorsOfDocument, deleteAuthoredEntries) needs the reverse order
+CREATE INDEX IF NOT EXISTS idx_authored_by_document ON authored_by (documentid, authorid);
+
+-- REFERENCED_BY: the primary key (document_referenced, referencing_document) serves "documents citing a document"
+-- (findCitingDocumentIds), which makes the index of the same columns redundant,
+-- "references of a document" (findReferencesOfDocument, deleteReferencesEntries) needs the reverse order
+DROP INDEX IF EXISTS idx_referenced_by_referenced;
+CREATE INDEX IF NOT EXISTS idx_referenced_by_referencing ON referenced_by (referencing_document, document_referenced);
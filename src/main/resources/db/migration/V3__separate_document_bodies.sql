@@ -0,0 +1,17 @@
+-- The bodies move out of DOCUMENT into their own table, so that reading documents as metadata
+-- (titles, references, listings) never reads body bytes. A body is only read where it is returned.
+--
+-- The body is stored as its UTF-8 bytes, so /getDocBody can serve byte ranges that are sliced by
+-- the database. Deleting a document deletes its body (ON DELETE CASCADE).
+
+CREATE TABLE document_body (
+	documentid INTEGER NOT NULL,
+	body BINARY LARGE OBJECT NOT NULL,
+	PRIMARY KEY (documentid),
+	CONSTRAINT fk_document_body_document FOREIGN KEY (documentid) REFERENCES document ON DELETE CASCADE
+);
+
+INSERT INTO document_body (documentid, body)
+	SELECT documentid, STRINGTOUTF8(document_body) FROM document WHERE document_body IS NOT NULL;
+
+ALTER TABLE document DROP COLUMN document_body;
@@ -0,0 +1,10 @@
+-- Bodies are stored compressed (see BodyCodec). Every row records how its body is encoded
+-- (0 = none, 1 = lz4, 2 = zstd) and the length of the UTF-8 body before compression, which
+-- is needed to decompress it and to answer range requests without reading it.
+--
+-- Existing rows keep their uncompressed bodies (encoding 0), they are compressed once they are rewritten.
+
+ALTER TABLE document_body ADD COLUMN encoding SMALLINT DEFAULT 0 NOT NULL;
+ALTER TABLE document_body ADD COLUMN raw_length BIGINT;
+UPDATE document_body SET raw_length = OCTET_LENGTH(body);
+ALTER TABLE document_body ALTER COLUMN raw_length SET NOT NULL;
@@ -0,0 +1,32 @@
+-- Side tables of the citation analytics (see CitationAnalytics). They are rewritten as a whole by the
+-- background job and only read by the metrics endpoints, which therefore never compute anything.
+-- A deleted document or author takes its metrics with it (ON DELETE CASCADE), until the next run.
+
+CREATE TABLE document_metrics (
+	documentid INTEGER NOT NULL,
+	citation_count INTEGER NOT NULL,
+	page_rank DOUBLE PRECISION NOT NULL,
+	computed_at TIMESTAMP NOT NULL,
+	PRIMARY KEY (documentid),
+	CONSTRAINT fk_document_metrics_document FOREIGN KEY (documentid) REFERENCES document ON DELETE CASCADE
+);
+
+CREATE TABLE author_metrics (
+	authorid INTEGER NOT NULL,
+	h_index INTEGER NOT NULL,
+	citation_count BIGINT NOT NULL,
+	document_count INTEGER NOT NULL,
+	computed_at TIMESTAMP NOT NULL,
+	PRIMARY KEY (authorid),
+	CONSTRAINT fk_author_metrics_author FOREIGN KEY (authorid) REFERENCES author ON DELETE CASCADE
+);
+
+-- The top-N reads: the IDs of the highest ranked documents (ranking 'PAGE_RANK' and 'CITATIONS') and
+-- authors ('H_INDEX') in order, position 0 first. Secondary indexes on the metrics tables would make
+-- every rewrite of a million rows several times slower.
+CREATE TABLE metrics_ranking (
+	ranking VARCHAR(16) NOT NULL,
+	position INTEGER NOT NULL,
+	id INTEGER NOT NULL,
+	PRIMARY KEY (ranking, position)
+);
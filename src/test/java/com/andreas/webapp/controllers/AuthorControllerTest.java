@@ -8,23 +8,32 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
 import com.andreas.webapp.dao.AuthorRepo;
 import com.andreas.webapp.dao.DocumentRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.AuthorMetrics;
+import com.andreas.webapp.model.Coauthor;
+import com.andreas.webapp.model.KeysetPage;
 import com.andreas.webapp.services.AuthorService;
+import com.andreas.webapp.services.ContentVersions;
+import com.andreas.webapp.services.DocumentIngestQueue;
 import com.andreas.webapp.services.DocumentService;
 
 @WebMvcTest
+@Import(ContentVersions.class)
 class AuthorControllerTest {
 
 	final static int MOCK_ID = 1;
@@ -46,6 +55,9 @@ class AuthorControllerTest {
 	@MockBean
     AuthorRepo authRepo;
 	
+	@MockBean
+    DocumentIngestQueue ingestQueue;
+	
 
 	@Autowired
     private MockMvc mockMvc;
@@ -86,6 +98,22 @@ class AuthorControllerTest {
 	}
 
 	
+	@Test
+	void testGetAuthorsPage() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new KeysetPage<>(MOCK_AUTHORS,101),HttpStatus.OK);
+		Mockito.when(this.authService.getAuthorsPageService(100, 2)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getAuthPage").param("afterID", "100")
+				.param("pageSize", "2")).andExpect(status().isOk());
+	}
+	
+	@Test
+	void testStreamAllAuthors() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/streamAllAuth")).andExpect(status().isOk());
+	}
+
+	
 	@Test
 	void testGetByNames() throws Exception {
 		Mockito.when(this.authService.getByNamesService("Joe","Generic")).thenReturn(RESULT_LIST);
@@ -95,6 +123,47 @@ class AuthorControllerTest {
 		.andExpect(status().isOk());
 	}
 
+	@Test
+	void testAutocomplete() throws Exception {
+		Mockito.when(this.authService.autocompleteService("Jo",10)).thenReturn(RESULT_LIST);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/autocompleteAuth").param("prefix", "Jo"))
+		.andExpect(status().isOk());
+	}
+
+	@Test
+	void testGetAuthorMetrics() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new AuthorMetrics(MOCK_ID, 2, 7, 3, Instant.EPOCH),HttpStatus.OK);
+		Mockito.when(this.authService.getAuthorMetricsService(MOCK_ID)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getAuthMetrics").param("authorID", String.valueOf(MOCK_ID)))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.hIndex").value(2));
+	}
+
+	@Test
+	void testGetCoauthors() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(new Coauthor(2, 3)),HttpStatus.OK);
+		Mockito.when(this.authService.getCoauthorsService(MOCK_ID, 100)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCoauthors").param("authorID", String.valueOf(MOCK_ID)))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$[0].collaborations").value(3));
+	}
+
+	@Test
+	void testGetCollaborationPath() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(Arrays.asList(MOCK_ID, 2),HttpStatus.OK);
+		Mockito.when(this.authService.getCollaborationPathService(MOCK_ID, 2)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCollaborationPath")
+				.param("fromID", String.valueOf(MOCK_ID)).param("toID", "2"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$[1]").value(2));
+	}
+
 	@Test
 	void testDeleteAuthorById() throws Exception {
 		ResponseEntity<Object> asprResult = ResponseEntity.status(HttpStatus.OK).body(
@@ -1,9 +1,17 @@
 package com.andreas.webapp.controllers;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -14,6 +22,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -23,12 +32,23 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import com.andreas.webapp.dao.AuthorRepo;
 import com.andreas.webapp.dao.DocumentRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.BulkItemResult;
 import com.andreas.webapp.model.Document;
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentMetrics;
+import com.andreas.webapp.model.IngestTicket;
+import com.andreas.webapp.model.KeysetPage;
+import com.andreas.webapp.model.LinkBatchResult;
+import com.andreas.webapp.model.SearchHit;
+import com.andreas.webapp.model.TraversalHit;
 import com.andreas.webapp.services.AuthorService;
+import com.andreas.webapp.services.ContentVersions;
+import com.andreas.webapp.services.DocumentIngestQueue;
 import com.andreas.webapp.services.DocumentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest
+@Import(ContentVersions.class)
 class DocumentControllerTest {
 
 	@Autowired
@@ -41,6 +61,10 @@ class DocumentControllerTest {
 	private DocumentRepo docRepo;
 	@MockBean
 	private AuthorRepo authRepo;
+	@MockBean
+	private DocumentIngestQueue ingestQueue;
+	@Autowired
+	private ContentVersions versions;
 	
 	static String MOCK_PAYLOAD;
 	final static Author MOCK_AUTHOR1 = new Author(100,"Joe","Generic");
@@ -74,13 +98,49 @@ class DocumentControllerTest {
 	
 	@Test
 	void testCreateDocument() throws Exception {
-		Mockito.when(this.docService.createDocumentService(MOCK_PAYLOAD)).thenReturn(ASPIRING_RESULT);
+		Mockito.when(this.docService.createDocumentService(any(InputStream.class))).thenReturn(ASPIRING_RESULT);
 		
 		mockMvc.perform( MockMvcRequestBuilders.post("/createDoc")
 				.content(MOCK_PAYLOAD).contentType(MediaType.APPLICATION_JSON)
 			      .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
 	}
 
+	@Test
+	void testCreateDocumentAsynchronously() throws Exception {
+		Mockito.when(this.ingestQueue.isEnabled()).thenReturn(true);
+		Mockito.when(this.ingestQueue.submitService(any(InputStream.class))).thenReturn(
+				ResponseEntity.accepted().body(IngestTicket.queued("t-1")));
+		
+		mockMvc.perform( MockMvcRequestBuilders.post("/createDoc")
+				.content(MOCK_PAYLOAD).contentType(MediaType.APPLICATION_JSON))
+		.andExpect(status().isAccepted())
+		.andExpect(jsonPath("$.ticket").value("t-1"))
+		.andExpect(jsonPath("$.status").value("QUEUED"));
+		Mockito.verify(docService,Mockito.never()).createDocumentService(any(InputStream.class));
+	}
+	
+	@Test
+	void testGetCreateStatus() throws Exception {
+		Mockito.when(this.ingestQueue.getTicketService("t-1")).thenReturn(new ResponseEntity<>(
+				new IngestTicket("t-1", 7, IngestTicket.Status.CREATED, "Document successfully created!"),HttpStatus.OK));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCreateStatus").param("ticket", "t-1"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.documentID").value(7))
+		.andExpect(jsonPath("$.status").value("CREATED"));
+	}
+
+	@Test
+	void testCreateDocuments() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(BulkItemResult.created(0, 3)),HttpStatus.OK);
+		Mockito.when(this.docService.createDocumentsService(any(InputStream.class))).thenReturn(asprResult);
+		
+		mockMvc.perform( MockMvcRequestBuilders.post("/createDocs")
+				.content(MOCK_PAYLOAD+"\n").contentType(MediaType.APPLICATION_NDJSON))
+		.andExpect(status().isOk());
+	}
+
 	@Test
 	void testGetDocumentById() throws Exception {
 		Mockito.when(this.docService.getDocumentByIdService(MOCK_ID)).thenReturn(ASPIRING_RESULT);
@@ -89,6 +149,51 @@ class DocumentControllerTest {
 		.andExpect(status().isOk());
 	}
 
+	@Test
+	void testGetDocumentByIdConditional() throws Exception {
+		Mockito.when(this.docService.getDocumentByIdService(MOCK_ID)).thenReturn(ASPIRING_RESULT);
+		String etag = mockMvc.perform(MockMvcRequestBuilders.get("/getDocById").param("documentID", String.valueOf(MOCK_ID)))
+		.andExpect(status().isOk()).andExpect(header().exists("Last-Modified"))
+		.andExpect(header().string("Cache-Control", "no-cache"))
+		.andReturn().getResponse().getHeader("ETag");
+		
+		//unchanged: answered without the service
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocById").param("documentID", String.valueOf(MOCK_ID))
+				.header("If-None-Match", "\"other\", " + etag.substring(2)))
+		.andExpect(status().isNotModified()).andExpect(header().string("ETag", etag));
+		Mockito.verify(this.docService, times(1)).getDocumentByIdService(MOCK_ID);
+		
+		//changed: the old tag no longer matches
+		versions.documentsChanged(List.of(MOCK_ID));
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocById").param("documentID", String.valueOf(MOCK_ID))
+				.header("If-None-Match", etag))
+		.andExpect(status().isOk());
+		Mockito.verify(this.docService, times(2)).getDocumentByIdService(MOCK_ID);
+	}
+	
+	@Test
+	void testGetDocumentByIdNotFoundHasNoValidators() throws Exception {
+		Mockito.when(this.docService.getDocumentByIdService(MOCK_ID))
+		.thenReturn(new ResponseEntity<>("not found",HttpStatus.NOT_FOUND));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocById").param("documentID", String.valueOf(MOCK_ID)))
+		.andExpect(status().isNotFound()).andExpect(header().doesNotExist("ETag"));
+	}
+	
+	@Test
+	void testGetDocumentBody() throws Exception {
+		ResponseEntity<Object> asprResult = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+				.contentType(MediaType.TEXT_PLAIN).header("Content-Range", "bytes 0-3/9")
+				.body("Mock".getBytes());
+		Mockito.when(this.docService.getDocumentBodyService(MOCK_ID, "bytes=0-3")).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocBody").param("documentID", String.valueOf(MOCK_ID))
+				.header("Range", "bytes=0-3"))
+		.andExpect(status().isPartialContent())
+		.andExpect(header().string("Content-Range", "bytes 0-3/9"))
+		.andExpect(content().string("Mock"));
+	}
+
 	@Test
 	void testGetAllDocuments() throws Exception {
 		Mockito.when(this.docService.getAllDocumentsService()).thenReturn(RESULT_LIST);
@@ -96,6 +201,139 @@ class DocumentControllerTest {
 		mockMvc.perform(MockMvcRequestBuilders.get("/getAllDocs"))
 		.andExpect(status().isOk());
 	}
+	
+	@Test
+	void testGetAllDocumentsProjected() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				List.of(new DocumentListing(1,"Mock title",null,List.of(100,101),null)),HttpStatus.OK);
+		Mockito.when(this.docService.getDocumentListingService(Set.of("id","title","authorIds"))).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getAllDocs").param("fields", "id, title,authorIds"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$[0].documentTitle").value("Mock title"))
+		.andExpect(jsonPath("$[0].authorIds[1]").value(101))
+		.andExpect(jsonPath("$[0].documentBody").doesNotExist());
+	}
+
+	
+	@Test
+	void testGetDocumentsPage() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new KeysetPage<>(DOCUMENT_LIST,null),HttpStatus.OK);
+		Mockito.when(this.docService.getDocumentsPageService(0, 100)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocsPage"))
+		.andExpect(status().isOk());
+	}
+	
+	@Test
+	void testStreamAllDocuments() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get("/streamAllDocs"))
+		.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+	}
+
+	
+	@Test
+	void testSearchDocuments() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(new SearchHit(3,"Generic title",1.5)),HttpStatus.OK);
+		Mockito.when(this.docService.searchDocumentsService("generic", 10)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/searchDocs").param("query", "generic"))
+		.andExpect(status().isOk());
+	}
+
+	
+	@Test
+	void testGetDocumentMetrics() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new DocumentMetrics(MOCK_ID, 2, 0.25, Instant.EPOCH),HttpStatus.OK);
+		Mockito.when(this.docService.getDocumentMetricsService(MOCK_ID)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocMetrics").param("documentID", String.valueOf(MOCK_ID)))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.citationCount").value(2))
+		.andExpect(jsonPath("$.pageRank").value(0.25));
+	}
+	
+	@Test
+	void testGetTopDocuments() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(new DocumentMetrics(MOCK_ID, 2, 0.25, Instant.EPOCH)),HttpStatus.OK);
+		Mockito.when(this.docService.getTopDocumentsService("pageRank", 10)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getTopDocs"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$[0].documentID").value(MOCK_ID));
+	}
+
+	
+	@Test
+	void testGetCitingDocuments() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new KeysetPage<>(Arrays.asList(new Document(2,"Spare title","Spare Body")),null),HttpStatus.OK);
+		Mockito.when(this.docService.getCitingDocumentsService(MOCK_ID, 0, 100)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCitingDocs")
+				.param("documentID", String.valueOf(MOCK_ID))).andExpect(status().isOk());
+	}
+
+	
+	@Test
+	void testGetDocumentsOfAuthor() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				new KeysetPage<>(Arrays.asList(new DocumentListing(2,"Spare title",null,null,null)),null),HttpStatus.OK);
+		Mockito.when(this.docService.getDocumentsOfAuthorService(MOCK_ID, 0, 100, false)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getDocsByAuthor")
+				.param("authorID", String.valueOf(MOCK_ID))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].documentTitle").value("Spare title"))
+				.andExpect(jsonPath("$.items[0].documentBody").doesNotExist());
+	}
+
+	
+	@Test
+	void testGetReferenceTree() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(new TraversalHit(2,1)),HttpStatus.OK);
+		Mockito.when(this.docService.getReferenceTreeService(MOCK_ID, 3, 100)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getReferenceTree")
+				.param("documentID", String.valueOf(MOCK_ID))).andExpect(status().isOk());
+	}
+
+	
+	@Test
+	void testGetCitationTree() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(
+				Arrays.asList(new TraversalHit(2,1)),HttpStatus.OK);
+		Mockito.when(this.docService.getCitationTreeService(MOCK_ID, 2, 5)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCitationTree")
+				.param("documentID", String.valueOf(MOCK_ID)).param("depth", "2").param("limit", "5"))
+		.andExpect(status().isOk());
+	}
+
+	
+	@Test
+	void testGetCitationPath() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(Arrays.asList(MOCK_ID,2),HttpStatus.OK);
+		Mockito.when(this.docService.getCitationPathService(MOCK_ID, 2)).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCitationPath")
+				.param("fromID", String.valueOf(MOCK_ID)).param("toID", "2"))
+		.andExpect(status().isOk());
+	}
+
+	
+	@Test
+	void testGetCacheStats() throws Exception {
+		ResponseEntity<Object> asprResult = new ResponseEntity<>(new HashMap<>(),HttpStatus.OK);
+		Mockito.when(this.docService.getCacheStatsService()).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/getCacheStats"))
+		.andExpect(status().isOk());
+	}
 
 	
 	@Test
@@ -120,6 +358,20 @@ class DocumentControllerTest {
 		mockMvc.perform(MockMvcRequestBuilders.delete("/deleteAllDocs"))
                 .andExpect(status().isOk());
 	}
+	
+	@Test
+	void testDeleteDocuments() throws Exception {
+		ResponseEntity<Object> asprResult = ResponseEntity.status(HttpStatus.OK).body(
+				"Documents successfully deleted: 2");
+		
+		Mockito.when(this.docService.deleteDocumentsService(1, 10, null)).thenReturn(asprResult);
+		Mockito.when(this.docService.deleteDocumentsService(null, null, List.of(2, 3))).thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.delete("/deleteDocs").param("fromID", "1").param("toID", "10"))
+                .andExpect(status().isOk());
+		mockMvc.perform(MockMvcRequestBuilders.delete("/deleteDocs").param("documentIDs", "2,3"))
+                .andExpect(status().isOk());
+	}
 
 	
 	@Test
@@ -137,7 +389,7 @@ class DocumentControllerTest {
 	void testUpdateDocumentBody() throws Exception {
 		Document updateDocument = new Document(1,null,"Updated Body");
 		System.out.println(asJsonString(updateDocument));
-		Mockito.when(this.docService.updateDocumentBodyService(asJsonString(updateDocument))).
+		Mockito.when(this.docService.updateDocumentBodyService(any(InputStream.class))).
 			thenReturn(ASPIRING_RESULT);
 		
 		mockMvc.perform( MockMvcRequestBuilders.put("/updateDocumentBody")
@@ -203,6 +455,20 @@ class DocumentControllerTest {
 						MOCK_DOCUMENT_BASIC.getDocumentID()))).andExpect(status().isOk());
 	}
 	
+	@Test
+	void testAddReferencesToDocument() throws Exception {
+		ResponseEntity<Object> asprResult = ResponseEntity.status(HttpStatus.OK).body(
+				new LinkBatchResult(MOCK_ID, List.of(1, 2), List.of(), List.of()));
+		
+		Mockito.when(this.docService.addReferencesToDocumentService(MOCK_ID, List.of(1, 2))).
+		thenReturn(asprResult);
+		
+		mockMvc.perform(MockMvcRequestBuilders.put("/addReferencesToDocument")
+				.param("referencingID", String.valueOf(MOCK_ID)).param("referencedIDs", "1,2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changed[1]").value(2));
+	}
+	
 	public static String asJsonString(final Object obj) {
 	    try {
 	        return new ObjectMapper().writeValueAsString(obj);
@@ -5,16 +5,20 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 
 import com.andreas.webapp.model.Author;
 
 @DataJpaTest
+@Import(BodyCodec.class)
 class AuthorRepoTest {
 	
 	@Autowired
@@ -99,6 +103,35 @@ class AuthorRepoTest {
 	
 	
 
+	@Test
+	void testFindPageAfter() {
+		Author athr = new Author("Max","Mustermann");
+	    entityManager.persist(athr);
+	    
+	    int ID = fetchID();
+	    
+	    List<Author> resultAuth = authRepo.findPageAfter(ID-1, 10);
+	    assertEquals(1,resultAuth.size());
+	    assertEquals("Max",resultAuth.get(0).getFirstName());
+	    assertEquals(2,authRepo.findPageAfter(0, 10).size());
+	}
+	
+	@Test
+	void testStreamAllOrdered() {
+		Author athr = new Author("Max","Mustermann");
+	    entityManager.persist(athr);
+	    
+	    try(Stream<Author> authStream = authRepo.streamAllOrdered()){
+	    	assertEquals(List.of("Generic","Mustermann"),authStream.map(Author::getLastName).toList());
+	    }
+	}
+
+	@Test
+	void testFindExistingAuthorIds() {
+		int ID = fetchID();
+		assertEquals(Set.of(ID),authRepo.findExistingAuthorIds(List.of(ID,ID+1)));
+	}
+
 	@Test
 	void testDeleteById() {
 		int ID = fetchID();
@@ -0,0 +1,74 @@
+package com.andreas.webapp.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BodyCodecTest {
+
+	final static String BODY = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Größe. ".repeat(50);
+	
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	
+	private BodyCodec codec(String codec) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", registry);
+		return new BodyCodec(codec, 256, 9, beans.getBeanProvider(MeterRegistry.class));
+	}
+
+	@Test
+	void testRoundTrip() {
+		for(String name:new String[] {"lz4","zstd","none"}) {
+			BodyCodec codec = codec(name);
+			BodyCodec.Encoded encoded = codec.encode(BODY);
+			
+			assertEquals(BODY.getBytes(StandardCharsets.UTF_8).length,encoded.rawLength());
+			assertEquals(BODY,codec.decodeToString(encoded.encoding(), encoded.bytes(), encoded.rawLength()));
+			if(!name.equals("none")) {
+				assertTrue(encoded.bytes().length < encoded.rawLength() / 4, name);
+			}
+		}
+	}
+	
+	@Test
+	void testSmallAndIncompressibleBodiesStayUncompressed() {
+		assertEquals(BodyCodec.NONE,codec("zstd").encode("short body").encoding());
+		
+		//random characters have no repetitions lz4 could use
+		BodyCodec codec = codec("lz4");
+		StringBuilder noise = new StringBuilder();
+		for(int i = 0; i < 4096; i++) {
+			noise.append((char) ThreadLocalRandom.current().nextInt(33, 127));
+		}
+		BodyCodec.Encoded encoded = codec.encode(noise.toString());
+		assertEquals(BodyCodec.NONE,encoded.encoding());
+		assertEquals(noise.toString(),codec.decodeToString(encoded.encoding(), encoded.bytes(), encoded.rawLength()));
+	}
+	
+	@Test
+	void testMetrics() {
+		BodyCodec codec = codec("lz4");
+		BodyCodec.Encoded encoded = codec.encode(BODY);
+		codec.decode(encoded.encoding(), encoded.bytes(), encoded.rawLength());
+		
+		assertEquals(1,registry.get("krieger.body.encode").tag("codec", "lz4").timer().count());
+		assertEquals(1,registry.get("krieger.body.decode").tag("codec", "lz4").timer().count());
+		double ratio = registry.get("krieger.body.compression.ratio").tag("codec", "lz4").summary().mean();
+		assertTrue(ratio > 0 && ratio < 0.25);
+		assertEquals(encoded.rawLength(),registry.get("krieger.body.bytes.raw").tag("codec", "lz4").counter().count());
+		assertEquals(encoded.bytes().length,
+				registry.get("krieger.body.bytes.stored").tag("codec", "lz4").counter().count());
+	}
+	
+	@Test
+	void testUnknownCodec() {
+		assertThrows(IllegalArgumentException.class, () -> codec("gzip"));
+	}
+}
@@ -0,0 +1,84 @@
+package com.andreas.webapp.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.AuthorMetrics;
+import com.andreas.webapp.model.Document;
+import com.andreas.webapp.model.DocumentMetrics;
+
+@DataJpaTest
+@Import({BodyCodec.class, CitationMetricsRepo.class})
+class CitationMetricsRepoTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private CitationMetricsRepo metricsRepo;
+
+	@Autowired
+	private DocumentRepo docRepo;
+
+	@Test
+	void testReadsTheGraph() throws Exception {
+		int first = entityManager.persistAndGetId(new Document("First Title","First Body"), Integer.class);
+		int second = entityManager.persistAndGetId(new Document("Second Title","Second Body"), Integer.class);
+		int author = entityManager.persistAndGetId(new Author("Joe","Generic"), Integer.class);
+		docRepo.insertIntoReferenced(second, first);
+		docRepo.insertIntoAuthored(author, first);
+
+		assertArrayEquals(new int[] {first, second}, metricsRepo.findAllDocumentIds());
+		assertArrayEquals(new int[] {author}, metricsRepo.findAllAuthorIds());
+		List<int[]> references = new ArrayList<>();
+		metricsRepo.forEachReference((referencing, referenced) -> references.add(new int[] {referencing, referenced}));
+		assertEquals(1, references.size());
+		assertArrayEquals(new int[] {second, first}, references.get(0));
+		List<int[]> authored = new ArrayList<>();
+		metricsRepo.forEachAuthored((authorID, documentID) -> authored.add(new int[] {authorID, documentID}));
+		assertArrayEquals(new int[] {author, first}, authored.get(0));
+	}
+
+	@Test
+	void testReplaceAndReadMetrics() {
+		int first = entityManager.persistAndGetId(new Document("First Title","First Body"), Integer.class);
+		int second = entityManager.persistAndGetId(new Document("Second Title","Second Body"), Integer.class);
+		int author = entityManager.persistAndGetId(new Author("Joe","Generic"), Integer.class);
+		entityManager.flush();
+		Instant computedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+		metricsRepo.replaceDocumentMetrics(new int[] {first, second}, new int[] {1, 0}, new double[] {0.6, 0.4},
+				computedAt, new int[] {first, second}, new int[] {first, second});
+		metricsRepo.replaceAuthorMetrics(new int[] {author}, new int[] {1}, new long[] {1}, new int[] {1}, computedAt,
+				new int[] {author});
+
+		DocumentMetrics metrics = metricsRepo.findDocumentMetrics(first).get();
+		assertEquals(1, metrics.getCitationCount());
+		assertEquals(0.6, metrics.getPageRank());
+		assertEquals(computedAt, metrics.getComputedAt());
+		assertEquals(second, metricsRepo.findTopDocuments(false, 2).get(1).getDocumentID());
+		assertEquals(1, metricsRepo.findTopDocuments(true, 1).size());
+		AuthorMetrics authorMetrics = metricsRepo.findAuthorMetrics(author).get();
+		assertEquals(1, authorMetrics.getHIndex());
+		assertEquals(author, metricsRepo.findTopAuthors(5).get(0).getAuthorID());
+
+		//a new run replaces the previous one, documents that no longer exist are skipped
+		metricsRepo.replaceDocumentMetrics(new int[] {second, second + 100}, new int[] {2, 5},
+				new double[] {0.7, 0.3}, computedAt, new int[] {second, second + 100}, new int[] {second + 100, second});
+		assertTrue(metricsRepo.findDocumentMetrics(first).isEmpty());
+		assertEquals(2, metricsRepo.findDocumentMetrics(second).get().getCitationCount());
+		assertEquals(1, metricsRepo.findTopDocuments(true, 10).size());
+		assertEquals(second, metricsRepo.findTopDocuments(false, 10).get(0).getDocumentID());
+	}
+}
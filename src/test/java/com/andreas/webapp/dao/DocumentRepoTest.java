@@ -6,11 +6,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.assertj.core.util.Arrays;
 import org.junit.jupiter.api.Assertions;
@@ -19,11 +23,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 
 import com.andreas.webapp.model.Author;
 import com.andreas.webapp.model.Document;
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentPayload;
+import com.andreas.webapp.model.DocumentTitleView;
 
 @DataJpaTest
+@Import(BodyCodec.class)
 class DocumentRepoTest {
 	
 	@Autowired
@@ -66,6 +75,167 @@ class DocumentRepoTest {
 	    assertDoesNotThrow(()->docRepo.insertIntoReferenced(dID, dID-1));
 	}
 
+	@Test
+	void testFindAllTitles() {
+		entityManager.persist(new Document("Second Title","Second Body"));
+		int dID = fetchDocumentID();
+		
+		List<DocumentTitleView> titles = docRepo.findAllTitles();
+		DocumentTitleView last = titles.get(titles.size()-1);
+		assertEquals(dID,last.getDocumentID());
+		assertEquals("Second Title",last.getDocumentTitle());
+		assertTrue(titles.get(0).getDocumentID() < dID);
+	}
+	
+	@Test
+	void testBodies() {
+		int dID = fetchDocumentID();
+		assertEquals(null,docRepo.findBody(dID));
+		assertEquals(-1,docRepo.findBodyLength(dID));
+		
+		docRepo.saveBody(dID, "Erster Entwurf");
+		docRepo.saveBody(dID, "Größe");
+		assertEquals("Größe",docRepo.findBody(dID));
+		assertEquals(Map.of(dID,"Größe"),docRepo.findBodies(List.of(dID, dID+1)));
+		assertEquals("Größe",docRepo.findAllBodies().get(dID));
+		//lengths and ranges are in bytes of the UTF-8 encoding
+		assertEquals(7,docRepo.findBodyLength(dID));
+		assertEquals("öß",new String(docRepo.findBodyRange(dID, 2, 4),StandardCharsets.UTF_8));
+		assertEquals("e",new String(docRepo.findBodyRange(dID, 6, 10),StandardCharsets.UTF_8));
+		
+		List<String> texts = new ArrayList<>();
+		docRepo.forEachText((id, title, body) -> texts.add(id+":"+title+":"+body));
+		assertEquals(dID+":Generic Title:Größe",texts.get(texts.size()-1));
+		
+		entityManager.persist(new Document("Second Title",null));
+		docRepo.forEachText((id, title, body) -> texts.add(id+":"+title+":"+body));
+		assertTrue(texts.get(texts.size()-1).endsWith(":Second Title:null"));
+	}
+	
+	@Test
+	void testFindPageOfAuthor() throws Exception {
+		entityManager.persist(new Document("Second Title","Second Body"));
+		entityManager.persist(new Document("Third Title","Third Body"));
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		docRepo.insertIntoAuthored(aID, dID);
+		docRepo.insertIntoAuthored(aID, dID-2);
+		docRepo.saveBody(dID, "Third Body");
+		
+		List<DocumentListing> page = docRepo.findPageOfAuthor(aID, 0, 1, false);
+		assertEquals(1,page.size());
+		assertEquals(dID-2,page.get(0).getDocumentID());
+		assertEquals("Generic Title",page.get(0).getDocumentTitle());
+		assertEquals(null,page.get(0).getDocumentBody());
+		
+		page = docRepo.findPageOfAuthor(aID, dID-2, 10, true);
+		assertEquals(1,page.size());
+		assertEquals("Third Body",page.get(0).getDocumentBody());
+		assertTrue(docRepo.findPageOfAuthor(aID, dID, 10, true).isEmpty());
+		assertTrue(docRepo.findPageOfAuthor(aID+1, 0, 10, false).isEmpty());
+	}
+	
+	@Test
+	void testBodiesAreStoredCompressed() {
+		int dID = fetchDocumentID();
+		String body = "Größe ".repeat(1000);
+		docRepo.saveBody(dID, body);
+		
+		Object[] stored = (Object[]) entityManager.getEntityManager().createNativeQuery(
+				"SELECT ENCODING, OCTET_LENGTH(BODY), RAW_LENGTH FROM DOCUMENT_BODY WHERE DOCUMENTID = ?1")
+				.setParameter(1, dID).getSingleResult();
+		assertEquals(BodyCodec.LZ4,((Number) stored[0]).intValue());
+		assertTrue(((Number) stored[1]).intValue() < 1000);
+		assertEquals(8000,((Number) stored[2]).intValue());
+		
+		//everything is decompressed transparently, ranges are cut after decompressing
+		assertEquals(body,docRepo.findBody(dID));
+		assertEquals(body,docRepo.findBodies(List.of(dID)).get(dID));
+		assertEquals(8000,docRepo.findBodyLength(dID));
+		assertEquals("öß",new String(docRepo.findBodyRange(dID, 2, 4),StandardCharsets.UTF_8));
+		assertEquals("e ",new String(docRepo.findBodyRange(dID, 7998, 100),StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testInsertIntoAuthoredIfAbsent() throws Exception {
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		
+		assertEquals(1,docRepo.insertIntoAuthoredIfAbsent(aID, dID));
+		assertEquals(0,docRepo.insertIntoAuthoredIfAbsent(aID, dID));
+		assertEquals(Set.of(aID),docRepo.findAuthorsOfDocument(dID));
+	}
+	
+	@Test
+	void testInsertIntoReferencedIfAbsent() throws Exception {
+		Document doc = new Document("Fresh Title","Fresh Body");
+	    entityManager.persist(doc);
+	    
+		int dID = fetchDocumentID();
+		
+		assertEquals(1,docRepo.insertIntoReferencedIfAbsent(dID, dID-1));
+		assertEquals(0,docRepo.insertIntoReferencedIfAbsent(dID, dID-1));
+		assertEquals(Set.of(dID-1),docRepo.findReferencesOfDocument(dID));
+	}
+
+	@Test
+	void testAuthoredBatches() throws Exception {
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		entityManager.persist(new Author("Max","Mustermann"));
+		int aID2 = fetchAuthorID();
+		docRepo.insertIntoAuthored(aID, dID);
+		
+		assertEquals(Set.of(aID),docRepo.findAuthorsOfDocumentAmong(dID, List.of(aID,aID2)));
+		assertEquals(List.of(aID2),docRepo.insertAuthoredBatch(dID, List.of(aID,aID2)));
+		assertEquals(Set.of(aID,aID2),docRepo.findAuthorsOfDocument(dID));
+		
+		assertEquals(List.of(aID2),docRepo.deleteAuthoredBatch(dID, List.of(aID2)));
+		assertTrue(docRepo.deleteAuthoredBatch(dID, List.of(aID2)).isEmpty());
+		assertEquals(Set.of(aID),docRepo.findAuthorsOfDocument(dID));
+	}
+	
+	@Test
+	void testReferencedBatches() throws Exception {
+		entityManager.persist(new Document("Fresh Title","Fresh Body"));
+		entityManager.persist(new Document("Fresher Title","Fresher Body"));
+		int dID = fetchDocumentID();
+		
+		assertEquals(List.of(dID-1,dID-2),docRepo.insertReferencedBatch(dID, List.of(dID-1,dID-2)));
+		assertTrue(docRepo.insertReferencedBatch(dID, List.of(dID-1)).isEmpty());
+		assertEquals(Set.of(dID-2),docRepo.findReferencesOfDocumentAmong(dID, List.of(dID-2)));
+		
+		assertEquals(List.of(dID-1,dID-2),docRepo.deleteReferencedBatch(dID, List.of(dID-1,dID-2)));
+		assertTrue(docRepo.findReferencesOfDocument(dID).isEmpty());
+	}
+	
+	@Test
+	void testDeleteDocumentsChunk() throws Exception {
+		entityManager.persist(new Document("Fresh Title","Fresh Body"));
+		entityManager.persist(new Document("Fresher Title","Fresher Body"));
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		docRepo.insertIntoAuthored(aID, dID-1);
+		docRepo.insertIntoAuthored(aID, dID);
+		docRepo.insertIntoReferenced(dID, dID-1);
+		docRepo.insertIntoReferenced(dID-1, dID-2);
+		docRepo.saveBody(dID-1, "Fresh Body");
+		
+		assertEquals(List.of(dID-2,dID-1),docRepo.findIdsInRange(dID-2, dID, 2));
+		assertEquals(1,docRepo.deleteDocumentsChunk(List.of(dID-1, dID+1)));
+		
+		assertEquals(List.of(dID-2,dID),docRepo.findIdsInRange(dID-2, dID, 10));
+		assertEquals(null,docRepo.findBody(dID-1));
+		assertTrue(docRepo.findAuthorsOfDocument(dID-1).isEmpty());
+		assertEquals(Set.of(aID),docRepo.findAuthorsOfDocument(dID));
+		//the references in both directions are gone
+		assertTrue(docRepo.findReferencesOfDocument(dID).isEmpty());
+		assertTrue(docRepo.findReferencesOfDocument(dID-1).isEmpty());
+		
+		assertEquals(2,docRepo.deleteDocumentRange(dID-2, dID));
+		assertTrue(docRepo.findIdsInRange(dID-2, dID, 10).isEmpty());
+	}
+	
 	@Test
 	void testFindAuthorsOfDocument() throws Exception {
 		int aID = fetchAuthorID();
@@ -98,6 +268,69 @@ class DocumentRepoTest {
 		assertEquals(referenceSet,resultSet);
 	}
 
+	@Test
+	void testFindAllAuthoredEntries() throws Exception {
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		docRepo.insertIntoAuthored(aID, dID);
+		
+		List<Object[]> rows = docRepo.findAllAuthoredEntries();
+		assertEquals(1,rows.size());
+		assertEquals(dID,((Number) rows.get(0)[0]).intValue());
+		assertEquals(aID,((Number) rows.get(0)[1]).intValue());
+		
+		assertEquals(1,docRepo.findAuthoredEntriesOfDocuments(List.of(dID)).size());
+		assertTrue(docRepo.findAuthoredEntriesOfDocuments(List.of(dID+1)).isEmpty());
+	}
+	
+	@Test
+	void testFindAllReferencedEntries() throws Exception {
+		Document doc = new Document("Fresh Title","Fresh Body");
+	    entityManager.persist(doc);
+	    
+		int dID = fetchDocumentID();
+		docRepo.insertIntoReferenced(dID, dID-1);
+		
+		List<Object[]> rows = docRepo.findAllReferencedEntries();
+		assertEquals(1,rows.size());
+		assertEquals(dID,((Number) rows.get(0)[0]).intValue());
+		assertEquals(dID-1,((Number) rows.get(0)[1]).intValue());
+		
+		assertEquals(1,docRepo.findReferencedEntriesOfDocuments(List.of(dID)).size());
+		assertTrue(docRepo.findReferencedEntriesOfDocuments(List.of(dID-1)).isEmpty());
+		
+		try(Stream<Object[]> rowStream = docRepo.streamAllReferencedEntries()){
+			assertEquals(1,rowStream.count());
+		}
+		
+		assertEquals(List.of(dID),docRepo.findCitingDocumentIds(dID-1, 0, 10));
+		assertTrue(docRepo.findCitingDocumentIds(dID-1, dID, 10).isEmpty());
+		assertTrue(docRepo.findCitingDocumentIds(dID, 0, 10).isEmpty());
+	}
+
+	@Test
+	void testInsertDocumentsBatch() throws Exception {
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		
+		List<Integer> newIds = docRepo.insertDocumentsBatch(List.of(
+				new DocumentPayload(0,"Batch Title 1","Batch Body 1",List.of(aID,aID),null),
+				new DocumentPayload(0,"Batch Title 2","Batch Body 2",List.of(aID),List.of(dID))));
+		
+		assertEquals(2,newIds.size());
+		assertEquals("Batch Title 1",docRepo.findById(newIds.get(0)).get().getDocumentTitle());
+		assertEquals("Batch Body 2",docRepo.findBody(newIds.get(1)));
+		assertEquals(Set.of(aID),docRepo.findAuthorsOfDocument(newIds.get(0)));
+		assertEquals(Set.of(dID),docRepo.findReferencesOfDocument(newIds.get(1)));
+		assertTrue(docRepo.findReferencesOfDocument(newIds.get(0)).isEmpty());
+	}
+	
+	@Test
+	void testFindExistingDocumentIds() {
+		int dID = fetchDocumentID();
+		assertEquals(Set.of(dID),docRepo.findExistingDocumentIds(List.of(dID,dID+1)));
+	}
+
 	@Test
 	void testDeleteAuthoredEntries() throws Exception {
 		int aID = fetchAuthorID();
@@ -106,6 +339,20 @@ class DocumentRepoTest {
 		
 		assertDoesNotThrow(()->docRepo.deleteAuthoredEntries( dID,aID));
 	}
+	
+	@Test
+	void testExistsAuthoredAndConditionalDelete() throws Exception {
+		int aID = fetchAuthorID();
+		int dID = fetchDocumentID();
+		assertFalse(docRepo.existsAuthored(dID, aID));
+		
+		docRepo.insertIntoAuthored(aID, dID);
+		assertTrue(docRepo.existsAuthored(dID, aID));
+		
+		assertEquals(1,docRepo.deleteAuthoredEntries(dID, aID));
+		assertEquals(0,docRepo.deleteAuthoredEntries(dID, aID));
+		assertFalse(docRepo.existsAuthored(dID, aID));
+	}
 
 	@Test
 	void testDeleteReferencesEntries() throws Exception {
@@ -118,6 +365,23 @@ class DocumentRepoTest {
 		
 		assertDoesNotThrow(()->docRepo.deleteReferencesEntries(dID,dID-1));
 	}
+	
+	@Test
+	void testExistsReferenceAndConditionalDelete() throws Exception {
+		Document doc = new Document("Fresh Title","Fresh Body");
+	    entityManager.persist(doc);
+	    
+		int dID = fetchDocumentID();
+		assertFalse(docRepo.existsReference(dID, dID-1));
+		
+		docRepo.insertIntoReferenced(dID, dID-1);
+		assertTrue(docRepo.existsReference(dID, dID-1));
+		assertFalse(docRepo.existsReference(dID-1, dID));
+		
+		assertEquals(1,docRepo.deleteReferencesEntries(dID, dID-1));
+		assertEquals(0,docRepo.deleteReferencesEntries(dID, dID-1));
+		assertFalse(docRepo.existsReference(dID, dID-1));
+	}
 
 	
 	@Test
@@ -169,6 +433,35 @@ class DocumentRepoTest {
 	    assertEquals(doc,resultDoc.get(1));
 	}
 
+	@Test
+	void testFindPageAfter() {
+		Document doc = new Document("Fresh Title","Fresh Body");
+	    entityManager.persist(doc);
+	    
+	    int ID = fetchDocumentID();
+	    
+	    List<Document> firstPage = docRepo.findPageAfter(0, 1);
+	    assertEquals(1,firstPage.size());
+	    assertEquals(ID-1,firstPage.get(0).getDocumentID());
+	    
+	    List<Document> secondPage = docRepo.findPageAfter(ID-1, 1);
+	    assertEquals(1,secondPage.size());
+	    assertEquals(ID,secondPage.get(0).getDocumentID());
+	    
+	    assertTrue(docRepo.findPageAfter(ID, 1).isEmpty());
+	}
+	
+	@Test
+	void testStreamAllOrdered() {
+		Document doc = new Document("Fresh Title","Fresh Body");
+	    entityManager.persist(doc);
+	    
+	    try(Stream<Document> docStream = docRepo.streamAllOrdered()){
+	    	List<String> titles = docStream.map(Document::getDocumentTitle).toList();
+	    	assertEquals(List.of("Generic Title","Fresh Title"),titles);
+	    }
+	}
+
 	@Test
 	void testDeleteById() {
 		int ID = fetchDocumentID();
@@ -0,0 +1,60 @@
+package com.andreas.webapp.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.Document;
+
+/**
+ * Runs the repositories on the database file of the 'file' profile, with a schema created by the migrations
+ * Hibernate validates the migrated schema against the entity mappings, so the context fails to start if they drift apart
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("file")
+@Import(BodyCodec.class)
+class FileStorageSchemaTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private DocumentRepo docRepo;
+
+	@DynamicPropertySource
+	static void storagePath(DynamicPropertyRegistry registry) throws Exception {
+		Path directory = Files.createTempDirectory("krieger-storage");
+		registry.add("krieger.storage.path", () -> directory.resolve("andreas4krieger").toString());
+	}
+
+	@Test
+	void testSchemaStoresDocumentsWithAuthorsAndReferences() {
+		Author athr = entityManager.persist(new Author("Joe","Generic"));
+		Document referenced = entityManager.persist(new Document("Referenced","Body"));
+		Document referencing = new Document("Referencing","Body");
+		referencing.setAuthors(Set.of(athr));
+		referencing.setReferences(Set.of(referenced));
+		entityManager.persist(referencing);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(2, docRepo.count());
+		assertEquals(List.of(referencing.getDocumentID()), 
+				docRepo.findCitingDocumentIds(referenced.getDocumentID(), 0, 10));
+	}
+}
@@ -0,0 +1,80 @@
+package com.andreas.webapp.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueryCountInterceptorTest {
+
+	private SimpleMeterRegistry registry;
+	private QueryCounter queryCounter;
+	private QueryCountInterceptor interceptor;
+	
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		queryCounter = new QueryCounter(registry);
+		interceptor = new QueryCountInterceptor(queryCounter, registry);
+	}
+
+	@Test
+	void testStatementsAreCountedPerRequest() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/getDocById");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/getDocById");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		queryCounter.statementCreated();
+		assertTrue(interceptor.preHandle(request, response, null));
+		assertEquals(0,queryCounter.count());
+		
+		queryCounter.statementCreated();
+		queryCounter.statementCreated();
+		interceptor.afterCompletion(request, response, null, null);
+		
+		DistributionSummary summary = registry.get("krieger.request.statements")
+				.tag("uri", "/getDocById").summary();
+		assertEquals(1,summary.count());
+		assertEquals(2.0,summary.totalAmount());
+		assertEquals(3.0,registry.get("krieger.db.statements").counter().count());
+	}
+	
+	@Test
+	void testCountIsPerThread() throws Exception {
+		queryCounter.statementCreated();
+		Thread other = new Thread(() -> queryCounter.statementCreated());
+		other.start();
+		other.join();
+		
+		assertEquals(1,queryCounter.count());
+	}
+	
+	@Test
+	void testJdbcTemplateStatementsAreCounted() throws Exception {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("queryCounter", queryCounter);
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(
+				new StatementCountingDataSource(h2, beans.getBeanProvider(QueryCounter.class)));
+		
+		jdbcTemplate.execute("CREATE TABLE COUNTED(ID INT)");
+		//a batch is prepared once
+		jdbcTemplate.batchUpdate("INSERT INTO COUNTED VALUES (?)", List.of(new Object[] {1}, new Object[] {2}));
+		assertEquals(2,jdbcTemplate.queryForObject("SELECT COUNT(*) FROM COUNTED", Integer.class));
+		
+		assertEquals(3,queryCounter.count());
+		assertEquals(3.0,registry.get("krieger.db.statements").counter().count());
+	}
+}
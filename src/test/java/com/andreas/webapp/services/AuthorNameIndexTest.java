@@ -0,0 +1,90 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.model.Author;
+
+import jakarta.persistence.EntityManager;
+
+class AuthorNameIndexTest {
+
+	final static Author MOCK_AUTHOR1 = new Author(1,"Joe","Generic");
+	final static Author MOCK_AUTHOR2 = new Author(2,"Max","Musterman");
+	final static Author MOCK_AUTHOR3 = new Author(3,"Johanna","Maxwell");
+	
+	private AuthorNameIndex nameIndex;
+	
+	@BeforeEach
+	void setUp() {
+		nameIndex = new AuthorNameIndex();
+		nameIndex.indexAuthor(MOCK_AUTHOR1);
+		nameIndex.indexAuthor(MOCK_AUTHOR2);
+		nameIndex.indexAuthor(MOCK_AUTHOR3);
+	}
+
+	@Test
+	void testFindByNames() {
+		//first name contains "Jo" OR last name contains "Max"
+		assertEquals(List.of(MOCK_AUTHOR1,MOCK_AUTHOR3),nameIndex.findByNames("Jo", "Max"));
+		assertEquals(List.of(MOCK_AUTHOR2),nameIndex.findByNames("xyz", "sterma"));
+		//same as the LIKE query, the search is case sensitive
+		assertTrue(nameIndex.findByNames("joe", "generic").isEmpty());
+		assertTrue(nameIndex.findByNames("Zed", "Zed").isEmpty());
+	}
+	
+	@Test
+	void testAutocomplete() {
+		assertEquals(List.of(MOCK_AUTHOR1,MOCK_AUTHOR3),nameIndex.autocomplete("jo", 10));
+		assertEquals(List.of(MOCK_AUTHOR1),nameIndex.autocomplete("joe g", 10));
+		assertEquals(List.of(MOCK_AUTHOR2,MOCK_AUTHOR3),nameIndex.autocomplete("MAX", 10));
+		assertEquals(1,nameIndex.autocomplete("m", 1).size());
+		assertTrue(nameIndex.autocomplete("q", 10).isEmpty());
+	}
+
+	@Test
+	void testUpdateAndRemoveAuthor() {
+		nameIndex.indexAuthor(new Author(1,"Joe","Average"));
+		assertTrue(nameIndex.findByNames("xyz", "Generic").isEmpty());
+		assertEquals(1,nameIndex.findByNames("xyz", "Average").size());
+		assertTrue(nameIndex.autocomplete("gen", 10).isEmpty());
+		
+		nameIndex.removeAuthor(2);
+		assertTrue(nameIndex.findByNames("Max", "Musterman").isEmpty());
+		assertEquals(2,nameIndex.size());
+		
+		nameIndex.clear();
+		assertEquals(0,nameIndex.size());
+	}
+	
+	@Test
+	void testRebuildKeepsChangesMadeMeanwhile() {
+		nameIndex.authRepo = Mockito.mock(AuthorRepo.class);
+		nameIndex.entityManager = Mockito.mock(EntityManager.class);
+		//the stream still contains author 1 and the old name of author 3, both changed meanwhile
+		Mockito.when(nameIndex.authRepo.streamAllOrdered()).thenReturn(Stream.of(
+				new Author(1,"Joe","Generic"), new Author(3,"Johanna","Maxwell")).peek(athr -> {
+					if(athr.getAuthorID() == 1) {
+						nameIndex.removeAuthor(1);
+						nameIndex.indexAuthor(new Author(3,"Johanna","Average"));
+						nameIndex.indexAuthor(new Author(4,"Anna","Newman"));
+					}
+				}));
+		
+		nameIndex.rebuild();
+		
+		assertTrue(nameIndex.isReady());
+		assertEquals(2,nameIndex.size());
+		assertTrue(nameIndex.findByNames("Joe", "Maxwell").isEmpty());
+		assertEquals(List.of(new Author(3,"Johanna","Average"),new Author(4,"Anna","Newman")),
+				nameIndex.findByNames("xyz", "e"));
+		assertEquals(List.of(new Author(4,"Anna","Newman")),nameIndex.autocomplete("new", 10));
+	}
+}
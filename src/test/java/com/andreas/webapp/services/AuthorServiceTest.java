@@ -3,6 +3,9 @@ package com.andreas.webapp.services;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.doReturn;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -13,13 +16,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.CitationMetricsRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.AuthorMetrics;
+import com.andreas.webapp.model.Coauthor;
+import com.andreas.webapp.model.KeysetPage;
+
+import jakarta.persistence.EntityManager;
 
 @ExtendWith(MockitoExtension.class)
 class AuthorServiceTest {
@@ -30,6 +41,18 @@ class AuthorServiceTest {
 	final static int MOCK_ID = 1;
 	@Mock
     private AuthorRepo authRepo;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private AuthorNameIndex nameIndex;
+	@Mock
+	private CitationMetricsRepo metricsRepo;
+	@Spy
+	private EntityCache entityCache = new EntityCache(100, Duration.ofMinutes(1));
+	@Spy
+	private ContentVersions versions = new ContentVersions(10_000);
+	@Spy
+	private CoauthorGraph coauthorGraph = new CoauthorGraph();
 
     @InjectMocks
     private AuthorService authService;
@@ -76,10 +99,44 @@ class AuthorServiceTest {
 	}
 	
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetAuthorsPageService() throws Exception {
+		Mockito.when(this.authRepo.findPageAfter(0, 2)).thenReturn(MOCK_AUTHORS);
+		
+		ResponseEntity<Object> result = authService.getAuthorsPageService(0, 2);
+		KeysetPage<Author> page = (KeysetPage<Author>) result.getBody();
+		
+		assertEquals(2,page.getItems().size());
+		assertEquals(101,page.getNextAfterID());
+		
+		Mockito.when(this.authRepo.findPageAfter(101, 2)).thenReturn(new ArrayList<>());
+		page = (KeysetPage<Author>) authService.getAuthorsPageService(101, 2).getBody();
+		assertNull(page.getNextAfterID());
+		
+		result = authService.getAuthorsPageService(0, 100000);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	@Test
+	void testStreamAllAuthorsService() throws Exception {
+		Mockito.when(this.authRepo.streamAllOrdered()).thenReturn(MOCK_AUTHORS.stream());
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		authService.streamAllAuthorsService(out);
+		
+		String[] lines = out.toString().split("\n");
+		assertEquals(2,lines.length);
+		assertTrue(lines[0].contains("\"authorID\":100"));
+		assertTrue(lines[1].contains("\"lastName\":\"Musterman\""));
+	}
+	
+	
 	@Test
 	void testGetByNamesService() throws Exception {
 		
-		Mockito.when(this.authRepo.findByNames("abc", "xyz")).
+		Mockito.when(this.nameIndex.isReady()).thenReturn(true);
+		Mockito.when(this.nameIndex.findByNames("abc", "xyz")).
 		thenReturn(MOCK_AUTHORS);
 		
 		ResponseEntity<Object> result = authService.getByNamesService("abc", "xyz");
@@ -91,6 +148,81 @@ class AuthorServiceTest {
 	}
 
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetByNamesServiceIndexNotReady() throws Exception {
+		
+		Mockito.when(this.nameIndex.isReady()).thenReturn(false);
+		Mockito.when(this.authRepo.findByNames("abc", "xyz")).
+		thenReturn(MOCK_AUTHORS);
+		
+		ResponseEntity<Object> result = authService.getByNamesService("abc", "xyz");
+		List<Author> a = (List<Author>) result.getBody();
+		
+		assertTrue(a.size()==2);
+	}
+	
+	@Test
+	void testAutocompleteService() throws Exception {
+		//until the index is built it would only suggest a part of the authors
+		Mockito.when(this.nameIndex.isReady()).thenReturn(false);
+		ResponseEntity<Object> result = authService.autocompleteService("jo", 5);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,result.getStatusCode());
+		assertEquals("5",result.getHeaders().getFirst("Retry-After"));
+		Mockito.verify(this.nameIndex,Mockito.never()).autocomplete("jo", 5);
+		
+		Mockito.when(this.nameIndex.isReady()).thenReturn(true);
+		Mockito.when(this.nameIndex.autocomplete("jo", 5)).thenReturn(Arrays.asList(MOCK_AUTHOR1));
+		
+		result = authService.autocompleteService("jo", 5);
+		assertEquals(Arrays.asList(MOCK_AUTHOR1),result.getBody());
+		
+		result = authService.autocompleteService("", 5);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		result = authService.autocompleteService("jo", -1);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+
+	
+	@Test
+	void testGetAuthorMetricsService() throws Exception {
+		AuthorMetrics metrics = new AuthorMetrics(MOCK_ID, 2, 7, 3, Instant.EPOCH);
+		Mockito.when(metricsRepo.findAuthorMetrics(MOCK_ID)).thenReturn(Optional.of(metrics));
+		Mockito.when(metricsRepo.findTopAuthors(5)).thenReturn(Arrays.asList(metrics));
+		
+		assertEquals(metrics,authService.getAuthorMetricsService(MOCK_ID).getBody());
+		assertEquals(Arrays.asList(metrics),authService.getTopAuthorsService(5).getBody());
+		
+		ResponseEntity<Object> result = authService.getAuthorMetricsService(MOCK_ID+1);
+		assertEquals(HttpStatus.NOT_FOUND,result.getStatusCode());
+		result = authService.getAuthorMetricsService(0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		result = authService.getTopAuthorsService(0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testCoauthorServices() throws Exception {
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,authService.getCoauthorsService(2, 10).getStatusCode());
+		doReturn(true).when(coauthorGraph).isReady();
+		coauthorGraph.addDocument(10, List.of(MOCK_ID, 2));
+		coauthorGraph.addDocument(11, List.of(2, 3));
+		
+		List<Coauthor> coauthors = (List<Coauthor>) authService.getCoauthorsService(2, 10).getBody();
+		assertEquals(List.of(MOCK_ID,3),coauthors.stream().map(Coauthor::getAuthorID).toList());
+		assertEquals(List.of(MOCK_ID,2,3),authService.getCollaborationPathService(MOCK_ID, 3).getBody());
+		
+		Mockito.when(authRepo.existsById(42)).thenReturn(false);
+		assertEquals(HttpStatus.NOT_FOUND,authService.getCoauthorsService(42, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,authService.getCoauthorsService(0, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,authService.getCoauthorsService(MOCK_ID, 0).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND,authService.getCollaborationPathService(MOCK_ID, 42).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,authService.getCollaborationPathService(0, 3).getStatusCode());
+	}
+	
+	
 	@Test
 	void testDeleteAuthorByIdService() throws Exception {
 		Mockito.when(authRepo.existsById(MOCK_ID)).thenReturn(true);
@@ -98,6 +230,7 @@ class AuthorServiceTest {
 		ResponseEntity<Object> result = authService.deleteAuthorByIdService(MOCK_ID);
 		String s = (String) result.getBody();
 		assertEquals(s,"Author successfully deleted!");
+		Mockito.verify(nameIndex).removeAuthor(MOCK_ID);
 	}
 	
 	@Test
@@ -115,6 +248,16 @@ class AuthorServiceTest {
 		ResponseEntity<Object> result = authService.deleteAllService();
 		String s = (String) result.getBody();
 		assertEquals(s,"All Authors successfully deleted!");
+		Mockito.verify(authRepo).deleteAllBulk();
+	}
+	
+	@Test
+	void testDeleteAllServiceWithAuthoredDocuments() throws Exception {
+		Mockito.when(authRepo.existsAnyAuthored()).thenReturn(true);
+		
+		ResponseEntity<Object> result = authService.deleteAllService();
+		assertEquals(HttpStatus.CONFLICT,result.getStatusCode());
+		Mockito.verify(authRepo,Mockito.never()).deleteAllBulk();
 	}
 
 	@Test
@@ -136,6 +279,20 @@ class AuthorServiceTest {
 		assertFalse(a.getFirstName().equals("Joe"));
 	}
 
+	@Test
+	void testGetAuthorByIdServiceIsCached() throws Exception {
+		Mockito.when(this.authRepo.findById(MOCK_ID)).thenReturn(
+				Optional.of(new Author(1,"Joe","Generic")));
+		
+		authService.getAuthorByIdService(MOCK_ID);
+		authService.getAuthorByIdService(MOCK_ID);
+		Mockito.verify(authRepo,Mockito.times(1)).findById(MOCK_ID);
+		
+		authService.deleteAllService();
+		authService.getAuthorByIdService(MOCK_ID);
+		Mockito.verify(authRepo,Mockito.times(2)).findById(MOCK_ID);
+	}
+
 	@Test
 	void testUpdateLastNameService() throws Exception {
 		Mockito.when(this.authRepo.findById(MOCK_ID)).thenReturn(
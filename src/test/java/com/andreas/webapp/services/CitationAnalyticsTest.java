@@ -0,0 +1,117 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CitationAnalyticsTest {
+
+	private CitationAnalytics analytics;
+
+	private CitationAnalytics analytics(int parallelism) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", new SimpleMeterRegistry());
+		return new CitationAnalytics(true, Duration.ZERO, Duration.ofHours(1), 0.85, 200, 1e-10, parallelism,
+				beans.getBeanProvider(MeterRegistry.class));
+	}
+
+	private static CitationGraph.IntPairs pairs(int... values) {
+		CitationGraph.IntPairs pairs = new CitationGraph.IntPairs();
+		for(int i = 0; i < values.length; i += 2) {
+			pairs.add(values[i], values[i + 1]);
+		}
+		return pairs;
+	}
+
+	@AfterEach
+	void tearDown() {
+		if(analytics != null) {
+			analytics.stop();
+		}
+	}
+
+	@Test
+	void testPageRankOfTwoDocuments() {
+		analytics = analytics(1);
+		//1 -> 2, the rank of 2 (no references) is spread over both documents
+		CitationAnalytics.Results results = analytics.compute(new int[] {1, 2}, pairs(1, 2), new int[0], pairs());
+
+		assertEquals(0.5 / 1.425, results.pageRanks()[0], 1e-9);
+		assertEquals(1 - 0.5 / 1.425, results.pageRanks()[1], 1e-9);
+		assertArrayEquals(new int[] {0, 1}, results.citationCounts());
+	}
+
+	@Test
+	void testCitationsAndHIndex() {
+		analytics = analytics(2);
+		//duplicates and rows of unknown documents or authors are ignored
+		CitationGraph.IntPairs references = pairs(2,1, 3,1, 4,1, 3,2, 4,2, 3,1, 5,1);
+		CitationGraph.IntPairs authored = pairs(10,1, 10,2, 10,3, 11,4, 13,1);
+
+		CitationAnalytics.Results results = analytics.compute(new int[] {1, 2, 3, 4}, references,
+				new int[] {10, 11, 12}, authored);
+
+		assertArrayEquals(new int[] {3, 2, 0, 0}, results.citationCounts());
+		assertEquals(1.0, Arrays.stream(results.pageRanks()).sum(), 1e-9);
+		assertTrue(results.pageRanks()[0] > results.pageRanks()[1]);
+		assertTrue(results.pageRanks()[1] > results.pageRanks()[2]);
+		assertEquals(results.pageRanks()[2], results.pageRanks()[3], 1e-12);
+
+		assertArrayEquals(new int[] {2, 0, 0}, results.hIndexes());
+		assertArrayEquals(new long[] {5, 0, 0}, results.authorCitations());
+		assertArrayEquals(new int[] {3, 1, 0}, results.documentCounts());
+	}
+
+	@Test
+	void testHIndex() {
+		assertEquals(0, CitationAnalytics.hIndex(new int[0]));
+		assertEquals(0, CitationAnalytics.hIndex(new int[] {0, 0}));
+		assertEquals(3, CitationAnalytics.hIndex(new int[] {6, 5, 3, 1, 0}));
+		assertEquals(2, CitationAnalytics.hIndex(new int[] {10, 10}));
+	}
+
+	@Test
+	void testTop() {
+		double[] ranks = {0.1, 0.4, 0.2, 0.4, 0.3};
+		int[] ids = {10, 20, 30, 40, 50};
+
+		assertArrayEquals(new int[] {20, 40, 50}, CitationAnalytics.top(ids, 3, (a, b) -> Double.compare(ranks[b], ranks[a])));
+		assertArrayEquals(new int[] {10, 30, 50, 20, 40},
+				CitationAnalytics.top(ids, 10, (a, b) -> Double.compare(ranks[a], ranks[b])));
+		assertEquals(0, CitationAnalytics.top(new int[0], 3, (a, b) -> 0).length);
+	}
+
+	@Test
+	void testParallelIterationMatchesSequential() {
+		int documents = 5 * CitationAnalytics.TASK_THRESHOLD;
+		int[] documentIds = new int[documents];
+		Random random = new Random(7);
+		CitationGraph.IntPairs references = new CitationGraph.IntPairs();
+		for(int d = 0; d < documents; d++) {
+			documentIds[d] = d + 1;
+			for(int r = random.nextInt(4); r > 0; r--) {
+				references.add(d + 1, 1 + random.nextInt(documents));
+			}
+		}
+
+		analytics = analytics(1);
+		CitationAnalytics.Results sequential = analytics.compute(documentIds, references, new int[0], pairs());
+		analytics.stop();
+		analytics = analytics(4);
+		CitationAnalytics.Results parallel = analytics.compute(documentIds, references, new int[0], pairs());
+
+		assertArrayEquals(sequential.citationCounts(), parallel.citationCounts());
+		assertArrayEquals(sequential.pageRanks(), parallel.pageRanks(), 1e-12);
+		assertEquals(1.0, Arrays.stream(parallel.pageRanks()).sum(), 1e-9);
+		assertTrue(parallel.iterations() < 200);
+	}
+}
@@ -0,0 +1,129 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.TraversalHit;
+
+class CitationGraphTest {
+
+	private CitationGraph citationGraph;
+	
+	@BeforeEach
+	void setUp() {
+		citationGraph = new CitationGraph();
+		citationGraph.docRepo = Mockito.mock(DocumentRepo.class);
+		// 1 -> 2 -> 3 -> 4, 1 -> 3, 5 -> 3 (duplicate rows are dropped)
+		Mockito.when(citationGraph.docRepo.streamAllReferencedEntries()).thenReturn(Stream.of(
+				new Object[] {1,2}, new Object[] {2,3}, new Object[] {3,4}, new Object[] {1,3},
+				new Object[] {5,3}, new Object[] {5,3}));
+		citationGraph.rebuild();
+	}
+
+	@Test
+	void testTraverseReferences() {
+		List<TraversalHit> hits = citationGraph.traverse(1, 10, true, 100);
+		
+		assertEquals(List.of(2,3,4),hits.stream().map(TraversalHit::getDocumentID).toList());
+		assertEquals(List.of(1,1,2),hits.stream().map(TraversalHit::getDepth).toList());
+		assertEquals(2,citationGraph.traverse(1, 1, true, 100).size());
+		assertEquals(1,citationGraph.traverse(1, 10, true, 1).size());
+		assertEquals(5,citationGraph.edgeCount());
+	}
+	
+	@Test
+	void testTraverseCitingDocuments() {
+		List<TraversalHit> hits = citationGraph.traverse(3, 10, false, 100);
+		
+		assertEquals(List.of(1,2,5),hits.stream().map(TraversalHit::getDocumentID).sorted().toList());
+		assertTrue(citationGraph.traverse(42, 10, false, 100).isEmpty());
+	}
+	
+	@Test
+	void testShortestPath() {
+		assertEquals(List.of(1,3,4),citationGraph.shortestPath(1, 4, 10));
+		assertEquals(List.of(5),citationGraph.shortestPath(5, 5, 10));
+		assertTrue(citationGraph.shortestPath(4, 1, 10).isEmpty());
+		assertTrue(citationGraph.shortestPath(1, 4, 1).isEmpty());
+	}
+	
+	@Test
+	void testCitingDocumentsPages() {
+		citationGraph.addReference(4, 3);
+		citationGraph.addReference(7, 3);
+		citationGraph.removeReference(2, 3);
+		
+		assertTrue(citationGraph.isReady());
+		assertEquals(List.of(1,4,5,7),citationGraph.citingDocuments(3, 0, 10));
+		assertEquals(List.of(1,4),citationGraph.citingDocuments(3, 0, 2));
+		assertEquals(List.of(5,7),citationGraph.citingDocuments(3, 4, 2));
+		assertEquals(List.of(4,5,7),citationGraph.citingDocuments(3, 3, 10));
+		assertTrue(citationGraph.citingDocuments(3, 7, 10).isEmpty());
+		assertTrue(citationGraph.citingDocuments(1, 0, 10).isEmpty());
+	}
+	
+	@Test
+	void testIncrementalChanges() {
+		citationGraph.removeReference(1, 3);
+		assertEquals(List.of(1,2,3,4),citationGraph.shortestPath(1, 4, 10));
+		
+		citationGraph.addReference(4, 6);
+		citationGraph.addReference(1, 3);
+		citationGraph.addReference(1, 3);
+		assertEquals(List.of(1,3,4,6),citationGraph.shortestPath(1, 6, 10));
+		assertEquals(6,citationGraph.edgeCount());
+		
+		citationGraph.removeDocument(3);
+		assertEquals(List.of(2),citationGraph.traverse(1, 10, true, 100).stream()
+				.map(TraversalHit::getDocumentID).toList());
+		assertTrue(citationGraph.traverse(5, 10, true, 100).isEmpty());
+		assertEquals(2,citationGraph.edgeCount());
+		
+		citationGraph.clear();
+		assertEquals(0,citationGraph.edgeCount());
+	}
+	
+	@Test
+	void testChangesDuringRebuild() {
+		// while the rows are read, 2 -> 3 is removed (the stream still has it), 6 -> 1 is added 
+		// (the stream misses it) and document 9 is deleted (its row comes after the deletion)
+		Mockito.when(citationGraph.docRepo.streamAllReferencedEntries()).thenReturn(Stream.of(
+				new Object[] {1,2}, new Object[] {2,3}, new Object[] {9,1}).peek(row -> {
+					if((int) row[0] == 1) {
+						citationGraph.removeReference(2, 3);
+						citationGraph.addReference(6, 1);
+						citationGraph.removeDocument(9);
+					}
+				}));
+		citationGraph.rebuild();
+		
+		assertEquals(List.of(6),citationGraph.citingDocuments(1, 0, 10));
+		assertTrue(citationGraph.traverse(2, 10, true, 100).isEmpty());
+		assertEquals(2,citationGraph.edgeCount());
+		
+		// nothing is recorded once the rebuild is done
+		citationGraph.addReference(7, 1);
+		citationGraph.clear();
+		assertEquals(0,citationGraph.edgeCount());
+	}
+	
+	@Test
+	void testCompaction() {
+		for(int i = 10; i < 10 + CitationGraph.COMPACTION_THRESHOLD + 1; i++) {
+			citationGraph.addReference(i, i + 1);
+		}
+		citationGraph.removeReference(2, 3);
+		
+		assertEquals(5 + CitationGraph.COMPACTION_THRESHOLD, citationGraph.edgeCount());
+		assertEquals(CitationGraph.COMPACTION_THRESHOLD + 2,citationGraph.shortestPath(10, 
+				11 + CitationGraph.COMPACTION_THRESHOLD, CitationGraph.COMPACTION_THRESHOLD + 1).size());
+		assertEquals(List.of(1,3,4),citationGraph.shortestPath(1, 4, 10));
+	}
+}
@@ -0,0 +1,108 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.Coauthor;
+
+class CoauthorGraphTest {
+
+	private CoauthorGraph coauthorGraph;
+	
+	@BeforeEach
+	void setUp() {
+		coauthorGraph = new CoauthorGraph();
+		coauthorGraph.docRepo = Mockito.mock(DocumentRepo.class);
+		// document 10: authors 1, 2 - document 11: 1, 2, 3 - document 12: 3, 4 - document 13: 5
+		// (duplicate rows are dropped)
+		Mockito.when(coauthorGraph.docRepo.streamAllAuthoredEntries()).thenReturn(Stream.of(
+				new Object[] {10,1}, new Object[] {10,2}, new Object[] {11,1}, new Object[] {11,2},
+				new Object[] {11,3}, new Object[] {12,3}, new Object[] {12,4}, new Object[] {13,5},
+				new Object[] {12,4}));
+		coauthorGraph.rebuild();
+	}
+	
+	private static List<String> pairs(List<Coauthor> coauthors) {
+		return coauthors.stream().map(c -> c.getAuthorID()+"x"+c.getCollaborations()).toList();
+	}
+
+	@Test
+	void testCoauthors() {
+		assertTrue(coauthorGraph.isReady());
+		assertEquals(List.of("2x2","3x1"),pairs(coauthorGraph.coauthors(1, 10)));
+		assertEquals(List.of("1x1","2x1","4x1"),pairs(coauthorGraph.coauthors(3, 10)));
+		assertEquals(List.of("1x1"),pairs(coauthorGraph.coauthors(3, 1)));
+		assertTrue(coauthorGraph.coauthors(5, 10).isEmpty());
+		assertTrue(coauthorGraph.coauthors(42, 10).isEmpty());
+	}
+	
+	@Test
+	void testShortestPath() {
+		assertEquals(List.of(1,3,4),coauthorGraph.shortestPath(1, 4, 10));
+		assertEquals(List.of(4,3,1),coauthorGraph.shortestPath(4, 1, 10));
+		assertEquals(List.of(5),coauthorGraph.shortestPath(5, 5, 10));
+		assertTrue(coauthorGraph.shortestPath(1, 5, 10).isEmpty());
+		assertTrue(coauthorGraph.shortestPath(1, 4, 1).isEmpty());
+	}
+	
+	@Test
+	void testIncrementalChanges() {
+		coauthorGraph.addAuthor(13, 4);
+		coauthorGraph.addAuthor(13, 4);
+		assertEquals(List.of(1,3,4,5),coauthorGraph.shortestPath(1, 5, 10));
+		assertEquals(List.of("3x1","5x1"),pairs(coauthorGraph.coauthors(4, 10)));
+		
+		coauthorGraph.removeAuthor(11, 3);
+		assertEquals(List.of("2x2"),pairs(coauthorGraph.coauthors(1, 10)));
+		assertEquals(List.of("4x1"),pairs(coauthorGraph.coauthors(3, 10)));
+		assertTrue(coauthorGraph.shortestPath(1, 4, 10).isEmpty());
+		
+		coauthorGraph.addDocument(14, List.of(1, 3, 3));
+		assertEquals(List.of("2x2","3x1"),pairs(coauthorGraph.coauthors(1, 10)));
+		coauthorGraph.removeDocument(10);
+		assertEquals(List.of("2x1","3x1"),pairs(coauthorGraph.coauthors(1, 10)));
+		coauthorGraph.removeDocument(42);
+		
+		coauthorGraph.clear();
+		assertTrue(coauthorGraph.coauthors(1, 10).isEmpty());
+	}
+	
+	@Test
+	void testCompactionKeepsTheGraph() {
+		for(int d = 0; d <= CoauthorGraph.COMPACTION_THRESHOLD; d++) {
+			coauthorGraph.addDocument(1000 + d, List.of(6, 7));
+		}
+		coauthorGraph.removeAuthor(11, 1);
+		
+		assertEquals(List.of("7x"+(CoauthorGraph.COMPACTION_THRESHOLD+1)),pairs(coauthorGraph.coauthors(6, 10)));
+		assertEquals(List.of("2x1"),pairs(coauthorGraph.coauthors(1, 10)));
+		assertEquals(List.of(1,2,3,4),coauthorGraph.shortestPath(1, 4, 10));
+	}
+
+	@Test
+	void testChangesDuringRebuild() {
+		// while the rows are read, author 6 is added to document 10 (the stream misses it), author 2 is 
+		// removed from document 11 (the stream still has it) and document 12 is deleted before its rows come
+		Mockito.when(coauthorGraph.docRepo.streamAllAuthoredEntries()).thenReturn(Stream.of(
+				new Object[] {10,1}, new Object[] {10,2}, new Object[] {11,1}, new Object[] {11,2},
+				new Object[] {11,3}, new Object[] {12,3}, new Object[] {12,4}).peek(row -> {
+					if((int) row[0] == 10 && (int) row[1] == 2) {
+						coauthorGraph.addAuthor(10, 6);
+						coauthorGraph.removeAuthor(11, 2);
+						coauthorGraph.removeDocument(12);
+					}
+				}));
+		coauthorGraph.rebuild();
+		
+		assertEquals(List.of("1x1","6x1"),pairs(coauthorGraph.coauthors(2, 10)));
+		assertEquals(List.of("1x1"),pairs(coauthorGraph.coauthors(3, 10)));
+		assertTrue(coauthorGraph.coauthors(4, 10).isEmpty());
+	}
+}
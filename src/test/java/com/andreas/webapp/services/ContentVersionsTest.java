@@ -0,0 +1,92 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ContentVersionsTest {
+
+	private ContentVersions versions;
+	
+	@BeforeEach
+	void setUp() {
+		versions = new ContentVersions(10_000);
+	}
+
+	@Test
+	void testDocumentsChanged() {
+		String first = versions.etag(versions.document(1));
+		String other = versions.etag(versions.document(2));
+		String collection = versions.etag(versions.documentCollection());
+		
+		versions.documentsChanged(List.of(1));
+		
+		assertNotEquals(first,versions.etag(versions.document(1)));
+		assertEquals(other,versions.etag(versions.document(2)));
+		assertNotEquals(collection,versions.etag(versions.documentCollection()));
+		assertTrue(versions.etag(versions.document(1)).startsWith("W/\""));
+		assertTrue(versions.etag(versions.document(1)).endsWith("\""));
+	}
+	
+	@Test
+	void testAuthorsAndAllDocumentsChangeEveryDocument() {
+		versions.documentsChanged(List.of(1));
+		String first = versions.etag(versions.document(1));
+		String other = versions.etag(versions.document(2));
+		
+		versions.authorsChanged();
+		assertNotEquals(first,versions.etag(versions.document(1)));
+		assertNotEquals(other,versions.etag(versions.document(2)));
+		
+		first = versions.etag(versions.document(1));
+		versions.allDocumentsChanged();
+		assertNotEquals(first,versions.etag(versions.document(1)));
+		
+		//a later change of a single document is newer than the global ones
+		ContentVersions.Stamp global = versions.document(2);
+		versions.documentsChanged(List.of(2));
+		assertTrue(versions.document(2).version() > global.version());
+	}
+	
+	@Test
+	void testDocumentsCreatedOnlyChangesTheCollection() {
+		ContentVersions bounded = new ContentVersions(2);
+		String document = bounded.etag(bounded.document(1));
+		String collection = bounded.etag(bounded.documentCollection());
+		
+		for(int i = 0; i < 5; i++) {
+			bounded.documentsCreated();
+		}
+		
+		assertEquals(document,bounded.etag(bounded.document(1)));
+		assertEquals(document,bounded.etag(bounded.document(9)));
+		assertNotEquals(collection,bounded.etag(bounded.documentCollection()));
+	}
+	
+	@Test
+	void testEvictedDocumentsNeverKeepAnOldTag() {
+		ContentVersions bounded = new ContentVersions(2);
+		String unchanged = bounded.etag(bounded.document(9));
+		for(int documentID = 1; documentID <= 5; documentID++) {
+			String before = bounded.etag(bounded.document(documentID));
+			bounded.documentsChanged(List.of(documentID));
+			assertNotEquals(before,bounded.etag(bounded.document(documentID)));
+		}
+		
+		//the older documents were evicted, every document still has a tag newer than its last change
+		for(int documentID = 1; documentID <= 5; documentID++) {
+			assertTrue(bounded.document(documentID).version() >= documentID);
+		}
+		assertNotEquals(unchanged,bounded.etag(bounded.document(9)));
+	}
+	
+	@Test
+	void testTagsDifferBetweenRuns() throws InterruptedException {
+		Thread.sleep(2);
+		ContentVersions restarted = new ContentVersions(10_000);
+		assertNotEquals(versions.etag(versions.document(1)),restarted.etag(restarted.document(1)));
+	}
+}
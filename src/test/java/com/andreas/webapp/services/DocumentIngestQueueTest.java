@@ -0,0 +1,158 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.DocumentRepo;
+import com.andreas.webapp.model.BulkItemResult;
+import com.andreas.webapp.model.IngestTicket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DocumentIngestQueueTest {
+
+	final static String MOCK_PAYLOAD = "{\"documentID\":0,\"documentTitle\":\"Queued title\","
+			+ "\"documentBody\":\"Queued Body\",\"authors\":[1],\"references\":[2]}";
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final DocumentService docService = Mockito.mock(DocumentService.class);
+	private final DocumentRepo docRepo = Mockito.mock(DocumentRepo.class);
+	private final AuthorRepo authRepo = Mockito.mock(AuthorRepo.class);
+	private DocumentIngestQueue ingestQueue;
+
+	private DocumentIngestQueue ingestQueue(boolean enabled, int capacity) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", registry);
+		DocumentIngestQueue created = new DocumentIngestQueue(enabled, capacity, 1, 500, Duration.ofMinutes(1),
+				Duration.ofSeconds(5), beans.getBeanProvider(MeterRegistry.class));
+		created.docService = docService;
+		created.docRepo = docRepo;
+		created.authRepo = authRepo;
+		return created;
+	}
+
+	private void existingAuthorAndReference() {
+		Mockito.when(authRepo.findExistingAuthorIds(anyCollection())).thenReturn(Set.of(1));
+		Mockito.when(docRepo.findExistingDocumentIds(anyCollection())).thenReturn(Set.of(2));
+	}
+
+	private static InputStream asJsonStream(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if(ingestQueue != null) {
+			ingestQueue.stop();
+		}
+	}
+
+	@Test
+	void testSubmittedDocumentIsWrittenByAWorker() throws Exception {
+		existingAuthorAndReference();
+		Mockito.when(docService.createDocumentBatch(anyList())).thenReturn(List.of(BulkItemResult.created(0, 7)));
+		ingestQueue = ingestQueue(true, 10);
+		ingestQueue.start();
+
+		ResponseEntity<Object> accepted = ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD));
+
+		assertEquals(HttpStatus.ACCEPTED,accepted.getStatusCode());
+		IngestTicket ticket = (IngestTicket) accepted.getBody();
+		assertEquals("/getCreateStatus?ticket="+ticket.getTicket(),accepted.getHeaders().getLocation().toString());
+
+		IngestTicket state = ticket;
+		for(int i = 0; i < 100 && state.getStatus() == IngestTicket.Status.QUEUED; i++) {
+			Thread.sleep(50);
+			state = (IngestTicket) ingestQueue.getTicketService(ticket.getTicket()).getBody();
+		}
+		assertEquals(IngestTicket.Status.CREATED,state.getStatus());
+		assertEquals(7,state.getDocumentID());
+	}
+
+	@Test
+	void testInvalidPayloadIsRejectedInTheRequest() throws Exception {
+		Mockito.when(authRepo.findExistingAuthorIds(anyCollection())).thenReturn(Set.of());
+		Mockito.when(docRepo.findExistingDocumentIds(anyCollection())).thenReturn(Set.of(2));
+		ingestQueue = ingestQueue(true, 10);
+		ingestQueue.start();
+
+		ResponseEntity<Object> result = ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD));
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		assertTrue(result.getBody().toString().startsWith("At least one author listed is not in the system!"));
+
+		result = ingestQueue.submitService(asJsonStream("{\"documentTitle\":"));
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		result = ingestQueue.submitService(null);
+		assertEquals("The payload cannot be empty to create a new document!",result.getBody());
+		Mockito.verify(docService,Mockito.never()).createDocumentBatch(anyList());
+	}
+
+	@Test
+	void testFullQueueRefusesSubmissions() throws Exception {
+		existingAuthorAndReference();
+		//the worker blocks in its first batch, so the next submission fills the queue
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(docService.createDocumentBatch(anyList())).thenAnswer(invocation -> {
+			writing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return List.of(BulkItemResult.created(0, 7));
+		});
+		ingestQueue = ingestQueue(true, 1);
+		ingestQueue.start();
+
+		assertEquals(HttpStatus.ACCEPTED,ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD)).getStatusCode());
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		assertEquals(HttpStatus.ACCEPTED,ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD)).getStatusCode());
+
+		ResponseEntity<Object> refused = ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,refused.getStatusCode());
+		assertEquals("1",refused.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(1,registry.get("krieger.ingest.refused").counter().count());
+		assertEquals(1,registry.get("krieger.ingest.queue.size").gauge().value());
+		release.countDown();
+	}
+
+	@Test
+	void testFailedBatchFailsItsTickets() throws Exception {
+		Mockito.when(docService.createDocumentBatch(anyList())).thenThrow(new IllegalStateException("broken"));
+		ingestQueue = ingestQueue(true, 10);
+
+		ingestQueue.write(List.of(new DocumentIngestQueue.Submission("t-1", null)));
+
+		IngestTicket ticket = (IngestTicket) ingestQueue.getTicketService("t-1").getBody();
+		assertEquals(IngestTicket.Status.FAILED,ticket.getStatus());
+		assertEquals(HttpStatus.NOT_FOUND,ingestQueue.getTicketService("unknown").getStatusCode());
+	}
+
+	@Test
+	void testDisabledQueueAcceptsNothing() throws Exception {
+		existingAuthorAndReference();
+		ingestQueue = ingestQueue(false, 10);
+		ingestQueue.start();
+
+		assertFalse(ingestQueue.isEnabled());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+				ingestQueue.submitService(asJsonStream(MOCK_PAYLOAD)).getStatusCode());
+	}
+}
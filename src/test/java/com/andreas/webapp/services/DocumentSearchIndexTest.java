@@ -0,0 +1,115 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.andreas.webapp.dao.DocumentRepo;
+
+import com.andreas.webapp.model.SearchHit;
+
+class DocumentSearchIndexTest {
+
+	private DocumentSearchIndex searchIndex;
+	
+	@BeforeEach
+	void setUp() {
+		searchIndex = new DocumentSearchIndex();
+		searchIndex.indexDocument(1, "Generic title", "A body about databases and indexes");
+		searchIndex.indexDocument(2, "Databases", "Databases everywhere, databases all the time");
+		searchIndex.indexDocument(3, "Spare title", "Nothing to see here");
+	}
+
+	@Test
+	void testSearchRanksBestMatchFirst() {
+		List<SearchHit> hits = searchIndex.search("databases", 10);
+		
+		assertEquals(2,hits.size());
+		assertEquals(2,hits.get(0).getDocumentID());
+		assertEquals("Databases",hits.get(0).getDocumentTitle());
+		assertEquals(1,hits.get(1).getDocumentID());
+		assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+	}
+	
+	@Test
+	void testSearchIsCaseInsensitiveAndLimited() {
+		List<SearchHit> hits = searchIndex.search("TITLE", 1);
+		assertEquals(1,hits.size());
+		
+		assertTrue(searchIndex.search("unknown", 10).isEmpty());
+		assertTrue(searchIndex.search("", 10).isEmpty());
+	}
+
+	@Test
+	void testIndexDocumentReplacesOldEntry() {
+		searchIndex.indexDocument(3, "Spare title", "Now it is about databases");
+		assertEquals(3,searchIndex.search("databases", 10).size());
+		
+		searchIndex.indexDocument(3, "Spare title", "Nothing again");
+		assertEquals(2,searchIndex.search("databases", 10).size());
+		assertEquals(3,searchIndex.size());
+	}
+	
+	@Test
+	void testRemoveDocumentAndClear() {
+		searchIndex.removeDocument(2);
+		List<SearchHit> hits = searchIndex.search("databases", 10);
+		assertEquals(1,hits.size());
+		assertEquals(1,hits.get(0).getDocumentID());
+		
+		searchIndex.clear();
+		assertEquals(0,searchIndex.size());
+		assertTrue(searchIndex.search("title", 10).isEmpty());
+	}
+	
+	@Test
+	void testRebuildKeepsChangesMadeMeanwhile() {
+		// while the rows are read, document 1 is deleted before its row comes, and 4 is created
+		searchIndex.docRepo = Mockito.mock(DocumentRepo.class);
+		Mockito.doAnswer(invocation -> {
+			DocumentRepo.TextHandler handler = invocation.getArgument(0);
+			searchIndex.removeDocument(1);
+			searchIndex.indexDocument(4, "Fresh title", "Fresh databases");
+			handler.handle(1, "Generic title", "A body about databases and indexes");
+			handler.handle(2, "Databases", "Databases everywhere, databases all the time");
+			return null;
+		}).when(searchIndex.docRepo).forEachText(Mockito.any());
+		assertFalse(searchIndex.isReady());
+		
+		searchIndex.rebuild();
+		
+		assertTrue(searchIndex.isReady());
+		assertEquals(List.of(2,4),searchIndex.search("databases", 10).stream().map(SearchHit::getDocumentID).toList());
+		assertEquals(2,searchIndex.size());
+	}
+	
+	@Test
+	void testPostings() {
+		DocumentSearchIndex.Postings postings = new DocumentSearchIndex.Postings("term");
+		postings.put(5, 1);
+		postings.put(9, 2);
+		postings.put(7, 3);
+		postings.put(9, 4);
+		assertEquals(3,postings.count());
+		assertArrayEquals(new int[] {5,7,9},Arrays.copyOf(postings.documentIDs, postings.size));
+		
+		postings.remove(7);
+		postings.remove(7);
+		assertEquals(2,postings.count());
+		postings.remove(5);
+		// more than half removed, the arrays are compacted
+		assertEquals(1,postings.size);
+		assertEquals(4,postings.frequencies[0]);
+	}
+	
+	@Test
+	void testTokenize() {
+		assertEquals(List.of("hello","world","42"),DocumentSearchIndex.tokenize("Hello, World! 42"));
+		assertTrue(DocumentSearchIndex.tokenize(null).isEmpty());
+	}
+}
@@ -3,6 +3,12 @@ package com.andreas.webapp.services;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -11,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -18,16 +25,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.andreas.webapp.dao.AuthorRepo;
+import com.andreas.webapp.dao.CitationMetricsRepo;
 import com.andreas.webapp.dao.DocumentRepo;
 import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.BulkItemResult;
 import com.andreas.webapp.model.Document;
+import com.andreas.webapp.model.DocumentListing;
+import com.andreas.webapp.model.DocumentMetrics;
+import com.andreas.webapp.model.DocumentPayload;
+import com.andreas.webapp.model.DocumentTitleView;
+import com.andreas.webapp.model.KeysetPage;
+import com.andreas.webapp.model.LinkBatchResult;
+import com.andreas.webapp.model.SearchHit;
+import com.andreas.webapp.model.TraversalHit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.persistence.EntityManager;
+
 @ExtendWith(MockitoExtension.class)
 class DocumentServiceTest {
 	
@@ -35,6 +57,20 @@ class DocumentServiceTest {
     private DocumentRepo docRepo;
 	@Mock
     private AuthorRepo authRepo;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private DocumentSearchIndex searchIndex;
+	@Mock
+	private CitationMetricsRepo metricsRepo;
+	@Spy
+	private EntityCache entityCache = new EntityCache(100, Duration.ofMinutes(1));
+	@Spy
+	private CitationGraph citationGraph = new CitationGraph();
+	@Spy
+	private CoauthorGraph coauthorGraph = new CoauthorGraph();
+	@Spy
+	private ContentVersions versions = new ContentVersions(10_000);
 
     @InjectMocks
     private DocumentService docService;
@@ -97,13 +133,11 @@ class DocumentServiceTest {
 		Mockito.when(this.docRepo.existsById(any(Integer.class))).thenReturn(true);
 		Mockito.when(this.authRepo.existsById(any(Integer.class))).thenReturn(true);
 		
-		Mockito.when(docRepo.findById(1)).thenReturn(Optional.of(MOCK_DOCUMENT_BASIC));
-		
-		Mockito.when(authRepo.findById(1)).thenReturn(Optional.of(MOCK_AUTHOR1));
-		Mockito.when(authRepo.findById(2)).thenReturn(Optional.of(MOCK_AUTHOR2));
+		Mockito.when(docRepo.findAllById(any())).thenReturn(Arrays.asList(MOCK_DOCUMENT_BASIC));
+		Mockito.when(authRepo.findAllById(any())).thenReturn(MOCK_AUTHORS);
 		
 		
-		ResponseEntity<Object> result = docService.createDocumentService(MOCK_PAYLOAD);
+		ResponseEntity<Object> result = docService.createDocumentService(asJsonStream(MOCK_PAYLOAD));
 		
 		
 		Document d = (Document) result.getBody();
@@ -116,63 +150,132 @@ class DocumentServiceTest {
 		
 		//checks for missing document-ID
 		PAYLOAD_MAP.remove("documentID");
-		ResponseEntity<Object> result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		ResponseEntity<Object> result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"DocumentID, Document title, and document body must be "
 				+ "included in the payload!");
 		
 		//checks for missing document-Title
 		PAYLOAD_MAP.remove("documentTitle");
 		PAYLOAD_MAP.put("documentID", 3);
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"DocumentID, Document title, and document body must be "
 				+ "included in the payload!");
 		
 		//checks for missing document-Body
 		PAYLOAD_MAP.remove("documentBody");
 		PAYLOAD_MAP.put("documentTitle", "Generic title");
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"DocumentID, Document title, and document body must be "
 				+ "included in the payload!");
 		
 		//checks for missing author-List
 		PAYLOAD_MAP.put("documentBody", "Generic Body");
 		PAYLOAD_MAP.remove("authors");
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"A list with at least one author-ID must be "
 				+ "included in the payload!");
 		
 		//checks for empty author-List
 		PAYLOAD_MAP.put("authors", new HashSet<>());
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"The author list must not be empty! Please make sure at"
 				+ " least one valid author-ID included in the payload!");
 		
 		//invalid Author-ID in author-list
 		Mockito.when(this.authRepo.existsById(any(Integer.class))).thenReturn(false);
 		PAYLOAD_MAP.put("authors", AUTHOR_SET);
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"At least one author listed is not in the system! Please "
 				+ "make sure all listed authored have been registered in the system!");
 
 		//invalid Document-ID in reference-list
 		Mockito.when(this.docRepo.existsById(any(Integer.class))).thenReturn(false);
 		Mockito.when(this.authRepo.existsById(any(Integer.class))).thenReturn(true);
-		result = docService.createDocumentService(asJsonString(PAYLOAD_MAP));
+		result = docService.createDocumentService(asJsonStream(asJsonString(PAYLOAD_MAP)));
 		assertEquals(result.getBody().toString(),"At least one document listed as reference is not in the system! "
 				+ "Please make sure all listed documents have been registered in the system!");
+		
+		//empty and malformed payloads
+		result = docService.createDocumentService(asJsonStream(""));
+		assertEquals(result.getBody().toString(),"The payload cannot be empty to create a new document!");
+		result = docService.createDocumentService(asJsonStream("{\"documentID\": 3,"));
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		assertTrue(result.getBody().toString().startsWith("The payload is not valid JSON"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testCreateDocumentsService() throws Exception {
+		Map<String,Object> unknownAuthor = new HashMap<>(PAYLOAD_MAP);
+		unknownAuthor.put("authors", Set.of(1,7));
+		Map<String,Object> noReferences = new HashMap<>(PAYLOAD_MAP);
+		noReferences.remove("references");
+		String ndjson = asJsonString(PAYLOAD_MAP)+"\n"+asJsonString(unknownAuthor)+"\n"
+				+asJsonString(noReferences)+"\n";
+		
+		Mockito.when(authRepo.findExistingAuthorIds(Set.of(1,2,7))).thenReturn(Set.of(1,2));
+		Mockito.when(docRepo.findExistingDocumentIds(Set.of(1))).thenReturn(Set.of(1));
+		Mockito.when(docRepo.insertDocumentsBatch(any())).thenReturn(Arrays.asList(10,11));
+		
+		ResponseEntity<Object> result = docService.createDocumentsService(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+		List<BulkItemResult> report = (List<BulkItemResult>) result.getBody();
+		
+		assertEquals(3,report.size());
+		assertEquals(BulkItemResult.Status.CREATED,report.get(0).getStatus());
+		assertEquals(10,report.get(0).getDocumentID());
+		assertEquals(BulkItemResult.Status.REJECTED,report.get(1).getStatus());
+		assertEquals(1,report.get(1).getIndex());
+		assertEquals(11,report.get(2).getDocumentID());
+		
+		//a JSON array is accepted as well
+		String array = "["+asJsonString(noReferences)+"]";
+		Mockito.when(authRepo.findExistingAuthorIds(Set.of(1,2))).thenReturn(Set.of(1,2));
+		Mockito.when(docRepo.insertDocumentsBatch(any())).thenReturn(Arrays.asList(12));
+		report = (List<BulkItemResult>) docService.createDocumentsService(
+				new ByteArrayInputStream(array.getBytes(StandardCharsets.UTF_8))).getBody();
+		assertEquals(1,report.size());
+		assertEquals(12,report.get(0).getDocumentID());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testCreateDocumentsServiceMalformed() throws Exception {
+		String ndjson = "{\"documentID\":1,\"documentTitle\":\"t\"}\n{broken";
+		
+		ResponseEntity<Object> result = docService.createDocumentsService(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+		List<BulkItemResult> report = (List<BulkItemResult>) result.getBody();
+		
+		assertEquals(2,report.size());
+		assertEquals("DocumentID, Document title, and document body must be "
+				+ "included in the payload!",report.get(0).getMessage());
+		assertEquals(BulkItemResult.Status.REJECTED,report.get(1).getStatus());
+		Mockito.verify(docRepo,Mockito.never()).insertDocumentsBatch(any());
+	}
+	
+	@Test
+	void testReadPayload() throws Exception {
+		String payload = "{\"documentID\":3,\"documentTitle\":\"Generic title\",\"documentBody\":\"abcdefghijklmnop\","
+				+ "\"authors\":[1,2],\"references\":[1]}";
+		DocumentPayload item = DocumentService.readPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+		
+		assertEquals(3,item.getDocumentID());
+		assertEquals(16,item.getDocumentBody().length());
+		assertEquals(2,item.getAuthors().size());
+		assertNull(DocumentService.readPayload(InputStream.nullInputStream()));
 	}
 
 	@Test
 	void testGetDocumentByIdService() throws Exception {
 		Mockito.when(this.docRepo.findById(MOCK_ID)).thenReturn(Optional.of(
 				new Document(3,"Generic title","Generic Body")));
-		Mockito.when(docRepo.findById(1)).thenReturn(Optional.of(MOCK_DOCUMENT_BASIC));
-		
-		Mockito.when(authRepo.findById(1)).thenReturn(Optional.of(MOCK_AUTHOR1));
-		Mockito.when(authRepo.findById(2)).thenReturn(Optional.of(MOCK_AUTHOR2));
+		Mockito.when(docRepo.findAllById(REFERENCE_SET)).thenReturn(Arrays.asList(MOCK_DOCUMENT_BASIC));
+		Mockito.when(authRepo.findAllById(AUTHOR_SET)).thenReturn(MOCK_AUTHORS);
 		
 		Mockito.when(docRepo.findAuthorsOfDocument(MOCK_ID)).thenReturn(AUTHOR_SET);
 		Mockito.when(docRepo.findReferencesOfDocument(MOCK_ID)).thenReturn(REFERENCE_SET);	
+		Mockito.when(docRepo.findBody(MOCK_ID)).thenReturn("Generic Body");
 		
 		ResponseEntity<Object> result = this.docService.getDocumentByIdService(MOCK_ID);
 		
@@ -181,25 +284,422 @@ class DocumentServiceTest {
 		
 	}
 	
+	@Test
+	void testGetDocumentBodyService() throws Exception {
+		byte[] body = "Generic Body".getBytes(StandardCharsets.UTF_8);
+		Mockito.when(docRepo.findBodyLength(MOCK_ID)).thenReturn((long) body.length);
+		Mockito.when(docRepo.findBodyRange(MOCK_ID, 0, body.length)).thenReturn(body);
+		Mockito.when(docRepo.findBodyRange(MOCK_ID, 8, 4)).thenReturn("Body".getBytes(StandardCharsets.UTF_8));
+		
+		ResponseEntity<Object> result = docService.getDocumentBodyService(MOCK_ID, null);
+		assertEquals(HttpStatus.OK,result.getStatusCode());
+		assertArrayEquals(body,(byte[]) result.getBody());
+		assertEquals("bytes",result.getHeaders().getFirst("Accept-Ranges"));
+		
+		//the last 4 bytes, as an explicit range and as a suffix
+		for(String range:List.of("bytes=8-","bytes=8-100","bytes=-4")) {
+			result = docService.getDocumentBodyService(MOCK_ID, range);
+			assertEquals(HttpStatus.PARTIAL_CONTENT,result.getStatusCode());
+			assertEquals("bytes 8-11/12",result.getHeaders().getFirst("Content-Range"));
+			assertEquals("Body",new String((byte[]) result.getBody(),StandardCharsets.UTF_8));
+		}
+		
+		//several ranges or a malformed header get the whole body
+		assertEquals(HttpStatus.OK,docService.getDocumentBodyService(MOCK_ID, "bytes=0-1,4-5").getStatusCode());
+		assertEquals(HttpStatus.OK,docService.getDocumentBodyService(MOCK_ID, "lines=1-2").getStatusCode());
+		
+		result = docService.getDocumentBodyService(MOCK_ID, "bytes=12-20");
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,result.getStatusCode());
+		assertEquals("bytes */12",result.getHeaders().getFirst("Content-Range"));
+	}
+	
+	@Test
+	void testGetDocumentBodyServiceInvalid() throws Exception {
+		Mockito.when(docRepo.findBodyLength(4)).thenReturn(-1L);
+		
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getDocumentBodyService(0, null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND,docService.getDocumentBodyService(4, "bytes=0-10").getStatusCode());
+		Mockito.verify(docRepo,Mockito.never()).findBodyRange(Mockito.anyInt(), Mockito.anyLong(), Mockito.anyInt());
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Test
 	void testGetAllDocumentsService() throws Exception {
-		Mockito.when(this.docRepo.findAll()).thenReturn(DOCUMENT_LIST);
-		
-		Mockito.when(docRepo.findAuthorsOfDocument(any(Integer.class))).thenReturn(AUTHOR_SET);
-		Mockito.when(authRepo.findById(1)).thenReturn(Optional.of(MOCK_AUTHOR1));
-		Mockito.when(authRepo.findById(2)).thenReturn(Optional.of(MOCK_AUTHOR2));
-		
-		Mockito.when(docRepo.findReferencesOfDocument(any(Integer.class))).thenReturn(REFERENCE_SET);
-		Mockito.when(docRepo.findById(1)).thenReturn(Optional.of(MOCK_DOCUMENT_BASIC));
+		List<Document> documents = Arrays.asList(new Document(1,"Mock title","Mock Body"),
+				new Document(2,"Spare title","Spare Body"),new Document(3,"Generic title","Generic Body"));
+		Mockito.when(this.docRepo.findAll()).thenReturn(documents);
+		
+		List<Object[]> authoredRows = new ArrayList<>();
+		authoredRows.add(new Object[] {3,1});
+		authoredRows.add(new Object[] {3,2});
+		authoredRows.add(new Object[] {2,2});
+		List<Object[]> referencedRows = new ArrayList<>();
+		referencedRows.add(new Object[] {3,1});
+		
+		Mockito.when(docRepo.findAllAuthoredEntries()).thenReturn(authoredRows);
+		Mockito.when(docRepo.findAllReferencedEntries()).thenReturn(referencedRows);
+		Mockito.when(authRepo.findAllById(AUTHOR_SET)).thenReturn(MOCK_AUTHORS);
+		Mockito.when(docRepo.findAllBodies()).thenReturn(Map.of(1,"Mock Body",2,"Spare Body",3,"Generic Body"));
 		
 		ResponseEntity<Object> result = this.docService.getAllDocumentsService();
 		List<Document> docList = (List<Document>) result.getBody();
 		
 		assertEquals(3,docList.size());
+		assertEquals("Generic Body",docList.get(2).getDocumentBody());
+		assertEquals(MOCK_DOCUMENT_FULL.getAuthors(),docList.get(2).getAuthors());
+		//a reference is shown without its body
+		assertEquals(Set.of(new Document(1,"Mock title",null)),docList.get(2).getReferences());
+		assertEquals(1,docList.get(1).getAuthors().size());
+		assertTrue(docList.get(0).getAuthors().isEmpty());
+		//every document is already loaded, so no reference has to be fetched again
+		Mockito.verify(docRepo,Mockito.never()).findAllById(any());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetDocumentListingService() throws Exception {
+		Mockito.when(this.docRepo.findAllTitles()).thenReturn(List.of(titleView(1,"Mock title"),
+				titleView(3,"Generic title")));
+		List<Object[]> authoredRows = new ArrayList<>();
+		authoredRows.add(new Object[] {3,2});
+		authoredRows.add(new Object[] {3,1});
+		Mockito.when(docRepo.findAllAuthoredEntries()).thenReturn(authoredRows);
+		
+		ResponseEntity<Object> result = this.docService.getDocumentListingService(Set.of("id","title","authorIds"));
+		List<DocumentListing> listing = (List<DocumentListing>) result.getBody();
+		
+		assertEquals(HttpStatus.OK,result.getStatusCode());
+		assertEquals(2,listing.size());
+		assertEquals(3,listing.get(1).getDocumentID());
+		assertEquals("Generic title",listing.get(1).getDocumentTitle());
+		assertEquals(List.of(1,2),listing.get(1).getAuthorIds());
+		assertTrue(listing.get(0).getAuthorIds().isEmpty());
+		assertNull(listing.get(0).getDocumentBody());
+		assertNull(listing.get(0).getReferenceIds());
+		//neither bodies, entities nor the references are read
+		Mockito.verify(docRepo,Mockito.never()).findAllBodies();
+		Mockito.verify(docRepo,Mockito.never()).findAll();
+		Mockito.verify(docRepo,Mockito.never()).findAllReferencedEntries();
+	}
+	
+	@Test
+	void testGetDocumentListingServiceUnknownField() throws Exception {
+		assertEquals(HttpStatus.BAD_REQUEST,
+				this.docService.getDocumentListingService(Set.of("id","password")).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,this.docService.getDocumentListingService(Set.of()).getStatusCode());
+		Mockito.verifyNoInteractions(docRepo);
+	}
+	
+	private static DocumentTitleView titleView(int documentID, String documentTitle) {
+		return new DocumentTitleView() {
+			@Override
+			public int getDocumentID() {
+				return documentID;
+			}
+			@Override
+			public String getDocumentTitle() {
+				return documentTitle;
+			}
+		};
 	}
 
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetDocumentsPageService() throws Exception {
+		List<Document> documents = Arrays.asList(new Document(2,"Spare title","Spare Body"),
+				new Document(3,"Generic title","Generic Body"));
+		Mockito.when(docRepo.findPageAfter(1, 2)).thenReturn(documents);
+		
+		List<Object[]> authoredRows = new ArrayList<>();
+		authoredRows.add(new Object[] {3,1});
+		Mockito.when(docRepo.findAuthoredEntriesOfDocuments(List.of(2,3))).thenReturn(authoredRows);
+		Mockito.when(docRepo.findReferencedEntriesOfDocuments(List.of(2,3))).thenReturn(new ArrayList<>());
+		Mockito.when(authRepo.findAllById(Set.of(1))).thenReturn(Arrays.asList(MOCK_AUTHOR1));
+		
+		ResponseEntity<Object> result = docService.getDocumentsPageService(1, 2);
+		KeysetPage<Document> page = (KeysetPage<Document>) result.getBody();
+		
+		assertEquals(2,page.getItems().size());
+		assertEquals(3,page.getNextAfterID());
+		assertEquals(Set.of(MOCK_AUTHOR1),page.getItems().get(1).getAuthors());
+		
+		//a page that is not full is the last one
+		Mockito.when(docRepo.findPageAfter(3, 2)).thenReturn(new ArrayList<>());
+		page = (KeysetPage<Document>) docService.getDocumentsPageService(3, 2).getBody();
+		assertTrue(page.getItems().isEmpty());
+		assertNull(page.getNextAfterID());
+	}
+	
+	@Test
+	void testGetDocumentsPageServiceInvalid() throws Exception {
+		ResponseEntity<Object> result = docService.getDocumentsPageService(0, 0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		
+		result = docService.getDocumentsPageService(-1, 10);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	@Test
+	void testStreamAllDocumentsService() throws Exception {
+		List<Document> documents = Arrays.asList(new Document(1,"Mock title","Mock Body"),
+				new Document(2,"Spare title","Spare Body"));
+		Mockito.when(docRepo.streamAllOrdered()).thenReturn(documents.stream());
+		Mockito.when(docRepo.findAuthoredEntriesOfDocuments(any())).thenReturn(new ArrayList<>());
+		Mockito.when(docRepo.findReferencedEntriesOfDocuments(any())).thenReturn(new ArrayList<>());
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		docService.streamAllDocumentsService(out);
+		
+		String[] lines = out.toString().split("\n");
+		assertEquals(2,lines.length);
+		assertTrue(lines[0].contains("\"documentTitle\":\"Mock title\""));
+		assertTrue(lines[1].contains("\"documentID\":2"));
+		Mockito.verify(entityManager).clear();
+	}
+	
+	@Test
+	void testSearchDocumentsService() throws Exception {
+		List<SearchHit> hits = Arrays.asList(new SearchHit(3,"Generic title",1.5));
+		Mockito.when(searchIndex.search("generic", 10)).thenReturn(hits);
+		
+		ResponseEntity<Object> result = docService.searchDocumentsService("generic", 10);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,result.getStatusCode());
+		
+		Mockito.when(searchIndex.isReady()).thenReturn(true);
+		result = docService.searchDocumentsService("generic", 10);
+		assertEquals(hits,result.getBody());
+		
+		result = docService.searchDocumentsService(" ", 10);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		result = docService.searchDocumentsService("generic", 0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	@Test
+	void testGetDocumentMetricsService() throws Exception {
+		DocumentMetrics metrics = new DocumentMetrics(3, 2, 0.25, Instant.EPOCH);
+		Mockito.when(metricsRepo.findDocumentMetrics(3)).thenReturn(Optional.of(metrics));
+		
+		ResponseEntity<Object> result = docService.getDocumentMetricsService(3);
+		assertEquals(metrics,result.getBody());
+		
+		result = docService.getDocumentMetricsService(4);
+		assertEquals(HttpStatus.NOT_FOUND,result.getStatusCode());
+		result = docService.getDocumentMetricsService(0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	@Test
+	void testGetTopDocumentsService() throws Exception {
+		List<DocumentMetrics> top = Arrays.asList(new DocumentMetrics(3, 2, 0.25, Instant.EPOCH));
+		Mockito.when(metricsRepo.findTopDocuments(false, 5)).thenReturn(top);
+		
+		ResponseEntity<Object> result = docService.getTopDocumentsService("citations", 5);
+		assertEquals(top,result.getBody());
+		
+		result = docService.getTopDocumentsService("title", 5);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+		result = docService.getTopDocumentsService("pageRank", 0);
+		assertEquals(HttpStatus.BAD_REQUEST,result.getStatusCode());
+	}
+	
+	@Test
+	void testAddAuthorsToDocumentService() throws Exception {
+		Mockito.when(docRepo.existsById(2)).thenReturn(true);
+		Mockito.when(authRepo.findExistingAuthorIds(Set.of(1,3,4))).thenReturn(Set.of(1,3));
+		Mockito.when(docRepo.findAuthorsOfDocumentAmong(2, Set.of(1,3,4))).thenReturn(Set.of(1));
+		Mockito.when(docRepo.insertAuthoredBatch(2, List.of(3))).thenReturn(List.of(3));
+		
+		ResponseEntity<Object> result = docService.addAuthorsToDocumentService(2, List.of(1,3,4,3));
+		
+		assertEquals(HttpStatus.OK, result.getStatusCode());
+		LinkBatchResult batch = (LinkBatchResult) result.getBody();
+		assertEquals(List.of(3),batch.getChanged());
+		assertEquals(List.of(1),batch.getUnchanged());
+		assertEquals(List.of(4),batch.getNotFound());
+	}
+	
+	@Test
+	void testRemoveReferencesFromDocumentService() throws Exception {
+		Mockito.when(docRepo.existsById(3)).thenReturn(true);
+		Mockito.when(docRepo.findReferencesOfDocumentAmong(3, Set.of(1,2))).thenReturn(Set.of(1));
+		Mockito.when(docRepo.deleteReferencedBatch(3, Set.of(1))).thenReturn(List.of(1));
+		
+		ResponseEntity<Object> result = docService.removeReferencesFromDocumentService(3, List.of(1,2));
+		
+		LinkBatchResult batch = (LinkBatchResult) result.getBody();
+		assertEquals(List.of(1),batch.getChanged());
+		assertEquals(List.of(2),batch.getUnchanged());
+		assertTrue(batch.getNotFound().isEmpty());
+		Mockito.verify(citationGraph).removeReference(3, 1);
+	}
+	
+	@Test
+	void testLinkBatchChangesGraphsAfterCommit() throws Exception {
+		Mockito.when(docRepo.existsById(4)).thenReturn(true);
+		Mockito.when(docRepo.findExistingDocumentIds(Set.of(1))).thenReturn(Set.of(1));
+		Mockito.when(docRepo.findReferencesOfDocumentAmong(4, Set.of(1))).thenReturn(Set.of());
+		Mockito.when(docRepo.insertReferencedBatch(4, List.of(1))).thenReturn(List.of(1));
+		Mockito.when(authRepo.findExistingAuthorIds(Set.of(7))).thenReturn(Set.of(7));
+		Mockito.when(docRepo.findAuthorsOfDocumentAmong(4, Set.of(7))).thenReturn(Set.of());
+		Mockito.when(docRepo.insertAuthoredBatch(4, List.of(7))).thenReturn(List.of(7));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			docService.addReferencesToDocumentService(4, List.of(1));
+			docService.addAuthorsToDocumentService(4, List.of(7));
+			Mockito.verify(citationGraph,Mockito.never()).addReference(4, 1);
+			Mockito.verify(coauthorGraph,Mockito.never()).addDocument(4, List.of(7));
+			
+			for(TransactionSynchronization sync:TransactionSynchronizationManager.getSynchronizations()) {
+				sync.afterCommit();
+			}
+		}finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		Mockito.verify(citationGraph).addReference(4, 1);
+		Mockito.verify(coauthorGraph).addDocument(4, List.of(7));
+	}
+	
+	@Test
+	void testLinkBatchValidation() throws Exception {
+		assertEquals(HttpStatus.BAD_REQUEST, docService.addReferencesToDocumentService(0, List.of(1)).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, docService.addReferencesToDocumentService(3, List.of()).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, docService.removeAuthorsFromDocumentService(3, List.of(1,-1)).getStatusCode());
+		
+		Mockito.when(docRepo.existsById(3)).thenReturn(false);
+		assertEquals(HttpStatus.NOT_FOUND, docService.addReferencesToDocumentService(3, List.of(1)).getStatusCode());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testCitationTraversalServices() throws Exception {
+		//while the graph is being built there is no answer yet, an empty one would be wrong
+		ResponseEntity<Object> notReady = docService.getReferenceTreeService(3, 5, 100);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,notReady.getStatusCode());
+		assertEquals("5",notReady.getHeaders().getFirst("Retry-After"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,docService.getCitationTreeService(1, 1, 100).getStatusCode());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,docService.getCitationPathService(3, 1).getStatusCode());
+		
+		citationGraph.docRepo = docRepo;
+		Mockito.when(docRepo.streamAllReferencedEntries()).thenReturn(Stream.empty());
+		citationGraph.rebuild();
+		Mockito.when(docRepo.insertIntoReferencedIfAbsent(any(Integer.class),any(Integer.class))).thenReturn(1);
+		docService.addReferenceToDocumentService(3, 2);
+		docService.addReferenceToDocumentService(2, 1);
+		
+		ResponseEntity<Object> result = docService.getReferenceTreeService(3, 5, 100);
+		List<TraversalHit> hits = (List<TraversalHit>) result.getBody();
+		assertEquals(2,hits.size());
+		assertEquals(2,hits.get(0).getDocumentID());
+		assertEquals(2,hits.get(1).getDepth());
+		
+		result = docService.getCitationTreeService(1, 1, 100);
+		hits = (List<TraversalHit>) result.getBody();
+		assertEquals(1,hits.size());
+		assertEquals(2,hits.get(0).getDocumentID());
+		
+		result = docService.getCitationPathService(3, 1);
+		assertEquals(Arrays.asList(3,2,1),result.getBody());
+		result = docService.getCitationPathService(1, 3);
+		assertEquals(HttpStatus.NOT_FOUND,result.getStatusCode());
+		
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getReferenceTreeService(0, 1, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getReferenceTreeService(3, 0, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getCitationTreeService(3, 1, 0).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getCitationPathService(-1, 3).getStatusCode());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetCitingDocumentsService() throws Exception {
+		//while the graph is not built, the database index is used
+		Mockito.when(docRepo.findCitingDocumentIds(1, 0, 2)).thenReturn(Arrays.asList(2,3));
+		Mockito.when(docRepo.findAllById(any())).thenReturn(Arrays.asList(MOCK_DOCUMENT_SPARE,MOCK_DOCUMENT_FULL));
+		
+		ResponseEntity<Object> result = docService.getCitingDocumentsService(1, 0, 2);
+		KeysetPage<Document> page = (KeysetPage<Document>) result.getBody();
+		assertEquals(Arrays.asList(2,3),page.getItems().stream().map(Document::getDocumentID).toList());
+		assertEquals(3,page.getNextAfterID());
+		
+		//afterwards the reverse index of the graph, the documents now come from the cache
+		citationGraph.docRepo = docRepo;
+		Mockito.when(docRepo.streamAllReferencedEntries()).thenReturn(Stream.of(
+				new Object[] {2,1}, new Object[] {3,1}));
+		citationGraph.rebuild();
+		result = docService.getCitingDocumentsService(1, 2, 2);
+		page = (KeysetPage<Document>) result.getBody();
+		assertEquals(1,page.getItems().size());
+		assertEquals("Generic title",page.getItems().get(0).getDocumentTitle());
+		assertNull(page.getNextAfterID());
+		Mockito.verify(docRepo,Mockito.times(1)).findAllById(any());
+		
+		Mockito.when(docRepo.existsById(42)).thenReturn(false);
+		assertEquals(HttpStatus.NOT_FOUND,docService.getCitingDocumentsService(42, 0, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getCitingDocumentsService(0, 0, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getCitingDocumentsService(1, -1, 10).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getCitingDocumentsService(1, 0, 0).getStatusCode());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetDocumentsOfAuthorService() throws Exception {
+		Mockito.when(docRepo.findPageOfAuthor(1, 0, 2, false)).thenReturn(Arrays.asList(
+				new DocumentListing(2,"Spare title",null,null,null), new DocumentListing(3,"Generic title",null,null,null)));
+		
+		ResponseEntity<Object> result = docService.getDocumentsOfAuthorService(1, 0, 2, false);
+		KeysetPage<DocumentListing> page = (KeysetPage<DocumentListing>) result.getBody();
+		assertEquals(2,page.getItems().size());
+		assertEquals(3,page.getNextAfterID());
+		
+		Mockito.when(docRepo.findPageOfAuthor(1, 3, 2, true)).thenReturn(Arrays.asList(
+				new DocumentListing(5,"Full title","Full Body",null,null)));
+		page = (KeysetPage<DocumentListing>) docService.getDocumentsOfAuthorService(1, 3, 2, true).getBody();
+		assertEquals("Full Body",page.getItems().get(0).getDocumentBody());
+		assertNull(page.getNextAfterID());
+		
+		Mockito.when(docRepo.findPageOfAuthor(42, 0, 10, false)).thenReturn(new ArrayList<>());
+		Mockito.when(authRepo.existsById(42)).thenReturn(false);
+		assertEquals(HttpStatus.NOT_FOUND,docService.getDocumentsOfAuthorService(42, 0, 10, false).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getDocumentsOfAuthorService(0, 0, 10, false).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getDocumentsOfAuthorService(1, -1, 10, false).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.getDocumentsOfAuthorService(1, 0, 1001, false).getStatusCode());
+	}
+	
+	@Test
+	void testGetDocumentByIdServiceIsCached() throws Exception {
+		Mockito.when(this.docRepo.findById(MOCK_ID)).thenReturn(Optional.of(
+				new Document(3,"Generic title","Generic Body")));
+		Mockito.when(docRepo.findAuthorsOfDocument(MOCK_ID)).thenReturn(new HashSet<>());
+		Mockito.when(docRepo.findReferencesOfDocument(MOCK_ID)).thenReturn(new HashSet<>());
+		
+		docService.getDocumentByIdService(MOCK_ID);
+		ResponseEntity<Object> result = docService.getDocumentByIdService(MOCK_ID);
+		
+		assertEquals("Generic title",((Document) result.getBody()).getDocumentTitle());
+		Mockito.verify(docRepo,Mockito.times(1)).findById(MOCK_ID);
+		
+		//a changed title invalidates the cached entry
+		Mockito.when(this.docRepo.save(any(Document.class))).thenReturn(
+				new Document(3,"Updated title","Generic Body"));
+		docService.updateDocumentTitleService(MOCK_ID, "Updated title");
+		Mockito.when(this.docRepo.findById(MOCK_ID)).thenReturn(Optional.of(
+				new Document(3,"Updated title","Generic Body")));
+		result = docService.getDocumentByIdService(MOCK_ID);
+		assertEquals("Updated title",((Document) result.getBody()).getDocumentTitle());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testGetCacheStatsService() throws Exception {
+		ResponseEntity<Object> result = docService.getCacheStatsService();
+		Map<String,Object> stats = (Map<String,Object>) result.getBody();
+		
+		assertTrue(stats.containsKey("authors"));
+		assertTrue(stats.containsKey("documents"));
+	}
+	
 	@Test
 	void testDeleteDocumentByIDService() throws Exception {
 		Mockito.when(docRepo.existsById(MOCK_ID)).thenReturn(true);
@@ -207,6 +707,8 @@ class DocumentServiceTest {
 		ResponseEntity<Object> result = docService.deleteDocumentByIDService(MOCK_ID);
 		String s = (String) result.getBody();
 		assertEquals(s,"Document successfully deleted!");
+		Mockito.verify(searchIndex).removeDocument(MOCK_ID);
+		Mockito.verify(coauthorGraph).removeDocument(MOCK_ID);
 	}
 	
 	@Test
@@ -223,6 +725,47 @@ class DocumentServiceTest {
 		ResponseEntity<Object> result = docService.deleteAllDocumentsService();
 		String s = (String) result.getBody();
 		assertEquals(s,"All Documents successfully deleted!");
+		Mockito.verify(docRepo).truncateDocumentChildren();
+		Mockito.verify(docRepo,Mockito.never()).deleteAll();
+	}
+	
+	@Test
+	void testDeleteDocumentsServiceByRange() throws Exception {
+		Mockito.doReturn(true).when(citationGraph).isReady();
+		citationGraph.addReference(7, 3);
+		coauthorGraph.addDocument(3, List.of(1, 2));
+		Mockito.when(docRepo.findIdsInRange(1, 10, DocumentService.BULK_CHUNK_SIZE)).thenReturn(List.of(2, 3));
+		Mockito.when(docRepo.findIdsInRange(4, 10, DocumentService.BULK_CHUNK_SIZE)).thenReturn(List.of());
+		Mockito.when(docRepo.deleteDocumentsChunk(List.of(2, 3))).thenReturn(2);
+		
+		ResponseEntity<Object> result = docService.deleteDocumentsService(1, 10, null);
+		assertEquals("Documents successfully deleted: 2",result.getBody());
+		Mockito.verify(searchIndex).removeDocument(3);
+		Mockito.verify(coauthorGraph).removeDocument(3);
+		//document 7 lost its reference to 3
+		Mockito.verify(entityCache).invalidateDocument(7);
+		assertTrue(citationGraph.traverse(7, 1, true, 10).isEmpty());
+	}
+	
+	@Test
+	void testDeleteDocumentsServiceByList() throws Exception {
+		Mockito.when(docRepo.findExistingDocumentIds(List.of(1, 3))).thenReturn(Set.of(3));
+		Mockito.when(docRepo.deleteDocumentsChunk(List.of(3))).thenReturn(1);
+		
+		ResponseEntity<Object> result = docService.deleteDocumentsService(null, null, List.of(3, 1, 3));
+		assertEquals("Documents successfully deleted: 1",result.getBody());
+		Mockito.verify(searchIndex).removeDocument(3);
+		Mockito.verify(searchIndex,Mockito.never()).removeDocument(1);
+	}
+	
+	@Test
+	void testDeleteDocumentsServiceInvalid() throws Exception {
+		assertEquals(HttpStatus.BAD_REQUEST,docService.deleteDocumentsService(null, null, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.deleteDocumentsService(1, 5, List.of(2)).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.deleteDocumentsService(5, 1, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.deleteDocumentsService(1, null, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,docService.deleteDocumentsService(null, null, List.of(0)).getStatusCode());
+		Mockito.verify(docRepo,Mockito.never()).deleteDocumentsChunk(any());
 	}
 
 	
@@ -232,12 +775,14 @@ class DocumentServiceTest {
 
 		Document newDocument = new Document(2,"Updated title","Spare Body");
 		Mockito.when(this.docRepo.save(any(Document.class))).thenReturn(newDocument);
+		Mockito.when(this.docRepo.findBody(2)).thenReturn("Spare Body");
 		
 		ResponseEntity<Object> result = docService.updateDocumentTitleService(2, "Updated title");
 		
 		Document resultDoc = (Document) result.getBody();
 		assertEquals(newDocument,resultDoc);
 		assertEquals("Updated title",resultDoc.getDocumentTitle());		
+		Mockito.verify(searchIndex).indexDocument(2, "Updated title", "Spare Body");
 	}
 
 	
@@ -250,44 +795,76 @@ class DocumentServiceTest {
 		
 		Document newDocument = new Document(2,"Spare title","Updated Body");
 		
-		Mockito.when(this.docRepo.findById(2)).thenReturn(Optional.of(MOCK_DOCUMENT_SPARE));
-		Mockito.when(this.docRepo.save(any(Document.class))).thenReturn(newDocument);
+		Mockito.when(this.docRepo.findById(2)).thenReturn(Optional.of(new Document(2,"Spare title","Spare Body")));
 		
-		ResponseEntity<Object> result = docService.updateDocumentBodyService(asJsonString(newPayload));
+		ResponseEntity<Object> result = docService.updateDocumentBodyService(asJsonStream(asJsonString(newPayload)));
 		
 		Document d = (Document) result.getBody();
 		
 		assertEquals(d,newDocument);
+		//only the body is written, the document row stays as it is
+		Mockito.verify(docRepo).saveBody(2, "Updated Body");
+		Mockito.verify(docRepo,Mockito.never()).save(any());
+		//the citing documents don't contain the body, only the document itself changed
+		Mockito.verify(versions).documentsChanged(List.of(2));
+		Mockito.verify(versions,Mockito.never()).allDocumentsChanged();
+		
+		newPayload.remove("documentBody");
+		result = docService.updateDocumentBodyService(asJsonStream(asJsonString(newPayload)));
+		assertEquals(result.getBody().toString(),"DocumentID and Document-Body must be included in the payload!");
+		result = docService.updateDocumentBodyService(null);
+		assertEquals(result.getBody().toString(),"The payload cannot be empty to update a document!");
 	}
 
 	
 	@Test
 	void testAddAuthorToDocumentService() throws Exception {
-		Mockito.when(docRepo.findAuthorsOfDocument(2)).thenReturn(new HashSet<>());
+		Mockito.when(docRepo.insertIntoAuthoredIfAbsent(1, 2)).thenReturn(1);
 		ResponseEntity<Object> result = docService.addAuthorToDocumentService(2, 1);
 		
 		String s = (String) result.getBody();
 		
 		assertEquals(s,"Author successfully added as author to document!");
+		Mockito.verify(coauthorGraph).addAuthor(2, 1);
+	}
+	
+	@Test
+	void testAddAuthorToDocumentServiceAlreadyCredited() throws Exception {
+		Mockito.when(docRepo.insertIntoAuthoredIfAbsent(1, 2)).thenReturn(0);
+		ResponseEntity<Object> result = docService.addAuthorToDocumentService(2, 1);
 		
+		assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+		assertEquals("The author will not be added. He already is credited as an author!",result.getBody());
+		Mockito.verify(coauthorGraph, Mockito.never()).addAuthor(2, 1);
 	}
 	
 	
 	@Test
 	void testRemoveAuthorFromDocumentService() throws Exception {
-		Mockito.when(docRepo.findAuthorsOfDocument(2)).thenReturn(AUTHOR_SET);
+		Mockito.when(docRepo.deleteAuthoredEntries(2, 1)).thenReturn(1);
 		
 		ResponseEntity<Object> result = docService.removeAuthorFromDocumentService(2, 1);
 		
 		String s = (String) result.getBody();
 		
 		assertEquals(s,"Author successfully removed as author from Document!");
+		Mockito.verify(coauthorGraph).removeAuthor(2, 1);
+	}
+	
+	@Test
+	void testRemoveAuthorFromDocumentServiceNotCredited() throws Exception {
+		Mockito.when(docRepo.deleteAuthoredEntries(2, 1)).thenReturn(0);
+		
+		ResponseEntity<Object> result = docService.removeAuthorFromDocumentService(2, 1);
+		
+		assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+		assertEquals("The author is not credited, and can therefore not be removed!",result.getBody());
 	}
 
 	
 	@Test
 	void testAddReferenceToDocumentService() throws Exception {
-		Mockito.when(docRepo.findReferencesOfDocument(2)).thenReturn(new HashSet<>());
+		Mockito.when(docRepo.insertIntoReferencedIfAbsent(2, 1)).thenReturn(1);
 		
 		ResponseEntity<Object> result = docService.addReferenceToDocumentService(2, 1);
 		
@@ -296,19 +873,45 @@ class DocumentServiceTest {
 		assertEquals(s,"Document successfully added as reference!");
 		
 	}
+	
+	@Test
+	void testAddReferenceToDocumentServiceAlreadyListed() throws Exception {
+		Mockito.when(docRepo.insertIntoReferencedIfAbsent(2, 1)).thenReturn(0);
+		
+		ResponseEntity<Object> result = docService.addReferenceToDocumentService(2, 1);
+		
+		assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+		assertEquals("The reference is already listed, and can therefore not be added!",result.getBody());
+		Mockito.verify(citationGraph, Mockito.never()).addReference(2, 1);
+	}
 
 	
 	@Test
 	void testRemoveReferenceFromDocumentService() throws Exception {
-		Mockito.when(docRepo.findReferencesOfDocument(2)).thenReturn(REFERENCE_SET);
+		Mockito.when(docRepo.deleteReferencesEntries(2, 1)).thenReturn(1);
 		ResponseEntity<Object> result = docService.removeReferenceFromDocumentService(2, 1);
 		
 		String s = (String) result.getBody();
 		
 		assertEquals(s,"Document successfully removed as reference!");
+		Mockito.verify(citationGraph).removeReference(2, 1);
+	}
+	
+	@Test
+	void testRemoveReferenceFromDocumentServiceNotListed() throws Exception {
+		Mockito.when(docRepo.deleteReferencesEntries(2, 1)).thenReturn(0);
+		ResponseEntity<Object> result = docService.removeReferenceFromDocumentService(2, 1);
+		
+		assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+		assertEquals("The reference is not listed, and can therefore not be removed!",result.getBody());
+		Mockito.verify(citationGraph, Mockito.never()).removeReference(2, 1);
 	}
 	
 	
+	public static InputStream asJsonStream(final String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+	
 	public static String asJsonString(final Object obj) {
 	    try {
 	        return new ObjectMapper().writeValueAsString(obj);
@@ -0,0 +1,98 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.andreas.webapp.model.Author;
+import com.andreas.webapp.model.Document;
+
+class EntityCacheTest {
+
+	final static Author MOCK_AUTHOR1 = new Author(1,"Joe","Generic");
+	final static Author MOCK_AUTHOR2 = new Author(2,"Max","Musterman");
+	
+	private EntityCache entityCache;
+	private AtomicInteger loads;
+	
+	@BeforeEach
+	void setUp() {
+		entityCache = new EntityCache(100, Duration.ofMinutes(1));
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void testFindAuthorReadsThrough() {
+		Optional<Author> first = entityCache.findAuthor(1, id -> {
+			loads.incrementAndGet();
+			return Optional.of(MOCK_AUTHOR1);
+		});
+		Optional<Author> second = entityCache.findAuthor(1, id -> {
+			loads.incrementAndGet();
+			return Optional.of(MOCK_AUTHOR1);
+		});
+		
+		assertEquals(MOCK_AUTHOR1,first.get());
+		assertEquals(MOCK_AUTHOR1,second.get());
+		assertEquals(1,loads.get());
+		//copies are handed out, so the cached entry can't be changed from outside
+		assertNotSame(first.get(),second.get());
+		first.get().setFirstName("Changed");
+		assertEquals("Joe",entityCache.findAuthor(1, id -> Optional.empty()).get().getFirstName());
+		
+		entityCache.invalidateAuthor(1);
+		assertTrue(entityCache.findAuthor(1, id -> Optional.empty()).isEmpty());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testFindAuthorsLoadsOnlyMisses() {
+		entityCache.findAuthor(1, id -> Optional.of(MOCK_AUTHOR1));
+		
+		List<Set<Integer>> requested = new ArrayList<>();
+		Map<Integer,Author> result = entityCache.findAuthors(List.of(1,2,3), missing -> {
+			requested.add(missing);
+			return List.of(MOCK_AUTHOR2);
+		});
+		
+		assertEquals(Set.of(1,2),result.keySet());
+		assertEquals(List.of(Set.of(2,3)),requested);
+		
+		Map<String,Object> authorStats = (Map<String,Object>) entityCache.stats().get("authors");
+		assertEquals(2L,authorStats.get("size"));
+		assertEquals(1L,authorStats.get("hits"));
+	}
+	
+	@Test
+	void testFindDocumentsAndInvalidateAll() {
+		Document dcmnt = new Document(5,"Generic title","Generic Body");
+		Map<Integer,Document> result = entityCache.findDocuments(List.of(5), missing -> List.of(dcmnt));
+		assertEquals(dcmnt,result.get(5));
+		assertEquals(dcmnt,entityCache.findDocument(5, id -> Optional.empty()).get());
+		
+		entityCache.invalidateAllDocuments();
+		assertTrue(entityCache.findDocument(5, id -> Optional.empty()).isEmpty());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	void testSizeIsBounded() {
+		EntityCache smallCache = new EntityCache(10, Duration.ofMinutes(1));
+		for(int i = 1; i <= 100; i++) {
+			smallCache.findAuthor(i, id -> Optional.of(new Author(id,"Joe","Generic")));
+		}
+		smallCache.findAuthor(1, id -> Optional.empty());
+		
+		Map<String,Object> authorStats = (Map<String,Object>) smallCache.stats().get("authors");
+		assertTrue((Long) authorStats.get("evictions") > 0);
+	}
+}
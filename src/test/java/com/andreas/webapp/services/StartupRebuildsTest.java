@@ -0,0 +1,71 @@
+package com.andreas.webapp.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.actuate.health.Status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StartupRebuildsTest {
+
+	private SimpleMeterRegistry registry;
+	private DocumentSearchIndex searchIndex;
+	private CitationGraph citationGraph;
+	private StartupRebuilds rebuilds;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", registry);
+		searchIndex = Mockito.mock(DocumentSearchIndex.class);
+		citationGraph = Mockito.mock(CitationGraph.class);
+		rebuilds = new StartupRebuilds(Mockito.mock(AuthorNameIndex.class), citationGraph, 
+				Mockito.mock(CoauthorGraph.class), searchIndex, Duration.ofMillis(300),
+				beans.getBeanProvider(MeterRegistry.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		rebuilds.stop();
+	}
+
+	@Test
+	void testAllRebuildsRunOnce() {
+		rebuilds.start();
+		
+		assertEquals(Status.UP,rebuilds.health().getStatus());
+		assertEquals(StartupRebuilds.READY,rebuilds.state("documentSearchIndex"));
+		assertEquals(4,rebuilds.health().getDetails().size());
+		Mockito.verify(searchIndex).rebuild();
+	}
+
+	@Test
+	void testFailedRebuildIsReportedAndRetried() throws Exception {
+		Mockito.doThrow(new OutOfMemoryError("Java heap space")).doNothing().when(searchIndex).rebuild();
+		
+		rebuilds.start();
+		
+		//the other structures are built regardless
+		assertEquals(StartupRebuilds.READY,rebuilds.state("citationGraph"));
+		assertTrue(rebuilds.state("documentSearchIndex").contains("Java heap space"));
+		assertEquals(Status.DOWN,rebuilds.health().getStatus());
+		assertEquals(1.0,registry.get("krieger.rebuild.failures").counter().count());
+		
+		for(int i = 0; i < 100 && !StartupRebuilds.READY.equals(rebuilds.state("documentSearchIndex")); i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(StartupRebuilds.READY,rebuilds.state("documentSearchIndex"));
+		assertEquals(Status.UP,rebuilds.health().getStatus());
+		Mockito.verify(searchIndex,Mockito.times(2)).rebuild();
+		Mockito.verify(citationGraph).rebuild();
+	}
+}